@@ -0,0 +1,619 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.LongFunction;
+
+/** A graph that adapts its representation to its density.  Each vertex
+ *  keeps arrays of its outgoing and (if directed) incoming edges, which
+ *  are compact for sparse graphs.  A vertex whose out-degree passes
+ *  DEGREE_THRESHOLD also gets a bit-set row recording which vertices it
+ *  has edges to, so that contains(u, v) takes constant time; and once
+ *  the graph as a whole is dense enough that such rows cost less than
+ *  the edge arrays themselves, every vertex gets one, making the rows an
+ *  adjacency matrix.  Rows are dropped again as vertices or the graph
+ *  thin out.  These changes are invisible except in time and space.
+ *
+ *  The order of the edges delivered by outEdges, inEdges, successors and
+ *  predecessors may change when edges are removed.
+ *  @author Andrew Berger
+ */
+public class AdaptiveGraph<VLabel, ELabel> extends Graph<VLabel, ELabel> {
+
+    /** An empty graph, directed iff DIRECTED. */
+    public AdaptiveGraph(boolean directed) {
+        _directed = directed;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexCount;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeCount;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(Vertex v) {
+        return slot(v)._out.size();
+    }
+
+    @Override
+    public int inDegree(Vertex v) {
+        return incoming(slot(v)).size();
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v) {
+        Slot from = slot(u), to = slot(v);
+        if (from._row != null) {
+            return from._row.get(v.getId());
+        } else if (!_directed && to._row != null) {
+            return to._row.get(u.getId());
+        }
+        ArrayList<Edge> in = incoming(to);
+        if (from._out.size() <= in.size()) {
+            return find(from._out, u, v, null, false) != null;
+        }
+        return find(in, v, u, null, false) != null;
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v, ELabel label) {
+        Slot from = slot(u);
+        if (from._row != null && !from._row.get(v.getId())) {
+            return false;
+        }
+        return find(from._out, u, v, label, true) != null;
+    }
+
+    @Override
+    public Vertex add(VLabel label) {
+        Vertex v = new Vertex(label, _nextVertexId);
+        vertexAdding(v);
+        if (_nextVertexId == _position.length) {
+            _position = Arrays.copyOf(_position, 2 * _nextVertexId);
+        }
+        _position[_nextVertexId] = _slots.size();
+        _nextVertexId += 1;
+        Slot s = new Slot(v);
+        if (_dense) {
+            s._row = new BitSet();
+        }
+        _slots.add(s);
+        _vertexCount += 1;
+        vertexAdded(v);
+        adapt();
+        return v;
+    }
+
+    @Override
+    public Edge add(Vertex from, Vertex to, ELabel label) {
+        Slot s0 = slot(from), s1 = slot(to);
+        Edge e = new Edge(from, to, label, _nextEdgeId);
+        _nextEdgeId += 1;
+        edgeAdding(e);
+        s0._out.add(e);
+        s0._owned += 1;
+        if (_directed) {
+            s1._in.add(e);
+        } else if (s0 != s1) {
+            s1._out.add(e);
+        }
+        link(s0, to);
+        if (!_directed) {
+            link(s1, from);
+        }
+        _edgeCount += 1;
+        edgeAdded(e);
+        adapt();
+        return e;
+    }
+
+    @Override
+    public void remove(Vertex v) {
+        int k = _position[index(v)];
+        if (k < 0) {
+            return;
+        }
+        Slot s = _slots.get(k);
+        vertexRemoved(v);
+        ArrayList<Edge> incident = new ArrayList<Edge>(s._out);
+        if (_directed) {
+            incident.addAll(s._in);
+        }
+        for (Edge e : incident) {
+            if (unlink(e)) {
+                edgeRemoved(e);
+            }
+        }
+        _slots.set(k, null);
+        _position[v.getId()] = -1;
+        _vertexCount -= 1;
+        adapt();
+    }
+
+    @Override
+    public void remove(Edge e) {
+        if (unlink(e)) {
+            edgeRemoved(e);
+            adapt();
+        }
+    }
+
+    @Override
+    public void remove(Vertex v1, Vertex v2) {
+        Slot from = slot(v1);
+        if (from._row != null && !from._row.get(v2.getId())) {
+            return;
+        }
+        for (Edge e = find(from._out, v1, v2, null, false); e != null;
+             e = find(from._out, v1, v2, null, false)) {
+            remove(e);
+        }
+    }
+
+    @Override
+    public Iteration<Vertex> vertices() {
+        return checked(new Iteration<Vertex>() {
+            @Override
+            public boolean hasNext() {
+                advance();
+                return _next < _slots.size();
+            }
+
+            @Override
+            public Vertex next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _next += 1;
+                return _slots.get(_next - 1)._vertex;
+            }
+
+            /** Skips _next past removed vertices. */
+            private void advance() {
+                while (_next < _slots.size() && _slots.get(_next) == null) {
+                    _next += 1;
+                }
+            }
+
+            /** Index of the next slot to examine. */
+            private int _next;
+        });
+    }
+
+    @Override
+    public Iteration<Vertex> successors(Vertex v) {
+        return checked(new Ends(slot(v)._out, v));
+    }
+
+    @Override
+    public Iteration<Vertex> predecessors(Vertex v) {
+        return checked(new Ends(incoming(slot(v)), v));
+    }
+
+    @Override
+    Spliterator<Vertex> vertexSpliterator() {
+        if (_vertexCount < _slots.size()) {
+            return new SlotSpliterator<Vertex>(
+                this, _slots.size(), new SlotSpliterator.Slots<Vertex>() {
+                    @Override
+                    public int count(int s) {
+                        return _slots.get(s) == null ? 0 : 1;
+                    }
+
+                    @Override
+                    public int size(int s) {
+                        return count(s);
+                    }
+
+                    @Override
+                    public Vertex get(int s, int k) {
+                        return _slots.get(s)._vertex;
+                    }
+                });
+        }
+        return new RangeSpliterator<Vertex>(this, 0, _slots.size(),
+                                            new LongFunction<Vertex>() {
+                @Override
+                public Vertex apply(long k) {
+                    return _slots.get((int) k)._vertex;
+                }
+            });
+    }
+
+    @Override
+    Spliterator<Edge> edgeSpliterator() {
+        if (_order != null) {
+            final ArrayList<Edge> all = sortedEdges();
+            return new RangeSpliterator<Edge>(this, 0, all.size(),
+                                              new LongFunction<Edge>() {
+                    @Override
+                    public Edge apply(long k) {
+                        return all.get((int) k);
+                    }
+                });
+        }
+        return new SlotSpliterator<Edge>(this, _slots.size(),
+                                         new SlotSpliterator.Slots<Edge>() {
+                @Override
+                public int count(int s) {
+                    return _slots.get(s) == null ? 0 : _slots.get(s)._owned;
+                }
+
+                @Override
+                public int size(int s) {
+                    return _slots.get(s) == null ? 0
+                        : _slots.get(s)._out.size();
+                }
+
+                @Override
+                public Edge get(int s, int k) {
+                    Slot slot = _slots.get(s);
+                    Edge e = slot._out.get(k);
+                    return _directed || e.getV0().equals(slot._vertex)
+                        ? e : null;
+                }
+            });
+    }
+
+    @Override
+    public Iteration<Edge> edges() {
+        if (_order == null) {
+            return checked(new AllEdges());
+        }
+        return checked(Iteration.iteration(sortedEdges().iterator()));
+    }
+
+    @Override
+    public Iteration<Edge> outEdges(Vertex v) {
+        return checked(Iteration.iteration(slot(v)._out.iterator()));
+    }
+
+    @Override
+    public Iteration<Edge> inEdges(Vertex v) {
+        return checked(Iteration.iteration(incoming(slot(v)).iterator()));
+    }
+
+    @Override
+    public void orderEdges(Comparator<ELabel> comparator) {
+        _order = comparator;
+    }
+
+    @Override
+    boolean concurrentlyReadable() {
+        return true;
+    }
+
+    /** Moves the slots of my vertices into ORDER, dropping the places of
+     *  removed vertices, so that neighbors in ORDER are neighbors in my
+     *  slot table.  Vertex ids do not change, being independent of
+     *  positions in the table, so handles on my vertices, and
+     *  collections keyed by them, stay valid. */
+    @Override
+    boolean permute(List<Vertex> order) {
+        ArrayList<Slot> slots = new ArrayList<Slot>(order.size());
+        for (Vertex v : order) {
+            slots.add(slot(v));
+        }
+        _slots.clear();
+        _slots.addAll(slots);
+        for (int k = 0; k < slots.size(); k += 1) {
+            _position[slots.get(k)._vertex.getId()] = k;
+        }
+        return true;
+    }
+
+    @Override
+    void measure(Footprint f) {
+        super.measure(f);
+        long slot = Footprint.object(5, Integer.BYTES);
+        for (Slot s : _slots) {
+            if (s == null) {
+                continue;
+            }
+            f.add(Footprint.ADJACENCY_LISTS,
+                  slot + Footprint.arrayList(s._out.size())
+                  + (_directed ? Footprint.arrayList(s._in.size()) : 0));
+            if (s._row != null) {
+                f.add(Footprint.MATRIX_CELLS,
+                      Footprint.object(1, Integer.BYTES + 1)
+                      + Footprint.array(s._row.size() / Long.SIZE,
+                                        Long.BYTES));
+            }
+        }
+        f.add(Footprint.INDEX_MAPS, Footprint.arrayList(_slots.size())
+              + Footprint.array(_position.length, Integer.BYTES));
+    }
+
+    /** Returns the number of my vertices that have bit-set rows. */
+    int rows() {
+        int n = 0;
+        for (Slot s : _slots) {
+            if (s != null && s._row != null) {
+                n += 1;
+            }
+        }
+        return n;
+    }
+
+    /** Returns true iff I am currently dense enough that every vertex
+     *  has a row. */
+    boolean isDense() {
+        return _dense;
+    }
+
+    /** Returns a list of my edges sorted by _order. */
+    private ArrayList<Edge> sortedEdges() {
+        ArrayList<Edge> all = new ArrayList<Edge>(_edgeCount);
+        for (Edge e : new AllEdges()) {
+            all.add(e);
+        }
+        final Comparator<ELabel> order = _order;
+        Collections.sort(all, new Comparator<Edge>() {
+            @Override
+            public int compare(Edge e0, Edge e1) {
+                return order.compare(e0.getLabel(), e1.getLabel());
+            }
+        });
+        return all;
+    }
+
+    /** Returns the edges entering the vertex at S. */
+    private ArrayList<Edge> incoming(Slot s) {
+        return _directed ? s._in : s._out;
+    }
+
+    /** Returns the first edge in EDGES, all incident on U, whose other end
+     *  is V and, if CHECKLABEL, whose label is LABEL; or null if there is
+     *  none. */
+    private Edge find(ArrayList<Edge> edges, Vertex u, Vertex v,
+                      ELabel label, boolean checkLabel) {
+        for (Edge e : edges) {
+            if (!e.getV(u).equals(v)) {
+                continue;
+            }
+            Object other = e.getLabel();
+            if (!checkLabel
+                || (label == null ? other == null : label.equals(other))) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /** Records in S's row, if any, an edge to V, and gives S a row if its
+     *  degree has grown past DEGREE_THRESHOLD. */
+    private void link(Slot s, Vertex v) {
+        if (s._row != null) {
+            s._row.set(v.getId());
+        } else if (s._out.size() > DEGREE_THRESHOLD) {
+            fillRow(s);
+        }
+    }
+
+    /** Removes E from me, returning true iff it was present. */
+    private boolean unlink(Edge e) {
+        Vertex v0 = e.getV0(), v1 = e.getV1();
+        Slot s0 = slot(v0), s1 = slot(v1);
+        if (!removeFrom(s0._out, e)) {
+            return false;
+        }
+        s0._owned -= 1;
+        if (_directed) {
+            removeFrom(s1._in, e);
+        } else if (s0 != s1) {
+            removeFrom(s1._out, e);
+        }
+        _edgeCount -= 1;
+        unlinkRow(s0, v0, v1);
+        if (!_directed) {
+            unlinkRow(s1, v1, v0);
+        }
+        return true;
+    }
+
+    /** Updates the row of S, the slot of U, after an edge from U to V
+     *  has been removed, dropping it if S's degree has fallen well below
+     *  DEGREE_THRESHOLD and I am not dense. */
+    private void unlinkRow(Slot s, Vertex u, Vertex v) {
+        if (s._row == null) {
+            return;
+        } else if (!_dense && s._out.size() < DEGREE_THRESHOLD / 2) {
+            s._row = null;
+        } else if (find(s._out, u, v, null, false) == null) {
+            s._row.clear(v.getId());
+        }
+    }
+
+    /** Gives S a row describing its current edges. */
+    private void fillRow(Slot s) {
+        s._row = new BitSet();
+        for (Edge e : s._out) {
+            s._row.set(e.getV(s._vertex).getId());
+        }
+    }
+
+    /** Removes E from EDGES, moving the last edge into its place.
+     *  Returns true iff E was present. */
+    private static boolean removeFrom(ArrayList<?> edges, Object e) {
+        int i = edges.indexOf(e);
+        if (i < 0) {
+            return false;
+        }
+        int last = edges.size() - 1;
+        Collections.swap(edges, i, last);
+        edges.remove(last);
+        return true;
+    }
+
+    /** Switches between sparse and dense representations if my density
+     *  has passed either threshold. */
+    private void adapt() {
+        long cells = (long) _vertexCount * _vertexCount;
+        if (!_dense && (long) _edgeCount * DENSE_RATIO > cells) {
+            _dense = true;
+            for (Slot s : _slots) {
+                if (s != null && s._row == null) {
+                    fillRow(s);
+                }
+            }
+        } else if (_dense && (long) _edgeCount * SPARSE_RATIO < cells) {
+            _dense = false;
+            for (Slot s : _slots) {
+                if (s != null && s._out.size() <= DEGREE_THRESHOLD) {
+                    s._row = null;
+                }
+            }
+        }
+    }
+
+    /** Returns the id of V, which must be one of my vertices, present
+     *  or removed. */
+    private int index(Vertex v) {
+        if (v.graph() != this || v.getId() >= _nextVertexId) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        return v.getId();
+    }
+
+    /** Returns the slot of V, one of my vertices. */
+    private Slot slot(Vertex v) {
+        int k = _position[index(v)];
+        if (k < 0) {
+            throw new IllegalArgumentException("vertex has been removed");
+        }
+        return _slots.get(k);
+    }
+
+    /** The adjacency information for one vertex. */
+    private final class Slot {
+        /** Adjacency information for V, which has no edges. */
+        Slot(Vertex v) {
+            _vertex = v;
+            _in = _directed ? new ArrayList<Edge>(0) : null;
+        }
+
+        /** My vertex. */
+        private final Vertex _vertex;
+        /** Edges leaving (or, if undirected, incident on) my vertex. */
+        private final ArrayList<Edge> _out = new ArrayList<Edge>(0);
+        /** Edges entering my vertex, if directed; else null. */
+        private final ArrayList<Edge> _in;
+        /** The ids of the vertices at the other ends of _out, or null. */
+        private BitSet _row;
+        /** The number of edges in _out that leave my vertex (all of them,
+         *  if directed), and so are delivered with it by edges(). */
+        private int _owned;
+    }
+
+    /** The vertices at the far ends of a list of edges. */
+    private final class Ends extends Iteration<Vertex> {
+        /** The ends away from V of EDGES, all incident on V. */
+        Ends(ArrayList<Edge> edges, Vertex v) {
+            _edges = edges.iterator();
+            _v = v;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _edges.hasNext();
+        }
+
+        @Override
+        public Vertex next() {
+            return _edges.next().getV(_v);
+        }
+
+        /** The remaining edges. */
+        private final Iterator<Edge> _edges;
+        /** The near end of my edges. */
+        private final Vertex _v;
+    }
+
+    /** All my edges, each once, in no particular order. */
+    private final class AllEdges extends Iteration<Edge> {
+        @Override
+        public boolean hasNext() {
+            while (_next == null && _slot < _slots.size()) {
+                Slot s = _slots.get(_slot);
+                if (s != null && _k < s._out.size()) {
+                    Edge e = s._out.get(_k);
+                    _k += 1;
+                    if (_directed || e.getV0().equals(s._vertex)) {
+                        _next = e;
+                    }
+                } else {
+                    _slot += 1;
+                    _k = 0;
+                }
+            }
+            return _next != null;
+        }
+
+        @Override
+        public Edge next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Edge e = _next;
+            _next = null;
+            return e;
+        }
+
+        /** Index of the slot being scanned. */
+        private int _slot;
+        /** Position of the next edge to examine in that slot. */
+        private int _k;
+        /** The next edge to deliver, or null if not yet found. */
+        private Edge _next;
+    }
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** Adjacency information, in the order of vertices(); null for
+     *  removed vertices. */
+    private final ArrayList<Slot> _slots = new ArrayList<Slot>();
+    /** The position in _slots of the vertex with each id, or -1 if it
+     *  has been removed. */
+    private int[] _position = new int[INITIAL_VERTICES];
+    /** Id of the next vertex added. */
+    private int _nextVertexId;
+    /** Number of vertices present. */
+    private int _vertexCount;
+    /** Number of edges present. */
+    private int _edgeCount;
+    /** Id of the next edge added. */
+    private int _nextEdgeId;
+    /** True iff every vertex has a row. */
+    private boolean _dense;
+    /** Order in which edges() delivers edges, or null. */
+    private Comparator<ELabel> _order;
+
+    /** Initial capacity of _position. */
+    private static final int INITIAL_VERTICES = 16;
+    /** Out-degree past which a vertex gets a row. */
+    static final int DEGREE_THRESHOLD = 32;
+    /** I become dense when edges * DENSE_RATIO exceeds vertices squared,
+     *  that is, when a row of bits per vertex costs less than the edge
+     *  references it indexes. */
+    private static final int DENSE_RATIO = 64;
+    /** I cease to be dense when edges * SPARSE_RATIO falls below
+     *  vertices squared. */
+    private static final int SPARSE_RATIO = 128;
+}
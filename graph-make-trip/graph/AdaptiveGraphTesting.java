@@ -0,0 +1,281 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for AdaptiveGraph.
+ *  @author Andrew Berger
+ */
+public class AdaptiveGraphTesting {
+
+    /** Returns a key for the unordered or (if DIRECTED) ordered pair of
+     *  vertex labels U, V. */
+    private String pair(int u, int v, boolean directed) {
+        if (!directed && u > v) {
+            return v + "-" + u;
+        }
+        return u + "-" + v;
+    }
+
+    /** Applies random additions and removals to an AdaptiveGraph, directed
+     *  iff DIRECTED, checking it against a count of edges by pair. */
+    private void randomOperations(boolean directed) {
+        Random r = new Random(11);
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(directed);
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        HashMap<String, Integer> model = new HashMap<String, Integer>();
+        int edges = 0;
+        boolean sawDense = false;
+        for (int i = 0; i < 40; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int step = 0; step < 4000; step += 1) {
+            int u = r.nextInt(40), v = r.nextInt(40);
+            String key = pair(u, v, directed);
+            Integer count = model.get(key);
+            count = count == null ? 0 : count;
+            boolean adding = step < 2000 ? r.nextInt(4) != 0
+                : r.nextInt(4) == 0;
+            if (adding) {
+                g.add(vs.get(u), vs.get(v), step);
+                model.put(key, count + 1);
+                edges += 1;
+            } else if (count > 0) {
+                g.remove(vs.get(u), vs.get(v));
+                model.put(key, 0);
+                edges -= count;
+            }
+            sawDense |= g.isDense();
+            assertEquals("wrong edge count", edges, g.edgeSize());
+            if (step % 200 == 0) {
+                for (int a = 0; a < 40; a += 1) {
+                    for (int b = 0; b < 40; b += 1) {
+                        Integer c = model.get(pair(a, b, directed));
+                        assertEquals("wrong containment of " + a + "-" + b,
+                                     c != null && c > 0,
+                                     g.contains(vs.get(a), vs.get(b)));
+                    }
+                }
+                int listed = 0;
+                for (Graph<Integer, Integer>.Edge e : g.edges()) {
+                    listed += 1;
+                }
+                assertEquals("wrong number of edges listed", edges, listed);
+            }
+        }
+        assertTrue("never became dense", sawDense);
+        for (int a = 0; a < 40; a += 1) {
+            for (int b = 0; b < 40; b += 1) {
+                g.remove(vs.get(a), vs.get(b));
+            }
+        }
+        assertEquals("edges remain", 0, g.edgeSize());
+        assertFalse("empty graph is dense", g.isDense());
+        assertEquals("empty graph has rows", 0, g.rows());
+    }
+
+    @Test
+    public void directedOperations() {
+        randomOperations(true);
+    }
+
+    @Test
+    public void undirectedOperations() {
+        randomOperations(false);
+    }
+
+    @Test
+    public void highDegreeRows() {
+        AdaptiveGraph<Integer, String> g =
+            new AdaptiveGraph<Integer, String>(true);
+        List<Graph<Integer, String>.Vertex> vs =
+            new ArrayList<Graph<Integer, String>.Vertex>();
+        int n = 20 * AdaptiveGraph.DEGREE_THRESHOLD;
+        for (int i = 0; i < n; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 1; i <= AdaptiveGraph.DEGREE_THRESHOLD + 1; i += 1) {
+            g.add(vs.get(0), vs.get(i), "e" + i);
+        }
+        assertFalse("sparse graph became dense", g.isDense());
+        assertEquals("hub has no row", 1, g.rows());
+        Footprint f = g.footprint();
+        assertTrue("row not measured", f.bytes(Footprint.MATRIX_CELLS) > 0);
+        assertEquals("wrong edge objects",
+                     g.edgeSize() * Footprint.EDGE_BYTES,
+                     f.bytes(Footprint.EDGE_OBJECTS));
+        assertTrue("missing edge", g.contains(vs.get(0), vs.get(5)));
+        assertTrue("missing labeled edge",
+                   g.contains(vs.get(0), vs.get(5), "e5"));
+        assertFalse("wrong label", g.contains(vs.get(0), vs.get(5), "e6"));
+        assertFalse("reversed edge", g.contains(vs.get(5), vs.get(0)));
+        g.remove(vs.get(5));
+        assertEquals("wrong out-degree after removal",
+                     AdaptiveGraph.DEGREE_THRESHOLD, g.outDegree(vs.get(0)));
+        for (int i = 6; g.outDegree(vs.get(0))
+                 >= AdaptiveGraph.DEGREE_THRESHOLD / 2; i += 1) {
+            g.remove(vs.get(0), vs.get(i));
+        }
+        assertEquals("row kept at low degree", 0, g.rows());
+        assertEquals("wrong in-degree", 1,
+                     g.inDegree(vs.get(AdaptiveGraph.DEGREE_THRESHOLD)));
+    }
+
+    /** Fills G with a SIDE x SIDE grid of vertices labeled by position,
+     *  added in a random order, joined to their right and lower
+     *  neighbors, and returns its vertices by label. */
+    private List<Graph<Integer, Integer>.Vertex> grid(
+        Graph<Integer, Integer> g, int side) {
+        Random r = new Random(41);
+        List<Integer> labels = new ArrayList<Integer>();
+        for (int i = 0; i < side * side; i += 1) {
+            labels.add(i);
+        }
+        Collections.shuffle(labels, r);
+        List<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>(
+                Collections.nCopies(labels.size(),
+                                    (Graph<Integer, Integer>.Vertex) null));
+        for (int label : labels) {
+            vs.set(label, g.add(label));
+        }
+        for (int i = 0; i < side * side; i += 1) {
+            if (i % side + 1 < side) {
+                g.add(vs.get(i), vs.get(i + 1), i);
+            }
+            if (i + side < side * side) {
+                g.add(vs.get(i), vs.get(i + side), -i);
+            }
+        }
+        return vs;
+    }
+
+    /** Reorders G, a grid of side SIDE made by grid, by reverse
+     *  Cuthill-McKee, checking that its structure and the handles VS on
+     *  its vertices survive. */
+    private void checkReorder(Graph<Integer, Integer> g,
+                              List<Graph<Integer, Integer>.Vertex> vs,
+                              int side) {
+        List<Graph<Integer, Integer>.Vertex> before =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (Graph<Integer, Integer>.Vertex v : g.vertices()) {
+            before.add(v);
+        }
+        List<Graph<Integer, Integer>.Vertex> order =
+            Reordering.reverseCuthillMcKee(g);
+        assertEquals("not a permutation", g.vertexSize(), order.size());
+        int bandwidth = Reordering.bandwidth(g, order);
+        assertTrue("bandwidth not reduced",
+                   bandwidth < Reordering.bandwidth(g, before));
+        assertTrue("bandwidth too large: " + bandwidth, bandwidth <= side);
+        assertTrue("breadth-first bandwidth too large",
+                   Reordering.bandwidth(g, Reordering.breadthFirst(g))
+                   <= 2 * side);
+        List<Integer> labels = new ArrayList<Integer>();
+        for (Graph<Integer, Integer>.Vertex v : order) {
+            labels.add(v.getLabel());
+        }
+        HashMap<Graph<Integer, Integer>.Vertex, Integer> keyed =
+            new HashMap<Graph<Integer, Integer>.Vertex, Integer>();
+        HashMap<Integer, Integer> ids = new HashMap<Integer, Integer>();
+        for (Graph<Integer, Integer>.Vertex v : before) {
+            keyed.put(v, v.getLabel());
+            ids.put(v.getLabel(), v.getId());
+        }
+        int version = g.version();
+        g.reorder(order);
+        for (Graph<Integer, Integer>.Vertex v : before) {
+            assertEquals("hashed handle lost", v.getLabel(), keyed.get(v));
+            assertEquals("id changed", (int) ids.get(v.getLabel()),
+                         v.getId());
+        }
+        assertTrue("version not advanced", g.version() != version);
+        List<Integer> after = new ArrayList<Integer>();
+        for (Graph<Integer, Integer>.Vertex v : g.vertices()) {
+            after.add(v.getLabel());
+        }
+        assertEquals("vertices not in new order", labels, after);
+        for (int i = 0; i < side * side; i += 1) {
+            Graph<Integer, Integer>.Vertex v = vs.get(i);
+            assertEquals("label changed", Integer.valueOf(i), v.getLabel());
+            int degree = (i % side > 0 ? 1 : 0) + (i % side + 1 < side ? 1 : 0)
+                + (i >= side ? 1 : 0) + (i + side < side * side ? 1 : 0);
+            assertEquals("wrong degree", degree,
+                         g.outDegree(v) + (g.isDirected() ? g.inDegree(v)
+                                           : 0));
+            if (i % side + 1 < side) {
+                assertTrue("lost edge", g.contains(v, vs.get(i + 1)));
+            }
+            if (i + 2 < side * side) {
+                assertFalse("gained edge", g.contains(v, vs.get(i + 2)));
+            }
+        }
+        Graph<Integer, Integer>.Vertex extra = g.add(-1);
+        g.add(extra, vs.get(0), 0);
+        assertTrue("new vertex not joined", g.contains(extra, vs.get(0)));
+        try {
+            g.reorder(order);
+            fail("accepted a partial order");
+        } catch (IllegalArgumentException e) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void removeVertexReportsEdges() {
+        for (boolean directed : new boolean[] { true, false }) {
+            final ArrayList<Graph<Integer, Integer>.Edge> removed =
+                new ArrayList<Graph<Integer, Integer>.Edge>();
+            AdaptiveGraph<Integer, Integer> g =
+                new AdaptiveGraph<Integer, Integer>(directed) {
+                    @Override
+                    void edgeRemoved(Edge e) {
+                        super.edgeRemoved(e);
+                        removed.add(e);
+                    }
+                };
+            Graph<Integer, Integer>.Vertex hub = g.add(0);
+            ArrayList<Graph<Integer, Integer>.Edge> incident =
+                new ArrayList<Graph<Integer, Integer>.Edge>();
+            incident.add(g.add(hub, hub, 0));
+            for (int i = 1; i <= 2 * AdaptiveGraph.DEGREE_THRESHOLD;
+                 i += 1) {
+                Graph<Integer, Integer>.Vertex v = g.add(i);
+                incident.add(i % 2 == 0 ? g.add(hub, v, i) : g.add(v, hub, i));
+            }
+            g.remove(hub);
+            assertEquals("edges left", 0, g.edgeSize());
+            assertEquals("removals not reported",
+                         new HashSet<Object>(incident),
+                         new HashSet<Object>(removed));
+            assertEquals("removal reported twice", incident.size(),
+                         removed.size());
+        }
+    }
+
+    @Test
+    public void reorderAdaptive() {
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(false);
+        Graph<Integer, Integer>.Vertex doomed = g.add(-2);
+        List<Graph<Integer, Integer>.Vertex> vs = grid(g, 12);
+        g.remove(doomed);
+        checkReorder(g, vs, 12);
+    }
+
+    @Test
+    public void reorderMatrix() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        checkReorder(g, grid(g, 8), 8);
+    }
+}
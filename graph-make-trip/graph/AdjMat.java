@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.PriorityQueue;
 import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongFunction;
 
 /** An adjacency matrix implementation.
  *  Used by directed and undirected
@@ -80,9 +82,11 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
     public Vertex add(VLabel label) {
         Vertex v = new Vertex(label, _idIncr);
         _idIncr += 1;
+        vertexAdding(v);
         increaseSize(1);
         _vertices.add(v);
         _vertMap.put(v, size() - 1);
+        vertexAdded(v);
         return v;
     }
 
@@ -92,7 +96,9 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
         int toInd = _vertMap.get(to);
         Edge e = new Edge(from, to, label, _idIncr);
         _idIncr += 1;
+        edgeAdding(e);
         addEdge(fromInd, toInd, e);
+        edgeAdded(e);
         return e;
     }
 
@@ -118,11 +124,13 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
                 _edges.get(to).set(from, new Edge(_idIncr));
                 _idIncr += 1;
             }
+            edgeRemoved(e);
         }
     }
 
     @Override
     public void remove(Vertex v) {
+        vertexRemoved(v);
         removeFromEdgeMat(v);
         removeFromVertexList(v);
     }
@@ -141,9 +149,16 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
         }
     }
 
+    /** Returns true: my queries only read my lists and maps, and each
+     *  edge iteration builds a queue of its own. */
+    @Override
+    boolean concurrentlyReadable() {
+        return true;
+    }
+
     @Override
     public Iteration<Vertex> vertices() {
-        return Iteration.iteration(_vertices.iterator());
+        return checked(Iteration.iteration(_vertices.iterator()));
     }
 
     @Override
@@ -160,7 +175,7 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
                 }
             }
         }
-        return Iteration.iteration(successors.iterator());
+        return checked(Iteration.iteration(successors.iterator()));
     }
 
     @Override
@@ -174,58 +189,133 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
                 }
             }
         }
-        return Iteration.iteration(predecessors.iterator());
+        return checked(Iteration.iteration(predecessors.iterator()));
+    }
+
+    /** Moves my rows and columns into ORDER.  Vertex ids do not change,
+     *  being independent of positions in the matrix. */
+    @Override
+    boolean permute(List<Vertex> order) {
+        int n = order.size();
+        int[] from = new int[n];
+        int[] to = new int[n];
+        for (int k = 0; k < n; k += 1) {
+            from[k] = _vertMap.get(order.get(k));
+            to[from[k]] = k;
+        }
+        ArrayList<ArrayList<Edge>> edges = new ArrayList<ArrayList<Edge>>(n);
+        for (int i = 0; i < n; i += 1) {
+            ArrayList<Edge> old = _edges.get(from[i]);
+            ArrayList<Edge> row = new ArrayList<Edge>(n);
+            for (int j = 0; j < n; j += 1) {
+                row.add(old.get(from[j]));
+            }
+            edges.add(row);
+        }
+        _edges = edges;
+        List<Vertex> vertices = new ArrayList<Vertex>(n);
+        _vertMap.clear();
+        for (int k = 0; k < n; k += 1) {
+            Vertex v = _vertices.get(from[k]);
+            vertices.add(v);
+            _vertMap.put(v, k);
+        }
+        _vertices = vertices;
+        for (int[] coord : _edgeMap.values()) {
+            coord[0] = to[coord[0]];
+            coord[1] = to[coord[1]];
+        }
+        return true;
+    }
+
+    @Override
+    Spliterator<Vertex> vertexSpliterator() {
+        return new RangeSpliterator<Vertex>(this, 0, _vertices.size(),
+                                            new LongFunction<Vertex>() {
+                @Override
+                public Vertex apply(long k) {
+                    return _vertices.get((int) k);
+                }
+            });
+    }
+
+    /** Returns a spliterator over my edges row by row, splitting the
+     *  rows of my matrix according to the number of edges in each. */
+    @Override
+    Spliterator<Edge> edgeSpliterator() {
+        final int[] counts = new int[_edges.size()];
+        for (int[] coord : _edgeMap.values()) {
+            counts[coord[0]] += 1;
+        }
+        return new SlotSpliterator<Edge>(this, counts.length,
+                                         new SlotSpliterator.Slots<Edge>() {
+                @Override
+                public int count(int s) {
+                    return counts[s];
+                }
+
+                @Override
+                public int size(int s) {
+                    return counts.length;
+                }
+
+                @Override
+                public Edge get(int s, int k) {
+                    Edge e = _edges.get(s).get(k);
+                    return e.isNull() ? null : e;
+                }
+            });
     }
 
     @Override
     public Iteration<Edge> edges() {
-        _orderedEdges.clear();
+        PriorityQueue<Edge> queue = new PriorityQueue<Edge>(QUEUE, _edgeOrder);
         for (int i = 0; i < _edges.size(); i++) {
             for (int j = 0; j < _edges.size(); j++) {
                 if (!_edges.get(i).get(j).isNull()) {
-                    _orderedEdges.add(_edges.get(i).get(j));
+                    queue.add(_edges.get(i).get(j));
                 }
             }
         }
-        return Iteration.iteration(_orderedEdges.iterator());
+        return checked(Iteration.iteration(queue.iterator()));
     }
 
     @Override
     public Iteration<Edge> outEdges(Vertex v) {
-        _orderedEdges.clear();
+        PriorityQueue<Edge> queue = new PriorityQueue<Edge>(QUEUE, _edgeOrder);
         if (_vertMap.get(v) != null) {
             int ind = _vertMap.get(v);
             for (int i = 0; i < _edges.size(); i++) {
                 if (!_edges.get(ind).get(i).isNull()) {
-                    _orderedEdges.add(_edges.get(ind).get(i));
+                    queue.add(_edges.get(ind).get(i));
                 }
             }
         }
-        return Iteration.iteration(_orderedEdges.iterator());
+        return checked(Iteration.iteration(queue.iterator()));
     }
 
     @Override
     public Iteration<Edge> inEdges(Vertex v) {
-        _orderedEdges.clear();
+        PriorityQueue<Edge> queue = new PriorityQueue<Edge>(QUEUE, _edgeOrder);
         if (_vertMap.get(v) != null) {
             int ind = _vertMap.get(v);
             for (int i = 0; i < _edges.size(); i++) {
                 if (!_edges.get(i).get(ind).isNull()) {
-                    _orderedEdges.add(_edges.get(i).get(ind));
+                    queue.add(_edges.get(i).get(ind));
                 }
             }
         }
-        return Iteration.iteration(_orderedEdges.iterator());
+        return checked(Iteration.iteration(queue.iterator()));
     }
 
     @Override
     public void orderEdges(final Comparator<ELabel> comparator) {
-        _orderedEdges = new PriorityQueue<Edge>(QUEUE, new Comparator<Edge>() {
+        _edgeOrder = new Comparator<Edge>() {
                 @Override
                 public int compare(Edge e1, Edge e2) {
                     return comparator.compare(e1.getLabel(), e2.getLabel());
                 }
-            });
+            };
     }
 
     /** Adds NUM new spots to _EDGE, initally all null.
@@ -290,6 +380,22 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
     }
 
 
+    @Override
+    void measure(Footprint f) {
+        super.measure(f);
+        int n = size();
+        long cells = (long) n * n;
+        f.add(Footprint.PLACEHOLDER_EDGES,
+              (cells - _edgeMap.size()) * Footprint.EDGE_BYTES);
+        f.add(Footprint.MATRIX_CELLS,
+              Footprint.arrayList(n) + n * Footprint.arrayList(n));
+        f.add(Footprint.INDEX_MAPS,
+              Footprint.arrayList(n)
+              + Footprint.hashMap(n) + n * Footprint.INTEGER_BYTES
+              + Footprint.hashMap(_edgeMap.size())
+              + _edgeMap.size() * Footprint.array(2, Integer.BYTES));
+    }
+
     /** Holds vertice labels. Is of dimension SIZE.*/
     private List<Vertex> _vertices = new ArrayList<Vertex>();
     /** Fast mapping from vertice to its indice. */
@@ -299,14 +405,15 @@ abstract class AdjMat<VLabel, ELabel> extends Graph<VLabel, ELabel> {
         new ArrayList<ArrayList<Edge>>();
     /** Fast mapping from edge to indices. */
     private HashMap<Edge, int[]> _edgeMap = new HashMap<Edge, int[]>();
-    /** An ordered set of edges. */
-    private PriorityQueue<Edge> _orderedEdges =
-        new PriorityQueue<Edge>(QUEUE, new Comparator<Edge>() {
+    /** Orders the queue from which each edge iteration is drawn.  Each
+     *  iteration has a queue of its own, so that several may be in use
+     *  at once. */
+    private Comparator<Edge> _edgeOrder = new Comparator<Edge>() {
             @Override
             public int compare(Edge e1, Edge e2) {
                 return e2.getId() - e1.getId();
             }
-        });
+        };
     /** Increment every time a new vertex or edge is created.*/
     private int _idIncr = 0;
     /** Starting size of queue. */
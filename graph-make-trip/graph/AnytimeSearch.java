@@ -0,0 +1,335 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/** An anytime search for a path of least weight between two vertices
+ *  of a graph (Likhachev, Gordon and Thrun's ARA*).  The first call of
+ *  improve runs a weighted A* search with its heuristic inflated by a
+ *  large factor, which quickly finds a path that may be longer than
+ *  necessary.  Each later call lowers the factor and continues the
+ *  search, reusing the distances already found and reexamining only the
+ *  vertices whose distances have improved since they were last
+ *  expanded, until it finds a better path, proves that there is none,
+ *  or runs out of time.  After each call, bound() is a proven limit on
+ *  the ratio of the weight of the path found to the least possible.
+ *  For example, to show each better path found within 50 milliseconds,
+ *      AnytimeSearch<V, E> s = new AnytimeSearch<V, E>(G, a, b, h, w, 3);
+ *      long deadline = System.nanoTime() + 50000000L;
+ *      while (!s.isOptimal() && System.nanoTime() - deadline < 0) {
+ *          if (s.improve(deadline)) {
+ *              preview(s.path(), s.bound());
+ *          }
+ *      }
+ *
+ *  Edge weights, which must be nonnegative, are given by a Weighting of
+ *  edge labels, and read from the edges if the graph stores them.  The
+ *  heuristic must satisfy the conditions given for Graphs.shortestPath.
+ *  The graph must not change while it is searched.
+ *  @author Andrew Berger
+ */
+public class AnytimeSearch<VLabel, ELabel> {
+
+    /** A search of G for a path from V0 to V1, using the heuristic H and
+     *  edge weights given by EWEIGHTER, that starts by inflating H by
+     *  EPSILON, which must be at least 1. */
+    public AnytimeSearch(Graph<VLabel, ELabel> G,
+                         Graph<VLabel, ELabel>.Vertex V0,
+                         Graph<VLabel, ELabel>.Vertex V1,
+                         Distancer<? super VLabel> h,
+                         Weighting<? super ELabel> eweighter,
+                         double epsilon) {
+        if (!(epsilon >= 1.0) || Double.isInfinite(epsilon)) {
+            throw new IllegalArgumentException("bad inflation factor");
+        }
+        _G = G.stable();
+        _target = V1;
+        _h = h;
+        _eweighter = eweighter;
+        _stored = G.weighs(eweighter);
+        _epsilon = epsilon;
+        _bound = Double.POSITIVE_INFINITY;
+        _dist.put(V0, 0.0);
+        push(V0);
+    }
+
+    /** Searches, until the time given by System.nanoTime() passes
+     *  DEADLINE, for a path better than the last one found, if it is not
+     *  known to be optimal.  Returns true iff it finds one.  Even when it
+     *  returns false, the search may have tightened bound(). */
+    public boolean improve(long deadline) {
+        if (isOptimal()) {
+            return false;
+        }
+        if (_path != null) {
+            lowerEpsilon();
+        }
+        boolean finished = expand(deadline);
+        if (finished) {
+            _resumed = false;
+        }
+        boolean better = false;
+        if (goalDistance() < _weight) {
+            List<Graph<VLabel, ELabel>.Edge> path = trace();
+            double weight = 0.0;
+            for (Graph<VLabel, ELabel>.Edge e : path) {
+                weight += weight(e);
+            }
+            if (weight < _weight) {
+                _path = path;
+                _weight = weight;
+                better = true;
+            }
+        }
+        updateBound(finished);
+        return better;
+    }
+
+    /** Returns the best path found so far, as a list of edges, or null if
+     *  none has been found.  The path from a vertex to itself is
+     *  empty. */
+    public List<Graph<VLabel, ELabel>.Edge> path() {
+        return _path;
+    }
+
+    /** Returns the weight of the best path found so far, or infinity if
+     *  none has been found. */
+    public double weight() {
+        return _weight;
+    }
+
+    /** Returns a proven upper limit on weight() divided by the least
+     *  weight of any path: 1 once the path is known to be optimal, and
+     *  infinite before any path has been found. */
+    public double bound() {
+        return _bound;
+    }
+
+    /** Returns true iff the best path found so far is known to be
+     *  optimal, or there is known to be no path. */
+    public boolean isOptimal() {
+        return _bound == 1.0 || _exhausted;
+    }
+
+    /** Returns the factor by which the heuristic is currently
+     *  inflated. */
+    public double epsilon() {
+        return _epsilon;
+    }
+
+    /** Returns the path to the target by which it was last reached.
+     *  Since the vertices along it may since have been reached more
+     *  cheaply, its weight may be less than the target's distance. */
+    private List<Graph<VLabel, ELabel>.Edge> trace() {
+        ArrayList<Graph<VLabel, ELabel>.Edge> result =
+            new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        Graph<VLabel, ELabel>.Vertex v = _target;
+        for (Graph<VLabel, ELabel>.Edge e = _parents.get(v); e != null;
+             e = _parents.get(v)) {
+            result.add(e);
+            v = e.getV(v);
+        }
+        Collections.reverse(result);
+        return Collections.unmodifiableList(result);
+    }
+
+    /** Expands vertices in order of priority until no queued vertex can
+     *  lead to a better path to the target, or until DEADLINE.  Returns
+     *  true iff it stopped for the first reason. */
+    private boolean expand(long deadline) {
+        int count = 0;
+        while (!_open.isEmpty()) {
+            Entry top = _open.peek();
+            if (top._dist > dist(top._vertex)
+                || _closed.contains(top._vertex)) {
+                _open.poll();
+                continue;
+            }
+            if (top._key >= goalDistance()) {
+                return true;
+            }
+            count += 1;
+            if (count % DEADLINE_CHECK == 0
+                && System.nanoTime() - deadline > 0) {
+                _resumed = true;
+                return false;
+            }
+            _open.poll();
+            Graph<VLabel, ELabel>.Vertex v = top._vertex;
+            _closed.add(v);
+            for (Graph<VLabel, ELabel>.Edge e : _G.edges(v)) {
+                Graph<VLabel, ELabel>.Vertex w = e.getV(v);
+                double d = top._dist + weight(e);
+                if (d < dist(w)) {
+                    _dist.put(w, d);
+                    _parents.put(w, e);
+                    if (_closed.contains(w)) {
+                        _inconsistent.add(w);
+                    } else {
+                        push(w);
+                    }
+                }
+            }
+        }
+        if (goalDistance() == Double.POSITIVE_INFINITY) {
+            _exhausted = true;
+        }
+        return true;
+    }
+
+    /** Lowers my inflation factor for the next round of search, and
+     *  requeues the vertices whose distances improved after they were
+     *  expanded, along with the rest of the queue, with their new
+     *  priorities. */
+    private void lowerEpsilon() {
+        if (_resumed) {
+            return;
+        }
+        double next = 1.0 + (Math.min(_epsilon, _bound) - 1.0) / 2;
+        _epsilon = next - 1.0 < MIN_EXCESS ? 1.0 : next;
+        HashSet<Graph<VLabel, ELabel>.Vertex> queued =
+            new HashSet<Graph<VLabel, ELabel>.Vertex>(_inconsistent);
+        for (Entry e : _open) {
+            if (e._dist == dist(e._vertex) && !_closed.contains(e._vertex)) {
+                queued.add(e._vertex);
+            }
+        }
+        _open.clear();
+        for (Graph<VLabel, ELabel>.Vertex v : queued) {
+            push(v);
+        }
+        _inconsistent.clear();
+        _closed.clear();
+    }
+
+    /** Recomputes bound(), knowing that the current round of search is
+     *  complete iff FINISHED. */
+    private void updateBound(boolean finished) {
+        if (_path == null) {
+            return;
+        }
+        double least = Double.POSITIVE_INFINITY;
+        for (Entry e : _open) {
+            if (e._dist == dist(e._vertex) && !_closed.contains(e._vertex)) {
+                least = Math.min(least, e._dist + estimate(e._vertex));
+            }
+        }
+        for (Graph<VLabel, ELabel>.Vertex v : _inconsistent) {
+            least = Math.min(least, dist(v) + estimate(v));
+        }
+        double bound = least >= _weight ? 1.0 : _weight / least;
+        if (finished) {
+            bound = Math.min(bound, _epsilon);
+        }
+        _bound = Math.min(_bound, Math.max(1.0, bound));
+    }
+
+    /** Queues V with its current distance and priority. */
+    private void push(Graph<VLabel, ELabel>.Vertex v) {
+        double d = dist(v);
+        _open.add(new Entry(v, d, d + _epsilon * estimate(v), _sequence));
+        _sequence += 1;
+    }
+
+    /** Returns the heuristic estimate of the distance from V to the
+     *  target. */
+    private double estimate(Graph<VLabel, ELabel>.Vertex v) {
+        return _h.dist(v.getLabel(), _target.getLabel());
+    }
+
+    /** Returns the weight of E. */
+    private double weight(Graph<VLabel, ELabel>.Edge e) {
+        return _stored ? e.storedWeight() : _eweighter.weight(e.getLabel());
+    }
+
+    /** Returns the least distance to V found so far. */
+    private double dist(Graph<VLabel, ELabel>.Vertex v) {
+        Double d = _dist.get(v);
+        return d == null ? Double.POSITIVE_INFINITY : d;
+    }
+
+    /** Returns the least distance to the target found so far. */
+    private double goalDistance() {
+        return dist(_target);
+    }
+
+    /** A queued vertex, with its distance when queued and its priority.
+     *  Entries of equal priority leave in the order they came. */
+    private final class Entry implements Comparable<Entry> {
+        /** An entry for VERTEX at distance DIST with priority KEY, the
+         *  SEQUENCEth entry made. */
+        Entry(Graph<VLabel, ELabel>.Vertex vertex, double dist, double key,
+              long sequence) {
+            _vertex = vertex;
+            _dist = dist;
+            _key = key;
+            _seq = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int c = Double.compare(_key, other._key);
+            return c != 0 ? c : Long.compare(_seq, other._seq);
+        }
+
+        /** My vertex. */
+        private final Graph<VLabel, ELabel>.Vertex _vertex;
+        /** Distance of my vertex when I was made. */
+        private final double _dist;
+        /** My priority. */
+        private final double _key;
+        /** Number of entries made before me. */
+        private final long _seq;
+    }
+
+    /** Expansions between checks of the deadline. */
+    private static final int DEADLINE_CHECK = 64;
+    /** Inflation factors this close to 1 are rounded to 1. */
+    private static final double MIN_EXCESS = 1e-3;
+
+    /** The graph searched. */
+    private final Graph<VLabel, ELabel> _G;
+    /** The vertex sought. */
+    private final Graph<VLabel, ELabel>.Vertex _target;
+    /** The heuristic. */
+    private final Distancer<? super VLabel> _h;
+    /** Weights of edge labels. */
+    private final Weighting<? super ELabel> _eweighter;
+    /** True iff edge weights are read from the edges themselves. */
+    private final boolean _stored;
+    /** Least distance found to each vertex reached. */
+    private final HashMap<Graph<VLabel, ELabel>.Vertex, Double> _dist =
+        new HashMap<Graph<VLabel, ELabel>.Vertex, Double>();
+    /** The edge by which each vertex reached was last reached. */
+    private final HashMap<Graph<VLabel, ELabel>.Vertex,
+                          Graph<VLabel, ELabel>.Edge> _parents =
+        new HashMap<Graph<VLabel, ELabel>.Vertex,
+                    Graph<VLabel, ELabel>.Edge>();
+    /** Vertices queued for expansion.  Stale entries are skipped. */
+    private final PriorityQueue<Entry> _open = new PriorityQueue<Entry>();
+    /** Vertices expanded in the current round. */
+    private final HashSet<Graph<VLabel, ELabel>.Vertex> _closed =
+        new HashSet<Graph<VLabel, ELabel>.Vertex>();
+    /** Vertices whose distances improved after they were expanded in the
+     *  current round. */
+    private final HashSet<Graph<VLabel, ELabel>.Vertex> _inconsistent =
+        new HashSet<Graph<VLabel, ELabel>.Vertex>();
+    /** Number of entries queued so far. */
+    private long _sequence;
+    /** The current inflation factor. */
+    private double _epsilon;
+    /** The current proven bound on suboptimality. */
+    private double _bound;
+    /** The best path found, or null. */
+    private List<Graph<VLabel, ELabel>.Edge> _path;
+    /** The weight of _path, or infinity. */
+    private double _weight = Double.POSITIVE_INFINITY;
+    /** True iff the current round was interrupted by a deadline. */
+    private boolean _resumed;
+    /** True iff the search has shown that there is no path. */
+    private boolean _exhausted;
+}
@@ -0,0 +1,193 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for weighted A* and AnytimeSearch.
+ *  @author Andrew Berger
+ */
+public class AnytimeSearchTesting {
+
+    /** Number of points. */
+    private static final int N = 1500;
+
+    /** Coordinates of the points. */
+    private final double[] _x = new double[N], _y = new double[N];
+    /** Weights of the edges, indexed by label. */
+    private final ArrayList<Double> _weights = new ArrayList<Double>();
+    /** The points as vertices, indexed by label. */
+    private final ArrayList<Graph<Integer, Integer>.Vertex> _vs =
+        new ArrayList<Graph<Integer, Integer>.Vertex>();
+
+    /** Straight-line distance between points, a consistent heuristic. */
+    private final Distancer<Integer> _euclid = new Distancer<Integer>() {
+        @Override
+        public double dist(Integer a, Integer b) {
+            return Math.hypot(_x[a] - _x[b], _y[a] - _y[b]);
+        }
+    };
+
+    /** Edge weights, by label. */
+    private final Weighting<Integer> _weighting = new Weighting<Integer>() {
+        @Override
+        public double weight(Integer label) {
+            return _weights.get(label);
+        }
+    };
+
+    /** Returns an undirected graph of N random points in the unit square,
+     *  each joined to the points near it by edges somewhat longer than
+     *  the distance between them. */
+    private Graph<Integer, Integer> roads() {
+        Random r = new Random(5);
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(false);
+        for (int i = 0; i < N; i += 1) {
+            _x[i] = r.nextDouble();
+            _y[i] = r.nextDouble();
+            _vs.add(g.add(i));
+        }
+        for (int i = 0; i < N; i += 1) {
+            for (int j = i + 1; j < N; j += 1) {
+                double d = _euclid.dist(i, j);
+                if (d < 0.045) {
+                    g.add(_vs.get(i), _vs.get(j), _weights.size());
+                    _weights.add(d * (1 + r.nextDouble()));
+                }
+            }
+        }
+        return g;
+    }
+
+    /** Returns the total weight of PATH. */
+    private double weight(List<Graph<Integer, Integer>.Edge> path) {
+        double sum = 0.0;
+        for (Graph<Integer, Integer>.Edge e : path) {
+            sum += _weights.get(e.getLabel());
+        }
+        return sum;
+    }
+
+    @Test
+    public void weightedAStar() {
+        Graph<Integer, Integer> g = roads();
+        Map<Graph<Integer, Integer>.Vertex, Double> exact =
+            Graphs.distances(g, _vs.get(0), _weighting);
+        final double[] found = new double[N];
+        Weighter<Integer> vw = new Weighter<Integer>() {
+            @Override
+            public void setWeight(Integer label, double w) {
+                found[label] = w;
+            }
+
+            @Override
+            public double weight(Integer label) {
+                return found[label];
+            }
+        };
+        for (int t = 1; t < N; t += 97) {
+            Graph<Integer, Integer>.Vertex target = _vs.get(t);
+            double best = exact.get(target);
+            if (best == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            found[0] = 0.0;
+            List<Graph<Integer, Integer>.Edge> path =
+                Graphs.shortestPath(g, _vs.get(0), target, _euclid, vw,
+                                    _weighting);
+            assertEquals("A* not optimal", best, found[t], 0.0);
+            assertEquals("wrong path weight", best, weight(path), 1e-9);
+            found[0] = 0.0;
+            path = Graphs.shortestPath(g, _vs.get(0), target, _euclid, vw,
+                                       _weighting, 1.5);
+            assertTrue("outside bound", weight(path) <= 1.5 * best + 1e-9);
+            assertEquals("wrong vertex weight", weight(path), found[t], 1e-9);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deflatedHeuristic() {
+        Graph<Integer, Integer> g = roads();
+        Graphs.shortestPath(g, _vs.get(0), _vs.get(1), _euclid,
+                            new Weighter<Integer>() {
+                                @Override
+                                public void setWeight(Integer l, double w) {
+                                }
+
+                                @Override
+                                public double weight(Integer l) {
+                                    return 0;
+                                }
+                            }, _weighting, 0.5);
+    }
+
+    @Test
+    public void anytimeImproves() {
+        Graph<Integer, Integer> g = roads();
+        Map<Graph<Integer, Integer>.Vertex, Double> exact =
+            Graphs.distances(g, _vs.get(0), _weighting);
+        int checked = 0;
+        for (int t = 1; t < N; t += 131) {
+            Graph<Integer, Integer>.Vertex target = _vs.get(t);
+            double best = exact.get(target);
+            AnytimeSearch<Integer, Integer> s =
+                new AnytimeSearch<Integer, Integer>(g, _vs.get(0), target,
+                                                    _euclid, _weighting, 4);
+            assertNull("path before search", s.path());
+            double last = Double.POSITIVE_INFINITY;
+            int rounds = 0;
+            while (!s.isOptimal()) {
+                boolean better = s.improve(Long.MAX_VALUE);
+                rounds += 1;
+                assertTrue("too many rounds", rounds < 100);
+                if (best == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                assertTrue("no first path", s.path() != null);
+                assertEquals("wrong weight", weight(s.path()), s.weight(),
+                             1e-9);
+                assertTrue("weight grew", s.weight() <= last);
+                assertEquals("improvement misreported", better,
+                             s.weight() < last);
+                assertTrue("bound violated",
+                           s.weight() <= s.bound() * best + 1e-9);
+                last = s.weight();
+            }
+            if (best == Double.POSITIVE_INFINITY) {
+                assertNull("path to unreachable vertex", s.path());
+            } else {
+                assertEquals("not optimal at end", best, s.weight(), 1e-9);
+                assertEquals("wrong final bound", 1.0, s.bound(), 0.0);
+                checked += 1;
+            }
+        }
+        assertTrue("no reachable targets", checked > 5);
+    }
+
+    @Test
+    public void anytimeDeadline() {
+        Graph<Integer, Integer> g = roads();
+        AnytimeSearch<Integer, Integer> s =
+            new AnytimeSearch<Integer, Integer>(g, _vs.get(0), _vs.get(0),
+                                                _euclid, _weighting, 2);
+        assertTrue("no empty path", s.improve(Long.MAX_VALUE));
+        assertTrue("empty path not optimal", s.isOptimal());
+        assertEquals("nonempty path", 0, s.path().size());
+        s = new AnytimeSearch<Integer, Integer>(g, _vs.get(0),
+                                                _vs.get(N - 1), _euclid,
+                                                _weighting, 2);
+        s.improve(System.nanoTime() - 1);
+        assertTrue("bound below 1", s.bound() >= 1.0);
+        while (!s.isOptimal()) {
+            s.improve(Long.MAX_VALUE);
+        }
+        assertEquals("resumed search not optimal",
+                     Graphs.distances(g, _vs.get(0), _weighting)
+                     .get(_vs.get(N - 1)), s.weight(), 1e-9);
+    }
+}
@@ -0,0 +1,155 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** A graph copied into arrays of arcs, for the algorithms of Graphs that
+ *  search one graph many times or from many threads.  The vertices are
+ *  numbered from 0 in the order the graph delivers them, and the edges
+ *  likewise.  Each edge becomes an arc from its first vertex to its
+ *  second and, in an undirected graph, another from its second to its
+ *  first.  The arcs are numbered so that those leaving each vertex are
+ *  consecutive, in the order of their edges.  The arrays my methods
+ *  return are my own, not copies, and must not be modified.
+ *  @author Andrew Berger
+ */
+final class Arcs<VLabel, ELabel> {
+
+    /** The arcs of G, weighted by EWEIGHTER (read from G's edges if G
+     *  stores them), or all of weight 1 if EWEIGHTER is null. */
+    Arcs(Graph<VLabel, ELabel> G, Weighting<? super ELabel> eweighter) {
+        _index = new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        _vertices = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        for (Graph<VLabel, ELabel>.Vertex v : G.vertices()) {
+            _index.put(v, _vertices.size());
+            _vertices.add(v);
+        }
+        _edges = new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        for (Graph<VLabel, ELabel>.Edge e : G.edges()) {
+            _edges.add(e);
+        }
+        int n = _vertices.size();
+        int arcs = G.isDirected() ? _edges.size() : 2 * _edges.size();
+        int[] tail = new int[arcs], head = new int[arcs],
+            edge = new int[arcs];
+        double[] weight = new double[arcs];
+        boolean stored = eweighter != null && G.weighs(eweighter);
+        int a = 0;
+        for (int k = 0; k < _edges.size(); k += 1) {
+            Graph<VLabel, ELabel>.Edge e = _edges.get(k);
+            double w = eweighter == null ? 1.0
+                : stored ? e.storedWeight() : eweighter.weight(e.getLabel());
+            int u = _index.get(e.getV0()), v = _index.get(e.getV1());
+            for (int dir = G.isDirected() ? 1 : 0; dir < 2; dir += 1) {
+                tail[a] = dir == 0 ? v : u;
+                head[a] = dir == 0 ? u : v;
+                weight[a] = w;
+                edge[a] = k;
+                a += 1;
+            }
+        }
+        _outStart = new int[n + 1];
+        int[] order = group(tail, n, _outStart);
+        _tail = new int[arcs];
+        _head = new int[arcs];
+        _edge = new int[arcs];
+        _weight = new double[arcs];
+        for (a = 0; a < arcs; a += 1) {
+            int b = order[a];
+            _tail[a] = tail[b];
+            _head[a] = head[b];
+            _edge[a] = edge[b];
+            _weight[a] = weight[b];
+        }
+    }
+
+    /** Returns the number of vertices. */
+    int vertexCount() {
+        return _vertices.size();
+    }
+
+    /** Returns vertex number V. */
+    Graph<VLabel, ELabel>.Vertex vertex(int v) {
+        return _vertices.get(v);
+    }
+
+    /** Returns the number of V, or -1 if V is not in the graph. */
+    int index(Graph<VLabel, ELabel>.Vertex v) {
+        Integer i = _index.get(v);
+        return i == null ? -1 : i;
+    }
+
+    /** Returns the number of edges. */
+    int edgeCount() {
+        return _edges.size();
+    }
+
+    /** Returns edge number K. */
+    Graph<VLabel, ELabel>.Edge edge(int k) {
+        return _edges.get(k);
+    }
+
+    /** Returns the positions at which the arcs leaving each vertex start:
+     *  the arcs leaving v are numbered outStart()[v] ..
+     *  outStart()[v + 1] - 1. */
+    int[] outStart() {
+        return _outStart;
+    }
+
+    /** Returns the vertex each arc leaves. */
+    int[] tails() {
+        return _tail;
+    }
+
+    /** Returns the vertex each arc enters. */
+    int[] heads() {
+        return _head;
+    }
+
+    /** Returns the number of the edge each arc crosses. */
+    int[] arcEdges() {
+        return _edge;
+    }
+
+    /** Returns the weight of each arc. */
+    double[] weights() {
+        return _weight;
+    }
+
+    /** Returns the arcs sorted by END[arc], a vertex less than N, setting
+     *  START[v], initially 0, to the position of the first arc whose end
+     *  is v and START[N] to the number of arcs.  Arcs with the same end
+     *  keep their order. */
+    static int[] group(int[] end, int n, int[] start) {
+        for (int a = 0; a < end.length; a += 1) {
+            start[end[a] + 1] += 1;
+        }
+        for (int v = 0; v < n; v += 1) {
+            start[v + 1] += start[v];
+        }
+        int[] next = Arrays.copyOf(start, n);
+        int[] sorted = new int[end.length];
+        for (int a = 0; a < end.length; a += 1) {
+            sorted[next[end[a]]] = a;
+            next[end[a]] += 1;
+        }
+        return sorted;
+    }
+
+    /** The vertices, by number. */
+    private final ArrayList<Graph<VLabel, ELabel>.Vertex> _vertices;
+    /** The number of each vertex. */
+    private final HashMap<Graph<VLabel, ELabel>.Vertex, Integer> _index;
+    /** The edges, by number. */
+    private final ArrayList<Graph<VLabel, ELabel>.Edge> _edges;
+    /** Arcs leaving vertex v are numbered _outStart[v] ..
+     *  _outStart[v + 1] - 1. */
+    private final int[] _outStart;
+    /** Start and end vertex of each arc. */
+    private final int[] _tail, _head;
+    /** Number of the edge each arc crosses. */
+    private final int[] _edge;
+    /** Weight of each arc. */
+    private final double[] _weight;
+}
@@ -0,0 +1,299 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Brandes' algorithm for the betweenness centrality of the vertices of
+ *  a graph: for each vertex, the sum over pairs of other vertices of the
+ *  fraction of the shortest paths between them that pass through it.
+ *  The graph is copied once into arrays of arcs.  The single-source
+ *  searches (breadth-first if edges are unweighted, Dijkstra's algorithm
+ *  otherwise) are divided among worker threads, each of which keeps its
+ *  own search arrays and its own array of partial scores; the partial
+ *  scores are added together once all sources are done.
+ *  @author Andrew Berger
+ */
+final class Betweenness<VLabel, ELabel> {
+
+    /** Prepares to score the vertices of G, with edge weights given by
+     *  EWEIGHTER (read from G's edges if G stores them), or with every
+     *  edge of weight 1 if EWEIGHTER is null. */
+    Betweenness(Graph<VLabel, ELabel> G,
+                Weighting<? super ELabel> eweighter) {
+        _arcs = new Arcs<VLabel, ELabel>(G, eweighter);
+        _directed = G.isDirected();
+        _outStart = _arcs.outStart();
+        _outHead = _arcs.heads();
+        _outWeight = eweighter == null ? null : _arcs.weights();
+    }
+
+    /** Returns the betweenness of every vertex, using as sources the
+     *  vertices whose indices are in SOURCES, and scaling the sums by
+     *  SCALE.  Uses up to THREADS threads. */
+    Map<Graph<VLabel, ELabel>.Vertex, Double> scores(final int[] sources,
+                                                     double scale,
+                                                     int threads) {
+        int n = _arcs.vertexCount();
+        final AtomicInteger next = new AtomicInteger();
+        int workers = Math.max(1, Math.min(threads, sources.length));
+        double[] total = new double[n];
+        if (workers == 1) {
+            total = new Worker(sources, next).call();
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<double[]>> parts =
+                    new ArrayList<Future<double[]>>();
+                for (int k = 0; k < workers; k += 1) {
+                    parts.add(pool.submit(new Worker(sources, next)));
+                }
+                for (Future<double[]> part : parts) {
+                    double[] partial = part.get();
+                    for (int v = 0; v < n; v += 1) {
+                        total[v] += partial[v];
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        if (!_directed) {
+            scale /= 2;
+        }
+        HashMap<Graph<VLabel, ELabel>.Vertex, Double> result =
+            new HashMap<Graph<VLabel, ELabel>.Vertex, Double>();
+        for (int v = 0; v < n; v += 1) {
+            result.put(_arcs.vertex(v), total[v] * scale);
+        }
+        return result;
+    }
+
+    /** Returns the number of vertices. */
+    int vertexCount() {
+        return _arcs.vertexCount();
+    }
+
+    /** Runs single-source searches from sources it claims in turn,
+     *  accumulating partial scores in its own array. */
+    private final class Worker implements Callable<double[]> {
+
+        /** A worker taking sources from SOURCES at the positions handed
+         *  out by NEXT. */
+        Worker(int[] sources, AtomicInteger next) {
+            int n = _arcs.vertexCount();
+            _sources = sources;
+            _next = next;
+            _score = new double[n];
+            _dist = new double[n];
+            _sigma = new double[n];
+            _delta = new double[n];
+            _order = new int[n];
+            _predCount = new int[n];
+            _preds = new int[_outHead.length];
+            _predStart = new int[n + 1];
+            for (int i = 0; i < _outHead.length; i += 1) {
+                _predStart[_outHead[i] + 1] += 1;
+            }
+            for (int v = 0; v < n; v += 1) {
+                _predStart[v + 1] += _predStart[v];
+            }
+            _heapVertex = new int[_outHead.length + 1];
+            _heapKey = new double[_outHead.length + 1];
+        }
+
+        @Override
+        public double[] call() {
+            for (int k = _next.getAndIncrement(); k < _sources.length;
+                 k = _next.getAndIncrement()) {
+                int s = _sources[k];
+                int reached = _outWeight == null ? breadthFirst(s)
+                    : dijkstra(s);
+                accumulate(reached);
+            }
+            return _score;
+        }
+
+        /** Clears the search arrays and starts a search from S. */
+        private void start(int s) {
+            Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+            Arrays.fill(_sigma, 0.0);
+            Arrays.fill(_delta, 0.0);
+            Arrays.fill(_predCount, 0);
+            _dist[s] = 0.0;
+            _sigma[s] = 1.0;
+        }
+
+        /** Records that the arc from U to W lies on shortest paths to W. */
+        private void addPred(int u, int w) {
+            _preds[_predStart[w] + _predCount[w]] = u;
+            _predCount[w] += 1;
+            _sigma[w] += _sigma[u];
+        }
+
+        /** Finds the shortest paths from S by breadth-first search,
+         *  recording the vertices in _order in nondecreasing distance.
+         *  Returns the number of vertices reached. */
+        private int breadthFirst(int s) {
+            start(s);
+            int head = 0, tail = 0;
+            _order[tail] = s;
+            tail += 1;
+            while (head < tail) {
+                int u = _order[head];
+                head += 1;
+                for (int i = _outStart[u]; i < _outStart[u + 1]; i += 1) {
+                    int w = _outHead[i];
+                    if (_dist[w] == Double.POSITIVE_INFINITY) {
+                        _dist[w] = _dist[u] + 1;
+                        _order[tail] = w;
+                        tail += 1;
+                    }
+                    if (_dist[w] == _dist[u] + 1) {
+                        addPred(u, w);
+                    }
+                }
+            }
+            return tail;
+        }
+
+        /** Finds the shortest paths from S by Dijkstra's algorithm,
+         *  recording the vertices in _order in nondecreasing distance.
+         *  Returns the number of vertices reached. */
+        private int dijkstra(int s) {
+            start(s);
+            int settled = 0;
+            _heapSize = 0;
+            push(s, 0.0);
+            while (_heapSize > 0) {
+                double d = _heapKey[0];
+                int u = pop();
+                if (d > _dist[u] || _delta[u] != 0.0) {
+                    continue;
+                }
+                _delta[u] = 1.0;
+                _order[settled] = u;
+                settled += 1;
+                for (int i = _outStart[u]; i < _outStart[u + 1]; i += 1) {
+                    int w = _outHead[i];
+                    double dw = d + _outWeight[i];
+                    if (dw < _dist[w]) {
+                        _dist[w] = dw;
+                        _sigma[w] = 0.0;
+                        _predCount[w] = 0;
+                        push(w, dw);
+                    }
+                    if (dw == _dist[w] && _delta[w] == 0.0) {
+                        addPred(u, w);
+                    }
+                }
+            }
+            for (int k = 0; k < settled; k += 1) {
+                _delta[_order[k]] = 0.0;
+            }
+            return settled;
+        }
+
+        /** Adds the dependencies of the current source on the first
+         *  REACHED vertices of _order to my scores. */
+        private void accumulate(int reached) {
+            for (int k = reached - 1; k > 0; k -= 1) {
+                int w = _order[k];
+                double share = (1.0 + _delta[w]) / _sigma[w];
+                for (int i = _predStart[w]; i < _predStart[w] + _predCount[w];
+                     i += 1) {
+                    int v = _preds[i];
+                    _delta[v] += _sigma[v] * share;
+                }
+                _score[w] += _delta[w];
+            }
+        }
+
+        /** Adds vertex V with key KEY to my heap. */
+        private void push(int v, double key) {
+            int i = _heapSize;
+            _heapSize += 1;
+            while (i > 0 && _heapKey[(i - 1) / 2] > key) {
+                _heapKey[i] = _heapKey[(i - 1) / 2];
+                _heapVertex[i] = _heapVertex[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            _heapKey[i] = key;
+            _heapVertex[i] = v;
+        }
+
+        /** Removes and returns the vertex of least key from my heap. */
+        private int pop() {
+            int top = _heapVertex[0];
+            _heapSize -= 1;
+            int v = _heapVertex[_heapSize];
+            double key = _heapKey[_heapSize];
+            int i = 0;
+            while (2 * i + 1 < _heapSize) {
+                int c = 2 * i + 1;
+                if (c + 1 < _heapSize && _heapKey[c + 1] < _heapKey[c]) {
+                    c += 1;
+                }
+                if (_heapKey[c] >= key) {
+                    break;
+                }
+                _heapKey[i] = _heapKey[c];
+                _heapVertex[i] = _heapVertex[c];
+                i = c;
+            }
+            _heapKey[i] = key;
+            _heapVertex[i] = v;
+            return top;
+        }
+
+        /** The sources to search from. */
+        private final int[] _sources;
+        /** Hands out positions in _sources. */
+        private final AtomicInteger _next;
+        /** My partial scores, by vertex. */
+        private final double[] _score;
+        /** Distance of each vertex from the current source. */
+        private final double[] _dist;
+        /** Number of shortest paths to each vertex. */
+        private final double[] _sigma;
+        /** Dependency of the current source on each vertex.  Also marks
+         *  settled vertices during Dijkstra's algorithm. */
+        private final double[] _delta;
+        /** Vertices reached, in nondecreasing distance. */
+        private final int[] _order;
+        /** The predecessors of vertex w on shortest paths are
+         *  _preds[_predStart[w] .. _predStart[w] + _predCount[w] - 1]. */
+        private final int[] _preds, _predStart, _predCount;
+        /** Vertices and keys of my heap, of which there are _heapSize. */
+        private final int[] _heapVertex;
+        /** Keys of the vertices in my heap. */
+        private final double[] _heapKey;
+        /** Number of entries in my heap. */
+        private int _heapSize;
+    }
+
+    /** The graph, as arcs. */
+    private final Arcs<VLabel, ELabel> _arcs;
+    /** True iff the graph is directed. */
+    private final boolean _directed;
+    /** Arcs leaving vertex v are numbered _outStart[v] ..
+     *  _outStart[v + 1] - 1. */
+    private final int[] _outStart;
+    /** The vertex each arc enters. */
+    private final int[] _outHead;
+    /** The weight of each arc, or null if all weights are 1. */
+    private final double[] _outWeight;
+}
@@ -0,0 +1,19 @@
+package graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/** A type of object that writes values of type ITEM in binary form and
+ *  reads them back.  Used to store the labels of a graph's vertices and
+ *  edges in a MutationLog.
+ *  @author Andrew Berger */
+public interface Codec<Item> {
+
+    /** Writes X, which is not null, to OUT. */
+    void write(Item x, DataOutput out) throws IOException;
+
+    /** Returns an item read from IN, as written by write. */
+    Item read(DataInput in) throws IOException;
+
+}
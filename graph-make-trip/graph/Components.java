@@ -0,0 +1,151 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** The weakly connected components of a graph: the sets of vertices
+ *  joined by edges taken in either direction.  They are found with a
+ *  union-find structure over vertex indices (union by size, with path
+ *  halving), in time nearly linear in the size of the graph.  Components
+ *  are numbered in the order of their first vertices in the graph's
+ *  vertices(), and list their vertices in that order too, so that the
+ *  result does not depend on the order in which edges are examined.
+ *  @author Andrew Berger
+ */
+final class Components<VLabel, ELabel> {
+
+    /** The components of G. */
+    Components(Graph<VLabel, ELabel> G) {
+        _G = G.stable();
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer> index =
+            new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        ArrayList<Graph<VLabel, ELabel>.Vertex> vertices =
+            new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        for (Graph<VLabel, ELabel>.Vertex v : _G.vertices()) {
+            index.put(v, vertices.size());
+            vertices.add(v);
+        }
+        int n = vertices.size();
+        _parent = new int[n];
+        _size = new int[n];
+        for (int v = 0; v < n; v += 1) {
+            _parent[v] = v;
+            _size[v] = 1;
+        }
+        for (Graph<VLabel, ELabel>.Edge e : _G.edges()) {
+            union(index.get(e.getV0()), index.get(e.getV1()));
+        }
+        int[] number = new int[n];
+        _components = new ArrayList<List<Graph<VLabel, ELabel>.Vertex>>();
+        for (int v = 0; v < n; v += 1) {
+            int root = find(v);
+            if (number[root] == 0) {
+                _components.add(new ArrayList<Graph<VLabel, ELabel>.Vertex>());
+                number[root] = _components.size();
+            }
+            _components.get(number[root] - 1).add(vertices.get(v));
+        }
+    }
+
+    /** Returns my components, each a list of vertices. */
+    List<List<Graph<VLabel, ELabel>.Vertex>> components() {
+        return Collections.unmodifiableList(_components);
+    }
+
+    /** Traverses each of my components depth-first with a traversal of
+     *  its own made by FACTORY, using up to THREADS threads if my graph
+     *  may be read by several threads at once, and returns the
+     *  traversals in the order of their components. */
+    <T extends Traversal<VLabel, ELabel>> List<T> traverse(
+        final TraversalFactory<VLabel, ELabel, T> factory, int threads) {
+        ArrayList<T> result = new ArrayList<T>(_components.size());
+        int workers = Math.min(threads, _components.size());
+        if (workers <= 1 || !_G.concurrentlyReadable()) {
+            for (List<Graph<VLabel, ELabel>.Vertex> c : _components) {
+                result.add(traverse(factory.traversal(c), c));
+            }
+            return result;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            ArrayList<Future<T>> parts = new ArrayList<Future<T>>();
+            for (final List<Graph<VLabel, ELabel>.Vertex> c : _components) {
+                parts.add(pool.submit(new Callable<T>() {
+                    @Override
+                    public T call() {
+                        return traverse(factory.traversal(c), c);
+                    }
+                }));
+            }
+            for (Future<T> part : parts) {
+                result.add(part.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    /** Traverses COMPONENT of my graph depth-first with T, starting
+     *  from each of its vertices not yet reached, until T has reached
+     *  them all or stops.  Returns T. */
+    private <T extends Traversal<VLabel, ELabel>> T traverse(
+        T t, List<Graph<VLabel, ELabel>.Vertex> component) {
+        t.depthFirstTraverse(_G, component.get(0));
+        for (int k = 1; k < component.size()
+                 && t.finalVertex() == null; k += 1) {
+            t.continueTraversing(component.get(k));
+        }
+        return t;
+    }
+
+    /** Returns the representative of the set containing V, halving the
+     *  path to it. */
+    private int find(int v) {
+        while (_parent[v] != v) {
+            _parent[v] = _parent[_parent[v]];
+            v = _parent[v];
+        }
+        return v;
+    }
+
+    /** Merges the sets containing U and V. */
+    private void union(int u, int v) {
+        u = find(u);
+        v = find(v);
+        if (u == v) {
+            return;
+        }
+        if (_size[u] < _size[v]) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        _parent[v] = u;
+        _size[u] += _size[v];
+    }
+
+    /** My graph, as it will stay while I traverse it. */
+    private final Graph<VLabel, ELabel> _G;
+    /** Parent of each vertex index in the union-find forest. */
+    private final int[] _parent;
+    /** Size of the set of each representative. */
+    private final int[] _size;
+    /** My components, in order. */
+    private final ArrayList<List<Graph<VLabel, ELabel>.Vertex>> _components;
+}
@@ -0,0 +1,596 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.LongFunction;
+
+/** A read-only copy of a graph in compressed form, for large graphs that
+ *  need not change.  In the manner of WebGraph, the neighbors of each
+ *  vertex are kept sorted and stored as gaps (differences between
+ *  successive neighbor numbers) in a variable-length byte code of 7 bits
+ *  per byte, so that a graph whose edges mostly join vertices with
+ *  nearby numbers takes one or two bytes per edge.  The first neighbor
+ *  is stored relative to the vertex itself.  Lists are decoded as they
+ *  are iterated.
+ *
+ *  Edges are numbered in the order of their lists, so that each edge
+ *  in a vertex's outgoing list is identified by its position there.  The
+ *  incoming lists of a directed graph, and the part of each vertex's
+ *  list in an undirected graph that holds edges from lower-numbered
+ *  vertices, also record each edge's position in the list of its other
+ *  end.  Vertex and edge handles are created on demand, as for
+ *  OffHeapGraph.  Stored edge weights are not kept.
+ *  @author Andrew Berger
+ */
+public class CompressedGraph<VLabel, ELabel> extends Graph<VLabel, ELabel> {
+
+    /** A compressed copy of SOURCE, whose vertices are numbered in the
+     *  order SOURCE delivers them.  Numbering neighboring vertices
+     *  consecutively gives the best compression. */
+    public CompressedGraph(Graph<VLabel, ELabel> source) {
+        _directed = source.isDirected();
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer> index =
+            new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        _vertexLabels = new ArrayList<VLabel>(source.vertexSize());
+        for (Graph<VLabel, ELabel>.Vertex v : source.vertices()) {
+            index.put(v, _vertexLabels.size());
+            _vertexLabels.add(v.getLabel());
+        }
+        int n = _vertexLabels.size(), m = source.edgeSize();
+        int[] from = new int[m], to = new int[m];
+        ArrayList<ELabel> labels = new ArrayList<ELabel>(m);
+        BitSet flipped = new BitSet();
+        int k = 0;
+        for (Graph<VLabel, ELabel>.Edge e : source.edges()) {
+            int u = index.get(e.getV0()), v = index.get(e.getV1());
+            if (!_directed && u > v) {
+                flipped.set(k);
+                int t = u;
+                u = v;
+                v = t;
+            }
+            from[k] = u;
+            to[k] = v;
+            labels.add(e.getLabel());
+            k += 1;
+        }
+        int[] arcs = new int[m];
+        for (int a = 0; a < m; a += 1) {
+            arcs[a] = a;
+        }
+        arcs = sortBy(from, n, sortBy(to, n, arcs, null), null);
+
+        _edgeCount = m;
+        _edgeLabels = new ArrayList<ELabel>(m);
+        _flipped = new BitSet();
+        _firstEdge = new int[n + 1];
+        for (int i = 0; i < m; i += 1) {
+            _edgeLabels.add(labels.get(arcs[i]));
+            if (flipped.get(arcs[i])) {
+                _flipped.set(i);
+            }
+            _firstEdge[from[arcs[i]] + 1] += 1;
+        }
+        for (int u = 0; u < n; u += 1) {
+            _firstEdge[u + 1] += _firstEdge[u];
+        }
+
+        _data = new byte[Math.max(m, 1)];
+        _outOffset = new int[n + 1];
+        for (int u = 0; u < n; u += 1) {
+            _outOffset[u] = _size;
+            int prev = u;
+            for (int i = _firstEdge[u]; i < _firstEdge[u + 1]; i += 1) {
+                int v = to[arcs[i]];
+                write(i == _firstEdge[u] ? zigzag(v - prev) : v - prev);
+                prev = v;
+            }
+        }
+        _outOffset[n] = _size;
+
+        int[] head = new int[m];
+        for (int i = 0; i < m; i += 1) {
+            head[i] = to[arcs[i]];
+        }
+        int[] ids = new int[m];
+        int reverse = 0;
+        for (int i = 0; i < m; i += 1) {
+            if (_directed || from[arcs[i]] != head[i]) {
+                ids[reverse] = i;
+                reverse += 1;
+            }
+        }
+        _inStart = new int[n + 1];
+        ids = sortBy(head, n, Arrays.copyOf(ids, reverse), _inStart);
+        _inOffset = new int[n + 1];
+        for (int v = 0; v < n; v += 1) {
+            _inOffset[v] = _size;
+            int prev = v;
+            for (int j = _inStart[v]; j < _inStart[v + 1]; j += 1) {
+                int u = from[arcs[ids[j]]];
+                write(j == _inStart[v] ? zigzag(u - prev) : u - prev);
+                write(ids[j] - _firstEdge[u]);
+                prev = u;
+            }
+        }
+        _inOffset[n] = _size;
+        _data = Arrays.copyOf(_data, _size);
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexLabels.size();
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeCount;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(Vertex v) {
+        int i = index(v);
+        int out = _firstEdge[i + 1] - _firstEdge[i];
+        return _directed ? out : out + _inStart[i + 1] - _inStart[i];
+    }
+
+    @Override
+    public int inDegree(Vertex v) {
+        if (!_directed) {
+            return outDegree(v);
+        }
+        int i = index(v);
+        return _inStart[i + 1] - _inStart[i];
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v) {
+        return find(index(u), index(v), null, false);
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v, ELabel label) {
+        return find(index(u), index(v), label, true);
+    }
+
+    /** Unsupported: I am read-only. */
+    @Override
+    public Vertex add(VLabel label) {
+        throw new UnsupportedOperationException("graph is read-only");
+    }
+
+    /** Unsupported: I am read-only. */
+    @Override
+    public Edge add(Vertex from, Vertex to, ELabel label) {
+        throw new UnsupportedOperationException("graph is read-only");
+    }
+
+    /** Unsupported: I am read-only. */
+    @Override
+    public void remove(Vertex v) {
+        throw new UnsupportedOperationException("graph is read-only");
+    }
+
+    /** Unsupported: I am read-only. */
+    @Override
+    public void remove(Edge e) {
+        throw new UnsupportedOperationException("graph is read-only");
+    }
+
+    /** Unsupported: I am read-only. */
+    @Override
+    public void remove(Vertex v1, Vertex v2) {
+        throw new UnsupportedOperationException("graph is read-only");
+    }
+
+    @Override
+    public Iteration<Vertex> vertices() {
+        return new Iteration<Vertex>() {
+            @Override
+            public boolean hasNext() {
+                return _next < _vertexLabels.size();
+            }
+
+            @Override
+            public Vertex next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _next += 1;
+                return vertex(_next - 1);
+            }
+
+            /** The number of the next vertex. */
+            private int _next;
+        };
+    }
+
+    @Override
+    public Iteration<Vertex> successors(Vertex v) {
+        return new Scan<Vertex>(new Cursor(index(v), true, !_directed)) {
+            @Override
+            Vertex at(Cursor c) {
+                return vertex(c._neighbor);
+            }
+        };
+    }
+
+    @Override
+    public Iteration<Vertex> predecessors(Vertex v) {
+        if (!_directed) {
+            return successors(v);
+        }
+        return new Scan<Vertex>(new Cursor(index(v), false, true)) {
+            @Override
+            Vertex at(Cursor c) {
+                return vertex(c._neighbor);
+            }
+        };
+    }
+
+    @Override
+    Spliterator<Vertex> vertexSpliterator() {
+        return new RangeSpliterator<Vertex>(this, 0, _vertexLabels.size(),
+                                            new LongFunction<Vertex>() {
+                @Override
+                public Vertex apply(long k) {
+                    return vertex((int) k);
+                }
+            });
+    }
+
+    @Override
+    public Iteration<Edge> edges() {
+        Iteration<Edge> all = new Iteration<Edge>() {
+            @Override
+            public boolean hasNext() {
+                while (!_cursor.hasNext()
+                       && _cursor._v + 1 < _vertexLabels.size()) {
+                    _cursor = new Cursor(_cursor._v + 1, true, false);
+                }
+                return _cursor.hasNext();
+            }
+
+            @Override
+            public Edge next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _cursor.advance();
+                return _cursor.edge();
+            }
+
+            /** Position in the list of the vertex being scanned. */
+            private Cursor _cursor = new Cursor(-1, false, false);
+        };
+        if (_order == null) {
+            return all;
+        }
+        ArrayList<Edge> sorted = new ArrayList<Edge>(_edgeCount);
+        for (Edge e : all) {
+            sorted.add(e);
+        }
+        final Comparator<ELabel> order = _order;
+        Collections.sort(sorted, new Comparator<Edge>() {
+            @Override
+            public int compare(Edge e0, Edge e1) {
+                return order.compare(e0.getLabel(), e1.getLabel());
+            }
+        });
+        return Iteration.iteration(sorted.iterator());
+    }
+
+    @Override
+    public Iteration<Edge> outEdges(Vertex v) {
+        return new Scan<Edge>(new Cursor(index(v), true, !_directed)) {
+            @Override
+            Edge at(Cursor c) {
+                return c.edge();
+            }
+        };
+    }
+
+    @Override
+    public Iteration<Edge> inEdges(Vertex v) {
+        if (!_directed) {
+            return outEdges(v);
+        }
+        return new Scan<Edge>(new Cursor(index(v), false, true)) {
+            @Override
+            Edge at(Cursor c) {
+                return c.edge();
+            }
+        };
+    }
+
+    @Override
+    public void orderEdges(Comparator<ELabel> comparator) {
+        _order = comparator;
+    }
+
+    @Override
+    boolean concurrentlyReadable() {
+        return true;
+    }
+
+    /** Returns false: I keep no stored weights, so that algorithms
+     *  compute the weights of my edges from their labels. */
+    @Override
+    boolean weighs(Weighting<?> weighting) {
+        return false;
+    }
+
+    /** Counts no Vertex or Edge objects, which I create only as they are
+     *  asked for. */
+    @Override
+    void measure(Footprint f) {
+        f.add(Footprint.LABEL_LISTS,
+              Footprint.arrayList(_vertexLabels.size())
+              + Footprint.arrayList(_edgeLabels.size()));
+        f.add(Footprint.ADJACENCY_LISTS,
+              Footprint.array(_data.length, 1)
+              + 4 * Footprint.array(_firstEdge.length, Integer.BYTES)
+              + Footprint.object(1, Integer.BYTES + 1)
+              + Footprint.array(_flipped.size() / Long.SIZE, Long.BYTES));
+    }
+
+    /** Returns true iff there is an edge from vertex U to vertex V
+     *  (labeled LABEL, if CHECKLABEL). */
+    private boolean find(int u, int v, ELabel label, boolean checkLabel) {
+        if (!_directed && u > v) {
+            int t = u;
+            u = v;
+            v = t;
+        }
+        Cursor c = new Cursor(u, true, false);
+        while (c.hasNext()) {
+            c.advance();
+            if (c._neighbor > v) {
+                return false;
+            } else if (c._neighbor == v) {
+                if (!checkLabel) {
+                    return true;
+                }
+                Object other = _edgeLabels.get(c._edge);
+                if (label == null ? other == null : label.equals(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Returns the positions ITEMS sorted stably by KEYS[item], each a
+     *  vertex number less than N.  If START is not null, sets START[v]
+     *  to the position of the first item whose key is v, and START[N] to
+     *  the number of items. */
+    private static int[] sortBy(int[] keys, int n, int[] items,
+                                int[] start) {
+        int[] next = new int[n + 1];
+        for (int item : items) {
+            next[keys[item] + 1] += 1;
+        }
+        for (int v = 0; v < n; v += 1) {
+            next[v + 1] += next[v];
+        }
+        if (start != null) {
+            System.arraycopy(next, 0, start, 0, n + 1);
+        }
+        int[] sorted = new int[items.length];
+        for (int item : items) {
+            sorted[next[keys[item]]] = item;
+            next[keys[item]] += 1;
+        }
+        return sorted;
+    }
+
+    /** Appends X, which must be nonnegative, to my data in my variable
+     *  length code. */
+    private void write(int x) {
+        while ((x & ~LOW_BITS) != 0) {
+            append((byte) ((x & LOW_BITS) | MORE));
+            x >>>= BITS_PER_BYTE;
+        }
+        append((byte) x);
+    }
+
+    /** Appends B to my data. */
+    private void append(byte b) {
+        if (_size == _data.length) {
+            _data = Arrays.copyOf(_data, 2 * _size);
+        }
+        _data[_size] = b;
+        _size += 1;
+    }
+
+    /** Returns X coded as a nonnegative number, small if X is near 0. */
+    private static int zigzag(int x) {
+        return (x << 1) ^ (x >> (Integer.SIZE - 1));
+    }
+
+    /** Returns the number whose zigzag code is Z. */
+    private static int unzigzag(int z) {
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    /** Returns a handle on vertex number ID. */
+    private Vertex vertex(int id) {
+        return new Vertex(_vertexLabels.get(id), id);
+    }
+
+    /** Returns a handle on edge number ID, which was listed under vertex
+     *  U with V at its other end, where U < V in an undirected graph. */
+    private Edge edgeAt(int id, int u, int v) {
+        if (_flipped.get(id)) {
+            return new Edge(vertex(v), vertex(u), _edgeLabels.get(id), id);
+        }
+        return new Edge(vertex(u), vertex(v), _edgeLabels.get(id), id);
+    }
+
+    /** Returns the id of V, checking that it is one of my vertices. */
+    private int index(Vertex v) {
+        if (v.graph() != this || v.getId() < 0
+            || v.getId() >= _vertexLabels.size()) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        return v.getId();
+    }
+
+    /** A position in the lists of one vertex, decoding entries as it
+     *  advances. */
+    private final class Cursor {
+        /** A cursor on the lists of vertex V: its outgoing list if OUT,
+         *  and then its incoming list if IN. */
+        Cursor(int v, boolean out, boolean in) {
+            _v = v;
+            if (out) {
+                _pos = _outOffset[v];
+                _remaining = _firstEdge[v + 1] - _firstEdge[v];
+                _edge = _firstEdge[v] - 1;
+                _then = in;
+            } else if (in) {
+                startIncoming();
+            }
+        }
+
+        /** Returns true iff there are entries left. */
+        boolean hasNext() {
+            if (_remaining == 0 && _then) {
+                startIncoming();
+            }
+            return _remaining > 0;
+        }
+
+        /** Decodes the next entry into _neighbor and _edge.  Requires that
+         *  there be one. */
+        void advance() {
+            int gap = read();
+            _neighbor = _first ? _v + unzigzag(gap) : _neighbor + gap;
+            _first = false;
+            if (_incoming) {
+                _edge = _firstEdge[_neighbor] + read();
+            } else {
+                _edge += 1;
+            }
+            _remaining -= 1;
+        }
+
+        /** Returns a handle on the edge of the current entry. */
+        Edge edge() {
+            return _incoming ? edgeAt(_edge, _neighbor, _v)
+                : edgeAt(_edge, _v, _neighbor);
+        }
+
+        /** Moves to the start of my vertex's incoming list. */
+        private void startIncoming() {
+            _pos = _inOffset[_v];
+            _remaining = _inStart[_v + 1] - _inStart[_v];
+            _incoming = true;
+            _first = true;
+            _then = false;
+        }
+
+        /** Decodes and returns the number at _pos, advancing past it. */
+        private int read() {
+            int x = 0;
+            for (int shift = 0; ; shift += BITS_PER_BYTE) {
+                byte b = _data[_pos];
+                _pos += 1;
+                x |= (b & LOW_BITS) << shift;
+                if ((b & MORE) == 0) {
+                    return x;
+                }
+            }
+        }
+
+        /** My vertex. */
+        private final int _v;
+        /** Position in _data of the next entry. */
+        private int _pos;
+        /** Number of entries left in the current list. */
+        private int _remaining;
+        /** True iff the incoming list follows the current one. */
+        private boolean _then;
+        /** True iff the current list is an incoming list. */
+        private boolean _incoming;
+        /** True iff no entry of the current list has been decoded. */
+        private boolean _first = true;
+        /** The other end of the current entry's edge. */
+        private int _neighbor;
+        /** The id of the current entry's edge. */
+        private int _edge;
+    }
+
+    /** An iteration over the entries of a cursor. */
+    private abstract class Scan<T> extends Iteration<T> {
+        /** An iteration over the entries of CURSOR. */
+        Scan(Cursor cursor) {
+            _cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _cursor.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _cursor.advance();
+            return at(_cursor);
+        }
+
+        /** Returns the item for the current entry of C. */
+        abstract T at(Cursor c);
+
+        /** My cursor. */
+        private final Cursor _cursor;
+    }
+
+    /** Low bits of each byte of the code, which hold data. */
+    private static final int LOW_BITS = 0x7f;
+    /** High bit of each byte of the code, set if more bytes follow. */
+    private static final int MORE = 0x80;
+    /** Data bits per byte of the code. */
+    private static final int BITS_PER_BYTE = 7;
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** Vertex labels, by number. */
+    private final ArrayList<VLabel> _vertexLabels;
+    /** Edge labels, by id. */
+    private final ArrayList<ELabel> _edgeLabels;
+    /** Number of edges. */
+    private final int _edgeCount;
+    /** Ids of undirected edges stored with their ends reversed. */
+    private final BitSet _flipped;
+    /** The outgoing edges of vertex v have ids _firstEdge[v] ..
+     *  _firstEdge[v + 1] - 1. */
+    private final int[] _firstEdge;
+    /** Start in _data of each vertex's outgoing list, and its end. */
+    private final int[] _outOffset;
+    /** The incoming list of vertex v holds _inStart[v + 1] - _inStart[v]
+     *  entries. */
+    private final int[] _inStart;
+    /** Start in _data of each vertex's incoming list, and its end. */
+    private final int[] _inOffset;
+    /** The coded lists. */
+    private byte[] _data;
+    /** Number of bytes of _data in use while I am being built. */
+    private int _size;
+    /** Order in which edges() delivers edges, or null. */
+    private Comparator<ELabel> _order;
+}
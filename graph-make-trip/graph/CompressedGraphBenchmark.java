@@ -0,0 +1,115 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Compares CompressedGraph with the plain sparse representation,
+ *  AdaptiveGraph, on a large random graph whose edges mostly join
+ *  vertices with nearby numbers, as in road maps and web graphs.  For
+ *  each, it reports the estimated bytes per edge (in all, and in
+ *  adjacency lists alone) and the time per edge of breadth-first scans
+ *  of successor lists.  Usage:
+ *      java graph.CompressedGraphBenchmark [ VERTICES [ DEGREE ] ]
+ *  @author Andrew Berger
+ */
+public class CompressedGraphBenchmark {
+
+    /** Runs the benchmark, with sizes given by ARGS as described above. */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : VERTICES;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : DEGREE;
+        Random r = new Random(SEED);
+        AdaptiveGraph<Integer, Integer> sparse =
+            new AdaptiveGraph<Integer, Integer>(true);
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>(n);
+        for (int i = 0; i < n; i += 1) {
+            vs.add(sparse.add(i));
+        }
+        int label = 0;
+        for (int i = 0; i < n; i += 1) {
+            for (int d = 0; d < degree; d += 1) {
+                int j = r.nextInt(FAR_ODDS) == 0 ? r.nextInt(n)
+                    : Math.floorMod(i + r.nextInt(2 * WINDOW + 1) - WINDOW,
+                                    n);
+                sparse.add(vs.get(i), vs.get(j), label);
+                label += 1;
+            }
+        }
+        CompressedGraph<Integer, Integer> compressed =
+            new CompressedGraph<Integer, Integer>(sparse);
+        System.out.printf("%d vertices, %d edges%n", n, sparse.edgeSize());
+        report("AdaptiveGraph", sparse);
+        report("CompressedGraph", compressed);
+    }
+
+    /** Prints the footprint and scan speed of G, named NAME. */
+    private static void report(String name, Graph<Integer, Integer> g) {
+        Footprint f = g.footprint();
+        double edges = Math.max(1, g.edgeSize());
+        long visited = 0;
+        long best = Long.MAX_VALUE;
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            long start = System.nanoTime();
+            visited = scan(g);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-16s %7.2f bytes/edge (%6.2f in lists),"
+                          + " %6.2f ns/edge scanned (%d reached)%n", name,
+                          f.totalBytes() / edges,
+                          f.bytes(Footprint.ADJACENCY_LISTS) / edges,
+                          (double) best / edges, visited);
+    }
+
+    /** Scans G breadth-first from each unreached vertex in turn, and
+     *  returns the number of vertices reached from the first. */
+    private static long scan(Graph<Integer, Integer> g) {
+        int n = g.vertexSize();
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        ArrayList<Graph<Integer, Integer>.Vertex> byLabel =
+            new ArrayList<Graph<Integer, Integer>.Vertex>(n);
+        for (Graph<Integer, Integer>.Vertex v : g.vertices()) {
+            byLabel.add(v);
+        }
+        long first = -1;
+        for (int root = 0; root < n; root += 1) {
+            if (seen[root]) {
+                continue;
+            }
+            int head = 0, tail = 0;
+            queue[tail] = root;
+            tail += 1;
+            seen[root] = true;
+            while (head < tail) {
+                Graph<Integer, Integer>.Vertex v = byLabel.get(queue[head]);
+                head += 1;
+                for (Graph<Integer, Integer>.Vertex w : g.successors(v)) {
+                    int k = w.getLabel();
+                    if (!seen[k]) {
+                        seen[k] = true;
+                        queue[tail] = k;
+                        tail += 1;
+                    }
+                }
+            }
+            if (first < 0) {
+                first = tail;
+            }
+        }
+        return first;
+    }
+
+    /** Default number of vertices. */
+    private static final int VERTICES = 200000;
+    /** Default out-degree of each vertex. */
+    private static final int DEGREE = 8;
+    /** Most edges join vertices at most this far apart in number. */
+    private static final int WINDOW = 16;
+    /** One edge in this many joins arbitrary vertices. */
+    private static final int FAR_ODDS = 20;
+    /** Number of timed scans of each graph; the fastest is reported. */
+    private static final int TRIALS = 5;
+    /** Seed of the random graph. */
+    private static final long SEED = 61;
+}
@@ -0,0 +1,128 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for CompressedGraph.
+ *  @author Andrew Berger
+ */
+public class CompressedGraphTesting {
+
+    /** Returns the sorted descriptions "label:v0-v1" of the edges in IT,
+     *  where v0 and v1 are the labels of their ends. */
+    private List<String> edges(Iterable<Graph<Integer, Integer>.Edge> it) {
+        ArrayList<String> r = new ArrayList<String>();
+        for (Graph<Integer, Integer>.Edge e : it) {
+            r.add(e.getLabel() + ":" + e.getV0().getLabel() + "-"
+                  + e.getV1().getLabel());
+        }
+        Collections.sort(r);
+        return r;
+    }
+
+    /** Returns the sorted labels of the vertices in IT. */
+    private List<Integer> labels(Iterable<Graph<Integer, Integer>.Vertex> it) {
+        ArrayList<Integer> r = new ArrayList<Integer>();
+        for (Graph<Integer, Integer>.Vertex v : it) {
+            r.add(v.getLabel());
+        }
+        Collections.sort(r);
+        return r;
+    }
+
+    /** Checks a compressed copy of a random graph, directed iff DIRECTED,
+     *  with parallel edges, self-loops and distant neighbors, against
+     *  the original. */
+    private void compare(boolean directed) {
+        Random r = new Random(directed ? 1 : 2);
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(directed);
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        int n = 300;
+        for (int i = 0; i < n; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 0; i < 1500; i += 1) {
+            int u = r.nextInt(n);
+            int v = r.nextInt(4) == 0 ? r.nextInt(n)
+                : Math.max(0, Math.min(n - 1, u + r.nextInt(9) - 4));
+            g.add(vs.get(u), vs.get(v), i);
+        }
+        CompressedGraph<Integer, Integer> c =
+            new CompressedGraph<Integer, Integer>(g);
+        assertEquals("wrong vertex count", n, c.vertexSize());
+        assertEquals("wrong edge count", g.edgeSize(), c.edgeSize());
+        assertEquals("wrong edges", edges(g.edges()), edges(c.edges()));
+        ArrayList<Graph<Integer, Integer>.Vertex> cs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (Graph<Integer, Integer>.Vertex v : c.vertices()) {
+            cs.add(v);
+        }
+        for (int i = 0; i < n; i += 1) {
+            Graph<Integer, Integer>.Vertex v = vs.get(i), w = cs.get(i);
+            assertEquals("wrong label", v.getLabel(), w.getLabel());
+            assertEquals("wrong out-degree", g.outDegree(v), c.outDegree(w));
+            assertEquals("wrong in-degree", g.inDegree(v), c.inDegree(w));
+            assertEquals("wrong successors", labels(g.successors(v)),
+                         labels(c.successors(w)));
+            assertEquals("wrong predecessors", labels(g.predecessors(v)),
+                         labels(c.predecessors(w)));
+            assertEquals("wrong out-edges", edges(g.outEdges(v)),
+                         edges(c.outEdges(w)));
+            assertEquals("wrong in-edges", edges(g.inEdges(v)),
+                         edges(c.inEdges(w)));
+            for (int j = Math.max(0, i - 5); j < Math.min(n, i + 5); j += 1) {
+                assertEquals("wrong containment",
+                             g.contains(v, vs.get(j)),
+                             c.contains(w, cs.get(j)));
+            }
+        }
+    }
+
+    @Test
+    public void directedCopy() {
+        compare(true);
+    }
+
+    @Test
+    public void undirectedCopy() {
+        compare(false);
+    }
+
+    @Test
+    public void compactAndReadOnly() {
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(true);
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 1000; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 0; i < 1000; i += 1) {
+            for (int d = 1; d <= 4; d += 1) {
+                g.add(vs.get(i), vs.get((i + d) % 1000), 4 * i + d);
+            }
+        }
+        CompressedGraph<Integer, Integer> c =
+            new CompressedGraph<Integer, Integer>(g);
+        long bytes = c.footprint().bytes(Footprint.ADJACENCY_LISTS);
+        assertTrue("lists not compact: " + bytes,
+                   bytes < 4 * Integer.BYTES * c.edgeSize());
+        assertTrue("wrong labeled edge",
+                   c.contains(c.vertices().next(),
+                              c.successors(c.vertices().next()).next(), 1));
+        try {
+            c.add(5);
+            fail("read-only graph accepted a vertex");
+        } catch (UnsupportedOperationException e) {
+            /* Expected. */
+        }
+    }
+
+}
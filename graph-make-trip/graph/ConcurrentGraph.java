@@ -0,0 +1,899 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** A graph that may be modified by one thread while others query it.
+ *
+ *  The adjacency lists are immutable arrays, grouped by ranges of
+ *  vertex ids into segments, and the segments hang from a single root
+ *  that is replaced, never changed.  A query reads the current root once
+ *  and works from it without locking, so it never waits for a writer
+ *  and never sees half of a change.  A modification copies just the
+ *  adjacency lists and segments it changes and installs a new root.
+ *  Modifications are serialized by a set of locks, each guarding the
+ *  vertices in every STRIPES'th segment, so that changes to vertices in
+ *  different stripes proceed in parallel; removing a vertex takes all of
+ *  them.  A new vertex is entered in the label index, and a new edge's
+ *  weight stored, before the root that holds it is installed, so a
+ *  query that can see it can also find it and read its weight.  The
+ *  hooks through which Graph records each change (and through which a
+ *  MutationLog logs it) run while the locks covering the change are
+ *  still held, so changes that touch a common vertex are reported in
+ *  the order they were published.
+ *
+ *  Each iteration delivers the graph as it was when the iteration was
+ *  created, whatever happens to it afterwards.  Traversals work on
+ *  snapshot() of the graph, so that each sees a single consistent
+ *  graph.  The label index (see indexLabels) is kept under a lock.
+ *  @author Andrew Berger
+ */
+public class ConcurrentGraph<VLabel, ELabel> extends Graph<VLabel, ELabel> {
+
+    /** An empty graph, directed iff DIRECTED. */
+    public ConcurrentGraph(boolean directed) {
+        _directed = directed;
+        for (int i = 0; i < STRIPES; i += 1) {
+            _stripes[i] = new ReentrantLock();
+        }
+        _root = new AtomicReference<Root>(new Root(new Object[0][], 0, 0));
+    }
+
+    /** Returns a read-only view of my current state, which does not change
+     *  as I do.  Its vertices and edges are mine. */
+    public Graph<VLabel, ELabel> snapshot() {
+        return new Snapshot(_root.get());
+    }
+
+    @Override
+    Graph<VLabel, ELabel> stable() {
+        return snapshot();
+    }
+
+    @Override
+    boolean concurrentlyReadable() {
+        return true;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _root.get()._vertexCount;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _root.get()._edgeCount;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(Vertex v) {
+        return _root.get().node(v)._out.length;
+    }
+
+    @Override
+    public int inDegree(Vertex v) {
+        return _root.get().node(v)._in.length;
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v) {
+        return _root.get().contains(u, v, null, false);
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v, ELabel label) {
+        return _root.get().contains(u, v, label, true);
+    }
+
+    @Override
+    public Vertex add(VLabel label) {
+        Vertex v = new Vertex(label, _nextVertexId.getAndIncrement());
+        ReentrantLock lock = stripe(v.getId());
+        lock.lock();
+        try {
+            vertexAdding(v);
+            publish(Collections.singletonMap(v.getId(),
+                                             new Node(v, NO_EDGES, NO_EDGES)),
+                    1, 0);
+            vertexAdded(v);
+        } finally {
+            lock.unlock();
+        }
+        return v;
+    }
+
+    @Override
+    public Edge add(Vertex from, Vertex to, ELabel label) {
+        Edge e;
+        lockBoth(from, to);
+        try {
+            Root r = _root.get();
+            Node n0 = r.node(from), n1 = r.node(to);
+            e = new Edge(from, to, label, _nextEdgeId.getAndIncrement());
+            edgeAdding(e);
+            HashMap<Integer, Node> changes = new HashMap<Integer, Node>();
+            if (n0 == n1) {
+                changes.put(from.getId(),
+                            new Node(from, with(n0._out, e),
+                                     _directed ? with(n0._in, e) : null));
+            } else {
+                changes.put(from.getId(), n0.withOut(with(n0._out, e)));
+                changes.put(to.getId(),
+                            _directed ? n1.withIn(with(n1._in, e))
+                            : n1.withOut(with(n1._out, e)));
+            }
+            publish(changes, 0, 1);
+            edgeAdded(e);
+        } finally {
+            unlockBoth(from, to);
+        }
+        return e;
+    }
+
+    @Override
+    public void remove(Vertex v) {
+        ArrayList<Edge> removed = new ArrayList<Edge>();
+        for (ReentrantLock lock : _stripes) {
+            lock.lock();
+        }
+        try {
+            Root r = _root.get();
+            if (r.find(v) == null) {
+                return;
+            }
+            vertexRemoved(v);
+            HashMap<Integer, Node> changes = new HashMap<Integer, Node>();
+            Node n = r.node(v);
+            collect(n._out, removed);
+            if (_directed) {
+                collect(n._in, removed);
+            }
+            for (Edge e : removed) {
+                detach(r, e, changes);
+            }
+            changes.put(v.getId(), null);
+            publish(changes, -1, -removed.size());
+            for (Edge e : removed) {
+                edgeRemoved(e);
+            }
+        } finally {
+            for (ReentrantLock lock : _stripes) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(Edge e) {
+        Vertex v0 = e.getV0(), v1 = e.getV1();
+        lockBoth(v0, v1);
+        try {
+            Root r = _root.get();
+            if (indexOf(r.node(v0)._out, e) < 0) {
+                return;
+            }
+            HashMap<Integer, Node> changes = new HashMap<Integer, Node>();
+            detach(r, e, changes);
+            publish(changes, 0, -1);
+            edgeRemoved(e);
+        } finally {
+            unlockBoth(v0, v1);
+        }
+    }
+
+    @Override
+    public void remove(Vertex v1, Vertex v2) {
+        ArrayList<Edge> removed = new ArrayList<Edge>();
+        lockBoth(v1, v2);
+        try {
+            Root r = _root.get();
+            for (Object x : r.node(v1)._out) {
+                Edge e = edge(x);
+                if (e.getV(v1).equals(v2)) {
+                    removed.add(e);
+                }
+            }
+            if (removed.isEmpty()) {
+                return;
+            }
+            HashMap<Integer, Node> changes = new HashMap<Integer, Node>();
+            for (Edge e : removed) {
+                detach(r, e, changes);
+            }
+            publish(changes, 0, -removed.size());
+            for (Edge e : removed) {
+                edgeRemoved(e);
+            }
+        } finally {
+            unlockBoth(v1, v2);
+        }
+    }
+
+    @Override
+    public Iteration<Vertex> vertices() {
+        return _root.get().vertices();
+    }
+
+    @Override
+    public Iteration<Vertex> successors(Vertex v) {
+        return ends(_root.get().node(v)._out, v);
+    }
+
+    @Override
+    public Iteration<Vertex> predecessors(Vertex v) {
+        return ends(_root.get().node(v)._in, v);
+    }
+
+    @Override
+    public Iteration<Edge> edges() {
+        return Iteration.iteration(_root.get().edgeList(_order));
+    }
+
+    @Override
+    Spliterator<Vertex> vertexSpliterator() {
+        return new Snapshot(_root.get()).vertexSpliterator();
+    }
+
+    @Override
+    Spliterator<Edge> edgeSpliterator() {
+        return new Snapshot(_root.get()).edgeSpliterator();
+    }
+
+    @Override
+    public Iteration<Edge> outEdges(Vertex v) {
+        return edges(_root.get().node(v)._out);
+    }
+
+    @Override
+    public Iteration<Edge> inEdges(Vertex v) {
+        return edges(_root.get().node(v)._in);
+    }
+
+    @Override
+    public void orderEdges(Comparator<ELabel> comparator) {
+        _order = comparator;
+    }
+
+    @Override
+    public int version() {
+        return _version.get();
+    }
+
+    @Override
+    void modified() {
+        _version.incrementAndGet();
+    }
+
+    @Override
+    public Vertex lookup(Object key) {
+        synchronized (_hookLock) {
+            return super.lookup(key);
+        }
+    }
+
+    @Override
+    public Vertex lookup(int key) {
+        synchronized (_hookLock) {
+            return super.lookup(key);
+        }
+    }
+
+    @Override
+    void vertexAdding(Vertex v) {
+        synchronized (_hookLock) {
+            super.vertexAdding(v);
+        }
+    }
+
+    @Override
+    void vertexAdded(Vertex v) {
+        synchronized (_hookLock) {
+            super.vertexAdded(v);
+        }
+    }
+
+    @Override
+    void vertexRemoved(Vertex v) {
+        synchronized (_hookLock) {
+            super.vertexRemoved(v);
+        }
+    }
+
+    @Override
+    void edgeAdded(Edge e) {
+        synchronized (_hookLock) {
+            super.edgeAdded(e);
+        }
+    }
+
+    @Override
+    void edgeRemoved(Edge e) {
+        synchronized (_hookLock) {
+            super.edgeRemoved(e);
+        }
+    }
+
+    /** Installs a new root that is the current one with the vertex
+     *  nodes in CHANGES (null for removed vertices) replaced, and with
+     *  DV more vertices and DE more edges.  The caller holds the locks
+     *  of all the vertices in CHANGES, so only other segments can change
+     *  meanwhile. */
+    private void publish(Map<Integer, Node> changes, int dv, int de) {
+        while (true) {
+            Root r = _root.get();
+            if (_root.compareAndSet(r, r.with(changes, dv, de))) {
+                return;
+            }
+        }
+    }
+
+    /** Records in CHANGES the nodes of the ends of E, one of my edges,
+     *  as they are in R with E removed, starting from the nodes already
+     *  in CHANGES, if any. */
+    private void detach(Root r, Edge e, HashMap<Integer, Node> changes) {
+        Vertex v0 = e.getV0(), v1 = e.getV1();
+        Node n0 = current(r, v0, changes);
+        n0 = n0.withOut(without(n0._out, e));
+        if (_directed) {
+            if (v0.equals(v1)) {
+                n0 = n0.withIn(without(n0._in, e));
+            } else {
+                Node n1 = current(r, v1, changes);
+                changes.put(v1.getId(), n1.withIn(without(n1._in, e)));
+            }
+        } else if (!v0.equals(v1)) {
+            Node n1 = current(r, v1, changes);
+            changes.put(v1.getId(), n1.withOut(without(n1._out, e)));
+        }
+        changes.put(v0.getId(), n0);
+    }
+
+    /** Returns the node of V: from CHANGES if present, else from R. */
+    private Node current(Root r, Vertex v, HashMap<Integer, Node> changes) {
+        Node n = changes.get(v.getId());
+        return n != null ? n : r.node(v);
+    }
+
+    /** Returns the lock for the vertex numbered ID. */
+    private ReentrantLock stripe(int id) {
+        return _stripes[(id / SEGMENT_SIZE) % STRIPES];
+    }
+
+    /** Acquires the locks of U and V, in a fixed order. */
+    private void lockBoth(Vertex u, Vertex v) {
+        int i = (u.getId() / SEGMENT_SIZE) % STRIPES,
+            j = (v.getId() / SEGMENT_SIZE) % STRIPES;
+        _stripes[Math.min(i, j)].lock();
+        _stripes[Math.max(i, j)].lock();
+    }
+
+    /** Releases the locks of U and V. */
+    private void unlockBoth(Vertex u, Vertex v) {
+        stripe(u.getId()).unlock();
+        stripe(v.getId()).unlock();
+    }
+
+    /** Returns EDGES with E added at the end. */
+    private static Object[] with(Object[] edges, Object e) {
+        Object[] result = Arrays.copyOf(edges, edges.length + 1);
+        result[edges.length] = e;
+        return result;
+    }
+
+    /** Returns EDGES with E removed, or EDGES if E is absent. */
+    private static Object[] without(Object[] edges, Object e) {
+        int i = indexOf(edges, e);
+        if (i < 0) {
+            return edges;
+        }
+        Object[] result = new Object[edges.length - 1];
+        System.arraycopy(edges, 0, result, 0, i);
+        System.arraycopy(edges, i + 1, result, i, result.length - i);
+        return result;
+    }
+
+    /** Returns the position of E in EDGES, or -1. */
+    private static int indexOf(Object[] edges, Object e) {
+        for (int i = 0; i < edges.length; i += 1) {
+            if (edges[i].equals(e)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns X, an element of an edge array, as an Edge. */
+    @SuppressWarnings("unchecked")
+    private Edge edge(Object x) {
+        return (Edge) x;
+    }
+
+    /** Adds the edges in EDGES, skipping those already in RESULT, to
+     *  RESULT. */
+    private void collect(Object[] edges, ArrayList<Edge> result) {
+        for (Object x : edges) {
+            if (!result.contains(x)) {
+                result.add(edge(x));
+            }
+        }
+    }
+
+    /** Returns an iteration over EDGES, an immutable edge array. */
+    private Iteration<Edge> edges(final Object[] edges) {
+        return new Iteration<Edge>() {
+            @Override
+            public boolean hasNext() {
+                return _k < edges.length;
+            }
+
+            @Override
+            public Edge next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _k += 1;
+                return edge(edges[_k - 1]);
+            }
+
+            /** Position of the next edge. */
+            private int _k;
+        };
+    }
+
+    /** Returns an iteration over the ends away from V of EDGES, an
+     *  immutable array of edges incident on V. */
+    private Iteration<Vertex> ends(Object[] edges, final Vertex v) {
+        final Iteration<Edge> it = edges(edges);
+        return new Iteration<Vertex>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Vertex next() {
+                return it.next().getV(v);
+            }
+        };
+    }
+
+    @Override
+    void measure(Footprint f) {
+        super.measure(f);
+        _root.get().measure(f);
+    }
+
+    /** The adjacency lists of one vertex.  Immutable. */
+    private final class Node {
+        /** Node for vertex V with edge arrays OUT and IN (if directed).
+         *  If undirected, IN is ignored, and the incident edges are OUT. */
+        Node(Vertex v, Object[] out, Object[] in) {
+            _vertex = v;
+            _out = out;
+            _in = _directed ? in : out;
+            int owned = out.length;
+            if (!_directed) {
+                for (Object x : out) {
+                    if (!edge(x).getV0().equals(v)) {
+                        owned -= 1;
+                    }
+                }
+            }
+            _owned = owned;
+        }
+
+        /** Returns a copy of me with outgoing edges OUT. */
+        Node withOut(Object[] out) {
+            return new Node(_vertex, out, _in);
+        }
+
+        /** Returns a copy of me with incoming edges IN. */
+        Node withIn(Object[] in) {
+            return new Node(_vertex, _out, in);
+        }
+
+        /** My vertex. */
+        private final Vertex _vertex;
+        /** Edges leaving (or, if undirected, incident on) my vertex. */
+        private final Object[] _out;
+        /** Edges entering my vertex (the same as _out if undirected). */
+        private final Object[] _in;
+        /** The number of edges in _out that leave my vertex (all of
+         *  them, if directed), and so are listed with it by edges(). */
+        private final int _owned;
+    }
+
+    /** One version of my whole state.  Immutable. */
+    private final class Root {
+        /** A state whose vertex with id k has the node
+         *  SEGMENTS[k / SEGMENT_SIZE][k % SEGMENT_SIZE], if any, and which
+         *  has VERTEXCOUNT vertices and EDGECOUNT edges. */
+        Root(Object[][] segments, int vertexCount, int edgeCount) {
+            _segments = segments;
+            _vertexCount = vertexCount;
+            _edgeCount = edgeCount;
+        }
+
+        /** Returns a copy of me in which the vertex nodes in CHANGES (null
+         *  for removed vertices) are replaced, with DV more vertices and
+         *  DE more edges.  Copies only the segments that change. */
+        Root with(Map<Integer, Node> changes, int dv, int de) {
+            int needed = _segments.length;
+            for (int id : changes.keySet()) {
+                needed = Math.max(needed, id / SEGMENT_SIZE + 1);
+            }
+            Object[][] segments = Arrays.copyOf(_segments, needed);
+            boolean[] copied = new boolean[needed];
+            for (Map.Entry<Integer, Node> c : changes.entrySet()) {
+                int s = c.getKey() / SEGMENT_SIZE;
+                if (!copied[s]) {
+                    segments[s] = segments[s] == null
+                        ? new Object[SEGMENT_SIZE] : segments[s].clone();
+                    copied[s] = true;
+                }
+                segments[s][c.getKey() % SEGMENT_SIZE] = c.getValue();
+            }
+            return new Root(segments, _vertexCount + dv, _edgeCount + de);
+        }
+
+        /** Returns the node of V, or null if V is not present. */
+        @SuppressWarnings("unchecked")
+        Node find(Vertex v) {
+            int id = v.getId();
+            if (v.graph() != ConcurrentGraph.this
+                || id / SEGMENT_SIZE >= _segments.length
+                || _segments[id / SEGMENT_SIZE] == null) {
+                return null;
+            }
+            return (Node) _segments[id / SEGMENT_SIZE][id % SEGMENT_SIZE];
+        }
+
+        /** Returns the node of V, which must be present. */
+        Node node(Vertex v) {
+            Node n = find(v);
+            if (n == null) {
+                throw new IllegalArgumentException("vertex not in graph");
+            }
+            return n;
+        }
+
+        /** Returns true iff I contain an edge (U, V), with label LABEL if
+         *  CHECKLABEL. */
+        boolean contains(Vertex u, Vertex v, ELabel label,
+                         boolean checkLabel) {
+            Node n0 = node(u), n1 = node(v);
+            boolean forward = checkLabel || n0._out.length <= n1._in.length;
+            Object[] edges = forward ? n0._out : n1._in;
+            Vertex near = forward ? u : v, far = forward ? v : u;
+            for (Object x : edges) {
+                Edge e = edge(x);
+                if (!e.getV(near).equals(far)) {
+                    continue;
+                }
+                Object other = e.getLabel();
+                if (!checkLabel
+                    || (label == null ? other == null : label.equals(other))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Returns an iteration over my vertices. */
+        Iteration<Vertex> vertices() {
+            return new Iteration<Vertex>() {
+                @Override
+                public boolean hasNext() {
+                    while (_next < _segments.length * SEGMENT_SIZE
+                           && nodeAt(_next) == null) {
+                        _next += 1;
+                    }
+                    return _next < _segments.length * SEGMENT_SIZE;
+                }
+
+                @Override
+                public Vertex next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    _next += 1;
+                    return nodeAt(_next - 1)._vertex;
+                }
+
+                /** Id of the next vertex to examine. */
+                private int _next;
+            };
+        }
+
+        /** Returns a list of my edges, each once, sorted by their labels
+         *  according to ORDER if it is not null. */
+        ArrayList<Edge> edgeList(final Comparator<ELabel> order) {
+            ArrayList<Edge> all = new ArrayList<Edge>(_edgeCount);
+            for (Vertex v : vertices()) {
+                for (Object x : node(v)._out) {
+                    Edge e = edge(x);
+                    if (_directed || e.getV0().equals(v)) {
+                        all.add(e);
+                    }
+                }
+            }
+            if (order != null) {
+                Collections.sort(all, new Comparator<Edge>() {
+                    @Override
+                    public int compare(Edge e0, Edge e1) {
+                        return order.compare(e0.getLabel(), e1.getLabel());
+                    }
+                });
+            }
+            return all;
+        }
+
+        /** Adds to F estimates of the memory taken by my nodes and
+         *  segments. */
+        @SuppressWarnings("unchecked")
+        void measure(Footprint f) {
+            long node = Footprint.object(4, Integer.BYTES);
+            f.add(Footprint.INDEX_MAPS,
+                  Footprint.object(2, 2 * Integer.BYTES)
+                  + Footprint.array(_segments.length, Footprint.REFERENCE));
+            for (Object[] segment : _segments) {
+                if (segment == null) {
+                    continue;
+                }
+                f.add(Footprint.INDEX_MAPS,
+                      Footprint.array(SEGMENT_SIZE, Footprint.REFERENCE));
+                for (Object x : segment) {
+                    if (x == null) {
+                        continue;
+                    }
+                    Node n = (Node) x;
+                    f.add(Footprint.ADJACENCY_LISTS, node
+                          + Footprint.array(n._out.length,
+                                            Footprint.REFERENCE)
+                          + (_directed ? Footprint.array(n._in.length,
+                                                         Footprint.REFERENCE)
+                             : 0));
+                }
+            }
+        }
+
+        /** Returns the node of the vertex numbered ID, or null. */
+        @SuppressWarnings("unchecked")
+        private Node nodeAt(int id) {
+            Object[] segment = _segments[id / SEGMENT_SIZE];
+            return segment == null ? null
+                : (Node) segment[id % SEGMENT_SIZE];
+        }
+
+        /** Vertex nodes, in segments of SEGMENT_SIZE by id. */
+        private final Object[][] _segments;
+        /** Number of vertices. */
+        private final int _vertexCount;
+        /** Number of edges. */
+        private final int _edgeCount;
+    }
+
+    /** A read-only view of one of my roots. */
+    private final class Snapshot extends Graph<VLabel, ELabel> {
+        /** A view of ROOT. */
+        Snapshot(Root root) {
+            _frozen = root;
+        }
+
+        @Override
+        Graph<VLabel, ELabel> stable() {
+            return this;
+        }
+
+        @Override
+        boolean concurrentlyReadable() {
+            return true;
+        }
+
+        @Override
+        public int vertexSize() {
+            return _frozen._vertexCount;
+        }
+
+        @Override
+        public int edgeSize() {
+            return _frozen._edgeCount;
+        }
+
+        @Override
+        public boolean isDirected() {
+            return _directed;
+        }
+
+        @Override
+        public int outDegree(Vertex v) {
+            return _frozen.node(v)._out.length;
+        }
+
+        @Override
+        public int inDegree(Vertex v) {
+            return _frozen.node(v)._in.length;
+        }
+
+        @Override
+        public boolean contains(Vertex u, Vertex v) {
+            return _frozen.contains(u, v, null, false);
+        }
+
+        @Override
+        public boolean contains(Vertex u, Vertex v, ELabel label) {
+            return _frozen.contains(u, v, label, true);
+        }
+
+        @Override
+        public Vertex add(VLabel label) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+
+        @Override
+        public Edge add(Vertex from, Vertex to, ELabel label) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+
+        @Override
+        public void remove(Vertex v) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+
+        @Override
+        public void remove(Edge e) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+
+        @Override
+        public void remove(Vertex v1, Vertex v2) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+
+        @Override
+        public Iteration<Vertex> vertices() {
+            return _frozen.vertices();
+        }
+
+        @Override
+        public Iteration<Vertex> successors(Vertex v) {
+            return ends(_frozen.node(v)._out, v);
+        }
+
+        @Override
+        public Iteration<Vertex> predecessors(Vertex v) {
+            return ends(_frozen.node(v)._in, v);
+        }
+
+        @Override
+        public Iteration<Edge> edges() {
+            return Iteration.iteration(_frozen.edgeList(_order));
+        }
+
+        /** Returns a spliterator over my vertices, segment by segment. */
+        @Override
+        Spliterator<Vertex> vertexSpliterator() {
+            return new SlotSpliterator<Vertex>(
+                this, _frozen._segments.length,
+                new SlotSpliterator.Slots<Vertex>() {
+                    @Override
+                    public int count(int s) {
+                        int n = 0;
+                        for (int k = 0; k < size(s); k += 1) {
+                            if (get(s, k) != null) {
+                                n += 1;
+                            }
+                        }
+                        return n;
+                    }
+
+                    @Override
+                    public int size(int s) {
+                        return _frozen._segments[s] == null ? 0
+                            : SEGMENT_SIZE;
+                    }
+
+                    @Override
+                    public Vertex get(int s, int k) {
+                        Node n = _frozen.nodeAt(s * SEGMENT_SIZE + k);
+                        return n == null ? null : n._vertex;
+                    }
+                });
+        }
+
+        /** Returns a spliterator over my edges, vertex by vertex, unless
+         *  they are to be delivered sorted. */
+        @Override
+        Spliterator<Edge> edgeSpliterator() {
+            Comparator<ELabel> order = _order;
+            if (order != null) {
+                return _frozen.edgeList(order).spliterator();
+            }
+            return new SlotSpliterator<Edge>(
+                this, _frozen._segments.length * SEGMENT_SIZE,
+                new SlotSpliterator.Slots<Edge>() {
+                    @Override
+                    public int count(int s) {
+                        Node n = _frozen.nodeAt(s);
+                        return n == null ? 0 : n._owned;
+                    }
+
+                    @Override
+                    public int size(int s) {
+                        Node n = _frozen.nodeAt(s);
+                        return n == null ? 0 : n._out.length;
+                    }
+
+                    @Override
+                    public Edge get(int s, int k) {
+                        Node n = _frozen.nodeAt(s);
+                        Edge e = edge(n._out[k]);
+                        return _directed || e.getV0().equals(n._vertex)
+                            ? e : null;
+                    }
+                });
+        }
+
+        @Override
+        void measure(Footprint f) {
+            super.measure(f);
+            _frozen.measure(f);
+        }
+
+        @Override
+        public Iteration<Edge> outEdges(Vertex v) {
+            return ConcurrentGraph.this.edges(_frozen.node(v)._out);
+        }
+
+        @Override
+        public Iteration<Edge> inEdges(Vertex v) {
+            return ConcurrentGraph.this.edges(_frozen.node(v)._in);
+        }
+
+        @Override
+        public void orderEdges(Comparator<ELabel> comparator) {
+            throw new UnsupportedOperationException("snapshots are read-only");
+        }
+
+        /** The state I show. */
+        private final Root _frozen;
+    }
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** My current state. */
+    private final AtomicReference<Root> _root;
+    /** Locks guarding modifications, by stripe. */
+    private final ReentrantLock[] _stripes = new ReentrantLock[STRIPES];
+    /** Guards the label index and other state kept by Graph. */
+    private final Object _hookLock = new Object();
+    /** Id of the next vertex added. */
+    private final AtomicInteger _nextVertexId = new AtomicInteger();
+    /** Id of the next edge added. */
+    private final AtomicInteger _nextEdgeId = new AtomicInteger();
+    /** Counts modifications; see version(). */
+    private final AtomicInteger _version = new AtomicInteger();
+    /** Order in which edges() delivers edges, or null. */
+    private volatile Comparator<ELabel> _order;
+
+    /** Number of vertex ids per segment. */
+    private static final int SEGMENT_SIZE = 64;
+    /** Number of lock stripes. */
+    private static final int STRIPES = 16;
+    /** An empty edge array. */
+    private static final Object[] NO_EDGES = new Object[0];
+}
@@ -0,0 +1,270 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for ConcurrentGraph.
+ *  @author Andrew Berger
+ */
+public class ConcurrentGraphTesting {
+
+    /** Returns the number of items delivered by IT. */
+    private int count(Iteration<?> it) {
+        int n = 0;
+        for (Object x : it) {
+            n += 1;
+        }
+        return n;
+    }
+
+    @Test
+    public void structure() {
+        for (boolean directed : new boolean[] { true, false }) {
+            ConcurrentGraph<Integer, String> g =
+                new ConcurrentGraph<Integer, String>(directed);
+            List<Graph<Integer, String>.Vertex> vs =
+                new ArrayList<Graph<Integer, String>.Vertex>();
+            for (int i = 0; i < 200; i += 1) {
+                vs.add(g.add(i));
+            }
+            g.add(vs.get(0), vs.get(150), "a");
+            g.add(vs.get(150), vs.get(3), "b");
+            g.add(vs.get(3), vs.get(3), "c");
+            assertEquals("wrong edge count", 3, g.edgeSize());
+            assertEquals("wrong edges listed", 3, count(g.edges()));
+            assertTrue("missing edge", g.contains(vs.get(0), vs.get(150)));
+            assertEquals("wrong reverse containment", !directed,
+                         g.contains(vs.get(150), vs.get(0)));
+            assertTrue("missing labeled edge",
+                       g.contains(vs.get(150), vs.get(3), "b"));
+            assertEquals("wrong in-degree", directed ? 1 : 2,
+                         g.inDegree(vs.get(150)));
+            g.remove(vs.get(150));
+            assertEquals("wrong vertex count", 199, g.vertexSize());
+            assertEquals("edges of removed vertex remain", 1, g.edgeSize());
+            assertEquals("wrong out-degree", 0, g.outDegree(vs.get(0)));
+            g.remove(vs.get(3), vs.get(3));
+            assertEquals("self-loop remains", 0, g.edgeSize());
+        }
+    }
+
+    @Test
+    public void snapshotIteration() {
+        ConcurrentGraph<Integer, String> g =
+            new ConcurrentGraph<Integer, String>(true);
+        Graph<Integer, String>.Vertex a = g.add(0), b = g.add(1);
+        g.add(a, b, "x");
+        Iteration<Graph<Integer, String>.Edge> out = g.outEdges(a);
+        Graph<Integer, String> before = g.snapshot();
+        g.add(a, a, "y");
+        g.remove(b);
+        assertEquals("iteration saw later changes", 1, count(out));
+        assertEquals("snapshot saw later changes", 2, before.vertexSize());
+        assertTrue("snapshot lost an edge", before.contains(a, b));
+        assertEquals("snapshot vertices differ from graph's", a,
+                     before.vertices().next());
+        assertEquals("live graph is stale", 1, g.outDegree(a));
+    }
+
+    @Test
+    public void concurrentWritersAndReaders() throws InterruptedException {
+        final ConcurrentGraph<Integer, Integer> g =
+            new ConcurrentGraph<Integer, Integer>(true);
+        final int writers = 4, perWriter = 500;
+        final List<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < writers * 100; i += 1) {
+            vs.add(g.add(i));
+        }
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        ArrayList<Thread> threads = new ArrayList<Thread>();
+        for (int w = 0; w < writers; w += 1) {
+            final int base = w * 100;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int k = 0; k < perWriter; k += 1) {
+                        g.add(vs.get(base + k % 100),
+                              vs.get(base + (k * 7) % 100), k);
+                    }
+                }
+            });
+        }
+        for (int r = 0; r < 2; r += 1) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int k = 0; k < 200; k += 1) {
+                        Graph<Integer, Integer> s = g.snapshot();
+                        int edges = 0;
+                        for (Graph<Integer, Integer>.Vertex v
+                                 : s.vertices()) {
+                            edges += s.outDegree(v);
+                        }
+                        if (edges != s.edgeSize()
+                            || count(s.edges()) != edges) {
+                            failure.set("torn snapshot");
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertNull(failure.get(), failure.get());
+        assertEquals("lost edges", writers * perWriter, g.edgeSize());
+        assertEquals("lost edges from lists", writers * perWriter,
+                     count(g.edges()));
+    }
+
+    @Test
+    public void hooksFollowPublication() throws InterruptedException {
+        final int n = 2000;
+        final List<Object[]> events =
+            Collections.synchronizedList(new ArrayList<Object[]>());
+        final ConcurrentGraph<Integer, Integer> g =
+            new ConcurrentGraph<Integer, Integer>(true) {
+                @Override
+                void vertexRemoved(Vertex v) {
+                    super.vertexRemoved(v);
+                    events.add(new Object[] { "remove", v });
+                }
+
+                @Override
+                void edgeAdded(Edge e) {
+                    super.edgeAdded(e);
+                    events.add(new Object[] { "add", e });
+                }
+
+                @Override
+                void edgeRemoved(Edge e) {
+                    super.edgeRemoved(e);
+                    events.add(new Object[] { "remove", e });
+                }
+            };
+        final Graph<Integer, Integer>.Vertex hub = g.add(-1);
+        final List<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < n; i += 1) {
+            vs.add(g.add(i));
+        }
+        Thread adder = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < n; i += 1) {
+                    try {
+                        g.add(hub, vs.get(i), i);
+                        g.add(vs.get(i), hub, i);
+                    } catch (IllegalArgumentException e) {
+                        /* Removed first. */
+                    }
+                }
+            }
+        };
+        Thread remover = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < n; i += 1) {
+                    g.remove(vs.get(i));
+                }
+            }
+        };
+        adder.start();
+        remover.start();
+        adder.join();
+        remover.join();
+        HashSet<Object> removed = new HashSet<Object>();
+        HashSet<Object> live = new HashSet<Object>();
+        for (Object[] event : events) {
+            if (event[1] instanceof Graph.Vertex) {
+                removed.add(event[1]);
+            } else if (event[0].equals("remove")) {
+                assertTrue("edge removed twice", live.remove(event[1]));
+            } else {
+                Graph<?, ?>.Edge e = (Graph<?, ?>.Edge) event[1];
+                assertFalse("edge added after its vertex was removed",
+                            removed.contains(e.getV0())
+                            || removed.contains(e.getV1()));
+                live.add(e);
+            }
+        }
+        assertEquals("removed edges not reported", 0, live.size());
+        assertEquals("edges left", 0, g.edgeSize());
+    }
+
+    @Test
+    public void traversalSeesSnapshot() {
+        final ConcurrentGraph<Integer, String> g =
+            new ConcurrentGraph<Integer, String>(true);
+        Graph<Integer, String>.Vertex a = g.add(0), b = g.add(1);
+        g.add(a, b, "x");
+        final ArrayList<Integer> visited = new ArrayList<Integer>();
+        new Traversal<Integer, String>() {
+            @Override
+            protected void visit(Graph<Integer, String>.Vertex v) {
+                visited.add(v.getLabel());
+                if (v.getLabel() == 0) {
+                    g.add(v, g.add(2), "late");
+                }
+            }
+        }.depthFirstTraverse(g, a);
+        assertEquals("traversal saw a vertex added during it",
+                     java.util.Arrays.asList(0, 1), visited);
+    }
+
+    @Test
+    public void readiedBeforePublished() {
+        final ArrayList<String> failures = new ArrayList<String>();
+        ConcurrentGraph<String, Integer> g =
+            new ConcurrentGraph<String, Integer>(true) {
+                @Override
+                void vertexAdding(Vertex v) {
+                    super.vertexAdding(v);
+                    if (lookup(v.getLabel()) != v) {
+                        failures.add("vertex not indexed");
+                    }
+                    for (Vertex w : vertices()) {
+                        if (w == v) {
+                            failures.add("vertex visible before indexed");
+                        }
+                    }
+                }
+
+                @Override
+                void weigh(Edge e, double w) {
+                    super.weigh(e, w);
+                    if (contains(e.getV0(), e.getV1())) {
+                        failures.add("edge visible before weighed");
+                    }
+                }
+            };
+        g.indexLabels(new Keying<String>() {
+                @Override
+                public Object key(String label) {
+                    return label;
+                }
+            });
+        g.weighEdges(new Weighting<Integer>() {
+                @Override
+                public double weight(Integer label) {
+                    return label;
+                }
+            });
+        Graph<String, Integer>.Vertex a = g.add("a"), b = g.add("b");
+        Graph<String, Integer>.Edge e = g.add(a, b, 5);
+        assertEquals("weight not stored", 5.0, e.storedWeight(), 0);
+        assertEquals("vertex not found", b, g.lookup("b"));
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+}
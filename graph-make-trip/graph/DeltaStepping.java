@@ -0,0 +1,300 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Single-source shortest path distances by delta-stepping (Meyer and
+ *  Sanders).  Tentative distances are kept in buckets of width DELTA.
+ *  The lowest nonempty bucket is emptied by repeatedly relaxing the
+ *  light arcs (of weight at most DELTA) leaving its vertices, which may
+ *  refill it; then the heavy arcs leaving all the vertices it held are
+ *  relaxed once.  The arcs leaving the vertices of each such round are
+ *  relaxed in parallel, each improvement being an atomic minimum on a
+ *  shared array of distances, held as the bits of nonnegative doubles
+ *  (whose order as longs is their order as numbers).  Buckets are
+ *  filled by the calling thread between rounds.  A small DELTA does
+ *  the work of Dijkstra's algorithm in many short rounds; a large one
+ *  the repeated relaxations of Bellman-Ford in few long ones.
+ *
+ *  The distances are the least solution of d(w) = min over arcs (v, w)
+ *  of d(v) + weight, with d(source) = 0, as are those of any label-
+ *  correcting search such as Graphs.shortestPath, and so agree with
+ *  them exactly.
+ *  @author Andrew Berger
+ */
+final class DeltaStepping<VLabel, ELabel> {
+
+    /** Prepares to find distances in G, with edge weights given by
+     *  EWEIGHTER (read from G's edges if G stores them), or with every
+     *  edge of weight 1 if EWEIGHTER is null.  Throws
+     *  IllegalArgumentException if a weight is negative. */
+    DeltaStepping(Graph<VLabel, ELabel> G,
+                  Weighting<? super ELabel> eweighter) {
+        _arcs = new Arcs<VLabel, ELabel>(G, eweighter);
+        _outStart = _arcs.outStart();
+        _outHead = _arcs.heads();
+        _outWeight = _arcs.weights();
+        for (double w : _outWeight) {
+            if (!(w >= 0.0)) {
+                throw new IllegalArgumentException("negative edge weight");
+            }
+        }
+    }
+
+    /** Returns the mean weight of my arcs, or 1 if I have none: a
+     *  reasonable bucket width for graphs of modest degree. */
+    double meanWeight() {
+        if (_outWeight.length == 0) {
+            return 1.0;
+        }
+        double sum = 0.0;
+        for (double w : _outWeight) {
+            sum += w;
+        }
+        return Math.max(sum / _outWeight.length, Double.MIN_NORMAL);
+    }
+
+    /** Returns the distance of each of my vertices from SOURCE, infinite
+     *  for those it does not reach, found with buckets of width DELTA
+     *  using up to THREADS threads. */
+    Map<Graph<VLabel, ELabel>.Vertex, Double> distances(
+        Graph<VLabel, ELabel>.Vertex source, double delta, int threads) {
+        if (!(delta > 0.0) || Double.isInfinite(delta)) {
+            throw new IllegalArgumentException("bad bucket width");
+        }
+        int s = _arcs.index(source);
+        if (s < 0) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        int n = _arcs.vertexCount();
+        _delta = delta;
+        _dist = new AtomicLongArray(n);
+        for (int v = 0; v < n; v += 1) {
+            _dist.set(v, INFINITY);
+        }
+        _dist.set(s, Double.doubleToLongBits(0.0));
+        _buckets = new TreeMap<Long, Ints>();
+        _round = new int[n];
+        _generation = 0;
+        bucket(s).add(s);
+        _pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        _threads = Math.max(1, threads);
+        try {
+            while (!_buckets.isEmpty()) {
+                long i = _buckets.firstKey();
+                Ints settled = new Ints();
+                while (_buckets.containsKey(i)) {
+                    Ints frontier = current(_buckets.remove(i), i);
+                    settled.addAll(frontier);
+                    relax(frontier, true);
+                }
+                relax(distinct(settled), false);
+            }
+        } finally {
+            if (_pool != null) {
+                _pool.shutdownNow();
+                _pool = null;
+            }
+        }
+        HashMap<Graph<VLabel, ELabel>.Vertex, Double> result =
+            new HashMap<Graph<VLabel, ELabel>.Vertex, Double>();
+        for (int v = 0; v < n; v += 1) {
+            result.put(_arcs.vertex(v), dist(v));
+        }
+        _dist = null;
+        _buckets = null;
+        return result;
+    }
+
+    /** Returns the distinct vertices of ITEMS, a bucket numbered I, whose
+     *  tentative distances still place them in it. */
+    private Ints current(Ints items, long i) {
+        _generation += 1;
+        Ints result = new Ints();
+        for (int k = 0; k < items._size; k += 1) {
+            int v = items._items[k];
+            if (_round[v] != _generation && bucketNumber(dist(v)) == i) {
+                _round[v] = _generation;
+                result.add(v);
+            }
+        }
+        return result;
+    }
+
+    /** Returns the distinct vertices of ITEMS. */
+    private Ints distinct(Ints items) {
+        _generation += 1;
+        Ints result = new Ints();
+        for (int k = 0; k < items._size; k += 1) {
+            int v = items._items[k];
+            if (_round[v] != _generation) {
+                _round[v] = _generation;
+                result.add(v);
+            }
+        }
+        return result;
+    }
+
+    /** Relaxes the light arcs (if LIGHT) or the heavy arcs leaving the
+     *  vertices of FRONTIER, in parallel if it is large enough, and puts
+     *  each vertex whose distance improves in its new bucket. */
+    private void relax(final Ints frontier, final boolean light) {
+        int parts = _pool == null ? 1
+            : Math.min(_threads, frontier._size / PARALLEL_MIN);
+        ArrayList<Ints> improved = new ArrayList<Ints>();
+        if (parts <= 1) {
+            improved.add(relax(frontier, 0, frontier._size, light));
+        } else {
+            ArrayList<Future<Ints>> results = new ArrayList<Future<Ints>>();
+            for (int p = 0; p < parts; p += 1) {
+                final int from = (int) ((long) frontier._size * p / parts);
+                final int to = (int) ((long) frontier._size * (p + 1) / parts);
+                results.add(_pool.submit(new Callable<Ints>() {
+                    @Override
+                    public Ints call() {
+                        return relax(frontier, from, to, light);
+                    }
+                }));
+            }
+            try {
+                for (Future<Ints> r : results) {
+                    improved.add(r.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        for (Ints part : improved) {
+            for (int k = 0; k < part._size; k += 1) {
+                int w = part._items[k];
+                bucket(w).add(w);
+            }
+        }
+    }
+
+    /** Relaxes the light arcs (if LIGHT) or heavy arcs leaving the
+     *  vertices FRONTIER[FROM .. TO-1], returning the heads of the arcs
+     *  that improved a distance. */
+    private Ints relax(Ints frontier, int from, int to, boolean light) {
+        Ints improved = new Ints();
+        for (int k = from; k < to; k += 1) {
+            int v = frontier._items[k];
+            double d = dist(v);
+            for (int a = _outStart[v]; a < _outStart[v + 1]; a += 1) {
+                double w = _outWeight[a];
+                if ((w <= _delta) == light && lower(_outHead[a], d + w)) {
+                    improved.add(_outHead[a]);
+                }
+            }
+        }
+        return improved;
+    }
+
+    /** Lowers the tentative distance of vertex V to D if that is an
+     *  improvement, returning true iff it is. */
+    private boolean lower(int v, double d) {
+        long bits = Double.doubleToLongBits(d);
+        while (true) {
+            long old = _dist.get(v);
+            if (bits >= old) {
+                return false;
+            }
+            if (_dist.compareAndSet(v, old, bits)) {
+                return true;
+            }
+        }
+    }
+
+    /** Returns the tentative distance of vertex V. */
+    private double dist(int v) {
+        return Double.longBitsToDouble(_dist.get(v));
+    }
+
+    /** Returns the number of the bucket holding distance D. */
+    private long bucketNumber(double d) {
+        return (long) Math.floor(d / _delta);
+    }
+
+    /** Returns the bucket for the current distance of vertex V, creating
+     *  it if needed. */
+    private Ints bucket(int v) {
+        long i = bucketNumber(dist(v));
+        Ints b = _buckets.get(i);
+        if (b == null) {
+            b = new Ints();
+            _buckets.put(i, b);
+        }
+        return b;
+    }
+
+    /** A growable list of ints. */
+    private static final class Ints {
+        /** Adds V to my end. */
+        void add(int v) {
+            if (_size == _items.length) {
+                _items = Arrays.copyOf(_items, 2 * _items.length);
+            }
+            _items[_size] = v;
+            _size += 1;
+        }
+
+        /** Adds the items of OTHER to my end. */
+        void addAll(Ints other) {
+            for (int k = 0; k < other._size; k += 1) {
+                add(other._items[k]);
+            }
+        }
+
+        /** My items are _items[0 .. _size-1]. */
+        private int[] _items = new int[INITIAL_INTS];
+        /** Number of items. */
+        private int _size;
+    }
+
+    /** Bits of positive infinity, greater as a long than the bits of any
+     *  other nonnegative double. */
+    private static final long INFINITY =
+        Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+    /** Least number of vertices per thread worth relaxing in parallel. */
+    private static final int PARALLEL_MIN = 256;
+    /** Initial capacity of an Ints. */
+    private static final int INITIAL_INTS = 8;
+
+    /** The graph, as arcs. */
+    private final Arcs<VLabel, ELabel> _arcs;
+    /** Arcs leaving vertex v are numbered _outStart[v] ..
+     *  _outStart[v + 1] - 1. */
+    private final int[] _outStart;
+    /** The vertex each arc enters. */
+    private final int[] _outHead;
+    /** The weight of each arc. */
+    private final double[] _outWeight;
+
+    /** Bucket width of the current search. */
+    private double _delta;
+    /** Bits of the tentative distance of each vertex. */
+    private AtomicLongArray _dist;
+    /** Nonempty buckets by number.  A vertex may also linger in buckets
+     *  it has since left, and is ignored there. */
+    private TreeMap<Long, Ints> _buckets;
+    /** The value of _generation when each vertex was last collected. */
+    private int[] _round;
+    /** Number of collections of distinct vertices so far. */
+    private int _generation;
+    /** Threads relaxing arcs, or null if all is done by the caller. */
+    private ExecutorService _pool;
+    /** Number of threads. */
+    private int _threads;
+}
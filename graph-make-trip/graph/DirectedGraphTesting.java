@@ -1,5 +1,13 @@
 package graph;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -166,4 +174,257 @@ public class DirectedGraphTesting {
         assertEquals("3 edges", 3, edgeCount);
     }
 
+    @Test
+    public void checkLabelIndex() {
+        DirectedGraph<String, Integer> u =
+            new DirectedGraph<String, Integer>();
+        DirectedGraph<String, Integer>.Vertex v = u.add("v");
+        u.indexLabels(new Keying<String>() {
+                @Override
+                public Object key(String label) {
+                    return label;
+                }
+            });
+        DirectedGraph<String, Integer>.Vertex w = u.add("w");
+        assertEquals("Indexed before indexing", v, u.lookup("v"));
+        assertEquals("Indexed after indexing", w, u.lookup("w"));
+        assertEquals("No such label", null, u.lookup("x"));
+        u.remove(v);
+        assertEquals("Removed vertex still indexed", null, u.lookup("v"));
+        assertEquals("Wrong vertex", w, u.lookup("w"));
+    }
+
+    @Test
+    public void checkSharedLabelKeys() {
+        AdaptiveGraph<String, Integer> g =
+            new AdaptiveGraph<String, Integer>(true);
+        g.indexLabels(new Keying<String>() {
+                @Override
+                public Object key(String label) {
+                    return label.substring(0, 1);
+                }
+            });
+        Graph<String, Integer>.Vertex a1 = g.add("a1"), a2 = g.add("a2"),
+            a3 = g.add("a3");
+        assertEquals("Not the latest", a3, g.lookup("a"));
+        g.remove(a3);
+        assertEquals("Earlier vertex lost", a2, g.lookup("a"));
+        g.remove(a1);
+        assertEquals("Wrong survivor", a2, g.lookup("a"));
+        g.remove(a2);
+        assertEquals("Key outlived its vertices", null, g.lookup("a"));
+    }
+
+    @Test
+    public void checkIntLabelIndex() {
+        DirectedGraph<Integer, Integer> u =
+            new DirectedGraph<Integer, Integer>();
+        u.indexIntLabels(new IntKeying<Integer>() {
+                @Override
+                public int key(Integer label) {
+                    return label;
+                }
+            });
+        ArrayList<DirectedGraph<Integer, Integer>.Vertex> verts =
+            new ArrayList<DirectedGraph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 40; i += 1) {
+            verts.add(u.add(i * 16));
+        }
+        for (int i = 0; i < 40; i += 3) {
+            u.remove(verts.get(i));
+        }
+        for (int i = 0; i < 40; i += 1) {
+            DirectedGraph<Integer, Integer>.Vertex expected =
+                i % 3 == 0 ? null : verts.get(i);
+            assertEquals("Wrong vertex for " + i * 16,
+                         expected, u.lookup(i * 16));
+        }
+        assertEquals("Boxed keys", verts.get(1), u.lookup((Object) 16));
+    }
+
+    @Test
+    public void checkFailFastIteration() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        DirectedGraph<Integer, Integer>.Vertex a = g.add(0);
+        g.add(1);
+        int version = g.version();
+        Iteration<DirectedGraph<Integer, Integer>.Vertex> it = g.vertices();
+        it.next();
+        g.add(a, a, 0);
+        assertTrue("version did not advance", g.version() != version);
+        try {
+            it.next();
+            fail("stale iteration did not fail");
+        } catch (java.util.ConcurrentModificationException e) {
+            /* Expected. */
+        }
+    }
+
+    @Test
+    public void nestedIterations() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        ArrayList<DirectedGraph<Integer, Integer>.Vertex> vs =
+            new ArrayList<DirectedGraph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 6; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 0; i < 6; i += 1) {
+            for (int j = 0; j < 6; j += 1) {
+                if (i != j) {
+                    g.add(vs.get(i), vs.get(j), 10 * i + j);
+                }
+            }
+        }
+        int outer = 0, inner = 0;
+        for (Graph<Integer, Integer>.Edge e : g.outEdges(vs.get(0))) {
+            assertEquals("outer iteration disturbed", vs.get(0), e.getV0());
+            outer += 1;
+            for (Graph<Integer, Integer>.Edge f : g.inEdges(e.getV1())) {
+                assertEquals("inner iteration wrong", e.getV1(), f.getV1());
+                inner += 1;
+            }
+        }
+        assertEquals("outer iteration cut short", 5, outer);
+        assertEquals("inner iterations cut short", 25, inner);
+    }
+
+    @Test
+    public void checkStreams() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        ArrayList<DirectedGraph<Integer, Integer>.Vertex> vs =
+            new ArrayList<DirectedGraph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 100; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 0; i + 1 < 100; i += 1) {
+            g.add(vs.get(i), vs.get(i + 1), i);
+        }
+        long sum = g.vertexStream().parallel().mapToLong(
+            new ToLongFunction<Graph<Integer, Integer>.Vertex>() {
+                @Override
+                public long applyAsLong(Graph<Integer, Integer>.Vertex v) {
+                    return v.getLabel();
+                }
+            }).sum();
+        assertEquals("wrong vertex sum", 4950, sum);
+        assertEquals("wrong vertex count", 100,
+                     g.vertexStream().parallel().count());
+        assertEquals("wrong edge count", 99,
+                     g.edgeStream().parallel().count());
+    }
+
+    /** Splits S repeatedly, checking that each split is exact and even,
+     *  and adds the items it delivers to ITEMS. */
+    private static <T> void splitAll(Spliterator<T> s, final List<T> items) {
+        assertTrue("not SUBSIZED",
+                   s.hasCharacteristics(Spliterator.SUBSIZED));
+        long n = s.estimateSize();
+        Spliterator<T> prefix = s.trySplit();
+        if (prefix == null) {
+            int before = items.size();
+            s.forEachRemaining(new Consumer<T>() {
+                @Override
+                public void accept(T x) {
+                    items.add(x);
+                }
+            });
+            assertEquals("wrong leaf size", n, items.size() - before);
+            return;
+        }
+        assertEquals("split loses items", n,
+                     prefix.estimateSize() + s.estimateSize());
+        assertTrue("uneven split",
+                   Math.abs(prefix.estimateSize() - s.estimateSize()) <= 1);
+        splitAll(prefix, items);
+        splitAll(s, items);
+    }
+
+    /** Checks that the spliterators of G split exactly and evenly, and
+     *  deliver its vertices and edges. */
+    private static void checkSplits(Graph<Integer, Integer> g) {
+        ArrayList<Object> expected = new ArrayList<Object>();
+        for (Object v : g.vertices()) {
+            expected.add(v);
+        }
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        splitAll(g.vertexSpliterator(), vs);
+        assertEquals("wrong vertices", expected, new ArrayList<Object>(vs));
+        HashSet<Object> edges = new HashSet<Object>();
+        for (Object e : g.edges()) {
+            edges.add(e);
+        }
+        ArrayList<Graph<Integer, Integer>.Edge> es =
+            new ArrayList<Graph<Integer, Integer>.Edge>();
+        splitAll(g.edgeSpliterator(), es);
+        assertEquals("wrong edge count", g.edgeSize(), es.size());
+        assertEquals("wrong edges", edges, new HashSet<Object>(es));
+    }
+
+    /** Fills G, an empty graph, with random vertices, edges and
+     *  self-loops chosen by R, removes some of the vertices to leave
+     *  holes, and checks that its spliterators split exactly and
+     *  evenly. */
+    static void checkRandomSplits(Graph<Integer, Integer> g, Random r) {
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 150; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int k = 0; k < 600; k += 1) {
+            Graph<Integer, Integer>.Vertex u = vs.get(r.nextInt(150)),
+                v = r.nextInt(10) == 0 ? u : vs.get(r.nextInt(150));
+            if (!g.contains(u, v)) {
+                g.add(u, v, k);
+            }
+        }
+        for (int i = 0; i < 150; i += 7) {
+            g.remove(vs.get(i));
+        }
+        checkSplits(g);
+    }
+
+    @Test
+    public void streamsSplitEvenly() {
+        Random r = new Random(34);
+        checkRandomSplits(new DirectedGraph<Integer, Integer>(), r);
+        checkRandomSplits(new AdaptiveGraph<Integer, Integer>(true), r);
+        checkRandomSplits(new ConcurrentGraph<Integer, Integer>(true), r);
+    }
+
+    @Test
+    public void checkFootprint() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex a = g.add(1), b = g.add(2),
+            c = g.add(3);
+        g.add(a, b, 4);
+        Footprint f = g.footprint();
+        assertEquals("wrong vertex count", 3, f.vertices());
+        assertEquals("wrong edge count", 1, f.edges());
+        assertEquals("wrong density", 1.0 / 6, f.density(), 1e-9);
+        assertEquals("wrong placeholder count", 8 * Footprint.EDGE_BYTES,
+                     f.bytes(Footprint.PLACEHOLDER_EDGES));
+        assertEquals("wrong vertex objects", 3 * Footprint.VERTEX_BYTES,
+                     f.bytes(Footprint.VERTEX_OBJECTS));
+        long cells = f.bytes(Footprint.MATRIX_CELLS);
+        long total = f.totalBytes();
+        g.add(4);
+        assertTrue("matrix did not grow",
+                   g.footprint().bytes(Footprint.MATRIX_CELLS) > cells);
+        g.indexIntLabels(new IntKeying<Integer>() {
+                @Override
+                public int key(Integer label) {
+                    return label;
+                }
+            });
+        assertTrue("label index not counted", g.footprint().totalBytes()
+                   > total + Footprint.VERTEX_BYTES);
+        assertTrue("missing report line",
+                   g.footprint().toString().contains(Footprint.INDEX_MAPS));
+    }
+
 }
@@ -0,0 +1,274 @@
+package graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/** A tree of shortest paths from a source vertex to every vertex
+ *  reachable from it, kept up to date as the weights of edges change.
+ *  After a change, only the vertices whose distances or tree edges may
+ *  be affected are reconsidered, in the manner of Ramalingam and Reps:
+ *  the subtrees hanging from edges that grew heavier are detached and
+ *  reattached by the cheapest edges entering them, and vertices that an
+ *  edge that grew lighter brings closer are relaxed outward.  Both are
+ *  finished by a Dijkstra search seeded with just those vertices.
+ *
+ *  Edge weights are given by a Weighting of edge labels, which must be
+ *  nonnegative.  If the graph stores the weights of that Weighting (see
+ *  Graph.weighEdges), they are read from its edges and kept current by
+ *  reweigh.  If vertices or edges have been added or removed since the
+ *  tree was last built, reweigh rebuilds it from scratch.
+ *  @author Andrew Berger
+ */
+public class DynamicShortestPaths<VLabel, ELabel> {
+
+    /** A tree of shortest paths in G from SOURCE, with edge weights
+     *  given by WEIGHTING. */
+    public DynamicShortestPaths(Graph<VLabel, ELabel> G,
+                                Graph<VLabel, ELabel>.Vertex source,
+                                Weighting<? super ELabel> weighting) {
+        _G = G;
+        _source = source;
+        _weighting = weighting;
+        recompute();
+    }
+
+    /** Rebuilds my tree from scratch, as after the vertices or edges of
+     *  my graph have changed.  Returns the number of vertices reached. */
+    public int recompute() {
+        _index = new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        ArrayList<Graph<VLabel, ELabel>.Vertex> verts =
+            new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        for (Graph<VLabel, ELabel>.Vertex v : _G.vertices()) {
+            _index.put(v, verts.size());
+            verts.add(v);
+        }
+        int n = verts.size();
+        _vertices = verts;
+        _dist = new double[n];
+        Arrays.fill(_dist, Double.POSITIVE_INFINITY);
+        _parent = new ArrayList<Graph<VLabel, ELabel>.Edge>(
+            Collections.<Graph<VLabel, ELabel>.Edge>nCopies(n, null));
+        _stored = _G.weighs(_weighting);
+        _version = _G.version();
+        PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+        int s = index(_source);
+        _dist[s] = 0.0;
+        queue.add(new Entry(s, 0.0));
+        return settle(queue, new BitSet(n));
+    }
+
+    /** Returns the weight of a shortest path from my source to V, or
+     *  Double.POSITIVE_INFINITY if V is unreachable. */
+    public double distance(Graph<VLabel, ELabel>.Vertex v) {
+        return _dist[index(v)];
+    }
+
+    /** Returns the last edge on my shortest path to V, or null if V is
+     *  my source or unreachable. */
+    public Graph<VLabel, ELabel>.Edge parent(Graph<VLabel, ELabel>.Vertex v) {
+        return _parent.get(index(v));
+    }
+
+    /** Returns the edges of my shortest path from my source to V, in
+     *  order, or null if V is unreachable. */
+    public List<Graph<VLabel, ELabel>.Edge> pathTo(
+        Graph<VLabel, ELabel>.Vertex v) {
+        int x = index(v);
+        if (_dist[x] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        ArrayList<Graph<VLabel, ELabel>.Edge> path =
+            new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        for (Graph<VLabel, ELabel>.Edge e = _parent.get(x); e != null;
+             e = _parent.get(x)) {
+            path.add(e);
+            x = index(e.getV(_vertices.get(x)));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /** Repairs my tree after the weight of E's label has changed, and
+     *  returns the number of vertices whose distance or tree edge had to
+     *  be reconsidered. */
+    public int reweigh(Graph<VLabel, ELabel>.Edge e) {
+        return reweigh(Collections.singletonList(e));
+    }
+
+    /** Repairs my tree after the weights of the labels of EDGES have
+     *  changed, and returns the number of vertices whose distance or tree
+     *  edge had to be reconsidered.  Handling a batch at once touches
+     *  each affected vertex once, rather than once per edge.  If my
+     *  graph's vertices or edges have changed, instead rebuilds my tree
+     *  and returns the number of vertices reached. */
+    public int reweigh(
+        Collection<? extends Graph<VLabel, ELabel>.Edge> edges) {
+        boolean stale = _G.version() != _version;
+        _stored = _G.weighs(_weighting);
+        if (_stored) {
+            for (Graph<VLabel, ELabel>.Edge e : edges) {
+                _G.weigh(e, _weighting.weight(e.getLabel()));
+            }
+            _G.modified();
+            _version = _G.version();
+        }
+        if (stale) {
+            return recompute();
+        }
+
+        BitSet touched = new BitSet(_dist.length);
+        ArrayDeque<Integer> detached = new ArrayDeque<Integer>();
+        for (Graph<VLabel, ELabel>.Edge e : edges) {
+            for (int end = 0; end < 2; end += 1) {
+                int v = index(end == 0 ? e.getV1() : e.getV0());
+                if (e.equals(_parent.get(v)) && !touched.get(v)) {
+                    detached.add(v);
+                    touched.set(v);
+                }
+            }
+        }
+
+        BitSet cut = detach(detached, touched);
+        PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+        for (int x = cut.nextSetBit(0); x >= 0; x = cut.nextSetBit(x + 1)) {
+            Graph<VLabel, ELabel>.Vertex v = _vertices.get(x);
+            for (Graph<VLabel, ELabel>.Edge e : _G.inEdges(v)) {
+                relax(e, e.getV(v), queue, touched);
+            }
+        }
+        for (Graph<VLabel, ELabel>.Edge e : edges) {
+            relax(e, e.getV0(), queue, touched);
+            if (!_G.isDirected()) {
+                relax(e, e.getV1(), queue, touched);
+            }
+        }
+        settle(queue, touched);
+        return touched.cardinality();
+    }
+
+    /** Detaches from my tree the subtrees rooted at the vertices in ROOTS,
+     *  setting their distances to infinity, and returns the set of
+     *  detached vertices.  Adds them to TOUCHED. */
+    private BitSet detach(ArrayDeque<Integer> roots, BitSet touched) {
+        BitSet cut = new BitSet(_dist.length);
+        while (!roots.isEmpty()) {
+            int x = roots.pop();
+            if (cut.get(x)) {
+                continue;
+            }
+            cut.set(x);
+            touched.set(x);
+            Graph<VLabel, ELabel>.Vertex v = _vertices.get(x);
+            for (Graph<VLabel, ELabel>.Edge e : _G.outEdges(v)) {
+                int w = index(e.getV(v));
+                if (e.equals(_parent.get(w)) && !cut.get(w)) {
+                    roots.push(w);
+                }
+            }
+        }
+        for (int x = cut.nextSetBit(0); x >= 0; x = cut.nextSetBit(x + 1)) {
+            _dist[x] = Double.POSITIVE_INFINITY;
+            _parent.set(x, null);
+        }
+        return cut;
+    }
+
+    /** Improves the distance to the end of E away from FROM, if E offers
+     *  a shorter path to it, queueing it on QUEUE and adding it to
+     *  TOUCHED.  In a directed graph, E must leave FROM. */
+    private void relax(Graph<VLabel, ELabel>.Edge e,
+                       Graph<VLabel, ELabel>.Vertex from,
+                       PriorityQueue<Entry> queue, BitSet touched) {
+        int u = index(from);
+        if (_dist[u] == Double.POSITIVE_INFINITY) {
+            return;
+        }
+        int w = index(e.getV(from));
+        double d = _dist[u] + weight(e);
+        if (d < _dist[w]) {
+            _dist[w] = d;
+            _parent.set(w, e);
+            touched.set(w);
+            queue.add(new Entry(w, d));
+        }
+    }
+
+    /** Runs Dijkstra's algorithm from the vertices on QUEUE until the
+     *  distances it implies are final, adding each vertex whose distance
+     *  improves to TOUCHED.  Returns the number of vertices settled. */
+    private int settle(PriorityQueue<Entry> queue, BitSet touched) {
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            Entry top = queue.poll();
+            if (top._dist > _dist[top._vertex]) {
+                continue;
+            }
+            settled += 1;
+            Graph<VLabel, ELabel>.Vertex v = _vertices.get(top._vertex);
+            for (Graph<VLabel, ELabel>.Edge e : _G.outEdges(v)) {
+                relax(e, v, queue, touched);
+            }
+        }
+        return settled;
+    }
+
+    /** Returns the weight of E. */
+    private double weight(Graph<VLabel, ELabel>.Edge e) {
+        return _stored ? e.storedWeight() : _weighting.weight(e.getLabel());
+    }
+
+    /** Returns the index of V, one of my graph's vertices. */
+    private int index(Graph<VLabel, ELabel>.Vertex v) {
+        Integer x = _index.get(v);
+        if (x == null) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        return x;
+    }
+
+    /** A queued vertex and its distance at the time it was queued.  Stale
+     *  entries are skipped rather than removed from the queue. */
+    private static final class Entry implements Comparable<Entry> {
+        /** An entry for vertex VERTEX at distance DIST. */
+        Entry(int vertex, double dist) {
+            _vertex = vertex;
+            _dist = dist;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(_dist, other._dist);
+        }
+
+        /** Index of my vertex. */
+        private final int _vertex;
+        /** Distance of my vertex when queued. */
+        private final double _dist;
+    }
+
+    /** My graph. */
+    private final Graph<VLabel, ELabel> _G;
+    /** My source vertex. */
+    private final Graph<VLabel, ELabel>.Vertex _source;
+    /** Gives the weights of my graph's edge labels. */
+    private final Weighting<? super ELabel> _weighting;
+    /** True iff my graph stores the weights given by _weighting. */
+    private boolean _stored;
+    /** My graph's version when my tree was last brought up to date. */
+    private int _version;
+    /** Maps each vertex of my graph to its index. */
+    private HashMap<Graph<VLabel, ELabel>.Vertex, Integer> _index;
+    /** The vertices of my graph, by index. */
+    private ArrayList<Graph<VLabel, ELabel>.Vertex> _vertices;
+    /** Distances from my source, by vertex index. */
+    private double[] _dist;
+    /** Last edge on the path to each vertex, by vertex index. */
+    private ArrayList<Graph<VLabel, ELabel>.Edge> _parent;
+}
@@ -0,0 +1,128 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for DynamicShortestPaths.
+ *  @author Andrew Berger
+ */
+public class DynamicShortestPathsTesting {
+
+    /** Weighs a label by its first element. */
+    private static final Weighting<double[]> FIRST =
+        new Weighting<double[]>() {
+            @Override
+            public double weight(double[] label) {
+                return label[0];
+            }
+        };
+
+    /** Checks that every distance in D matches one computed afresh on G
+     *  from S. */
+    private void checkAgainstFresh(Graph<Integer, double[]> g,
+                                   Graph<Integer, double[]>.Vertex s,
+                                   DynamicShortestPaths<Integer, double[]> d) {
+        DynamicShortestPaths<Integer, double[]> fresh =
+            new DynamicShortestPaths<Integer, double[]>(g, s, FIRST);
+        for (Graph<Integer, double[]>.Vertex v : g.vertices()) {
+            assertEquals("wrong distance to " + v.getLabel(),
+                         fresh.distance(v), d.distance(v), 1e-9);
+            List<Graph<Integer, double[]>.Edge> path = d.pathTo(v);
+            if (path != null) {
+                double sum = 0;
+                for (Graph<Integer, double[]>.Edge e : path) {
+                    sum += e.getLabel()[0];
+                }
+                assertEquals("path disagrees with distance",
+                             d.distance(v), sum, 1e-9);
+            }
+        }
+    }
+
+    /** Randomly reweighs the edges of G, one batch at a time, checking
+     *  the repaired tree after each batch. */
+    private void randomUpdates(Graph<Integer, double[]> g, boolean stored) {
+        Random r = new Random(42);
+        ArrayList<Graph<Integer, double[]>.Vertex> vs =
+            new ArrayList<Graph<Integer, double[]>.Vertex>();
+        for (int i = 0; i < 30; i += 1) {
+            vs.add(g.add(i));
+        }
+        ArrayList<Graph<Integer, double[]>.Edge> es =
+            new ArrayList<Graph<Integer, double[]>.Edge>();
+        while (es.size() < 90) {
+            Graph<Integer, double[]>.Vertex u = vs.get(r.nextInt(30)),
+                v = vs.get(r.nextInt(30));
+            if (u != v && !g.contains(u, v)) {
+                es.add(g.add(u, v, new double[] { 1 + r.nextInt(10) }));
+            }
+        }
+        if (stored) {
+            g.weighEdges(FIRST);
+        }
+        DynamicShortestPaths<Integer, double[]> d =
+            new DynamicShortestPaths<Integer, double[]>(g, vs.get(0), FIRST);
+        checkAgainstFresh(g, vs.get(0), d);
+        for (int round = 0; round < 50; round += 1) {
+            ArrayList<Graph<Integer, double[]>.Edge> batch =
+                new ArrayList<Graph<Integer, double[]>.Edge>();
+            for (int k = 1 + r.nextInt(4); k > 0; k -= 1) {
+                Graph<Integer, double[]>.Edge e = es.get(r.nextInt(90));
+                e.getLabel()[0] = 1 + r.nextInt(10);
+                batch.add(e);
+            }
+            int touched = d.reweigh(batch);
+            assertTrue("touched count out of range",
+                       touched >= 0 && touched <= 30);
+            checkAgainstFresh(g, vs.get(0), d);
+        }
+    }
+
+    @Test
+    public void directedUpdates() {
+        randomUpdates(new DirectedGraph<Integer, double[]>(), false);
+    }
+
+    @Test
+    public void undirectedUpdates() {
+        randomUpdates(new OffHeapGraph<Integer, double[]>(false), false);
+    }
+
+    @Test
+    public void storedUpdates() {
+        randomUpdates(new DirectedGraph<Integer, double[]>(), true);
+    }
+
+    @Test
+    public void touchesOnlyAffectedVertices() {
+        DirectedGraph<Integer, double[]> g =
+            new DirectedGraph<Integer, double[]>();
+        ArrayList<Graph<Integer, double[]>.Vertex> vs =
+            new ArrayList<Graph<Integer, double[]>.Vertex>();
+        for (int i = 0; i < 6; i += 1) {
+            vs.add(g.add(i));
+        }
+        Graph<Integer, double[]>.Edge ab =
+            g.add(vs.get(0), vs.get(1), new double[] { 1 });
+        g.add(vs.get(1), vs.get(2), new double[] { 1 });
+        g.add(vs.get(0), vs.get(3), new double[] { 1 });
+        g.add(vs.get(3), vs.get(4), new double[] { 1 });
+        Graph<Integer, double[]>.Edge far =
+            g.add(vs.get(0), vs.get(5), new double[] { 9 });
+        DynamicShortestPaths<Integer, double[]> d =
+            new DynamicShortestPaths<Integer, double[]>(g, vs.get(0), FIRST);
+        ab.getLabel()[0] = 3;
+        assertEquals("heavier tree edge touches its subtree", 2,
+                     d.reweigh(ab));
+        assertEquals("wrong distance", 4.0, d.distance(vs.get(2)), 0);
+        far.getLabel()[0] = 8;
+        assertEquals("lighter edge touches its end", 1, d.reweigh(far));
+        assertEquals("wrong distance", 8.0, d.distance(vs.get(5)), 0);
+        g.add(vs.get(2), vs.get(5), new double[] { 1 });
+        assertEquals("wrong recomputed count", 6, d.recompute());
+    }
+}
@@ -0,0 +1,174 @@
+package graph;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** An estimate of the memory a graph occupies, broken down by component,
+ *  together with its counts of vertices and edges and its density.  The
+ *  estimates assume a 64-bit JVM with compressed object references, and
+ *  count only the structures of the graph itself, not its labels.
+ *  See Graph.footprint.
+ *  @author Andrew Berger
+ */
+public final class Footprint {
+
+    /** Component: the Vertex objects a graph retains. */
+    public static final String VERTEX_OBJECTS = "vertex objects";
+    /** Component: the Edge objects a graph retains. */
+    public static final String EDGE_OBJECTS = "edge objects";
+    /** Component: Edge objects standing for absent edges. */
+    public static final String PLACEHOLDER_EDGES = "placeholder edges";
+    /** Component: the cells (or bits) of adjacency matrices. */
+    public static final String MATRIX_CELLS = "matrix cells";
+    /** Component: lists of the edges at each vertex. */
+    public static final String ADJACENCY_LISTS = "adjacency lists";
+    /** Component: maps and lists locating vertices and edges. */
+    public static final String INDEX_MAPS = "index maps";
+    /** Component: lists of references to labels. */
+    public static final String LABEL_LISTS = "label lists";
+    /** Component: storage outside the Java heap. */
+    public static final String OFF_HEAP = "off-heap arrays";
+
+    /** A report for a graph with VERTICES vertices and EDGES edges,
+     *  directed iff DIRECTED, to which components are yet to be added. */
+    Footprint(int vertices, int edges, boolean directed) {
+        _vertices = vertices;
+        _edges = edges;
+        _directed = directed;
+    }
+
+    /** Returns the number of vertices. */
+    public int vertices() {
+        return _vertices;
+    }
+
+    /** Returns the number of edges. */
+    public int edges() {
+        return _edges;
+    }
+
+    /** Returns true iff the graph is directed. */
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    /** Returns the number of edges as a fraction of the number of
+     *  distinct pairs of vertices (ordered pairs, if directed), or 0 if
+     *  there are fewer than two vertices. */
+    public double density() {
+        if (_vertices < 2) {
+            return 0.0;
+        }
+        double pairs = (double) _vertices * (_vertices - 1);
+        return _directed ? _edges / pairs : 2 * _edges / pairs;
+    }
+
+    /** Returns the estimated bytes of COMPONENT, or 0 if the graph has
+     *  none. */
+    public long bytes(String component) {
+        Long b = _components.get(component);
+        return b == null ? 0 : b;
+    }
+
+    /** Returns the estimated bytes of each component, in the order they
+     *  were measured. */
+    public Map<String, Long> components() {
+        return Collections.unmodifiableMap(_components);
+    }
+
+    /** Returns the estimated total bytes, on and off the heap. */
+    public long totalBytes() {
+        long total = 0;
+        for (long b : _components.values()) {
+            total += b;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d vertices, %d %s edges, density %.4g,"
+                                 + " ~%d bytes%n", _vertices, _edges,
+                                 _directed ? "directed" : "undirected",
+                                 density(), totalBytes()));
+        for (Map.Entry<String, Long> c : _components.entrySet()) {
+            out.append(String.format("  %-18s %12d%n", c.getKey(),
+                                     c.getValue()));
+        }
+        return out.toString();
+    }
+
+    /** Adds BYTES to the estimate for COMPONENT. */
+    void add(String component, long bytes) {
+        if (bytes != 0) {
+            _components.put(component, bytes(component) + bytes);
+        }
+    }
+
+    /** Returns the bytes of an object with REFS reference fields and
+     *  PRIMITIVES bytes of primitive fields. */
+    static long object(int refs, int primitives) {
+        return align(HEADER + (long) refs * REFERENCE + primitives);
+    }
+
+    /** Returns the bytes of an array of LENGTH elements of WIDTH bytes. */
+    static long array(long length, int width) {
+        return align(ARRAY_HEADER + length * width);
+    }
+
+    /** Returns the bytes of an ArrayList holding SIZE elements, not
+     *  counting the elements. */
+    static long arrayList(int size) {
+        return object(1, Integer.BYTES) + array(size, REFERENCE);
+    }
+
+    /** Returns the bytes of a HashMap holding SIZE entries, not counting
+     *  its keys and values. */
+    static long hashMap(int size) {
+        long table = Integer.highestOneBit(Math.max(1,
+                         (int) (size / LOAD_FACTOR)) * 2 - 1);
+        return object(HASH_MAP_REFS, HASH_MAP_INTS * Integer.BYTES)
+            + array(table, REFERENCE) + size * HASH_NODE;
+    }
+
+    /** Returns SIZE rounded up to the JVM's object alignment. */
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /** Bytes in an object reference. */
+    static final int REFERENCE = 4;
+    /** Bytes in an object header. */
+    private static final int HEADER = 12;
+    /** Bytes in an array header, including its length. */
+    private static final int ARRAY_HEADER = 16;
+    /** Granularity of object sizes. */
+    private static final int ALIGNMENT = 8;
+    /** Default load factor of a HashMap. */
+    private static final float LOAD_FACTOR = 0.75f;
+    /** Reference and int fields of a HashMap. */
+    private static final int HASH_MAP_REFS = 4, HASH_MAP_INTS = 4;
+    /** Bytes of a HashMap entry: a hash, key, value and next link. */
+    private static final long HASH_NODE = object(3, Integer.BYTES);
+
+    /** Bytes of a Graph.Vertex: enclosing graph, label and id. */
+    static final long VERTEX_BYTES = object(2, Integer.BYTES);
+    /** Bytes of a Graph.Edge: enclosing graph, ends and label, id, null
+     *  flag and stored weight. */
+    static final long EDGE_BYTES =
+        object(4, Integer.BYTES + 1 + Double.BYTES);
+    /** Bytes of a boxed Integer. */
+    static final long INTEGER_BYTES = object(0, Integer.BYTES);
+
+    /** Number of vertices. */
+    private final int _vertices;
+    /** Number of edges. */
+    private final int _edges;
+    /** True iff the graph is directed. */
+    private final boolean _directed;
+    /** Estimated bytes by component. */
+    private final LinkedHashMap<String, Long> _components =
+        new LinkedHashMap<String, Long>();
+}
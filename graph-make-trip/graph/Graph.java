@@ -1,6 +1,14 @@
 package graph;
 
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /* Do not add or remove public or protected members, or modify the signatures of
  * any public methods.  You may make changes that don't affect the API as seen
@@ -24,8 +32,10 @@ import java.util.Comparator;
  *  The vertices and edges of the graph, the edges incident on a
  *  vertex, and the neighbors of a vertex are all accessible by
  *  iterators.  Changing the graph's structure by adding or deleting
- *  edges or vertices invalidates these iterators (subsequent use of
- *  them is undefined.)
+ *  edges or vertices invalidates these iterators: subsequent calls to
+ *  their next methods throw ConcurrentModificationException.  Each such
+ *  change also advances the graph's version(), so that results derived
+ *  from the graph may be checked for staleness.
  *  @author Andrew Berger
  */
 public abstract class Graph<VLabel, ELabel> {
@@ -59,15 +69,23 @@ public abstract class Graph<VLabel, ELabel> {
             return _id;
         }
 
+        /** Vertices are equal if they are the same vertex of the same
+         *  graph, even if they are distinct handles on it. */
         @Override
         public boolean equals(Object obj) {
-            if (obj == null) {
-                return false;
-            }
             if (obj == this) {
                 return true;
             }
-            return false;
+            if (!(obj instanceof Graph.Vertex)) {
+                return false;
+            }
+            Graph<?, ?>.Vertex v = (Graph<?, ?>.Vertex) obj;
+            return v.getId() == _id && v.graph() == graph();
+        }
+
+        /** Returns the graph I belong to. */
+        Graph<VLabel, ELabel> graph() {
+            return Graph.this;
         }
 
         /** The label on this vertex. */
@@ -118,9 +136,9 @@ public abstract class Graph<VLabel, ELabel> {
 
         /** Returns the vertex at the other end of me from V.  */
         public final Vertex getV(Vertex v) {
-            if (v == _v0) {
+            if (_v0.equals(v)) {
                 return _v1;
-            } else if (v == _v1) {
+            } else if (_v1.equals(v)) {
                 return _v0;
             } else {
                 throw new
@@ -139,17 +157,24 @@ public abstract class Graph<VLabel, ELabel> {
             return _id;
         }
 
+        /** Edges are equal if they are the same edge of the same graph,
+         *  even if they are distinct handles on it. */
         @Override
         public boolean equals(Object obj) {
-            if (obj == null) {
-                return false;
-            }
             if (obj == this) {
                 return true;
             }
-            return false;
+            if (!(obj instanceof Graph.Edge)) {
+                return false;
+            }
+            Graph<?, ?>.Edge e = (Graph<?, ?>.Edge) obj;
+            return e.getId() == _id && e.graph() == graph();
         }
 
+        /** Returns the graph I belong to. */
+        Graph<VLabel, ELabel> graph() {
+            return Graph.this;
+        }
 
         /** Returns my unique id. */
         public int getId() {
@@ -161,6 +186,16 @@ public abstract class Graph<VLabel, ELabel> {
             return _null;
         }
 
+        /** Returns the weight stored on me by my graph's weighEdges. */
+        double storedWeight() {
+            return _weight;
+        }
+
+        /** Sets my stored weight to W. */
+        void storeWeight(double w) {
+            _weight = w;
+        }
+
         /** Endpoints of this edge.  In directed edges, this edge exits _V0
          *  and enters _V1. */
         private final Vertex _v0, _v1;
@@ -171,6 +206,8 @@ public abstract class Graph<VLabel, ELabel> {
         private int _id;
         /** True iff I am a null edge.*/
         private boolean _null;
+        /** My stored weight. */
+        private double _weight;
     }
 
     /*=====  Methods and variables of Graph =====*/
@@ -259,6 +296,41 @@ public abstract class Graph<VLabel, ELabel> {
     /** Returns iterator over all incoming edges to V. */
     public abstract Iteration<Edge> inEdges(Vertex v);
 
+    /** Returns a sequential stream of all my vertices, as delivered by
+     *  vertices().  Made parallel, it divides my vertices evenly among
+     *  threads where my representation allows.  Changing my structure
+     *  while the stream is in use has the same effect as on an
+     *  iteration. */
+    public Stream<Vertex> vertexStream() {
+        return StreamSupport.stream(vertexSpliterator(), false);
+    }
+
+    /** Returns a sequential stream of all my edges, those delivered by
+     *  edges() though not necessarily in the same order, with the same
+     *  properties as vertexStream(). */
+    public Stream<Edge> edgeStream() {
+        return StreamSupport.stream(edgeSpliterator(), false);
+    }
+
+    /** Returns a spliterator over my vertices.  By default, it draws
+     *  from vertices(), splitting off batches as a parallel stream
+     *  demands them; implementations that keep their vertices in arrays
+     *  override it to split exactly, with a RangeSpliterator or, where
+     *  the arrays have holes or are grouped into adjacency lists, a
+     *  SlotSpliterator. */
+    Spliterator<Vertex> vertexSpliterator() {
+        return Spliterators.spliterator(vertices(), vertexSize(),
+                                        Spliterator.NONNULL
+                                        | Spliterator.DISTINCT);
+    }
+
+    /** Returns a spliterator over my edges, as for vertexSpliterator. */
+    Spliterator<Edge> edgeSpliterator() {
+        return Spliterators.spliterator(edges(), edgeSize(),
+                                        Spliterator.NONNULL
+                                        | Spliterator.DISTINCT);
+    }
+
     /** Returns outEdges(V). This is a synonym typically used
      *  on undirected graphs. */
     public final Iteration<Edge> edges(Vertex v) {
@@ -285,4 +357,296 @@ public abstract class Graph<VLabel, ELabel> {
      *  arbitrarily.  */
     public abstract void orderEdges(Comparator<ELabel> comparator);
 
+    /** Causes me to index my vertices by the keys KEYING extracts from
+     *  their labels, so that lookup finds them in constant time.  The
+     *  index is kept up to date as vertices are added and removed, and
+     *  replaces any index established earlier.  Labels with null keys are
+     *  not indexed. */
+    public void indexLabels(Keying<? super VLabel> keying) {
+        _labelIndex = new LabelIndex<VLabel, Vertex>(keying);
+        fillLabelIndex();
+    }
+
+    /** Causes me to index my vertices by the integer keys KEYING extracts
+     *  from their labels, as for indexLabels, but without boxing the
+     *  keys. */
+    public void indexIntLabels(IntKeying<? super VLabel> keying) {
+        _labelIndex = new LabelIndex<VLabel, Vertex>(keying);
+        fillLabelIndex();
+    }
+
+    /** Returns the vertex whose label has key KEY in my label index, or
+     *  null if there is none.  If several of my vertices share KEY,
+     *  returns the one most recently added.  The others remain indexed,
+     *  so that removing it exposes the latest of them.  Requires that
+     *  indexLabels or indexIntLabels has been called. */
+    public Vertex lookup(Object key) {
+        return labelIndex().get(key);
+    }
+
+    /** Returns the vertex whose label has integer key KEY, as for
+     *  lookup(Object). */
+    public Vertex lookup(int key) {
+        return labelIndex().get(key);
+    }
+
+    /** Rearranges my internal storage so that my vertices are laid out
+     *  in ORDER, a list of all of them, as computed by Reordering for
+     *  example, and are delivered in that order by vertices().  The
+     *  vertices remain mine and keep their ids, labels and edges, so
+     *  handles on them, and collections that hash or index them by id,
+     *  stay valid.  Representations with no vertex-ordered
+     *  storage ignore ORDER.  Throws IllegalArgumentException if ORDER is
+     *  not a permutation of my vertices. */
+    public void reorder(List<Vertex> order) {
+        HashSet<Vertex> mine = new HashSet<Vertex>();
+        for (Vertex v : vertices()) {
+            mine.add(v);
+        }
+        HashSet<Vertex> listed = new HashSet<Vertex>();
+        for (Vertex v : order) {
+            if (v.graph() != this || !mine.contains(v) || !listed.add(v)) {
+                throw new IllegalArgumentException("not a permutation of"
+                                                   + " the vertices");
+            }
+        }
+        if (listed.size() != mine.size()) {
+            throw new IllegalArgumentException("not a permutation of"
+                                               + " the vertices");
+        }
+        if (permute(order)) {
+            modified();
+        }
+    }
+
+    /** Causes me to store on each of my edges, as a primitive value, the
+     *  weight WEIGHTING gives its label, now and as edges are added.
+     *  Algorithms such as Graphs.shortestPath that are handed WEIGHTING
+     *  itself then read these weights directly instead of calling it.
+     *  Replaces any weighting established earlier. */
+    public void weighEdges(Weighting<? super ELabel> weighting) {
+        _edgeWeighting = weighting;
+        for (Edge e : edges()) {
+            weigh(e, weighting.weight(e.getLabel()));
+        }
+        modified();
+    }
+
+    /** Returns an estimate of the memory I occupy, broken down by
+     *  component, with my counts of vertices and edges and my density.
+     *  Takes time at most proportional to my number of vertices, so that
+     *  it may be logged freely. */
+    public Footprint footprint() {
+        Footprint f = new Footprint(vertexSize(), edgeSize(), isDirected());
+        measure(f);
+        if (_labelIndex != null) {
+            int cap = _labelIndex.capacity();
+            f.add(Footprint.INDEX_MAPS,
+                  Footprint.object(5, Integer.BYTES)
+                  + Footprint.array(cap, _labelIndex.isIntKeyed()
+                                    ? Integer.BYTES : Footprint.REFERENCE)
+                  + Footprint.array(cap, Footprint.REFERENCE));
+        }
+        return f;
+    }
+
+    /** Adds to F estimates of the memory taken by my representation.  By
+     *  default, counts one Vertex and one Edge object for each of my
+     *  vertices and edges; implementations add their own structures. */
+    void measure(Footprint f) {
+        f.add(Footprint.VERTEX_OBJECTS,
+              vertexSize() * Footprint.VERTEX_BYTES);
+        f.add(Footprint.EDGE_OBJECTS, edgeSize() * Footprint.EDGE_BYTES);
+    }
+
+    /** Returns my version: a number that changes whenever my vertices or
+     *  edges are added or removed, or my edges are reweighed by
+     *  weighEdges. */
+    public int version() {
+        return _version;
+    }
+
+    /** Records that my structure or stored weights have changed,
+     *  invalidating my iterations and anything derived from me. */
+    void modified() {
+        _version += 1;
+    }
+
+    /** Throws ConcurrentModificationException unless my version is
+     *  still VERSION. */
+    void checkVersion(int version) {
+        if (version != version()) {
+            throw new ConcurrentModificationException("graph has changed");
+        }
+    }
+
+    /** Returns a graph with my vertices and edges that will not change
+     *  while it is traversed: normally myself, but a snapshot of me if
+     *  other threads may change me. */
+    Graph<VLabel, ELabel> stable() {
+        return this;
+    }
+
+    /** Lays out my storage for my vertices in ORDER, a permutation of
+     *  them, returning true iff I have changed.  By default, does
+     *  nothing. */
+    boolean permute(List<Vertex> order) {
+        return false;
+    }
+
+    /** Returns true iff several threads may read my stable() graph at
+     *  once while no thread changes me.  Graphs whose queries use shared
+     *  buffers or state built on demand return false. */
+    boolean concurrentlyReadable() {
+        return false;
+    }
+
+    /** Returns an iteration that delivers the items of IT, one of my
+     *  iterations, but fails once my structure changes. */
+    <T> Iteration<T> checked(Iteration<T> it) {
+        return new CheckedIteration<T>(it);
+    }
+
+    /** Returns true iff my edges' stored weights are those given by
+     *  WEIGHTING. */
+    boolean weighs(Weighting<?> weighting) {
+        return weighting != null && weighting == _edgeWeighting;
+    }
+
+    /** Sets the stored weight of E, one of my edges, to W. */
+    void weigh(Edge e, double w) {
+        e.storeWeight(w);
+    }
+
+    /** Readies V, a vertex about to be added to me, to be found: enters
+     *  it in my label index.  Every implementation calls this before V
+     *  can be seen by queries, and vertexAdded once V is in place. */
+    void vertexAdding(Vertex v) {
+        if (_labelIndex != null) {
+            _labelIndex.put(v.getLabel(), v);
+        }
+    }
+
+    /** Records that V has just been added to me.  Every implementation
+     *  calls this once V is in place. */
+    void vertexAdded(Vertex v) {
+        modified();
+        if (_log != null) {
+            _log.vertexAdded(v);
+        }
+    }
+
+    /** Records that V, one of my vertices, is about to be removed.  Every
+     *  implementation calls this before removing V. */
+    void vertexRemoved(Vertex v) {
+        modified();
+        if (_labelIndex != null) {
+            _labelIndex.remove(v.getLabel(), v);
+        }
+        if (_log != null) {
+            _log.vertexRemoved(v);
+        }
+    }
+
+    /** Readies E, an edge about to be added to me, to be read: stores
+     *  its weight.  Every implementation calls this before E can be seen
+     *  by queries, and edgeAdded once E is in place. */
+    void edgeAdding(Edge e) {
+        if (_edgeWeighting != null) {
+            weigh(e, _edgeWeighting.weight(e.getLabel()));
+        }
+    }
+
+    /** Records that E has just been added to me.  Every implementation
+     *  calls this once E is in place. */
+    void edgeAdded(Edge e) {
+        modified();
+        if (_log != null) {
+            _log.edgeAdded(e);
+        }
+    }
+
+    /** Records that E, one of my edges, has just been removed.  Every
+     *  implementation calls this once E is gone. */
+    void edgeRemoved(Edge e) {
+        modified();
+        if (_log != null) {
+            _log.edgeRemoved(e);
+        }
+    }
+
+    /** Causes my changes to be recorded in LOG from now on, or in no log
+     *  if LOG is null.  Called by MutationLog. */
+    void setLog(MutationLog<VLabel, ELabel> log) {
+        _log = log;
+    }
+
+    /** An iteration over one of my iterations that fails fast once my
+     *  version changes. */
+    private class CheckedIteration<T> extends Iteration<T> {
+        /** An iteration delivering the items of IT. */
+        CheckedIteration(Iteration<T> it) {
+            _it = it;
+            _expected = version();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _it.hasNext();
+        }
+
+        @Override
+        public T next() {
+            checkVersion(_expected);
+            return _it.next();
+        }
+
+        /** The iteration I wrap. */
+        private final Iteration<T> _it;
+        /** My graph's version when I was created. */
+        private final int _expected;
+    }
+
+    /** Returns the shortest paths Graphs.cachedShortestPath remembers
+     *  for me, or null if it has set none. */
+    Map<?, ?> pathCache() {
+        return _pathCache;
+    }
+
+    /** Sets the shortest paths Graphs.cachedShortestPath remembers for me
+     *  to CACHE.  They are kept with me, rather than in a global table,
+     *  so that they are discarded along with me. */
+    void setPathCache(Map<?, ?> cache) {
+        _pathCache = cache;
+    }
+
+    /** Returns my label index, or throws IllegalStateException if I have
+     *  none. */
+    private LabelIndex<VLabel, Vertex> labelIndex() {
+        if (_labelIndex == null) {
+            throw new IllegalStateException("labels are not indexed");
+        }
+        return _labelIndex;
+    }
+
+    /** Adds all my current vertices to my label index. */
+    private void fillLabelIndex() {
+        for (Vertex v : vertices()) {
+            _labelIndex.put(v.getLabel(), v);
+        }
+    }
+
+    /** Maps label keys to my vertices, or null if labels are not
+     *  indexed. */
+    private LabelIndex<VLabel, Vertex> _labelIndex;
+    /** Counts changes to my structure; see version(). */
+    private int _version;
+    /** Determines the stored weights of my edges, or null if they have
+     *  none. */
+    private Weighting<? super ELabel> _edgeWeighting;
+    /** Records my changes, or null if they are not recorded. */
+    private MutationLog<VLabel, ELabel> _log;
+    /** Shortest paths remembered for me; see pathCache(). */
+    private Map<?, ?> _pathCache;
+
 }
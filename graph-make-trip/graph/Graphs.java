@@ -1,9 +1,14 @@
 package graph;
 
 import java.util.List;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
 
 /** Assorted graph algorithms.
  *  @author Andrew Berger
@@ -28,7 +33,10 @@ public final class Graphs {
      *  The final weights of other vertices are not defined.  If V1 is
      *  unreachable from V0, returns null and sets the minimum path weights of
      *  all reachable nodes.  The distance to a node unreachable from V0 is
-     *  Double.POSITIVE_INFINITY. */
+     *  Double.POSITIVE_INFINITY.  If G's edges carry weights stored by
+     *  G.weighEdges(EWEIGHTER), reads those rather than calling
+     *  EWEIGHTER, and keeps the vertices to be examined in a radix heap
+     *  rather than a binary heap. */
     public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
     shortestPath(Graph<VLabel, ELabel> G,
                  Graph<VLabel, ELabel>.Vertex V0,
@@ -36,85 +44,170 @@ public final class Graphs {
                  final Distancer<? super VLabel> h,
                  Weighter<? super VLabel> vweighter,
                  Weighting<? super ELabel> eweighter) {
+        return shortestPath(G, V0, V1, h, vweighter, eweighter, 1.0);
+    }
 
+    /** Returns a path from V0 to V1 in G whose weight according to the
+     *  edge weighter EWEIGHTER is at most EPSILON times the minimum, by
+     *  weighted A* search: as for the 6-argument shortestPath, but with
+     *  the estimates of H inflated by EPSILON, which must be at least 1.
+     *  Larger values steer the search more greedily toward V1, usually
+     *  examining far fewer vertices.  The vertex weights set through
+     *  VWEIGHTER are the weights of the paths found, which are no more
+     *  than EPSILON times the minimum, and are exact if EPSILON is 1. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(Graph<VLabel, ELabel> G,
+                 Graph<VLabel, ELabel>.Vertex V0,
+                 Graph<VLabel, ELabel>.Vertex V1,
+                 Distancer<? super VLabel> h,
+                 Weighter<? super VLabel> vweighter,
+                 Weighting<? super ELabel> eweighter, double epsilon) {
+        return shortestPath(G, V0, V1, h, vweighter, eweighter, epsilon,
+                            G.weighs(eweighter));
+    }
+
+    /** As for the 7-argument shortestPath, but keeping the fringe in a
+     *  monotone radix heap if RADIX, and otherwise in a binary heap.  The
+     *  public versions use a radix heap when G stores EWEIGHTER's weights:
+     *  with weights read directly from edges, the cost of comparisons in
+     *  a binary heap dominates the search. */
+    static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(Graph<VLabel, ELabel> G,
+                 Graph<VLabel, ELabel>.Vertex V0,
+                 Graph<VLabel, ELabel>.Vertex V1,
+                 Distancer<? super VLabel> h,
+                 Weighter<? super VLabel> vweighter,
+                 Weighting<? super ELabel> eweighter, double epsilon,
+                 boolean radix) {
+        if (!(epsilon >= 1.0)) {
+            throw new IllegalArgumentException("inflation less than 1");
+        }
         for (Graph<VLabel, ELabel>.Vertex v : G.vertices()) {
-            if (v != V0) {
+            if (!v.equals(V0)) {
                 vweighter.setWeight(v.getLabel(), Double.POSITIVE_INFINITY);
             }
         }
-        OrderedSearch<VLabel, ELabel> search =
-            new OrderedSearch<VLabel, ELabel>(V1, vweighter, eweighter);
-        search.traverse(G, V0, new Comparator<VLabel>() {
-                @Override
-                public int compare(VLabel v1, VLabel v2) {
-                    return (int) (h.dist(v2, V1.getLabel())
-                                  - h.dist(v1, V1.getLabel()));
+        boolean stored = G.weighs(eweighter);
+        Graph<VLabel, ELabel> graph = G.stable();
+        HashMap<Graph<VLabel, ELabel>.Vertex, Graph<VLabel, ELabel>.Edge>
+            parents = new HashMap<Graph<VLabel, ELabel>.Vertex,
+                                  Graph<VLabel, ELabel>.Edge>();
+        SearchFringe<Graph<VLabel, ELabel>.Vertex> fringe = radix
+            ? new RadixHeap<Graph<VLabel, ELabel>.Vertex>()
+            : new HeapFringe<Graph<VLabel, ELabel>.Vertex>();
+        double d0 = vweighter.weight(V0.getLabel());
+        fringe.push(V0, d0,
+                    d0 + epsilon * h.dist(V0.getLabel(), V1.getLabel()));
+        while (!fringe.isEmpty()) {
+            Graph<VLabel, ELabel>.Vertex v = fringe.pop();
+            double dv = fringe.dist();
+            if (dv > vweighter.weight(v.getLabel())) {
+                continue;
+            }
+            if (v.equals(V1)) {
+                return path(parents, V1);
+            }
+            for (Graph<VLabel, ELabel>.Edge e : graph.edges(v)) {
+                Graph<VLabel, ELabel>.Vertex w = e.getV(v);
+                double d = dv
+                    + (stored ? e.storedWeight()
+                       : eweighter.weight(e.getLabel()));
+                if (d < vweighter.weight(w.getLabel())) {
+                    vweighter.setWeight(w.getLabel(), d);
+                    parents.put(w, e);
+                    fringe.push(w, d, d + epsilon * h.dist(w.getLabel(),
+                                                           V1.getLabel()));
                 }
-            });
+            }
+        }
+        return null;
+    }
 
-        return (search.getPath());
+    /** Returns the edges from the root of the tree described by PARENTS,
+     *  which maps each vertex to the edge by which it was reached, to V,
+     *  or null if there are none. */
+    private static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Edge>
+    path(HashMap<Graph<VLabel, ELabel>.Vertex,
+                 Graph<VLabel, ELabel>.Edge> parents,
+         Graph<VLabel, ELabel>.Vertex v) {
+        ArrayList<Graph<VLabel, ELabel>.Edge> path =
+            new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        for (Graph<VLabel, ELabel>.Edge e = parents.get(v); e != null;
+             e = parents.get(v)) {
+            path.add(e);
+            v = e.getV(v);
+        }
+        if (path.isEmpty()) {
+            return null;
+        }
+        Collections.reverse(path);
+        return path;
     }
 
-    /** An A* search. */
-    private static class OrderedSearch<VLabel, ELabel>
-        extends Traversal<VLabel, ELabel> {
-        /** A new A* search from DEST.
-         *  Uses VWEIGHTER and EWEIGHTER.*/
-        OrderedSearch(Graph<VLabel, ELabel>.Vertex dest,
-                      Weighter<? super VLabel> vweighter,
-                      Weighting<? super ELabel> eweighter) {
-            _dest = dest;
-            _vweighter = vweighter;
-            _eweighter = eweighter;
-            _parents = new HashMap<Graph<VLabel, ELabel>.Vertex,
-                Graph<VLabel, ELabel>.Edge>();
+    /** A search fringe kept in a binary heap. */
+    private static final class HeapFringe<T> implements SearchFringe<T> {
+        @Override
+        public void push(T item, double dist, double key) {
+            _queue.add(new SearchEntry<T>(item, dist, key, _added));
+            _added += 1;
         }
 
         @Override
-        protected void visit(Graph<VLabel, ELabel>.Vertex v) {
-            if (v == _dest) {
-                throw new StopException();
-            }
+        public boolean isEmpty() {
+            return _queue.isEmpty();
         }
 
         @Override
-        protected void preVisit(Graph<VLabel, ELabel>.Edge e,
-                                Graph<VLabel, ELabel>.Vertex v0) {
-            Graph<VLabel, ELabel>.Vertex w = e.getV(v0);
-            double v = _vweighter.weight(v0.getLabel());
-            double vw = _eweighter.weight(e.getLabel());
-            if (_vweighter.weight(w.getLabel()) > (v + vw)) {
-                _vweighter.setWeight(w.getLabel(), v + vw);
-                _parents.put(w, e);
-            }
+        public T pop() {
+            SearchEntry<T> top = _queue.poll();
+            _dist = top._dist;
+            return top._item;
         }
 
-        /** Walks through our parent pointers and makes a list.
-         *  Returns the shortest path.*/
-        public List<Graph<VLabel, ELabel>.Edge> getPath() {
-            Graph<VLabel, ELabel>.Vertex last = finalVertex();
-            List<Graph<VLabel, ELabel>.Edge> path =
-                new ArrayList<Graph<VLabel, ELabel>.Edge>();
-            while (_parents.get(last) != null) {
-                Graph<VLabel, ELabel>.Edge lastCrossed = _parents.get(last);
-                path.add(0, lastCrossed);
-                last = lastCrossed.getV(last);
-            }
-            if (!path.isEmpty()) {
-                return path;
-            }
-            return null;
+        @Override
+        public double dist() {
+            return _dist;
         }
 
-        /** Maps to the edge we traversed to get here.*/
-        private HashMap<Graph<VLabel, ELabel>.Vertex,
-            Graph<VLabel, ELabel>.Edge> _parents;
-        /** The vertex we are looking for.*/
-        private Graph<VLabel, ELabel>.Vertex _dest;
-        /** Returns weight on vertex.*/
-        private Weighter<? super VLabel> _vweighter;
-        /** Returns weight on edge.*/
-        private Weighting<? super ELabel> _eweighter;
+        /** The queued entries. */
+        private final PriorityQueue<SearchEntry<T>> _queue =
+            new PriorityQueue<SearchEntry<T>>();
+        /** Number of entries added so far. */
+        private long _added;
+        /** Distance of the item last popped. */
+        private double _dist;
+    }
+
+    /** An item queued for an A* search, with its distance from the start
+     *  and its priority: that distance plus the estimated distance to
+     *  go.  Entries of equal priority leave in the order they came.  An
+     *  entry whose item has since been reached more cheaply is stale and
+     *  is skipped. */
+    private static final class SearchEntry<T>
+        implements Comparable<SearchEntry<T>> {
+        /** An entry for ITEM at distance DIST with priority KEY, the
+         *  SEQUENCEth entry made. */
+        SearchEntry(T item, double dist, double key, long sequence) {
+            _item = item;
+            _dist = dist;
+            _key = key;
+            _sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(SearchEntry<T> other) {
+            int c = Double.compare(_key, other._key);
+            return c != 0 ? c : Long.compare(_sequence, other._sequence);
+        }
+
+        /** My item. */
+        private final T _item;
+        /** Distance of my item from the start when I was made. */
+        private final double _dist;
+        /** My priority. */
+        private final double _key;
+        /** Number of entries made before me. */
+        private final long _sequence;
     }
 
     /** Returns a path from V0 to V1 in G of minimum weight, according
@@ -137,7 +230,9 @@ public final class Graphs {
      *  the edges and vertices themselves to determine and set
      *  weights. If V1 is unreachable from V0, returns null and sets
      *  the minimum path weights of all reachable nodes.  The distance
-     *  to a node unreachable from V0 is Double.POSITIVE_INFINITY. */
+     *  to a node unreachable from V0 is Double.POSITIVE_INFINITY.
+     *  If G.weighEdges(LABEL_WEIGHTING) has been called, the edge weights
+     *  are read from G's edges without consulting their labels. */
     public static
     <VLabel extends Weightable, ELabel extends Weighted>
     List<Graph<VLabel, ELabel>.Edge>
@@ -146,10 +241,282 @@ public final class Graphs {
                  Graph<VLabel, ELabel>.Vertex V1,
                  Distancer<? super VLabel> h) {
         Weighter<VLabel> vweight = new ComponentWeighter<VLabel>();
-        Weighting<ELabel> eweight = new ComponentWeighting<ELabel>();
-        return shortestPath(G, V0, V1, h, vweight, eweight);
+        return shortestPath(G, V0, V1, h, vweight, LABEL_WEIGHTING);
+    }
+
+    /** Returns a path from V0 to V1 in G of at most EPSILON times the
+     *  minimum weight, according to the weights of its edge labels, as
+     *  for the 7-argument shortestPath.  Sets the weights of vertices as
+     *  the 4-argument shortestPath does, but to the weights of the paths
+     *  found. */
+    public static
+    <VLabel extends Weightable, ELabel extends Weighted>
+    List<Graph<VLabel, ELabel>.Edge>
+    shortestPath(Graph<VLabel, ELabel> G,
+                 Graph<VLabel, ELabel>.Vertex V0,
+                 Graph<VLabel, ELabel>.Vertex V1,
+                 Distancer<? super VLabel> h, double epsilon) {
+        Weighter<VLabel> vweight = new ComponentWeighter<VLabel>();
+        return shortestPath(G, V0, V1, h, vweight, LABEL_WEIGHTING, epsilon);
+    }
+
+    /** Returns up to K loopless paths from V0 to V1 in G, of least weight
+     *  according to the edge weighter EWEIGHTER, in order of increasing
+     *  weight (Yen's algorithm).  Each path is a list of edges; there are
+     *  fewer than K only if G has fewer paths from V0 to V1.  G is not
+     *  modified, and weights must be nonnegative.  If G's edges carry
+     *  weights stored by G.weighEdges(EWEIGHTER), reads those rather
+     *  than calling EWEIGHTER. */
+    public static <VLabel, ELabel> List<List<Graph<VLabel, ELabel>.Edge>>
+    kShortestPaths(Graph<VLabel, ELabel> G,
+                   Graph<VLabel, ELabel>.Vertex V0,
+                   Graph<VLabel, ELabel>.Vertex V1, int k,
+                   Weighting<? super ELabel> eweighter) {
+        return new KShortestPaths<VLabel, ELabel>(G, V0, V1, eweighter)
+            .find(k);
+    }
+
+    /** Returns up to K loopless paths from V0 to V1 in G, of least total
+     *  weight according to the weights of their edge labels, as for the
+     *  5-argument kShortestPaths. */
+    public static <VLabel, ELabel extends Weighted>
+    List<List<Graph<VLabel, ELabel>.Edge>>
+    kShortestPaths(Graph<VLabel, ELabel> G,
+                   Graph<VLabel, ELabel>.Vertex V0,
+                   Graph<VLabel, ELabel>.Vertex V1, int k) {
+        return kShortestPaths(G, V0, V1, k, LABEL_WEIGHTING);
+    }
+
+    /** Returns the betweenness centrality of each vertex of G: the sum,
+     *  over ordered pairs of other vertices (unordered if G is
+     *  undirected), of the fraction of shortest paths between them that
+     *  pass through it.  Path lengths are according to the edge weighter
+     *  EWEIGHTER, whose weights must be positive, or are numbers of
+     *  edges if EWEIGHTER is null.  If G's edges carry weights stored by
+     *  G.weighEdges(EWEIGHTER), reads those rather than calling
+     *  EWEIGHTER.  The work is divided among as many threads as there are
+     *  processors. */
+    public static <VLabel, ELabel> Map<Graph<VLabel, ELabel>.Vertex, Double>
+    betweenness(Graph<VLabel, ELabel> G,
+                Weighting<? super ELabel> eweighter) {
+        Betweenness<VLabel, ELabel> scorer =
+            new Betweenness<VLabel, ELabel>(G, eweighter);
+        int[] sources = new int[scorer.vertexCount()];
+        for (int v = 0; v < sources.length; v += 1) {
+            sources[v] = v;
+        }
+        return scorer.scores(sources, 1.0,
+                             Runtime.getRuntime().availableProcessors());
     }
 
+    /** Returns an estimate of betweenness(G, EWEIGHTER) that uses only K
+     *  source vertices chosen at random by RANDOM, scaling the resulting
+     *  sums up in proportion.  Its time is proportional to K rather than
+     *  to the number of vertices of G, and it is exact if K is at least
+     *  that number. */
+    public static <VLabel, ELabel> Map<Graph<VLabel, ELabel>.Vertex, Double>
+    betweenness(Graph<VLabel, ELabel> G,
+                Weighting<? super ELabel> eweighter, int k, Random random) {
+        Betweenness<VLabel, ELabel> scorer =
+            new Betweenness<VLabel, ELabel>(G, eweighter);
+        int n = scorer.vertexCount();
+        int[] all = new int[n];
+        for (int v = 0; v < n; v += 1) {
+            all[v] = v;
+        }
+        k = Math.max(0, Math.min(k, n));
+        for (int i = 0; i < k; i += 1) {
+            int j = i + random.nextInt(n - i);
+            int t = all[i];
+            all[i] = all[j];
+            all[j] = t;
+        }
+        double scale = k == 0 ? 0.0 : (double) n / k;
+        return scorer.scores(Arrays.copyOf(all, k), scale,
+                             Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Returns the distance from V0 of each vertex of G, according to
+     *  the edge weighter EWEIGHTER, whose weights must be nonnegative, or
+     *  in numbers of edges if EWEIGHTER is null.  Vertices V0 does not
+     *  reach are at distance Double.POSITIVE_INFINITY.  The distances are
+     *  found by delta-stepping with buckets of width DELTA, relaxing the
+     *  edges leaving the vertices of each bucket on up to THREADS
+     *  threads, and are exactly the vertex weights shortestPath leaves
+     *  when searching from V0 for an unreachable vertex.  Small values of
+     *  DELTA do less work in more, smaller parallel steps.  If G's edges
+     *  carry weights stored by G.weighEdges(EWEIGHTER), reads those
+     *  rather than calling EWEIGHTER. */
+    public static <VLabel, ELabel> Map<Graph<VLabel, ELabel>.Vertex, Double>
+    distances(Graph<VLabel, ELabel> G, Graph<VLabel, ELabel>.Vertex V0,
+              Weighting<? super ELabel> eweighter, double delta,
+              int threads) {
+        return new DeltaStepping<VLabel, ELabel>(G, eweighter)
+            .distances(V0, delta, threads);
+    }
+
+    /** Returns distances(G, V0, EWEIGHTER, DELTA, THREADS), with DELTA
+     *  the mean weight of G's edges and as many THREADS as there are
+     *  processors. */
+    public static <VLabel, ELabel> Map<Graph<VLabel, ELabel>.Vertex, Double>
+    distances(Graph<VLabel, ELabel> G, Graph<VLabel, ELabel>.Vertex V0,
+              Weighting<? super ELabel> eweighter) {
+        DeltaStepping<VLabel, ELabel> search =
+            new DeltaStepping<VLabel, ELabel>(G, eweighter);
+        return search.distances(V0, search.meanWeight(),
+                                Runtime.getRuntime().availableProcessors());
+    }
+
+    /* Components */
+
+    /** Returns the weakly connected components of G: the largest sets of
+     *  vertices joined by paths whose edges may be taken in either
+     *  direction.  Components are in the order of their first vertices in
+     *  G.vertices(), and each lists its vertices in that order. */
+    public static <VLabel, ELabel> List<List<Graph<VLabel, ELabel>.Vertex>>
+    components(Graph<VLabel, ELabel> G) {
+        return new Components<VLabel, ELabel>(G).components();
+    }
+
+    /** Traverses each weakly connected component of G depth-first, with a
+     *  fresh traversal made for it by FACTORY, so that each has its own
+     *  marks and results.  A traversal starts from the first vertex of its
+     *  component and continues from each vertex it has not yet reached,
+     *  until it has reached them all or it stops.  If G may be read by
+     *  several threads at once, the components are traversed in parallel
+     *  on up to THREADS threads; otherwise one at a time.  Returns the
+     *  traversals in the order of components(G), whatever order they
+     *  finished in, so that combining their results in list order is
+     *  deterministic.  No traversal may change G. */
+    public static <VLabel, ELabel, T extends Traversal<VLabel, ELabel>>
+    List<T> traverseComponents(Graph<VLabel, ELabel> G,
+                               TraversalFactory<VLabel, ELabel, T> factory,
+                               int threads) {
+        return new Components<VLabel, ELabel>(G).traverse(factory, threads);
+    }
+
+    /** Returns shortestPath(G, V0, V1, H), remembering the result so that
+     *  asking again returns it in time proportional to its length.  The
+     *  PATH_CACHE_SIZE most recently used results for each graph are
+     *  remembered with the graph itself, so that they are discarded
+     *  along with it, and a result is forgotten once G.version()
+     *  changes.  A remembered result does not repeat shortestPath's side
+     *  effects on vertex weights, and changes to the weights of edge
+     *  labels that do not advance G's version go unnoticed.  H must be
+     *  the same object to match.  The returned path is unmodifiable. */
+    @SuppressWarnings("unchecked")
+    public static
+    <VLabel extends Weightable, ELabel extends Weighted>
+    List<Graph<VLabel, ELabel>.Edge>
+    cachedShortestPath(Graph<VLabel, ELabel> G,
+                       Graph<VLabel, ELabel>.Vertex V0,
+                       Graph<VLabel, ELabel>.Vertex V1,
+                       Distancer<? super VLabel> h) {
+        PathKey key = new PathKey(V0, V1, h);
+        int version = G.version();
+        PathCache cache = pathCache(G);
+        CachedPath cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached._version == version) {
+            return (List<Graph<VLabel, ELabel>.Edge>) cached._path;
+        }
+        List<Graph<VLabel, ELabel>.Edge> path =
+            shortestPath(G, V0, V1, h);
+        if (path != null) {
+            path = Collections.unmodifiableList(path);
+        }
+        synchronized (cache) {
+            cache.put(key, new CachedPath(version, path));
+        }
+        return path;
+    }
+
+    /** Returns the shortest paths remembered for G, creating an empty
+     *  cache for it if there is none. */
+    private static PathCache pathCache(Graph<?, ?> G) {
+        synchronized (PATH_CACHE_LOCK) {
+            if (G.pathCache() == null) {
+                G.setPathCache(new PathCache());
+            }
+            return (PathCache) G.pathCache();
+        }
+    }
+
+    /** The shortest paths remembered for one graph, least recently used
+     *  first. */
+    private static final class PathCache
+        extends LinkedHashMap<PathKey, CachedPath> {
+        /** An empty cache. */
+        PathCache() {
+            super(PATH_CACHE_SIZE, LOAD_FACTOR, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<PathKey, CachedPath> eldest) {
+            return size() > PATH_CACHE_SIZE;
+        }
+    }
+
+    /** The key of a remembered shortest-path query on a given graph. */
+    private static final class PathKey {
+        /** The key for a query from V0 to V1 with heuristic H. */
+        PathKey(Object v0, Object v1, Object h) {
+            _v0 = v0;
+            _v1 = v1;
+            _h = h;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PathKey)) {
+                return false;
+            }
+            PathKey k = (PathKey) obj;
+            return _h == k._h
+                && _v0.equals(k._v0) && _v1.equals(k._v1);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = _v0.hashCode();
+            h = h * HASH_PRIME + _v1.hashCode();
+            return h * HASH_PRIME + System.identityHashCode(_h);
+        }
+
+        /** The ends of the path. */
+        private final Object _v0, _v1;
+        /** The heuristic used. */
+        private final Object _h;
+    }
+
+    /** A remembered shortest path and the graph version it holds for. */
+    private static final class CachedPath {
+        /** PATH, found in version VERSION of its graph. */
+        CachedPath(int version, List<?> path) {
+            _version = version;
+            _path = path;
+        }
+
+        /** The version of the graph in which _path was found. */
+        private final int _version;
+        /** The path found, or null if there was none. */
+        private final List<?> _path;
+    }
+
+    /** Number of shortest paths cachedShortestPath remembers for each
+     *  graph. */
+    private static final int PATH_CACHE_SIZE = 256;
+    /** Load factor of a PathCache. */
+    private static final float LOAD_FACTOR = 0.75f;
+    /** Multiplier for combining hash codes. */
+    private static final int HASH_PRIME = 31;
+
+    /** Guards the creation of path caches. */
+    private static final Object PATH_CACHE_LOCK = new Object();
+
     /** Returns a distancer whose dist method always returns 0. */
     public static final Distancer<Object> ZERO_DISTANCER =
         new Distancer<Object>() {
@@ -160,6 +527,10 @@ public final class Graphs {
         };
 
 
+    /** A weighting that returns the weights of Weighted objects. */
+    public static final Weighting<Weighted> LABEL_WEIGHTING =
+        new ComponentWeighting<Weighted>();
+
     /** Class wrapping weighted objects.*/
     private static class ComponentWeighting<Label extends Weighted>
         implements Weighting<Label> {
@@ -0,0 +1,317 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for the search, distance and centrality algorithms of
+ *  Graphs.
+ *  @author Andrew Berger
+ */
+public class GraphsTesting {
+
+    /** Counts the calls made to it; weighs a label by its value. */
+    private static class CountingWeighting implements Weighting<Integer> {
+        @Override
+        public double weight(Integer label) {
+            _calls += 1;
+            return label;
+        }
+        /** Number of calls to weight. */
+        private int _calls;
+    }
+
+    @Test
+    public void checkEdgeWeights() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        CountingWeighting w = new CountingWeighting();
+        DirectedGraph<Integer, Integer>.Vertex a = g.add(0), b = g.add(1),
+            c = g.add(2), d = g.add(3);
+        g.add(a, b, 4);
+        g.weighEdges(w);
+        assertEquals("weighEdges weighs each edge once", 1, w._calls);
+        g.add(b, c, 1);
+        g.add(a, d, 7);
+        assertEquals("Added edges are weighed once", 3, w._calls);
+        final HashMap<Integer, Double> dists = new HashMap<Integer, Double>();
+        Weighter<Integer> vw = new Weighter<Integer>() {
+            @Override
+            public void setWeight(Integer label, double weight) {
+                dists.put(label, weight);
+            }
+            @Override
+            public double weight(Integer label) {
+                return dists.containsKey(label) ? dists.get(label) : 0;
+            }
+        };
+        Distancer<Integer> h = new Distancer<Integer>() {
+            @Override
+            public double dist(Integer v0, Integer v1) {
+                return 0;
+            }
+        };
+        List<DirectedGraph<Integer, Integer>.Edge> path =
+            Graphs.shortestPath(g, a, c, h, vw, w);
+        assertEquals("Wrong path length", 2, path.size());
+        assertEquals("Wrong first edge", b, path.get(0).getV1());
+        assertEquals("Search consulted the weighting", 3, w._calls);
+        assertEquals("Other weightings are called", 2,
+                     Graphs.shortestPath(g, a, c, h, vw,
+                                         new CountingWeighting()).size());
+    }
+
+    /** A vertex label with a settable weight. */
+    private static class Stop implements Weightable {
+        @Override
+        public double weight() {
+            return _weight;
+        }
+        @Override
+        public void setWeight(double w) {
+            _weight = w;
+        }
+        /** My weight. */
+        private double _weight;
+    }
+
+    /** An edge label with a fixed weight. */
+    private static class Leg implements Weighted {
+        /** A leg of weight W. */
+        Leg(double w) {
+            _weight = w;
+        }
+        @Override
+        public double weight() {
+            return _weight;
+        }
+        /** My weight. */
+        private final double _weight;
+    }
+
+    @Test
+    public void checkPathCache() {
+        DirectedGraph<Stop, Leg> g = new DirectedGraph<Stop, Leg>();
+        DirectedGraph<Stop, Leg>.Vertex a = g.add(new Stop()),
+            b = g.add(new Stop()), c = g.add(new Stop());
+        g.add(a, b, new Leg(1));
+        g.add(b, c, new Leg(1));
+        List<Graph<Stop, Leg>.Edge> first =
+            Graphs.cachedShortestPath(g, a, c, Graphs.ZERO_DISTANCER);
+        assertEquals("wrong path", 2, first.size());
+        assertSame("repeated query not cached", first,
+                   Graphs.cachedShortestPath(g, a, c, Graphs.ZERO_DISTANCER));
+        g.remove(b);
+        assertNull("stale path returned",
+                   Graphs.cachedShortestPath(g, a, c, Graphs.ZERO_DISTANCER));
+    }
+
+    /** Adds to WEIGHTS the weights of all simple paths from U to DEST in
+     *  G that extend a path of weight SOFAR avoiding the vertices in
+     *  VISITED. */
+    private void allPaths(DirectedGraph<Stop, Leg> g,
+                          DirectedGraph<Stop, Leg>.Vertex u,
+                          DirectedGraph<Stop, Leg>.Vertex dest,
+                          double sofar, List<Object> visited,
+                          List<Double> weights) {
+        if (u == dest) {
+            weights.add(sofar);
+            return;
+        }
+        visited.add(u);
+        ArrayList<Graph<Stop, Leg>.Edge> out =
+            new ArrayList<Graph<Stop, Leg>.Edge>();
+        for (Graph<Stop, Leg>.Edge e : g.outEdges(u)) {
+            out.add(e);
+        }
+        for (Graph<Stop, Leg>.Edge e : out) {
+            if (!visited.contains(e.getV1())) {
+                allPaths(g, e.getV1(), dest, sofar + e.getLabel().weight(),
+                         visited, weights);
+            }
+        }
+        visited.remove(u);
+    }
+
+    @Test
+    public void checkKShortestPaths() {
+        Random r = new Random(7);
+        DirectedGraph<Stop, Leg> g = new DirectedGraph<Stop, Leg>();
+        ArrayList<DirectedGraph<Stop, Leg>.Vertex> vs =
+            new ArrayList<DirectedGraph<Stop, Leg>.Vertex>();
+        for (int i = 0; i < 8; i += 1) {
+            vs.add(g.add(new Stop()));
+        }
+        for (int i = 0; i < 40; i += 1) {
+            DirectedGraph<Stop, Leg>.Vertex u = vs.get(r.nextInt(8)),
+                v = vs.get(r.nextInt(8));
+            if (u != v && !g.contains(u, v)) {
+                g.add(u, v, new Leg(1 + r.nextInt(5)));
+            }
+        }
+        ArrayList<Double> all = new ArrayList<Double>();
+        allPaths(g, vs.get(0), vs.get(7), 0, new ArrayList<Object>(), all);
+        Collections.sort(all);
+        List<List<Graph<Stop, Leg>.Edge>> paths =
+            Graphs.kShortestPaths(g, vs.get(0), vs.get(7), 6);
+        assertEquals("wrong number of paths", Math.min(6, all.size()),
+                     paths.size());
+        for (int k = 0; k < paths.size(); k += 1) {
+            double w = 0;
+            Graph<Stop, Leg>.Vertex at = vs.get(0);
+            for (Graph<Stop, Leg>.Edge e : paths.get(k)) {
+                assertEquals("path is not connected", at, e.getV0());
+                w += e.getLabel().weight();
+                at = e.getV1();
+            }
+            assertEquals("path ends elsewhere", vs.get(7), at);
+            assertEquals("wrong weight for path " + k, all.get(k), w, 1e-9);
+        }
+        assertEquals("graph was modified", 8, g.vertexSize());
+    }
+
+    /** Adds to PATHS the interior vertices of each simple path from U to
+     *  DEST in G that extends PATH, and to WEIGHTS its weight, SOFAR
+     *  plus that of its remaining edges. */
+    private void simplePaths(DirectedGraph<Stop, Leg> g,
+                             Graph<Stop, Leg>.Vertex u,
+                             Graph<Stop, Leg>.Vertex dest, double sofar,
+                             ArrayList<Graph<Stop, Leg>.Vertex> path,
+                             List<List<Graph<Stop, Leg>.Vertex>> paths,
+                             List<Double> weights) {
+        if (u == dest) {
+            paths.add(new ArrayList<Graph<Stop, Leg>.Vertex>(
+                          path.subList(1, path.size() - 1)));
+            weights.add(sofar);
+            return;
+        }
+        ArrayList<Graph<Stop, Leg>.Edge> out =
+            new ArrayList<Graph<Stop, Leg>.Edge>();
+        for (Graph<Stop, Leg>.Edge e : g.outEdges(u)) {
+            out.add(e);
+        }
+        for (Graph<Stop, Leg>.Edge e : out) {
+            if (!path.contains(e.getV1())) {
+                path.add(e.getV1());
+                simplePaths(g, e.getV1(), dest,
+                            sofar + e.getLabel().weight(), path, paths,
+                            weights);
+                path.remove(path.size() - 1);
+            }
+        }
+    }
+
+    @Test
+    public void checkBetweenness() {
+        Random r = new Random(3);
+        DirectedGraph<Stop, Leg> g = new DirectedGraph<Stop, Leg>();
+        ArrayList<Graph<Stop, Leg>.Vertex> vs =
+            new ArrayList<Graph<Stop, Leg>.Vertex>();
+        for (int i = 0; i < 7; i += 1) {
+            vs.add(g.add(new Stop()));
+        }
+        for (int i = 0; i < 30; i += 1) {
+            Graph<Stop, Leg>.Vertex u = vs.get(r.nextInt(7)),
+                v = vs.get(r.nextInt(7));
+            if (u != v && !g.contains(u, v)) {
+                g.add(u, v, new Leg(1 + r.nextInt(2)));
+            }
+        }
+        HashMap<Graph<Stop, Leg>.Vertex, Double> expected =
+            new HashMap<Graph<Stop, Leg>.Vertex, Double>();
+        for (Graph<Stop, Leg>.Vertex v : vs) {
+            expected.put(v, 0.0);
+        }
+        for (Graph<Stop, Leg>.Vertex s : vs) {
+            for (Graph<Stop, Leg>.Vertex t : vs) {
+                if (s == t) {
+                    continue;
+                }
+                ArrayList<List<Graph<Stop, Leg>.Vertex>> paths =
+                    new ArrayList<List<Graph<Stop, Leg>.Vertex>>();
+                ArrayList<Double> weights = new ArrayList<Double>();
+                ArrayList<Graph<Stop, Leg>.Vertex> start =
+                    new ArrayList<Graph<Stop, Leg>.Vertex>();
+                start.add(s);
+                simplePaths(g, s, t, 0, start, paths, weights);
+                if (paths.isEmpty()) {
+                    continue;
+                }
+                double least = Collections.min(weights);
+                int count = Collections.frequency(weights, least);
+                for (int k = 0; k < paths.size(); k += 1) {
+                    if (weights.get(k) == least) {
+                        for (Graph<Stop, Leg>.Vertex v : paths.get(k)) {
+                            expected.put(v, expected.get(v) + 1.0 / count);
+                        }
+                    }
+                }
+            }
+        }
+        Map<Graph<Stop, Leg>.Vertex, Double> weighted =
+            Graphs.betweenness(g, Graphs.LABEL_WEIGHTING);
+        Map<Graph<Stop, Leg>.Vertex, Double> sampled =
+            Graphs.betweenness(g, Graphs.LABEL_WEIGHTING, 7, r);
+        for (Graph<Stop, Leg>.Vertex v : vs) {
+            assertEquals("wrong betweenness", expected.get(v),
+                         weighted.get(v), 1e-9);
+            assertEquals("full sample is not exact", expected.get(v),
+                         sampled.get(v), 1e-9);
+        }
+    }
+
+    @Test
+    public void deltaStepping() {
+        Random r = new Random(23);
+        OffHeapGraph<Integer, Integer> g = OffHeapGraph.unlabeled(true);
+        ArrayList<Graph<Integer, Integer>.Vertex> v =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        int n = 3000;
+        for (int i = 0; i < n; i += 1) {
+            v.add(g.add(null));
+        }
+        for (int k = 0; k < 5 * n; k += 1) {
+            g.add(v.get(r.nextInt(n)), v.get(r.nextInt(n)), null,
+                  r.nextInt(8) == 0 ? 0.0 : r.nextDouble() * 10);
+        }
+        Graph<Integer, Integer>.Vertex lost = g.add(null);
+        Weighter<Integer> dist = g.vertexWeights();
+        dist.setWeight(0, 0.0);
+        assertNull("reached an isolated vertex",
+                   Graphs.shortestPath(g, v.get(0), lost,
+                                       Graphs.ZERO_DISTANCER, dist,
+                                       g.edgeWeights()));
+        double[] deltas = { 0.1, 2.0, 1e9 };
+        for (double delta : deltas) {
+            Map<Graph<Integer, Integer>.Vertex, Double> d =
+                Graphs.distances(g, v.get(0), g.edgeWeights(), delta, 4);
+            assertEquals("wrong vertex count", n + 1, d.size());
+            for (int i = 0; i < n; i += 1) {
+                assertEquals("distances differ from shortestPath",
+                             dist.weight(i), d.get(v.get(i)), 0.0);
+            }
+            assertEquals("reached an isolated vertex",
+                         Double.POSITIVE_INFINITY, d.get(lost), 0.0);
+        }
+        Map<Graph<Integer, Integer>.Vertex, Double> fast =
+            Graphs.distances(g, v.get(0), g.edgeWeights());
+        Map<Graph<Integer, Integer>.Vertex, Double> hops =
+            Graphs.distances(g, v.get(0), null);
+        for (int i = 0; i < n; i += 1) {
+            assertEquals("default bucket width differs",
+                         dist.weight(i), fast.get(v.get(i)), 0.0);
+        }
+        for (Graph<Integer, Integer>.Edge e : g.edges()) {
+            assertTrue("hop count too high", hops.get(e.getV1())
+                       <= hops.get(e.getV0()) + 1);
+        }
+        assertEquals("wrong hop distance", 0.0, hops.get(v.get(0)), 0.0);
+    }
+
+}
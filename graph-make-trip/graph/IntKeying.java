@@ -0,0 +1,11 @@
+package graph;
+
+/** A type of object that extracts an integer lookup key from a value of
+ *  type ITEM.  Indices built from IntKeyings store their keys unboxed.
+ *  @author Andrew Berger */
+public interface IntKeying<Item> {
+
+    /** Returns the key of X. */
+    int key(Item x);
+
+}
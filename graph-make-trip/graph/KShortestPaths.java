@@ -0,0 +1,277 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/** Yen's algorithm for the K shortest loopless paths between two
+ *  vertices of a graph.  The graph is copied once into arrays of arcs
+ *  (one per direction an edge may be crossed), and each spur search
+ *  masks the arcs and vertices it may not use with bit sets rather than
+ *  altering the graph.  The distances of all vertices to the target,
+ *  found once by a backward search, serve every spur search as an exact
+ *  A* heuristic, and the search arrays are reused from one spur search
+ *  to the next rather than cleared.
+ *  @author Andrew Berger
+ */
+final class KShortestPaths<VLabel, ELabel> {
+
+    /** Prepares to find paths in G from V0 to V1, with edge weights given
+     *  by EWEIGHTER (read from G's edges if G stores them). */
+    KShortestPaths(Graph<VLabel, ELabel> G,
+                   Graph<VLabel, ELabel>.Vertex v0,
+                   Graph<VLabel, ELabel>.Vertex v1,
+                   Weighting<? super ELabel> eweighter) {
+        _arcs = new Arcs<VLabel, ELabel>(G, eweighter);
+        int n = _arcs.vertexCount();
+        _tail = _arcs.tails();
+        _head = _arcs.heads();
+        _arcWeight = _arcs.weights();
+        _arcEdge = _arcs.arcEdges();
+        _outStart = _arcs.outStart();
+        _source = _arcs.index(v0);
+        _target = _arcs.index(v1);
+
+        int[] inStart = new int[n + 1];
+        int[] inArcs = Arcs.group(_head, n, inStart);
+        _toTarget = backwardDistances(inStart, inArcs);
+
+        _dist = new double[n];
+        _arcTo = new int[n];
+        _stamp = new int[n];
+        _closed = new int[n];
+        _bannedVertices = new BitSet(n);
+        _bannedEdges = new BitSet(_arcs.edgeCount());
+    }
+
+    /** Returns up to K shortest loopless paths, in order of increasing
+     *  weight, as lists of edges.  Returns fewer if there are fewer. */
+    List<List<Graph<VLabel, ELabel>.Edge>> find(int k) {
+        ArrayList<List<Graph<VLabel, ELabel>.Edge>> result =
+            new ArrayList<List<Graph<VLabel, ELabel>.Edge>>();
+        if (k <= 0 || _toTarget[_source] == Double.POSITIVE_INFINITY) {
+            return result;
+        }
+        ArrayList<int[]> found = new ArrayList<int[]>();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>();
+        HashSet<List<Integer>> seen = new HashSet<List<Integer>>();
+        int[] first = spur(_source, new int[0], 0);
+        found.add(first);
+        seen.add(key(first));
+        while (found.size() < k) {
+            int[] last = found.get(found.size() - 1);
+            for (int i = 0; i < last.length; i += 1) {
+                int spurVertex = _tail[last[i]];
+                _bannedEdges.clear();
+                _bannedVertices.clear();
+                for (int[] p : found) {
+                    if (p.length > i && samePrefix(p, last, i)) {
+                        _bannedEdges.set(_arcEdge[p[i]]);
+                    }
+                }
+                for (int j = 0; j < i; j += 1) {
+                    _bannedVertices.set(_tail[last[j]]);
+                }
+                int[] path = spur(spurVertex, last, i);
+                if (path != null && seen.add(key(path))) {
+                    candidates.add(new Candidate(path, weight(path)));
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            found.add(candidates.poll()._arcs);
+        }
+        for (int[] p : found) {
+            ArrayList<Graph<VLabel, ELabel>.Edge> path =
+                new ArrayList<Graph<VLabel, ELabel>.Edge>(p.length);
+            for (int arc : p) {
+                path.add(_arcs.edge(_arcEdge[arc]));
+            }
+            result.add(path);
+        }
+        return result;
+    }
+
+    /** Returns the arcs of ROOT[0 .. LEN-1] followed by those of a
+     *  shortest path from vertex FROM to my target that avoids the
+     *  currently banned vertices and edges, or null if there is none. */
+    private int[] spur(int from, int[] root, int len) {
+        _search += 1;
+        _queue.clear();
+        _dist[from] = 0.0;
+        _arcTo[from] = -1;
+        _stamp[from] = _search;
+        _queue.add(new Entry(from, _toTarget[from]));
+        while (!_queue.isEmpty()) {
+            int u = _queue.poll()._vertex;
+            if (_closed[u] == _search) {
+                continue;
+            }
+            _closed[u] = _search;
+            if (u == _target) {
+                break;
+            }
+            for (int a = _outStart[u]; a < _outStart[u + 1]; a += 1) {
+                int v = _head[a];
+                if (_bannedVertices.get(v) || _bannedEdges.get(_arcEdge[a])
+                    || _toTarget[v] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double d = _dist[u] + _arcWeight[a];
+                if (_stamp[v] != _search || d < _dist[v]) {
+                    _stamp[v] = _search;
+                    _dist[v] = d;
+                    _arcTo[v] = a;
+                    _queue.add(new Entry(v, d + _toTarget[v]));
+                }
+            }
+        }
+        if (_closed[_target] != _search) {
+            return null;
+        }
+        int spurLength = 0;
+        for (int v = _target; v != from; v = _tail[_arcTo[v]]) {
+            spurLength += 1;
+        }
+        int[] path = Arrays.copyOf(root, len + spurLength);
+        for (int v = _target, i = path.length - 1; v != from; i -= 1) {
+            path[i] = _arcTo[v];
+            v = _tail[_arcTo[v]];
+        }
+        return path;
+    }
+
+    /** Returns the distance from each vertex to my target, using the arcs
+     *  entering each vertex v, which are INARCS[INSTART[v] ..
+     *  INSTART[v + 1] - 1]. */
+    private double[] backwardDistances(int[] inStart, int[] inArcs) {
+        double[] dist = new double[inStart.length - 1];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[_target] = 0.0;
+        PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+        queue.add(new Entry(_target, 0.0));
+        while (!queue.isEmpty()) {
+            Entry top = queue.poll();
+            int v = top._vertex;
+            if (top._key > dist[v]) {
+                continue;
+            }
+            for (int i = inStart[v]; i < inStart[v + 1]; i += 1) {
+                int a = inArcs[i], u = _tail[a];
+                double d = dist[v] + _arcWeight[a];
+                if (d < dist[u]) {
+                    dist[u] = d;
+                    queue.add(new Entry(u, d));
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Returns true iff P and Q agree on their first LEN arcs. */
+    private static boolean samePrefix(int[] p, int[] q, int len) {
+        for (int j = 0; j < len; j += 1) {
+            if (p[j] != q[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the arcs of PATH as a list, for detecting duplicates. */
+    private static List<Integer> key(int[] path) {
+        ArrayList<Integer> result = new ArrayList<Integer>(path.length);
+        for (int a : path) {
+            result.add(a);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /** Returns the total weight of the arcs of PATH. */
+    private double weight(int[] path) {
+        double sum = 0.0;
+        for (int a : path) {
+            sum += _arcWeight[a];
+        }
+        return sum;
+    }
+
+    /** A queued vertex and its priority.  Stale entries are skipped. */
+    private static final class Entry implements Comparable<Entry> {
+        /** An entry for VERTEX with priority KEY. */
+        Entry(int vertex, double key) {
+            _vertex = vertex;
+            _key = key;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(_key, other._key);
+        }
+
+        /** My vertex. */
+        private final int _vertex;
+        /** My priority. */
+        private final double _key;
+    }
+
+    /** A path that may be among the K shortest. */
+    private static final class Candidate implements Comparable<Candidate> {
+        /** A candidate whose arcs are ARCS, of total weight WEIGHT. */
+        Candidate(int[] arcs, double weight) {
+            _arcs = arcs;
+            _weight = weight;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int c = Double.compare(_weight, other._weight);
+            return c != 0 ? c : _arcs.length - other._arcs.length;
+        }
+
+        /** My arcs, in order. */
+        private final int[] _arcs;
+        /** My total weight. */
+        private final double _weight;
+    }
+
+    /** The graph, as arcs. */
+    private final Arcs<VLabel, ELabel> _arcs;
+    /** Start and end vertex of each arc. */
+    private final int[] _tail, _head;
+    /** Weight of each arc. */
+    private final double[] _arcWeight;
+    /** Index of the edge each arc crosses. */
+    private final int[] _arcEdge;
+    /** Arcs leaving vertex v are numbered _outStart[v] ..
+     *  _outStart[v + 1] - 1. */
+    private final int[] _outStart;
+    /** Indices of the source and target vertices. */
+    private final int _source, _target;
+    /** Distance from each vertex to the target in the unmasked graph. */
+    private final double[] _toTarget;
+
+    /** Number of the current spur search. */
+    private int _search;
+    /** Tentative distances from the spur vertex, valid where _stamp is
+     *  _search. */
+    private final double[] _dist;
+    /** Arc by which each vertex was reached, valid where _stamp is
+     *  _search. */
+    private final int[] _arcTo;
+    /** Search in which each vertex was last reached. */
+    private final int[] _stamp;
+    /** Search in which each vertex was last settled. */
+    private final int[] _closed;
+    /** The frontier of the current spur search. */
+    private final PriorityQueue<Entry> _queue = new PriorityQueue<Entry>();
+    /** Vertices the current spur search may not use. */
+    private final BitSet _bannedVertices;
+    /** Edges the current spur search may not use. */
+    private final BitSet _bannedEdges;
+}
@@ -0,0 +1,11 @@
+package graph;
+
+/** A type of object that extracts a lookup key from a value of type ITEM.
+ *  Used to index the labels of a graph's vertices.
+ *  @author Andrew Berger */
+public interface Keying<Item> {
+
+    /** Returns the key of X. */
+    Object key(Item x);
+
+}
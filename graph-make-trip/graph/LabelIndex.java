@@ -0,0 +1,282 @@
+package graph;
+
+import java.util.ArrayList;
+
+/** A hash table from the keys of labels of type ITEM to values of type
+ *  VALUE (in practice, a graph's vertices), using open addressing with
+ *  linear probing.  Keys come either from a Keying or from an IntKeying;
+ *  in the latter case they are kept unboxed in an int array.  Several
+ *  values may share a key, which then maps to the most recently put of
+ *  those not since removed.
+ *  @author Andrew Berger
+ */
+final class LabelIndex<Item, Value> {
+
+    /** An empty index whose keys are extracted by KEYING. */
+    LabelIndex(Keying<? super Item> keying) {
+        _keying = keying;
+        _intKeying = null;
+        _keys = new Object[INITIAL_CAPACITY];
+        _values = new Object[INITIAL_CAPACITY];
+    }
+
+    /** An empty index whose integer keys are extracted by KEYING. */
+    LabelIndex(IntKeying<? super Item> keying) {
+        _keying = null;
+        _intKeying = keying;
+        _intKeys = new int[INITIAL_CAPACITY];
+        _values = new Object[INITIAL_CAPACITY];
+    }
+
+    /** Returns the number of keys in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns the number of slots in my table. */
+    int capacity() {
+        return _values.length;
+    }
+
+    /** Returns true iff my keys are kept unboxed. */
+    boolean isIntKeyed() {
+        return _intKeying != null;
+    }
+
+    /** Returns the value stored under KEY, or null if there is none. */
+    Value get(Object key) {
+        if (key == null) {
+            return null;
+        } else if (_intKeying != null) {
+            if (key instanceof Integer) {
+                return get(((Integer) key).intValue());
+            }
+            return null;
+        }
+        return valueAt(find(key));
+    }
+
+    /** Returns the value stored under KEY, or null if there is none. */
+    Value get(int key) {
+        if (_intKeying == null) {
+            return get(Integer.valueOf(key));
+        }
+        return valueAt(find(key));
+    }
+
+    /** Stores VALUE under the key of LABEL.  Labels whose key is null are
+     *  not indexed. */
+    void put(Item label, Value value) {
+        if ((_size + 1) * 2 > _values.length) {
+            resize(_values.length * 2);
+        }
+        int mask = _values.length - 1;
+        int i;
+        if (_intKeying != null) {
+            int key = _intKeying.key(label);
+            for (i = hash(key) & mask; _values[i] != null;
+                 i = (i + 1) & mask) {
+                if (_intKeys[i] == key) {
+                    share(i, value);
+                    return;
+                }
+            }
+            _intKeys[i] = key;
+        } else {
+            Object key = _keying.key(label);
+            if (key == null) {
+                return;
+            }
+            for (i = hash(key.hashCode()) & mask; _values[i] != null;
+                 i = (i + 1) & mask) {
+                if (_keys[i].equals(key)) {
+                    share(i, value);
+                    return;
+                }
+            }
+            _keys[i] = key;
+        }
+        _values[i] = value;
+        _size += 1;
+    }
+
+    /** Removes VALUE from among those stored under the key of LABEL,
+     *  removing the key once no value is stored under it. */
+    void remove(Item label, Value value) {
+        int i;
+        if (_intKeying != null) {
+            i = find(_intKeying.key(label));
+        } else {
+            Object key = _keying.key(label);
+            i = key == null ? -1 : find(key);
+        }
+        if (i < 0) {
+            return;
+        } else if (_values[i] == value) {
+            delete(i);
+        } else if (_values[i] instanceof Chain) {
+            ArrayList<Object> members = ((Chain) _values[i])._members;
+            members.remove(value);
+            if (members.size() == 1) {
+                _values[i] = members.get(0);
+            }
+        }
+    }
+
+    /** Adds VALUE to those stored in slot I, whose key it shares. */
+    private void share(int i, Value value) {
+        Chain chain;
+        if (_values[i] instanceof Chain) {
+            chain = (Chain) _values[i];
+        } else {
+            chain = new Chain();
+            chain._members.add(_values[i]);
+            _values[i] = chain;
+        }
+        chain._members.add(value);
+    }
+
+    /** Returns the slot holding KEY, or -1 if there is none. */
+    private int find(Object key) {
+        int mask = _values.length - 1;
+        for (int i = hash(key.hashCode()) & mask; _values[i] != null;
+             i = (i + 1) & mask) {
+            if (_keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the slot holding KEY, or -1 if there is none. */
+    private int find(int key) {
+        int mask = _values.length - 1;
+        for (int i = hash(key) & mask; _values[i] != null;
+             i = (i + 1) & mask) {
+            if (_intKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the value in slot I, the latest put if several share
+     *  its key, or null if I is -1. */
+    @SuppressWarnings("unchecked")
+    private Value valueAt(int i) {
+        if (i < 0) {
+            return null;
+        } else if (_values[i] instanceof Chain) {
+            ArrayList<Object> members = ((Chain) _values[i])._members;
+            return (Value) members.get(members.size() - 1);
+        }
+        return (Value) _values[i];
+    }
+
+    /** Returns the slot at which the key in slot I would ideally sit. */
+    private int home(int i) {
+        int h = _intKeying != null ? hash(_intKeys[i])
+            : hash(_keys[i].hashCode());
+        return h & (_values.length - 1);
+    }
+
+    /** Empties slot I, shifting back later members of its probe
+     *  sequence so that no lookup is cut short by the hole. */
+    private void delete(int i) {
+        int mask = _values.length - 1;
+        int hole = i;
+        for (int j = (i + 1) & mask; _values[j] != null; j = (j + 1) & mask) {
+            int h = home(j);
+            boolean between =
+                hole <= j ? hole < h && h <= j : hole < h || h <= j;
+            if (!between) {
+                moveSlot(j, hole);
+                hole = j;
+            }
+        }
+        _values[hole] = null;
+        if (_keys != null) {
+            _keys[hole] = null;
+        }
+        _size -= 1;
+    }
+
+    /** Copies the contents of slot FROM into slot TO. */
+    private void moveSlot(int from, int to) {
+        _values[to] = _values[from];
+        if (_intKeying != null) {
+            _intKeys[to] = _intKeys[from];
+        } else {
+            _keys[to] = _keys[from];
+        }
+    }
+
+    /** Rehashes my contents into a table of CAPACITY slots, a power of
+     *  two. */
+    private void resize(int capacity) {
+        Object[] oldValues = _values;
+        Object[] oldKeys = _keys;
+        int[] oldIntKeys = _intKeys;
+        int mask = capacity - 1;
+        _values = new Object[capacity];
+        if (_intKeying != null) {
+            _intKeys = new int[capacity];
+        } else {
+            _keys = new Object[capacity];
+        }
+        for (int k = 0; k < oldValues.length; k += 1) {
+            if (oldValues[k] == null) {
+                continue;
+            }
+            int i;
+            if (_intKeying != null) {
+                for (i = hash(oldIntKeys[k]) & mask; _values[i] != null;
+                     i = (i + 1) & mask) {
+                    continue;
+                }
+                _intKeys[i] = oldIntKeys[k];
+            } else {
+                for (i = hash(oldKeys[k].hashCode()) & mask;
+                     _values[i] != null; i = (i + 1) & mask) {
+                    continue;
+                }
+                _keys[i] = oldKeys[k];
+            }
+            _values[i] = oldValues[k];
+        }
+    }
+
+    /** Returns a well-mixed hash of H, so that runs of consecutive keys do
+     *  not cluster in the table. */
+    private static int hash(int h) {
+        h *= MIX;
+        return h ^ (h >>> HALF_WORD);
+    }
+
+    /** The values sharing one key, kept in a single slot. */
+    private static final class Chain {
+        /** The values, in the order they were put. */
+        private final ArrayList<Object> _members = new ArrayList<Object>();
+    }
+
+    /** Extracts keys, when they are objects. */
+    private final Keying<? super Item> _keying;
+    /** Extracts keys, when they are ints. */
+    private final IntKeying<? super Item> _intKeying;
+    /** Object keys, by slot, or null if keys are ints. */
+    private Object[] _keys;
+    /** Int keys, by slot, or null if keys are objects. */
+    private int[] _intKeys;
+    /** Values, by slot: a Chain where several share a key.  A null
+     *  value marks an empty slot. */
+    private Object[] _values;
+    /** Number of occupied slots. */
+    private int _size;
+
+    /** Starting number of slots (a power of two). */
+    private static final int INITIAL_CAPACITY = 16;
+    /** Multiplier used to scramble hash codes (the golden ratio). */
+    private static final int MIX = 0x9E3779B9;
+    /** Half the number of bits in an int. */
+    private static final int HALF_WORD = 16;
+}
@@ -0,0 +1,543 @@
+package graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/** A durable record of the changes to a graph, from which the graph may
+ *  be rebuilt after a restart.  The record, kept in a directory, has two
+ *  parts: a checkpoint, a binary snapshot of the graph's vertices and
+ *  edges, and a log of the vertices and edges added and removed since,
+ *  appended to as the graph changes.  Recovery loads the checkpoint and
+ *  replays the log, so that it takes time proportional to the size of
+ *  the graph in binary form plus the number of recent changes, rather
+ *  than to that of whatever text the graph was first built from.
+ *  Checkpoints are taken on demand, typically once logSize() has grown
+ *  large, and empty the log.  For example,
+ *      MutationLog<String, Double> log =
+ *          new MutationLog<String, Double>(dir, strings, doubles);
+ *      Graph<String, Double> g =
+ *          log.recover(new AdaptiveGraph<String, Double>(true));
+ *      ... change g ...
+ *      if (log.logSize() > LIMIT) {
+ *          log.checkpoint();
+ *      }
+ *
+ *  Each log record carries its length and checksum, and recovery stops
+ *  at the first incomplete or damaged record, such as one cut short by
+ *  a crash, discarding it and the rest of the log.  Records are
+ *  buffered: those appended since the last sync() or checkpoint() may
+ *  be lost in a crash.  A checkpoint is written to a temporary file and
+ *  renamed into place, and both it and the log are stamped with a
+ *  generation number, so that a crash while checkpointing leaves either
+ *  the old checkpoint and its log or the new checkpoint, whose stale
+ *  log is ignored.
+ *
+ *  Vertices and edges are identified in the record by numbers assigned
+ *  as they are logged, so the graph rebuilt need not be of the same
+ *  representation as the original, and its vertex and edge ids may
+ *  differ.  Stored edge weights and label indices are not recorded.
+ *  Changes must not be made to the graph while a checkpoint is taken.
+ *
+ *  The log relies on its graph to report each change, through the
+ *  hooks every Graph implementation calls, in the order in which the
+ *  changes take effect.  All the graphs in this package do so, including
+ *  ConcurrentGraph, which reports each change while holding the locks
+ *  that order it; a graph that reported the addition of an edge after
+ *  the removal of one of its ends would have that addition rejected
+ *  with IllegalStateException.
+ *  @author Andrew Berger
+ */
+public final class MutationLog<VLabel, ELabel> implements Closeable {
+
+    /** A log kept in directory DIR, which is created if need be, with
+     *  vertex labels written by VCODEC and edge labels by ECODEC. */
+    public MutationLog(File dir, Codec<VLabel> vcodec, Codec<ELabel> ecodec) {
+        _dir = dir;
+        _vcodec = vcodec;
+        _ecodec = ecodec;
+    }
+
+    /** Rebuilds in G, which must be empty, the graph recorded in my
+     *  directory (leaving G empty if nothing is recorded there), and
+     *  causes me to log all later changes to G.  Returns G.  Throws
+     *  IllegalArgumentException if G is not empty or is directed while
+     *  the recorded graph is not, or vice versa. */
+    public synchronized Graph<VLabel, ELabel>
+    recover(Graph<VLabel, ELabel> G) throws IOException {
+        if (_G != null) {
+            throw new IllegalStateException("log already in use");
+        }
+        if (G.vertexSize() != 0) {
+            throw new IllegalArgumentException("graph is not empty");
+        }
+        if (!_dir.isDirectory() && !_dir.mkdirs()) {
+            throw new IOException("cannot create " + _dir);
+        }
+        File checkpoint = new File(_dir, CHECKPOINT);
+        _generation = 0;
+        if (checkpoint.exists()) {
+            load(G, checkpoint);
+        }
+        File log = new File(_dir, LOG);
+        long length = log.exists() ? replay(G, log) : -1;
+        if (length < 0) {
+            startLog();
+        } else {
+            try (RandomAccessFile f = new RandomAccessFile(log, "rw")) {
+                f.setLength(length);
+            }
+            _out = open(log, true);
+        }
+        _G = G;
+        G.setLog(this);
+        return G;
+    }
+
+    /** Writes a checkpoint of my graph and empties my log. */
+    public synchronized void checkpoint() throws IOException {
+        graph();
+        File temp = new File(_dir, CHECKPOINT_TEMP);
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer> vertexNumbers =
+            new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        ArrayList<Graph<VLabel, ELabel>.Vertex> vertices =
+            new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        HashMap<Graph<VLabel, ELabel>.Edge, Integer> edgeNumbers =
+            new HashMap<Graph<VLabel, ELabel>.Edge, Integer>();
+        ArrayList<Graph<VLabel, ELabel>.Edge> edges =
+            new ArrayList<Graph<VLabel, ELabel>.Edge>();
+        FileOutputStream file = new FileOutputStream(temp);
+        try {
+            CheckedOutputStream checked =
+                new CheckedOutputStream(new BufferedOutputStream(file),
+                                        new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeLong(_generation + 1);
+            out.writeBoolean(_G.isDirected());
+            out.writeInt(_G.vertexSize());
+            for (Graph<VLabel, ELabel>.Vertex v : _G.vertices()) {
+                vertexNumbers.put(v, vertices.size());
+                vertices.add(v);
+                writeLabel(_vcodec, v.getLabel(), out);
+            }
+            out.writeInt(_G.edgeSize());
+            for (Graph<VLabel, ELabel>.Edge e : _G.edges()) {
+                edgeNumbers.put(e, edges.size());
+                edges.add(e);
+                out.writeInt(vertexNumbers.get(e.getV0()));
+                out.writeInt(vertexNumbers.get(e.getV1()));
+                writeLabel(_ecodec, e.getLabel(), out);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getFD().sync();
+        } finally {
+            file.close();
+        }
+        Files.move(temp.toPath(), new File(_dir, CHECKPOINT).toPath(),
+                   StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        _generation += 1;
+        _out.close();
+        startLog();
+        _vertexNumbers = vertexNumbers;
+        _vertices = vertices;
+        _edgeNumbers = edgeNumbers;
+        _edges = edges;
+    }
+
+    /** Forces the records logged so far to disk. */
+    public synchronized void sync() throws IOException {
+        graph();
+        _out.flush();
+        _file.getFD().sync();
+    }
+
+    /** Returns the number of records in my log: the changes made since
+     *  the last checkpoint. */
+    public synchronized int logSize() {
+        return _records;
+    }
+
+    /** Returns the number of edges I have numbered and not seen
+     *  removed: after recovery or any change, my graph's edgeSize(). */
+    synchronized int numberedEdges() {
+        return _edgeNumbers.size();
+    }
+
+    /** Writes out the records logged so far, and stops logging. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (_out != null) {
+            _G.setLog(null);
+            _out.close();
+            _out = null;
+        }
+    }
+
+    /** Logs the addition of V to my graph. */
+    synchronized void vertexAdded(Graph<VLabel, ELabel>.Vertex v) {
+        number(v);
+        try {
+            DataOutputStream r = record(ADD_VERTEX);
+            writeLabel(_vcodec, v.getLabel(), r);
+            append();
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /** Logs the removal of V from my graph, made before its incident
+     *  edges are removed. */
+    synchronized void vertexRemoved(Graph<VLabel, ELabel>.Vertex v) {
+        Integer k = _vertexNumbers.remove(v);
+        if (k == null) {
+            return;
+        }
+        _vertices.set(k, null);
+        try {
+            record(REMOVE_VERTEX).writeInt(k);
+            append();
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /** Logs the addition of E to my graph.  Throws
+     *  IllegalStateException, logging nothing, if either end of E has
+     *  not been logged as present: that is, if my graph reports its
+     *  changes out of order. */
+    synchronized void edgeAdded(Graph<VLabel, ELabel>.Edge e) {
+        Integer v0 = _vertexNumbers.get(e.getV0()),
+            v1 = _vertexNumbers.get(e.getV1());
+        if (v0 == null || v1 == null) {
+            throw new IllegalStateException("edge added to a vertex that"
+                                            + " is not logged as present");
+        }
+        number(e);
+        try {
+            DataOutputStream r = record(ADD_EDGE);
+            r.writeInt(v0);
+            r.writeInt(v1);
+            writeLabel(_ecodec, e.getLabel(), r);
+            append();
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /** Logs the removal of E from my graph, unless it went with one of
+     *  its vertices, whose removal implies its own. */
+    synchronized void edgeRemoved(Graph<VLabel, ELabel>.Edge e) {
+        Integer k = forget(e);
+        if (k == null) {
+            return;
+        }
+        if (!_vertexNumbers.containsKey(e.getV0())
+            || !_vertexNumbers.containsKey(e.getV1())) {
+            return;
+        }
+        try {
+            record(REMOVE_EDGE).writeInt(k);
+            append();
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /** Reads the checkpoint in FILE into G. */
+    private void load(Graph<VLabel, ELabel> G, File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            CheckedInputStream checked =
+                new CheckedInputStream(new BufferedInputStream(in),
+                                       new CRC32());
+            DataInputStream data = new DataInputStream(checked);
+            if (data.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("not a checkpoint: " + file);
+            }
+            long generation = data.readLong();
+            if (data.readBoolean() != G.isDirected()) {
+                throw new IllegalArgumentException("graph and checkpoint"
+                                                   + " differ in direction");
+            }
+            int n = data.readInt();
+            for (int k = 0; k < n; k += 1) {
+                number(G.add(readLabel(_vcodec, data)));
+            }
+            int m = data.readInt();
+            for (int k = 0; k < m; k += 1) {
+                int v0 = data.readInt(), v1 = data.readInt();
+                number(G.add(vertex(v0), vertex(v1),
+                             readLabel(_ecodec, data)));
+            }
+            long sum = checked.getChecksum().getValue();
+            if (data.readLong() != sum) {
+                throw new IOException("corrupt checkpoint: " + file);
+            }
+            _generation = generation;
+        }
+    }
+
+    /** Applies to G the records of the log in FILE.  Returns the length
+     *  of its intact records, or -1 if it belongs to an earlier
+     *  checkpoint or has no complete header. */
+    private long replay(Graph<VLabel, ELabel> G, File file)
+        throws IOException {
+        try (DataInputStream in =
+             new DataInputStream(new BufferedInputStream(
+                                     new FileInputStream(file)))) {
+            try {
+                if (in.readInt() != LOG_MAGIC) {
+                    throw new IOException("not a mutation log: " + file);
+                }
+                if (in.readLong() != _generation) {
+                    return -1;
+                }
+            } catch (EOFException excp) {
+                return -1;
+            }
+            long length = LOG_HEADER;
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] body;
+                try {
+                    int size = in.readInt();
+                    if (size <= 0 || size > MAX_RECORD) {
+                        break;
+                    }
+                    body = new byte[size];
+                    in.readFully(body);
+                    crc.reset();
+                    crc.update(body, 0, size);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                } catch (EOFException excp) {
+                    break;
+                }
+                apply(G, new DataInputStream(new ByteArrayInputStream(body)));
+                length += body.length + 2 * Integer.BYTES;
+                _records += 1;
+            }
+            return length;
+        }
+    }
+
+    /** Applies to G the change recorded in RECORD. */
+    private void apply(Graph<VLabel, ELabel> G, DataInputStream record)
+        throws IOException {
+        switch (record.readByte()) {
+        case ADD_VERTEX:
+            number(G.add(readLabel(_vcodec, record)));
+            break;
+        case REMOVE_VERTEX: {
+            int k = record.readInt();
+            Graph<VLabel, ELabel>.Vertex v = vertex(k);
+            _vertexNumbers.remove(v);
+            _vertices.set(k, null);
+            ArrayList<Graph<VLabel, ELabel>.Edge> incident =
+                new ArrayList<Graph<VLabel, ELabel>.Edge>();
+            for (Graph<VLabel, ELabel>.Edge e : G.outEdges(v)) {
+                incident.add(e);
+            }
+            if (G.isDirected()) {
+                for (Graph<VLabel, ELabel>.Edge e : G.inEdges(v)) {
+                    incident.add(e);
+                }
+            }
+            for (Graph<VLabel, ELabel>.Edge e : incident) {
+                forget(e);
+            }
+            G.remove(v);
+            break;
+        }
+        case ADD_EDGE: {
+            int v0 = record.readInt(), v1 = record.readInt();
+            number(G.add(vertex(v0), vertex(v1), readLabel(_ecodec, record)));
+            break;
+        }
+        case REMOVE_EDGE: {
+            int k = record.readInt();
+            Graph<VLabel, ELabel>.Edge e = edge(k);
+            forget(e);
+            G.remove(e);
+            break;
+        }
+        default:
+            throw new IOException("unknown log record");
+        }
+    }
+
+    /** Returns the vertex numbered K, which must be live. */
+    private Graph<VLabel, ELabel>.Vertex vertex(int k) throws IOException {
+        if (k < 0 || k >= _vertices.size() || _vertices.get(k) == null) {
+            throw new IOException("log names unknown vertex " + k);
+        }
+        return _vertices.get(k);
+    }
+
+    /** Returns the edge numbered K, which must be live. */
+    private Graph<VLabel, ELabel>.Edge edge(int k) throws IOException {
+        if (k < 0 || k >= _edges.size() || _edges.get(k) == null) {
+            throw new IOException("log names unknown edge " + k);
+        }
+        return _edges.get(k);
+    }
+
+    /** Gives V the next vertex number. */
+    private void number(Graph<VLabel, ELabel>.Vertex v) {
+        _vertexNumbers.put(v, _vertices.size());
+        _vertices.add(v);
+    }
+
+    /** Removes the number of E, which my graph is removing, and returns
+     *  it, or null if E has none. */
+    private Integer forget(Graph<VLabel, ELabel>.Edge e) {
+        Integer k = _edgeNumbers.remove(e);
+        if (k != null) {
+            _edges.set(k, null);
+        }
+        return k;
+    }
+
+    /** Gives E the next edge number. */
+    private void number(Graph<VLabel, ELabel>.Edge e) {
+        _edgeNumbers.put(e, _edges.size());
+        _edges.add(e);
+    }
+
+    /** Replaces my log file with an empty one for the current
+     *  generation, and opens it for appending. */
+    private void startLog() throws IOException {
+        _out = open(new File(_dir, LOG), false);
+        _out.writeInt(LOG_MAGIC);
+        _out.writeLong(_generation);
+        _out.flush();
+        _file.getFD().sync();
+        _records = 0;
+    }
+
+    /** Returns a stream writing to FILE, appending to it iff APPEND. */
+    private DataOutputStream open(File file, boolean append)
+        throws IOException {
+        _file = new FileOutputStream(file, append);
+        return new DataOutputStream(new BufferedOutputStream(_file));
+    }
+
+    /** Starts a record of the kind OP, returning the stream on which to
+     *  write the rest of it. */
+    private DataOutputStream record(byte op) throws IOException {
+        graph();
+        _buffer.reset();
+        _record.writeByte(op);
+        return _record;
+    }
+
+    /** Appends the record just written to my log. */
+    private void append() throws IOException {
+        _record.flush();
+        CRC32 crc = new CRC32();
+        crc.update(_buffer.toByteArray());
+        _out.writeInt(_buffer.size());
+        _buffer.writeTo(_out);
+        _out.writeInt((int) crc.getValue());
+        _records += 1;
+    }
+
+    /** Returns my graph, or throws IllegalStateException if I have not
+     *  yet recovered it or have been closed. */
+    private Graph<VLabel, ELabel> graph() {
+        if (_out == null) {
+            throw new IllegalStateException("log not open");
+        }
+        return _G;
+    }
+
+    /** Writes X, which may be null, to OUT using CODEC. */
+    private static <T> void writeLabel(Codec<T> codec, T x,
+                                       DataOutputStream out)
+        throws IOException {
+        out.writeBoolean(x != null);
+        if (x != null) {
+            codec.write(x, out);
+        }
+    }
+
+    /** Returns a label, possibly null, read from IN using CODEC. */
+    private static <T> T readLabel(Codec<T> codec, DataInputStream in)
+        throws IOException {
+        return in.readBoolean() ? codec.read(in) : null;
+    }
+
+    /** Name of the checkpoint file. */
+    private static final String CHECKPOINT = "checkpoint";
+    /** Name of a checkpoint being written. */
+    private static final String CHECKPOINT_TEMP = "checkpoint.tmp";
+    /** Name of the log file. */
+    private static final String LOG = "log";
+    /** First word of a checkpoint. */
+    private static final int CHECKPOINT_MAGIC = 0x47434b50;
+    /** First word of a log. */
+    private static final int LOG_MAGIC = 0x474c4f47;
+    /** Length of a log's header: its magic word and generation. */
+    private static final int LOG_HEADER = Integer.BYTES + Long.BYTES;
+    /** Largest plausible record length; longer ones are taken as
+     *  damage. */
+    private static final int MAX_RECORD = 1 << 24;
+    /** Record kinds. */
+    private static final byte
+        ADD_VERTEX = 1, REMOVE_VERTEX = 2, ADD_EDGE = 3, REMOVE_EDGE = 4;
+
+    /** The directory holding my checkpoint and log. */
+    private final File _dir;
+    /** Writes and reads vertex labels. */
+    private final Codec<VLabel> _vcodec;
+    /** Writes and reads edge labels. */
+    private final Codec<ELabel> _ecodec;
+    /** The graph whose changes I log, or null before recovery. */
+    private Graph<VLabel, ELabel> _G;
+    /** Generation of the current checkpoint: the number of checkpoints
+     *  taken. */
+    private long _generation;
+    /** Number of records in my log. */
+    private int _records;
+    /** The log file being appended to. */
+    private FileOutputStream _file;
+    /** The stream appending to _file. */
+    private DataOutputStream _out;
+    /** Holds the record being written. */
+    private final ByteArrayOutputStream _buffer = new ByteArrayOutputStream();
+    /** Writes to _buffer. */
+    private final DataOutputStream _record = new DataOutputStream(_buffer);
+    /** The number of each live vertex. */
+    private HashMap<Graph<VLabel, ELabel>.Vertex, Integer> _vertexNumbers =
+        new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+    /** The vertices by number; null for those removed. */
+    private ArrayList<Graph<VLabel, ELabel>.Vertex> _vertices =
+        new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+    /** The number of each live edge. */
+    private HashMap<Graph<VLabel, ELabel>.Edge, Integer> _edgeNumbers =
+        new HashMap<Graph<VLabel, ELabel>.Edge, Integer>();
+    /** The edges by number; null for those removed. */
+    private ArrayList<Graph<VLabel, ELabel>.Edge> _edges =
+        new ArrayList<Graph<VLabel, ELabel>.Edge>();
+}
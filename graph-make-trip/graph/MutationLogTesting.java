@@ -0,0 +1,289 @@
+package graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for MutationLog.
+ *  @author Andrew Berger
+ */
+public class MutationLogTesting {
+
+    /** Number of random changes made. */
+    private static final int CHANGES = 3000;
+
+    /** Writes and reads strings. */
+    private static final Codec<String> STRINGS = new Codec<String>() {
+        @Override
+        public void write(String x, DataOutput out) throws IOException {
+            out.writeUTF(x);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    };
+
+    /** Writes and reads integers. */
+    private static final Codec<Integer> INTS = new Codec<Integer>() {
+        @Override
+        public void write(Integer x, DataOutput out) throws IOException {
+            out.writeInt(x);
+        }
+
+        @Override
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    /** Returns a new, empty log in a fresh directory. */
+    private static MutationLog<String, Integer> newLog(File dir) {
+        return new MutationLog<String, Integer>(dir, STRINGS, INTS);
+    }
+
+    /** Deletes DIR, a directory holding a log, and its files. */
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    /** Returns a sorted description of the vertices and edges of G. */
+    private static List<String> contents(Graph<String, Integer> g) {
+        ArrayList<String> result = new ArrayList<String>();
+        for (Graph<String, Integer>.Vertex v : g.vertices()) {
+            result.add("v " + v);
+        }
+        for (Graph<String, Integer>.Edge e : g.edges()) {
+            result.add("e " + e);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /** Makes N random changes to G, chosen by R. */
+    private static void change(Graph<String, Integer> g, int n, Random r) {
+        ArrayList<Graph<String, Integer>.Vertex> vs =
+            new ArrayList<Graph<String, Integer>.Vertex>();
+        for (Graph<String, Integer>.Vertex v : g.vertices()) {
+            vs.add(v);
+        }
+        for (int k = 0; k < n; k += 1) {
+            int op = r.nextInt(10);
+            if (vs.size() < 2 || op < 3) {
+                vs.add(g.add(op == 0 ? null : "v" + k));
+            } else if (op == 3) {
+                g.remove(vs.remove(r.nextInt(vs.size())));
+            } else if (op == 4) {
+                ArrayList<Graph<String, Integer>.Edge> es =
+                    new ArrayList<Graph<String, Integer>.Edge>();
+                for (Graph<String, Integer>.Edge e : g.edges()) {
+                    es.add(e);
+                }
+                if (!es.isEmpty()) {
+                    g.remove(es.get(r.nextInt(es.size())));
+                }
+            } else {
+                g.add(vs.get(r.nextInt(vs.size())),
+                      vs.get(r.nextInt(vs.size())),
+                      op == 5 ? null : k);
+            }
+        }
+    }
+
+    @Test
+    public void replayAndCheckpoint() throws IOException {
+        File dir = Files.createTempDirectory("mutations").toFile();
+        try {
+            Random r = new Random(8);
+            MutationLog<String, Integer> log = newLog(dir);
+            Graph<String, Integer> g =
+                log.recover(new AdaptiveGraph<String, Integer>(true));
+            assertEquals("recovered from nothing", 0, g.vertexSize());
+            change(g, CHANGES, r);
+            assertEquals("wrong log size", CHANGES, log.logSize());
+            log.close();
+            MutationLog<String, Integer> log2 = newLog(dir);
+            Graph<String, Integer> g2 =
+                log2.recover(new AdaptiveGraph<String, Integer>(true));
+            assertEquals("log replayed wrongly", contents(g), contents(g2));
+            log2.checkpoint();
+            assertEquals("log not emptied", 0, log2.logSize());
+            change(g2, CHANGES, r);
+            g2.reorder(Reordering.breadthFirst(g2));
+            change(g2, CHANGES, r);
+            log2.sync();
+            MutationLog<String, Integer> log3 = newLog(dir);
+            Graph<String, Integer> g3 =
+                log3.recover(new AdaptiveGraph<String, Integer>(true));
+            assertEquals("checkpoint and log replayed wrongly", contents(g2),
+                         contents(g3));
+            log3.checkpoint();
+            log3.close();
+            log2.close();
+            MutationLog<String, Integer> log4 = newLog(dir);
+            Graph<String, Integer> g4 =
+                log4.recover(new AdaptiveGraph<String, Integer>(true));
+            log4.close();
+            assertEquals("checkpoint alone read wrongly", contents(g2),
+                         contents(g4));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void replayedRemovalForgetsEdges() throws IOException {
+        for (boolean directed : new boolean[] { true, false }) {
+            File dir = Files.createTempDirectory("mutations").toFile();
+            try {
+                MutationLog<String, Integer> log = newLog(dir);
+                Graph<String, Integer> g =
+                    log.recover(new AdaptiveGraph<String, Integer>(directed));
+                Graph<String, Integer>.Vertex a = g.add("a"),
+                    b = g.add("b"), c = g.add("c");
+                g.add(a, b, 1);
+                g.add(b, c, 2);
+                g.add(c, b, 3);
+                g.add(b, b, 4);
+                g.add(a, c, 5);
+                g.remove(b);
+                assertEquals("live log kept removed edges", g.edgeSize(),
+                             log.numberedEdges());
+                log.close();
+                MutationLog<String, Integer> log2 = newLog(dir);
+                Graph<String, Integer> g2 =
+                    log2.recover(new AdaptiveGraph<String, Integer>(directed));
+                log2.close();
+                assertEquals("replay kept removed edges", 1,
+                             log2.numberedEdges());
+                assertEquals("removal replayed wrongly", contents(g),
+                             contents(g2));
+            } finally {
+                delete(dir);
+            }
+        }
+    }
+
+    @Test
+    public void tornTail() throws IOException {
+        File dir = Files.createTempDirectory("mutations").toFile();
+        try {
+            MutationLog<String, Integer> log = newLog(dir);
+            Graph<String, Integer> g =
+                log.recover(new AdaptiveGraph<String, Integer>(false));
+            Graph<String, Integer>.Vertex a = g.add("a"), b = g.add("b");
+            g.add(a, b, 1);
+            log.close();
+            File file = new File(dir, "log");
+            long length = file.length();
+            try (RandomAccessFile f = new RandomAccessFile(file, "rw")) {
+                f.setLength(length - 1);
+            }
+            log = newLog(dir);
+            g = log.recover(new AdaptiveGraph<String, Integer>(false));
+            assertEquals("torn record applied", 0, g.edgeSize());
+            assertEquals("intact records lost", 2, g.vertexSize());
+            assertEquals("wrong log size", 2, log.logSize());
+            g.add(g.vertices().next(), g.vertices().next(), 2);
+            log.close();
+            log = newLog(dir);
+            g = log.recover(new AdaptiveGraph<String, Integer>(false));
+            log.close();
+            assertEquals("record after torn tail lost", 1, g.edgeSize());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongDirection() throws IOException {
+        File dir = Files.createTempDirectory("mutations").toFile();
+        try {
+            MutationLog<String, Integer> log = newLog(dir);
+            log.recover(new AdaptiveGraph<String, Integer>(true)).add("a");
+            log.checkpoint();
+            log.close();
+            newLog(dir).recover(new AdaptiveGraph<String, Integer>(false));
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void concurrentGraph() throws Exception {
+        File dir = Files.createTempDirectory("mutations").toFile();
+        try {
+            final int n = 1000;
+            MutationLog<String, Integer> log = newLog(dir);
+            final Graph<String, Integer> g =
+                log.recover(new ConcurrentGraph<String, Integer>(true));
+            final Graph<String, Integer>.Vertex hub = g.add("hub");
+            final ArrayList<Graph<String, Integer>.Vertex> vs =
+                new ArrayList<Graph<String, Integer>.Vertex>();
+            for (int i = 0; i < n; i += 1) {
+                vs.add(g.add("v" + i));
+            }
+            final AtomicReference<Throwable> failure =
+                new AtomicReference<Throwable>();
+            Thread adder = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < n; i += 1) {
+                        try {
+                            g.add(hub, vs.get(i), i);
+                            g.add(vs.get(i), hub, -i);
+                        } catch (IllegalArgumentException e) {
+                            /* Removed first. */
+                        } catch (RuntimeException e) {
+                            failure.set(e);
+                        }
+                    }
+                }
+            };
+            Thread remover = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < n; i += 2) {
+                        try {
+                            g.remove(vs.get(i));
+                        } catch (RuntimeException e) {
+                            failure.set(e);
+                        }
+                    }
+                }
+            };
+            adder.start();
+            remover.start();
+            adder.join();
+            remover.join();
+            assertNull("change not logged", failure.get());
+            log.close();
+            MutationLog<String, Integer> log2 = newLog(dir);
+            Graph<String, Integer> g2 =
+                log2.recover(new AdaptiveGraph<String, Integer>(true));
+            log2.close();
+            assertEquals("concurrent changes replayed wrongly", contents(g),
+                         contents(g2));
+        } finally {
+            delete(dir);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** A growable array of fixed-width primitive elements stored outside the
+ *  Java heap, in a sequence of direct ByteBuffers.  Indices are longs, so
+ *  an array may hold more than 2^31 elements.  Its memory is released
+ *  when the array itself becomes garbage.  Direct buffers count against
+ *  the JVM's -XX:MaxDirectMemorySize limit, which defaults to the
+ *  maximum heap size, not against the heap itself.
+ *  @author Andrew Berger
+ */
+final class OffHeapArray {
+
+    /** An empty array of elements WIDTH bytes wide (4 or 8). */
+    OffHeapArray(int width) {
+        _width = width;
+        _segments = new ByteBuffer[0];
+    }
+
+    /** Returns the number of elements I can hold without growing. */
+    long capacity() {
+        long bytes = 0;
+        for (ByteBuffer b : _segments) {
+            bytes += b.capacity();
+        }
+        return bytes / _width;
+    }
+
+    /** Returns the number of bytes of memory I occupy. */
+    long bytes() {
+        return capacity() * _width;
+    }
+
+    /** Ensures that I can hold at least N elements.  Existing elements are
+     *  unchanged; new ones are 0. */
+    void ensure(long n) {
+        long need = n * _width;
+        long have = capacity() * _width;
+        if (need <= have) {
+            return;
+        }
+        int last = _segments.length - 1;
+        if (last >= 0 && _segments[last].capacity() < SEGMENT_BYTES) {
+            long base = (long) last * SEGMENT_BYTES;
+            long doubled = 2L * _segments[last].capacity();
+            long size = roundUp(Math.min(Math.max(need - base, doubled),
+                                         SEGMENT_BYTES));
+            ByteBuffer bigger = allocate((int) size);
+            ByteBuffer old = _segments[last].duplicate();
+            old.clear();
+            bigger.put(old);
+            _segments[last] = bigger;
+            have = base + size;
+        }
+        while (have < need) {
+            ByteBuffer[] more = new ByteBuffer[_segments.length + 1];
+            System.arraycopy(_segments, 0, more, 0, _segments.length);
+            long size = roundUp(Math.min(Math.max(need - have,
+                                                  MIN_SEGMENT_BYTES),
+                                         SEGMENT_BYTES));
+            if (_segments.length > 0) {
+                size = SEGMENT_BYTES;
+            }
+            more[_segments.length] = allocate((int) size);
+            _segments = more;
+            have += size;
+        }
+    }
+
+    /** Returns element K as an int. */
+    int getInt(long k) {
+        long b = k * _width;
+        return _segments[(int) (b >>> SEGMENT_SHIFT)]
+            .getInt((int) (b & SEGMENT_MASK));
+    }
+
+    /** Sets element K to the int X. */
+    void putInt(long k, int x) {
+        long b = k * _width;
+        _segments[(int) (b >>> SEGMENT_SHIFT)]
+            .putInt((int) (b & SEGMENT_MASK), x);
+    }
+
+    /** Returns element K as a long. */
+    long getLong(long k) {
+        long b = k * _width;
+        return _segments[(int) (b >>> SEGMENT_SHIFT)]
+            .getLong((int) (b & SEGMENT_MASK));
+    }
+
+    /** Sets element K to the long X. */
+    void putLong(long k, long x) {
+        long b = k * _width;
+        _segments[(int) (b >>> SEGMENT_SHIFT)]
+            .putLong((int) (b & SEGMENT_MASK), x);
+    }
+
+    /** Returns element K as a double. */
+    double getDouble(long k) {
+        long b = k * _width;
+        return _segments[(int) (b >>> SEGMENT_SHIFT)]
+            .getDouble((int) (b & SEGMENT_MASK));
+    }
+
+    /** Sets element K to the double X. */
+    void putDouble(long k, double x) {
+        long b = k * _width;
+        _segments[(int) (b >>> SEGMENT_SHIFT)]
+            .putDouble((int) (b & SEGMENT_MASK), x);
+    }
+
+    /** Returns SIZE rounded up to a multiple of the widest element. */
+    private static long roundUp(long size) {
+        return (size + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /** Returns a new direct buffer of SIZE bytes in native order.  Throws
+     *  OutOfMemoryError, naming the flag that raises the limit, if the
+     *  JVM's direct memory is exhausted. */
+    private static ByteBuffer allocate(int size) {
+        try {
+            return ByteBuffer.allocateDirect(size)
+                .order(ByteOrder.nativeOrder());
+        } catch (OutOfMemoryError e) {
+            OutOfMemoryError err =
+                new OutOfMemoryError(e.getMessage() + "; off-heap graphs"
+                                     + " need -XX:MaxDirectMemorySize set"
+                                     + " to their size");
+            err.initCause(e);
+            throw err;
+        }
+    }
+
+    /** Width of my elements, in bytes. */
+    private final int _width;
+    /** My storage.  All but the last segment hold SEGMENT_BYTES bytes. */
+    private ByteBuffer[] _segments;
+
+    /** Log2 of the size of a full segment. */
+    private static final int SEGMENT_SHIFT = 26;
+    /** Bytes in a full segment (64MB, a multiple of every width). */
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+    /** Mask extracting the offset within a segment. */
+    private static final long SEGMENT_MASK = SEGMENT_BYTES - 1;
+    /** Bytes in the smallest segment allocated. */
+    private static final long MIN_SEGMENT_BYTES = 1 << 10;
+}
@@ -0,0 +1,563 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.LongFunction;
+
+/** A graph whose structure is kept outside the Java heap, for graphs too
+ *  large to hold comfortably as objects.  The edge list, the edge
+ *  weights, and the adjacency lists built from them live in direct
+ *  buffers, so that the garbage collector never has to trace them; only
+ *  labels, if any, are on the heap.  Vertex and edge handles are created
+ *  on demand, so distinct handles may denote the same vertex or edge
+ *  (and are then equal).
+ *
+ *  Vertices and edges may be added but not removed.  The adjacency lists
+ *  are rebuilt, in time linear in the size of the graph, on the first
+ *  query after an addition, so additions are best made in bulk.  Each
+ *  edge carries a weight, set when it is added or by weighEdges.  In an
+ *  unlabeled graph (see unlabeled()), the label of each vertex and edge
+ *  is its id, and vertexWeights() and edgeWeights() provide the
+ *  weightings needed by Graphs.shortestPath, which reads edge weights
+ *  directly from the edges.
+ *
+ *  The direct buffers are limited not by the heap but by the JVM's
+ *  -XX:MaxDirectMemorySize, which defaults to the maximum heap size
+ *  (-Xmx).  A graph larger than the heap therefore needs that limit
+ *  raised, for example to -XX:MaxDirectMemorySize=16g; otherwise add
+ *  fails with OutOfMemoryError once the limit is reached.
+ *  @author Andrew Berger
+ */
+public class OffHeapGraph<VLabel, ELabel> extends Graph<VLabel, ELabel> {
+
+    /** An empty labeled graph, directed iff DIRECTED. */
+    public OffHeapGraph(boolean directed) {
+        this(directed, true);
+    }
+
+    /** An empty graph, directed iff DIRECTED, that keeps labels iff
+     *  LABELED. */
+    private OffHeapGraph(boolean directed, boolean labeled) {
+        _directed = directed;
+        if (labeled) {
+            _vertexLabels = new ArrayList<VLabel>();
+            _edgeLabels = new ArrayList<ELabel>();
+        }
+    }
+
+    /** Returns an empty unlabeled graph, directed iff DIRECTED.  The
+     *  labels given when adding vertices and edges are ignored; instead,
+     *  each vertex and edge is labeled with its id. */
+    public static OffHeapGraph<Integer, Integer> unlabeled(boolean directed) {
+        return new OffHeapGraph<Integer, Integer>(directed, false);
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexCount;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeCount;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(Vertex v) {
+        seal();
+        int i = index(v);
+        return (int) (_outOffsets.getLong(i + 1) - _outOffsets.getLong(i));
+    }
+
+    @Override
+    public int inDegree(Vertex v) {
+        if (!_directed) {
+            return outDegree(v);
+        }
+        seal();
+        int i = index(v);
+        return (int) (_inOffsets.getLong(i + 1) - _inOffsets.getLong(i));
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v) {
+        return find(u, v, null, false) >= 0;
+    }
+
+    @Override
+    public boolean contains(Vertex u, Vertex v, ELabel label) {
+        return find(u, v, label, true) >= 0;
+    }
+
+    @Override
+    public Vertex add(VLabel label) {
+        int id = _vertexCount;
+        _vertexCount += 1;
+        if (_vertexLabels != null) {
+            _vertexLabels.add(label);
+        }
+        if (_vertexWeights != null) {
+            _vertexWeights.ensure(_vertexCount);
+        }
+        _dirty = true;
+        Vertex v = vertex(id);
+        vertexAdding(v);
+        vertexAdded(v);
+        return v;
+    }
+
+    /** Returns an edge incident on FROM and TO, labeled with LABEL, and
+     *  adds it to this graph.  Its weight is LABEL's, if LABEL is
+     *  Weighted, and otherwise 1. */
+    @Override
+    public Edge add(Vertex from, Vertex to, ELabel label) {
+        double weight =
+            label instanceof Weighted ? ((Weighted) label).weight() : 1.0;
+        return add(from, to, label, weight);
+    }
+
+    /** Returns an edge incident on FROM and TO, labeled with LABEL and
+     *  having weight WEIGHT, and adds it to this graph.  If I am directed,
+     *  the edge leaves FROM and enters TO.  If weighEdges has been called,
+     *  the weighting it established takes precedence over WEIGHT. */
+    public Edge add(Vertex from, Vertex to, ELabel label, double weight) {
+        int v0 = index(from), v1 = index(to);
+        int id = _edgeCount;
+        _sources.ensure(id + 1);
+        _targets.ensure(id + 1);
+        _weights.ensure(id + 1);
+        _sources.putInt(id, v0);
+        _targets.putInt(id, v1);
+        _weights.putDouble(id, weight);
+        if (_edgeLabels != null) {
+            _edgeLabels.add(label);
+        }
+        _edgeCount += 1;
+        _dirty = true;
+        Edge e = edge(id);
+        edgeAdding(e);
+        edgeAdded(e);
+        return e;
+    }
+
+    /** Unsupported: vertices may not be removed from me. */
+    @Override
+    public void remove(Vertex v) {
+        throw new UnsupportedOperationException("OffHeapGraph is add-only");
+    }
+
+    /** Unsupported: edges may not be removed from me. */
+    @Override
+    public void remove(Edge e) {
+        throw new UnsupportedOperationException("OffHeapGraph is add-only");
+    }
+
+    /** Unsupported: edges may not be removed from me. */
+    @Override
+    public void remove(Vertex v1, Vertex v2) {
+        throw new UnsupportedOperationException("OffHeapGraph is add-only");
+    }
+
+    @Override
+    public Iteration<Vertex> vertices() {
+        return new RangeIteration<Vertex>(0, _vertexCount) {
+            @Override
+            Vertex at(long k) {
+                return vertex((int) k);
+            }
+        };
+    }
+
+    @Override
+    public Iteration<Vertex> successors(Vertex v) {
+        seal();
+        return neighbors(_outOffsets, _outTargets, index(v));
+    }
+
+    @Override
+    public Iteration<Vertex> predecessors(Vertex v) {
+        seal();
+        if (!_directed) {
+            return neighbors(_outOffsets, _outTargets, index(v));
+        }
+        return neighbors(_inOffsets, _inTargets, index(v));
+    }
+
+    @Override
+    Spliterator<Vertex> vertexSpliterator() {
+        return new RangeSpliterator<Vertex>(this, 0, _vertexCount,
+                                            new LongFunction<Vertex>() {
+                @Override
+                public Vertex apply(long k) {
+                    return vertex((int) k);
+                }
+            });
+    }
+
+    @Override
+    Spliterator<Edge> edgeSpliterator() {
+        return new RangeSpliterator<Edge>(this, 0, _edgeCount,
+                                          new LongFunction<Edge>() {
+                @Override
+                public Edge apply(long k) {
+                    return edge((int) k);
+                }
+            });
+    }
+
+    @Override
+    public Iteration<Edge> edges() {
+        return new RangeIteration<Edge>(0, _edgeCount) {
+            @Override
+            Edge at(long k) {
+                return edge((int) k);
+            }
+        };
+    }
+
+    @Override
+    public Iteration<Edge> outEdges(Vertex v) {
+        seal();
+        return incident(_outOffsets, _outEdges, index(v));
+    }
+
+    @Override
+    public Iteration<Edge> inEdges(Vertex v) {
+        seal();
+        if (!_directed) {
+            return incident(_outOffsets, _outEdges, index(v));
+        }
+        return incident(_inOffsets, _inEdges, index(v));
+    }
+
+    /** Unsupported: my edges are always delivered in the order added. */
+    @Override
+    public void orderEdges(Comparator<ELabel> comparator) {
+        throw new UnsupportedOperationException("edges are not reorderable");
+    }
+
+    @Override
+    boolean concurrentlyReadable() {
+        seal();
+        return true;
+    }
+
+    /** Returns the weight of E, one of my edges. */
+    public double weight(Edge e) {
+        return _weights.getDouble(e.getId());
+    }
+
+    /** Returns a weighting that reads the weights of my edges from their
+     *  labels, which must be their ids.  Requires that I be unlabeled.
+     *  Graphs.shortestPath reads these weights directly from my edges. */
+    public Weighting<Integer> edgeWeights() {
+        checkUnlabeled();
+        return _edgeWeights;
+    }
+
+    @Override
+    boolean weighs(Weighting<?> weighting) {
+        return weighting == _edgeWeights || super.weighs(weighting);
+    }
+
+    @Override
+    void weigh(Edge e, double w) {
+        _weights.putDouble(e.getId(), w);
+        e.storeWeight(w);
+    }
+
+    /** Returns a weighter that keeps a weight for each of my vertices,
+     *  off the heap, indexed by their labels, which must be their ids.
+     *  Requires that I be unlabeled. */
+    public Weighter<Integer> vertexWeights() {
+        checkUnlabeled();
+        if (_vertexWeights == null) {
+            _vertexWeights = new OffHeapArray(Double.BYTES);
+            _vertexWeights.ensure(_vertexCount);
+        }
+        return new Weighter<Integer>() {
+            @Override
+            public double weight(Integer id) {
+                return _vertexWeights.getDouble(id);
+            }
+
+            @Override
+            public void setWeight(Integer id, double w) {
+                _vertexWeights.putDouble(id, w);
+            }
+        };
+    }
+
+    /** Counts no Vertex or Edge objects, which I create only as they are
+     *  asked for. */
+    @Override
+    void measure(Footprint f) {
+        if (_vertexLabels != null) {
+            f.add(Footprint.LABEL_LISTS,
+                  Footprint.arrayList(_vertexLabels.size())
+                  + Footprint.arrayList(_edgeLabels.size()));
+        }
+        OffHeapArray[] arrays = {
+            _sources, _targets, _weights, _vertexWeights, _outOffsets,
+            _outTargets, _outEdges, _inOffsets, _inTargets, _inEdges
+        };
+        for (OffHeapArray a : arrays) {
+            if (a != null) {
+                f.add(Footprint.OFF_HEAP, a.bytes());
+            }
+        }
+    }
+
+    /** Returns a handle on vertex number ID. */
+    private Vertex vertex(int id) {
+        return new Vertex(vertexLabel(id), id);
+    }
+
+    /** Returns a handle on edge number ID. */
+    private Edge edge(int id) {
+        ELabel label;
+        if (_edgeLabels == null) {
+            label = unlabeled(id);
+        } else {
+            label = _edgeLabels.get(id);
+        }
+        Edge e = new Edge(vertex(_sources.getInt(id)),
+                          vertex(_targets.getInt(id)), label, id);
+        e.storeWeight(_weights.getDouble(id));
+        return e;
+    }
+
+    /** Returns the label of vertex number ID. */
+    private VLabel vertexLabel(int id) {
+        if (_vertexLabels == null) {
+            return unlabeled(id);
+        }
+        return _vertexLabels.get(id);
+    }
+
+    /** Returns ID as the label of a vertex or edge of an unlabeled
+     *  graph, where VLabel and ELabel are Integer. */
+    @SuppressWarnings("unchecked")
+    private static <T> T unlabeled(int id) {
+        return (T) Integer.valueOf(id);
+    }
+
+    /** Returns the id of V, checking that it is one of my vertices. */
+    private int index(Vertex v) {
+        if (v.graph() != this || v.getId() < 0 || v.getId() >= _vertexCount) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        return v.getId();
+    }
+
+    /** Throws IllegalStateException if I keep labels. */
+    private void checkUnlabeled() {
+        if (_vertexLabels != null) {
+            throw new IllegalStateException("graph is labeled");
+        }
+    }
+
+    /** Returns the position in my outgoing adjacency lists of an edge from
+     *  U to V (labeled LABEL, if CHECKLABEL), or -1 if there is none. */
+    private long find(Vertex u, Vertex v, ELabel label, boolean checkLabel) {
+        seal();
+        int from = index(u), to = index(v);
+        long end = _outOffsets.getLong(from + 1);
+        for (long k = _outOffsets.getLong(from); k < end; k += 1) {
+            if (_outTargets.getInt(k) != to) {
+                continue;
+            }
+            if (!checkLabel) {
+                return k;
+            }
+            Object other = edge(_outEdges.getInt(k)).getLabel();
+            if (label == null ? other == null : label.equals(other)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns an iteration over the vertices listed in TARGETS for vertex
+     *  number V, as delimited by OFFSETS. */
+    private Iteration<Vertex> neighbors(OffHeapArray offsets,
+                                        final OffHeapArray targets, int v) {
+        return new RangeIteration<Vertex>(offsets.getLong(v),
+                                          offsets.getLong(v + 1)) {
+            @Override
+            Vertex at(long k) {
+                return vertex(targets.getInt(k));
+            }
+        };
+    }
+
+    /** Returns an iteration over the edges listed in IDS for vertex number
+     *  V, as delimited by OFFSETS. */
+    private Iteration<Edge> incident(OffHeapArray offsets,
+                                     final OffHeapArray ids, int v) {
+        return new RangeIteration<Edge>(offsets.getLong(v),
+                                        offsets.getLong(v + 1)) {
+            @Override
+            Edge at(long k) {
+                return edge(ids.getInt(k));
+            }
+        };
+    }
+
+    /** Rebuilds my adjacency lists, if edges or vertices have been added
+     *  since they were last built. */
+    private void seal() {
+        if (!_dirty) {
+            return;
+        }
+        _outOffsets = new OffHeapArray(Long.BYTES);
+        _outTargets = new OffHeapArray(Integer.BYTES);
+        _outEdges = new OffHeapArray(Integer.BYTES);
+        fill(_outOffsets, _outTargets, _outEdges, true);
+        if (_directed) {
+            _inOffsets = new OffHeapArray(Long.BYTES);
+            _inTargets = new OffHeapArray(Integer.BYTES);
+            _inEdges = new OffHeapArray(Integer.BYTES);
+            fill(_inOffsets, _inTargets, _inEdges, false);
+        }
+        _dirty = false;
+    }
+
+    /** Fills OFFSETS, TARGETS, and IDS with the adjacency lists of my
+     *  vertices (by a counting sort of my edges): the list for vertex i
+     *  occupies positions OFFSETS[i] .. OFFSETS[i+1]-1 of TARGETS (the
+     *  vertices at the other ends) and IDS (the edges).  The lists hold
+     *  outgoing edges if OUT, and otherwise incoming edges.  In an
+     *  undirected graph, each edge is listed under both of its ends. */
+    private void fill(OffHeapArray offsets, OffHeapArray targets,
+                      OffHeapArray ids, boolean out) {
+        int n = _vertexCount;
+        offsets.ensure(n + 1);
+        for (int e = 0; e < _edgeCount; e += 1) {
+            int from = out ? _sources.getInt(e) : _targets.getInt(e);
+            int to = out ? _targets.getInt(e) : _sources.getInt(e);
+            bump(offsets, from + 1);
+            if (!_directed && from != to) {
+                bump(offsets, to + 1);
+            }
+        }
+        for (int i = 1; i <= n; i += 1) {
+            offsets.putLong(i, offsets.getLong(i) + offsets.getLong(i - 1));
+        }
+        targets.ensure(offsets.getLong(n));
+        ids.ensure(offsets.getLong(n));
+        for (int e = 0; e < _edgeCount; e += 1) {
+            int from = out ? _sources.getInt(e) : _targets.getInt(e);
+            int to = out ? _targets.getInt(e) : _sources.getInt(e);
+            place(offsets, targets, ids, from, to, e);
+            if (!_directed && from != to) {
+                place(offsets, targets, ids, to, from, e);
+            }
+        }
+        for (int i = n - 1; i > 0; i -= 1) {
+            offsets.putLong(i, offsets.getLong(i - 1));
+        }
+        offsets.putLong(0, 0);
+    }
+
+    /** Adds 1 to element K of OFFSETS. */
+    private static void bump(OffHeapArray offsets, int k) {
+        offsets.putLong(k, offsets.getLong(k) + 1);
+    }
+
+    /** Appends TO and edge E to the adjacency list of FROM in TARGETS and
+     *  IDS, where OFFSETS[FROM] is the next free position of that list. */
+    private static void place(OffHeapArray offsets, OffHeapArray targets,
+                              OffHeapArray ids, int from, int to, int e) {
+        long k = offsets.getLong(from);
+        targets.putInt(k, to);
+        ids.putInt(k, e);
+        offsets.putLong(from, k + 1);
+    }
+
+    /** An iteration over positions START .. END-1 of some array,
+     *  delivering an item for each.  It fails once I change. */
+    private abstract class RangeIteration<T> extends Iteration<T> {
+
+        /** An iteration over positions START .. END-1. */
+        RangeIteration(long start, long end) {
+            _next = start;
+            _end = end;
+            _expected = version();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _next < _end;
+        }
+
+        @Override
+        public T next() {
+            checkVersion(_expected);
+            if (_next >= _end) {
+                throw new NoSuchElementException();
+            }
+            T result = at(_next);
+            _next += 1;
+            return result;
+        }
+
+        /** Returns the item for position K. */
+        abstract T at(long k);
+
+        /** The next position to deliver. */
+        private long _next;
+        /** The end of my range. */
+        private final long _end;
+        /** My graph's version when I was created. */
+        private final int _expected;
+    }
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** Vertex labels, by id, or null if I am unlabeled. */
+    private ArrayList<VLabel> _vertexLabels;
+    /** Edge labels, by id, or null if I am unlabeled. */
+    private ArrayList<ELabel> _edgeLabels;
+    /** Number of vertices. */
+    private int _vertexCount;
+    /** Number of edges. */
+    private int _edgeCount;
+    /** Source vertex of each edge. */
+    private final OffHeapArray _sources = new OffHeapArray(Integer.BYTES);
+    /** Target vertex of each edge. */
+    private final OffHeapArray _targets = new OffHeapArray(Integer.BYTES);
+    /** Weight of each edge. */
+    private final OffHeapArray _weights = new OffHeapArray(Double.BYTES);
+    /** Reads edge weights by id, for unlabeled graphs. */
+    private final Weighting<Integer> _edgeWeights = new Weighting<Integer>() {
+        @Override
+        public double weight(Integer id) {
+            return _weights.getDouble(id);
+        }
+    };
+    /** Vertex weights kept for vertexWeights(), or null. */
+    private OffHeapArray _vertexWeights;
+    /** True iff my adjacency lists are out of date. */
+    private boolean _dirty = true;
+    /** Start of each vertex's outgoing (or, if undirected, incident)
+     *  adjacency list, plus the total length of the lists. */
+    private OffHeapArray _outOffsets;
+    /** Other ends of outgoing edges, by adjacency position. */
+    private OffHeapArray _outTargets;
+    /** Outgoing edges, by adjacency position. */
+    private OffHeapArray _outEdges;
+    /** Start of each vertex's incoming adjacency list (directed graphs). */
+    private OffHeapArray _inOffsets;
+    /** Other ends of incoming edges, by adjacency position. */
+    private OffHeapArray _inTargets;
+    /** Incoming edges, by adjacency position. */
+    private OffHeapArray _inEdges;
+}
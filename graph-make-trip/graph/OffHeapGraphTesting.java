@@ -0,0 +1,174 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+import static java.util.Arrays.asList;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for OffHeapGraph.
+ *  @author Andrew Berger
+ */
+public class OffHeapGraphTesting {
+
+    /** Returns the sorted labels of the vertices in IT. */
+    private <E> List<Integer> labels(Iterable<Graph<Integer, E>.Vertex> it) {
+        ArrayList<Integer> r = new ArrayList<Integer>();
+        for (Graph<Integer, E>.Vertex v : it) {
+            r.add(v.getLabel());
+        }
+        Collections.sort(r);
+        return r;
+    }
+
+    @Test
+    public void directedStructure() {
+        OffHeapGraph<Integer, Integer> g = OffHeapGraph.unlabeled(true);
+        ArrayList<Graph<Integer, Integer>.Vertex> v =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 4; i += 1) {
+            v.add(g.add(null));
+        }
+        g.add(v.get(0), v.get(1), null, 2.0);
+        g.add(v.get(0), v.get(2), null, 5.0);
+        g.add(v.get(1), v.get(2), null, 1.0);
+        g.add(v.get(2), v.get(3));
+        assertEquals("wrong vertex count", 4, g.vertexSize());
+        assertEquals("wrong edge count", 4, g.edgeSize());
+        assertEquals("wrong out-degree", 2, g.outDegree(v.get(0)));
+        assertEquals("wrong in-degree", 2, g.inDegree(v.get(2)));
+        assertEquals("wrong successors", asList(1, 2),
+                     labels(g.successors(v.get(0))));
+        assertEquals("wrong predecessors", asList(0, 1),
+                     labels(g.predecessors(v.get(2))));
+        assertTrue("missing edge", g.contains(v.get(1), v.get(2)));
+        assertFalse("edge in wrong direction", g.contains(v.get(2), v.get(1)));
+        assertEquals("handles on a vertex differ", v.get(3),
+                     g.successors(v.get(2)).next());
+
+        g.add(v.get(3), v.get(0), null, 1.0);
+        assertEquals("additions after queries not seen", 1,
+                     g.inDegree(v.get(0)));
+    }
+
+    @Test
+    public void undirectedStructure() {
+        OffHeapGraph<String, String> g =
+            new OffHeapGraph<String, String>(false);
+        Graph<String, String>.Vertex a = g.add("a");
+        Graph<String, String>.Vertex b = g.add("b");
+        Graph<String, String>.Vertex c = g.add("c");
+        g.add(a, b, "ab");
+        g.add(c, a, "ca");
+        assertEquals("wrong degree", 2, g.degree(a));
+        assertTrue("missing reverse edge", g.contains(b, a, "ab"));
+        assertFalse("wrong label", g.contains(b, a, "ca"));
+        int count = 0;
+        for (Graph<String, String>.Edge e : g.edges(a)) {
+            assertEquals("wrong label", "a", e.getV(e.getV(a)).getLabel());
+            count += 1;
+        }
+        assertEquals("wrong incident edge count", 2, count);
+    }
+
+    @Test
+    public void shortestPath() {
+        OffHeapGraph<Integer, Integer> g = OffHeapGraph.unlabeled(false);
+        ArrayList<Graph<Integer, Integer>.Vertex> v =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 4; i += 1) {
+            v.add(g.add(null));
+        }
+        Graph<Integer, Integer>.Edge e01 = g.add(v.get(0), v.get(1), null, 1);
+        Graph<Integer, Integer>.Edge e12 = g.add(v.get(1), v.get(2), null, 1);
+        g.add(v.get(0), v.get(2), null, 5);
+        Graph<Integer, Integer>.Edge e23 = g.add(v.get(2), v.get(3), null, 1);
+        Weighter<Integer> dist = g.vertexWeights();
+        dist.setWeight(0, 0.0);
+        List<Graph<Integer, Integer>.Edge> path =
+            Graphs.shortestPath(g, v.get(0), v.get(3), Graphs.ZERO_DISTANCER,
+                                dist, g.edgeWeights());
+        assertEquals("wrong path", asList(e01, e12, e23), path);
+        assertEquals("wrong distance", 3.0, dist.weight(3), 1e-9);
+    }
+
+    @Test
+    public void parallelStreams() {
+        OffHeapGraph<Integer, Integer> g = OffHeapGraph.unlabeled(true);
+        Graph<Integer, Integer>.Vertex prev = g.add(null);
+        for (int i = 1; i < 1000; i += 1) {
+            Graph<Integer, Integer>.Vertex v = g.add(null);
+            g.add(prev, v, null, i);
+            prev = v;
+        }
+        Spliterator<Graph<Integer, Integer>.Edge> all = g.edgeSpliterator();
+        Spliterator<Graph<Integer, Integer>.Edge> half = all.trySplit();
+        assertEquals("uneven split", 499, half.estimateSize());
+        assertEquals("uneven split", 500, all.estimateSize());
+        final Weighting<Integer> w = g.edgeWeights();
+        double sum = g.edgeStream().parallel().mapToDouble(
+            new ToDoubleFunction<Graph<Integer, Integer>.Edge>() {
+                @Override
+                public double applyAsDouble(Graph<Integer, Integer>.Edge e) {
+                    return w.weight(e.getLabel());
+                }
+            }).sum();
+        assertEquals("wrong weight sum", 499500.0, sum, 1e-9);
+        assertEquals("wrong vertex count", 1000,
+                     g.vertexStream().parallel().distinct().count());
+    }
+
+    @Test(expected = java.util.ConcurrentModificationException.class)
+    public void streamFailsFast() {
+        OffHeapGraph<Integer, Integer> g = OffHeapGraph.unlabeled(true);
+        g.add(null);
+        g.add(null);
+        Spliterator<Graph<Integer, Integer>.Vertex> s = g.vertexSpliterator();
+        g.add(null);
+        s.tryAdvance(new Consumer<Graph<Integer, Integer>.Vertex>() {
+            @Override
+            public void accept(Graph<Integer, Integer>.Vertex v) {
+            }
+        });
+    }
+
+    @Test
+    public void betweenness() {
+        OffHeapGraph<Integer, Integer> g = OffHeapGraph.unlabeled(false);
+        ArrayList<Graph<Integer, Integer>.Vertex> v =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 5; i += 1) {
+            v.add(g.add(null));
+        }
+        g.add(v.get(0), v.get(1), null, 1.0);
+        g.add(v.get(1), v.get(2), null, 1.0);
+        g.add(v.get(2), v.get(3), null, 1.0);
+        g.add(v.get(1), v.get(4), null, 1.0);
+        g.add(v.get(4), v.get(3), null, 5.0);
+        Map<Graph<Integer, Integer>.Vertex, Double> hops =
+            Graphs.betweenness(g, null);
+        assertEquals("wrong hop betweenness", 3.5, hops.get(v.get(1)), 1e-9);
+        assertEquals("wrong hop betweenness", 1.0, hops.get(v.get(2)), 1e-9);
+        assertEquals("wrong hop betweenness", 1.0, hops.get(v.get(4)), 1e-9);
+        Map<Graph<Integer, Integer>.Vertex, Double> weighted =
+            Graphs.betweenness(g, g.edgeWeights());
+        assertEquals("wrong weighted betweenness", 5.0,
+                     weighted.get(v.get(1)), 1e-9);
+        assertEquals("wrong weighted betweenness", 3.0,
+                     weighted.get(v.get(2)), 1e-9);
+        assertEquals("wrong weighted betweenness", 0.0,
+                     weighted.get(v.get(4)), 1e-9);
+        assertEquals("empty sample not zero", 0.0,
+                     Graphs.betweenness(g, null, 0, new Random(1))
+                     .get(v.get(1)), 1e-9);
+    }
+
+}
@@ -0,0 +1,143 @@
+package graph;
+
+import java.util.Arrays;
+
+/** A monotone radix heap: a search fringe for searches whose priorities
+ *  never fall below that of the item last popped, as in Dijkstra's
+ *  algorithm and A* search with a consistent heuristic.  Priorities are
+ *  handled as the bits of nonnegative doubles, which order the same
+ *  way as longs, so that integer and fractional weights alike are
+ *  bucketed exactly, without quantization.  Bucket 0 holds the items
+ *  whose priority equals that of the last item popped; bucket b > 0
+ *  holds those whose priority first differs from it in bit b - 1.
+ *  When bucket 0 empties, the lowest nonempty bucket is redistributed
+ *  among the lower buckets around its least priority.  An item moves
+ *  down at most 64 times, so that a push and a pop take constant
+ *  amortized time.  Items, distances and priorities are kept in
+ *  parallel arrays, with no per-item objects.
+ *
+ *  A priority below that of the last item popped (which rounding may
+ *  produce even in a monotone search) is raised to it, and so is popped
+ *  before any other, as it would be from a comparison heap.
+ *  @author Andrew Berger
+ */
+final class RadixHeap<T> implements SearchFringe<T> {
+
+    /** An empty heap. */
+    RadixHeap() {
+        for (int b = 0; b < BUCKETS; b += 1) {
+            _items[b] = new Object[INITIAL];
+            _dists[b] = new double[INITIAL];
+            _keys[b] = new long[INITIAL];
+        }
+    }
+
+    @Override
+    public void push(T item, double dist, double key) {
+        long bits = Double.doubleToLongBits(key + 0.0);
+        if (bits < _last) {
+            bits = _last;
+        }
+        add(bucket(bits), item, dist, bits);
+        _count += 1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _count == 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T pop() {
+        if (_count == 0) {
+            throw new IllegalStateException("fringe is empty");
+        }
+        if (_head == _size[0]) {
+            _head = 0;
+            _size[0] = 0;
+            redistribute();
+        }
+        T item = (T) _items[0][_head];
+        _items[0][_head] = null;
+        _dist = _dists[0][_head];
+        _head += 1;
+        _count -= 1;
+        return item;
+    }
+
+    @Override
+    public double dist() {
+        return _dist;
+    }
+
+    /** Empties the lowest nonempty bucket into the buckets below it,
+     *  after making its least priority the last popped.  Every item goes
+     *  to a lower bucket, so the bucket's arrays may be read as it is
+     *  emptied. */
+    private void redistribute() {
+        int b = 1;
+        while (_size[b] == 0) {
+            b += 1;
+        }
+        long[] keys = _keys[b];
+        Object[] items = _items[b];
+        double[] dists = _dists[b];
+        int n = _size[b];
+        long least = keys[0];
+        for (int k = 1; k < n; k += 1) {
+            least = Math.min(least, keys[k]);
+        }
+        _last = least;
+        _size[b] = 0;
+        for (int k = 0; k < n; k += 1) {
+            add(bucket(keys[k]), items[k], dists[k], keys[k]);
+            items[k] = null;
+        }
+    }
+
+    /** Appends ITEM, with DIST and priority bits KEY, to bucket B. */
+    private void add(int b, Object item, double dist, long key) {
+        int n = _size[b];
+        if (n == _keys[b].length) {
+            _items[b] = Arrays.copyOf(_items[b], 2 * n);
+            _dists[b] = Arrays.copyOf(_dists[b], 2 * n);
+            _keys[b] = Arrays.copyOf(_keys[b], 2 * n);
+        }
+        _items[b][n] = item;
+        _dists[b][n] = dist;
+        _keys[b][n] = key;
+        _size[b] = n + 1;
+    }
+
+    /** Returns the bucket for priority bits KEY, which are at least those
+     *  of the last item popped. */
+    private int bucket(long key) {
+        return key == _last ? 0
+            : Long.SIZE - Long.numberOfLeadingZeros(key ^ _last);
+    }
+
+    /** Number of buckets: one for each bit of a priority, and one for
+     *  priorities equal to the last. */
+    private static final int BUCKETS = Long.SIZE + 1;
+    /** Initial capacity of a bucket. */
+    private static final int INITIAL = 4;
+
+    /** The items of each bucket. */
+    private final Object[][] _items = new Object[BUCKETS][];
+    /** Their distances. */
+    private final double[][] _dists = new double[BUCKETS][];
+    /** Their priorities, as bits. */
+    private final long[][] _keys = new long[BUCKETS][];
+    /** The number of items in each bucket, including those already
+     *  popped from bucket 0. */
+    private final int[] _size = new int[BUCKETS];
+    /** Position of the next item to pop from bucket 0. */
+    private int _head;
+    /** Number of items held. */
+    private int _count;
+    /** Priority bits of the last item popped. */
+    private long _last;
+    /** Distance of the last item popped. */
+    private double _dist;
+}
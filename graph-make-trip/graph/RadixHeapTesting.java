@@ -0,0 +1,130 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for RadixHeap and its use in shortest-path searches.
+ *  @author Andrew Berger
+ */
+public class RadixHeapTesting {
+
+    /** Number of random operations. */
+    private static final int OPS = 20000;
+    /** Side of the test grid. */
+    private static final int SIDE = 60;
+
+    @Test
+    public void monotoneOrder() {
+        Random r = new Random(11);
+        RadixHeap<Double> heap = new RadixHeap<Double>();
+        PriorityQueue<Double> check = new PriorityQueue<Double>();
+        double last = 0.0;
+        for (int k = 0; k < OPS; k += 1) {
+            if (check.isEmpty() || r.nextInt(3) > 0) {
+                double key = r.nextBoolean() ? last + r.nextInt(50)
+                    : last + r.nextDouble() * 100;
+                heap.push(key, -key, key);
+                check.add(key);
+            } else {
+                double key = heap.pop();
+                assertEquals("wrong item", check.poll(), key, 0.0);
+                assertEquals("wrong distance", -key, heap.dist(), 0.0);
+                assertTrue("not monotone", key >= last);
+                last = key;
+            }
+        }
+        while (!check.isEmpty()) {
+            assertEquals("wrong item at end", check.poll(), heap.pop(), 0.0);
+        }
+        assertTrue("not empty", heap.isEmpty());
+    }
+
+    @Test
+    public void tiesAndClamping() {
+        RadixHeap<String> heap = new RadixHeap<String>();
+        heap.push("a", 0, 5.0);
+        heap.push("b", 0, 3.0);
+        heap.push("c", 0, 5.0);
+        heap.push("d", 0, 3.0);
+        assertEquals("b", heap.pop());
+        heap.push("e", 0, 1.0);
+        heap.push("f", 0, 3.0);
+        assertEquals("d", heap.pop());
+        assertEquals("e", heap.pop());
+        assertEquals("f", heap.pop());
+        assertEquals("a", heap.pop());
+        assertEquals("c", heap.pop());
+        assertTrue("not empty", heap.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void popEmpty() {
+        new RadixHeap<String>().pop();
+    }
+
+    @Test
+    public void searchesAgree() {
+        Random r = new Random(3);
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(false);
+        List<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        final ArrayList<Double> weights = new ArrayList<Double>();
+        for (int i = 0; i < SIDE * SIDE; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 0; i < SIDE * SIDE; i += 1) {
+            if (i % SIDE + 1 < SIDE) {
+                g.add(vs.get(i), vs.get(i + 1), weights.size());
+                weights.add(1.0 + r.nextInt(9));
+            }
+            if (i + SIDE < SIDE * SIDE) {
+                g.add(vs.get(i), vs.get(i + SIDE), weights.size());
+                weights.add(r.nextDouble() * 9);
+            }
+        }
+        Weighting<Integer> ew = new Weighting<Integer>() {
+            @Override
+            public double weight(Integer label) {
+                return weights.get(label);
+            }
+        };
+        g.weighEdges(ew);
+        Distancer<Integer> zero = new Distancer<Integer>() {
+            @Override
+            public double dist(Integer a, Integer b) {
+                return 0.0;
+            }
+        };
+        final double[] dist = new double[SIDE * SIDE];
+        Weighter<Integer> vw = new Weighter<Integer>() {
+            @Override
+            public void setWeight(Integer label, double w) {
+                dist[label] = w;
+            }
+
+            @Override
+            public double weight(Integer label) {
+                return dist[label];
+            }
+        };
+        for (int t = SIDE; t < SIDE * SIDE; t += 7 * SIDE + 3) {
+            dist[0] = 0.0;
+            List<Graph<Integer, Integer>.Edge> binary =
+                Graphs.shortestPath(g, vs.get(0), vs.get(t), zero, vw, ew,
+                                    1.0, false);
+            double expected = dist[t];
+            dist[0] = 0.0;
+            List<Graph<Integer, Integer>.Edge> radix =
+                Graphs.shortestPath(g, vs.get(0), vs.get(t), zero, vw, ew,
+                                    1.0, true);
+            assertEquals("different distances", expected, dist[t], 0.0);
+            assertEquals("different paths", binary, radix);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package graph;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/** A spliterator over positions START .. END-1 of some array, delivering
+ *  an item for each.  It splits in halves, and knows the exact size of
+ *  itself and of every part it splits off, so that parallel streams
+ *  divide the work evenly.  Like the iterations of its graph, it fails
+ *  with ConcurrentModificationException once the graph changes.
+ *  @author Andrew Berger
+ */
+final class RangeSpliterator<T> implements Spliterator<T> {
+
+    /** A spliterator delivering ITEMS.apply(k) for each position k in
+     *  START .. END-1 of the contents of GRAPH. */
+    RangeSpliterator(Graph<?, ?> graph, long start, long end,
+                     LongFunction<? extends T> items) {
+        _graph = graph;
+        _next = start;
+        _end = end;
+        _items = items;
+        _expected = graph.version();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (_next >= _end) {
+            return false;
+        }
+        _graph.checkVersion(_expected);
+        action.accept(_items.apply(_next));
+        _next += 1;
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        for (long k = _next; k < _end; k += 1) {
+            action.accept(_items.apply(k));
+        }
+        _next = _end;
+        _graph.checkVersion(_expected);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long mid = (_next + _end) >>> 1;
+        if (mid <= _next) {
+            return null;
+        }
+        RangeSpliterator<T> prefix =
+            new RangeSpliterator<T>(_graph, _next, mid, _items);
+        prefix._expected = _expected;
+        _next = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return _end - _next;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | DISTINCT;
+    }
+
+    /** The graph whose contents I deliver. */
+    private final Graph<?, ?> _graph;
+    /** The next position to deliver. */
+    private long _next;
+    /** The end of my range. */
+    private final long _end;
+    /** Gives the item at each position. */
+    private final LongFunction<? extends T> _items;
+    /** My graph's version when I was created. */
+    private int _expected;
+}
@@ -0,0 +1,216 @@
+package graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** An index answering whether one vertex of a directed acyclic graph
+ *  can reach another by a non-empty path.  It holds the transitive
+ *  closure of the graph as one bit-set row of longs per vertex, computed
+ *  in reverse topological order so that each row is the union, 64 bits
+ *  at a time, of the rows of the vertex's successors.  A query is then a
+ *  single bit test.
+ *
+ *  When edges are added to the graph, edgeAdded brings the index up to
+ *  date by extending only the rows of vertices that reach the new edge
+ *  and do not already reach its end.  Any other change to the graph
+ *  (detected through its version) causes the index to be rebuilt when
+ *  next consulted.
+ *  @author Andrew Berger
+ */
+public class Reachability<VLabel, ELabel> {
+
+    /** An index of reachability in G, which must be directed and
+     *  acyclic. */
+    public Reachability(Graph<VLabel, ELabel> G) {
+        if (!G.isDirected()) {
+            throw new IllegalArgumentException("graph is not directed");
+        }
+        _G = G;
+        rebuild();
+    }
+
+    /** Recomputes the whole index from my graph.  Throws
+     *  IllegalArgumentException if my graph has a cycle. */
+    public void rebuild() {
+        _index = new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        _vertices = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+        for (Graph<VLabel, ELabel>.Vertex v : _G.vertices()) {
+            _index.put(v, _vertices.size());
+            _vertices.add(v);
+        }
+        int n = _vertices.size();
+        _words = Math.max(1, (n + WORD_SIZE - 1) / WORD_SIZE);
+        _rows = new long[Math.max(n, 1)][];
+        _pending = 0;
+        _version = _G.version();
+        byte[] state = new byte[n];
+        ArrayDeque<Integer> stack = new ArrayDeque<Integer>();
+        ArrayDeque<Iteration<Graph<VLabel, ELabel>.Vertex>> rest =
+            new ArrayDeque<Iteration<Graph<VLabel, ELabel>.Vertex>>();
+        for (int root = 0; root < n; root += 1) {
+            if (state[root] != UNSEEN) {
+                continue;
+            }
+            state[root] = OPEN;
+            stack.push(root);
+            rest.push(_G.successors(_vertices.get(root)));
+            while (!stack.isEmpty()) {
+                int u = stack.peek();
+                Iteration<Graph<VLabel, ELabel>.Vertex> succs = rest.peek();
+                if (succs.hasNext()) {
+                    int w = _index.get(succs.next());
+                    if (state[w] == OPEN) {
+                        _version = -1;
+                        throw new IllegalArgumentException("graph has a cycle");
+                    } else if (state[w] == UNSEEN) {
+                        state[w] = OPEN;
+                        stack.push(w);
+                        rest.push(_G.successors(_vertices.get(w)));
+                    }
+                } else {
+                    stack.pop();
+                    rest.pop();
+                    state[u] = CLOSED;
+                    close(u);
+                }
+            }
+        }
+    }
+
+    /** Returns true iff there is a non-empty path from U to V in my
+     *  graph.  Rebuilds me first if my graph has changed in ways I have
+     *  not been told of. */
+    public boolean reaches(Graph<VLabel, ELabel>.Vertex u,
+                           Graph<VLabel, ELabel>.Vertex v) {
+        if (_G.version() != _version) {
+            rebuild();
+        }
+        int x = index(u), y = index(v);
+        return (_rows[x][y / WORD_SIZE] & (1L << y)) != 0;
+    }
+
+    /** Returns the number of vertices reachable from V by non-empty
+     *  paths. */
+    public int descendantCount(Graph<VLabel, ELabel>.Vertex v) {
+        if (_G.version() != _version) {
+            rebuild();
+        }
+        int count = 0;
+        for (long word : _rows[index(v)]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /** Brings me up to date after E was added to my graph.  If anything
+     *  other than E and new vertices has changed in my graph since I was
+     *  last up to date, rebuilds me instead.  Throws
+     *  IllegalArgumentException if E closes a cycle. */
+    public void edgeAdded(Graph<VLabel, ELabel>.Edge e) {
+        int added = _G.vertexSize() - _vertices.size() - _pending;
+        if (_version < 0 || added < 0
+            || _G.version() != _version + added + 1) {
+            rebuild();
+            return;
+        }
+        _pending += added;
+        _version = _G.version();
+        int u = index(e.getV0()), v = index(e.getV1());
+        if (u == v || test(v, u)) {
+            _version = -1;
+            throw new IllegalArgumentException("edge closes a cycle");
+        }
+        if (test(u, v)) {
+            return;
+        }
+        long[] extra = _rows[v].clone();
+        extra[v / WORD_SIZE] |= 1L << v;
+        ArrayDeque<Integer> work = new ArrayDeque<Integer>();
+        work.push(u);
+        or(_rows[u], extra);
+        while (!work.isEmpty()) {
+            Graph<VLabel, ELabel>.Vertex x = _vertices.get(work.pop());
+            for (Graph<VLabel, ELabel>.Vertex p : _G.predecessors(x)) {
+                int z = index(p);
+                if (!test(z, v)) {
+                    or(_rows[z], extra);
+                    work.push(z);
+                }
+            }
+        }
+    }
+
+    /** Fills in the row of vertex U from those of its successors, which
+     *  must already be complete. */
+    private void close(int u) {
+        long[] row = new long[_words];
+        for (Graph<VLabel, ELabel>.Vertex s
+                 : _G.successors(_vertices.get(u))) {
+            int w = _index.get(s);
+            or(row, _rows[w]);
+            row[w / WORD_SIZE] |= 1L << w;
+        }
+        _rows[u] = row;
+    }
+
+    /** Returns true iff the row of vertex X includes vertex Y. */
+    private boolean test(int x, int y) {
+        return (_rows[x][y / WORD_SIZE] & (1L << y)) != 0;
+    }
+
+    /** Sets ROW to the union of ROW and BITS. */
+    private static void or(long[] row, long[] bits) {
+        for (int k = 0; k < bits.length; k += 1) {
+            row[k] |= bits[k];
+        }
+    }
+
+    /** Returns the index of V, indexing it with an empty row if it is one
+     *  of the vertices added to my graph since I was built. */
+    private int index(Graph<VLabel, ELabel>.Vertex v) {
+        Integer x = _index.get(v);
+        if (x != null) {
+            return x;
+        } else if (_pending == 0) {
+            throw new IllegalArgumentException("vertex not in graph");
+        }
+        _pending -= 1;
+        int k = _vertices.size();
+        if (k == _words * WORD_SIZE) {
+            _words *= 2;
+            for (int i = 0; i < k; i += 1) {
+                _rows[i] = Arrays.copyOf(_rows[i], _words);
+            }
+        }
+        if (k == _rows.length) {
+            _rows = Arrays.copyOf(_rows, 2 * k);
+        }
+        _rows[k] = new long[_words];
+        _index.put(v, k);
+        _vertices.add(v);
+        return k;
+    }
+
+    /** Number of bits in each word of a row. */
+    private static final int WORD_SIZE = Long.SIZE;
+    /** Search states of a vertex while building. */
+    private static final byte UNSEEN = 0, OPEN = 1, CLOSED = 2;
+
+    /** My graph. */
+    private final Graph<VLabel, ELabel> _G;
+    /** My graph's version when I was last brought up to date, or -1 if I
+     *  must be rebuilt. */
+    private int _version;
+    /** Number of vertices added to my graph that I have yet to index. */
+    private int _pending;
+    /** Maps each indexed vertex to its index. */
+    private HashMap<Graph<VLabel, ELabel>.Vertex, Integer> _index;
+    /** The indexed vertices, by index. */
+    private ArrayList<Graph<VLabel, ELabel>.Vertex> _vertices;
+    /** Number of words in each row. */
+    private int _words;
+    /** The vertices reachable from each vertex, by index, as bit sets. */
+    private long[][] _rows;
+}
@@ -0,0 +1,134 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for Reachability.
+ *  @author Andrew Berger
+ */
+public class ReachabilityTesting {
+
+    /** Returns true iff there is a non-empty path from U to V in G,
+     *  found by a plain search. */
+    private boolean search(Graph<Integer, Integer> g,
+                           Graph<Integer, Integer>.Vertex u,
+                           Graph<Integer, Integer>.Vertex v) {
+        ArrayList<Graph<Integer, Integer>.Vertex> work =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        HashSet<Graph<Integer, Integer>.Vertex> seen =
+            new HashSet<Graph<Integer, Integer>.Vertex>();
+        work.add(u);
+        while (!work.isEmpty()) {
+            for (Graph<Integer, Integer>.Vertex w
+                     : g.successors(work.remove(work.size() - 1))) {
+                if (w == v) {
+                    return true;
+                } else if (seen.add(w)) {
+                    work.add(w);
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Checks R against a plain search of G for every pair of VS. */
+    private void check(Reachability<Integer, Integer> r,
+                       Graph<Integer, Integer> g,
+                       ArrayList<Graph<Integer, Integer>.Vertex> vs) {
+        for (Graph<Integer, Integer>.Vertex u : vs) {
+            for (Graph<Integer, Integer>.Vertex v : vs) {
+                assertEquals("wrong reachability " + u.getLabel() + " to "
+                             + v.getLabel(), search(g, u, v),
+                             r.reaches(u, v));
+            }
+        }
+    }
+
+    @Test
+    public void randomDag() {
+        Random rand = new Random(5);
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 90; i += 1) {
+            vs.add(g.add(i));
+        }
+        for (int i = 0; i < 150; i += 1) {
+            int a = rand.nextInt(90), b = rand.nextInt(90);
+            if (a < b && !g.contains(vs.get(a), vs.get(b))) {
+                g.add(vs.get(a), vs.get(b), i);
+            }
+        }
+        Reachability<Integer, Integer> r =
+            new Reachability<Integer, Integer>(g);
+        check(r, g, vs);
+        int below = 0;
+        for (Graph<Integer, Integer>.Vertex v : vs) {
+            if (search(g, vs.get(0), v)) {
+                below += 1;
+            }
+        }
+        assertEquals("wrong descendant count", below,
+                     r.descendantCount(vs.get(0)));
+    }
+
+    @Test
+    public void incrementalAdditions() {
+        Random rand = new Random(9);
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < 10; i += 1) {
+            vs.add(g.add(i));
+        }
+        Reachability<Integer, Integer> r =
+            new Reachability<Integer, Integer>(g);
+        for (int i = 0; i < 120; i += 1) {
+            if (rand.nextInt(2) == 0) {
+                vs.add(g.add(vs.size()));
+            }
+            int a = rand.nextInt(vs.size()), b = rand.nextInt(vs.size());
+            if (a < b && !g.contains(vs.get(a), vs.get(b))) {
+                r.edgeAdded(g.add(vs.get(a), vs.get(b), i));
+            }
+        }
+        int version = g.version();
+        check(r, g, vs);
+        assertEquals("graph changed", version, g.version());
+    }
+
+    @Test
+    public void cycles() {
+        DirectedGraph<Integer, Integer> g =
+            new DirectedGraph<Integer, Integer>();
+        Graph<Integer, Integer>.Vertex a = g.add(0), b = g.add(1),
+            c = g.add(2);
+        g.add(a, b, 0);
+        g.add(b, c, 1);
+        Reachability<Integer, Integer> r =
+            new Reachability<Integer, Integer>(g);
+        assertTrue("missing indirect path", r.reaches(a, c));
+        assertFalse("path against edges", r.reaches(c, a));
+        try {
+            r.edgeAdded(g.add(c, a, 2));
+            fail("cycle not detected");
+        } catch (IllegalArgumentException e) {
+            /* Expected. */
+        }
+        try {
+            r.reaches(a, b);
+            fail("cycle not detected on rebuild");
+        } catch (IllegalArgumentException e) {
+            /* Expected. */
+        }
+        g.remove(c, a);
+        assertFalse("stale after removal", r.reaches(c, a));
+    }
+
+}
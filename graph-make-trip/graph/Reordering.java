@@ -0,0 +1,196 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/** Orders of the vertices of a graph that place vertices joined by edges
+ *  near each other, for use with Graph.reorder.  When a graph is loaded
+ *  in an order unrelated to its structure (as a map's places are listed
+ *  alphabetically rather than geographically), neighbors end up far
+ *  apart in its internal arrays and in the arrays algorithms keep by
+ *  vertex number, and searches of it miss in the cache constantly.
+ *  Edges are taken in either direction throughout.
+ *  @author Andrew Berger
+ */
+public final class Reordering {
+
+    /** Returns the vertices of G in breadth-first order: each connected
+     *  component is searched from a vertex of least degree, visiting the
+     *  neighbors of each vertex in the order of its edges.  Components
+     *  are taken in the order of G.vertices(). */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Vertex>
+    breadthFirst(Graph<VLabel, ELabel> G) {
+        return new Reordering.Adjacency<VLabel, ELabel>(G).order(false);
+    }
+
+    /** Returns the vertices of G in reverse Cuthill-McKee order: as for
+     *  breadthFirst, but visiting the neighbors of each vertex in order of
+     *  increasing degree and reversing the result.  This tends to
+     *  minimize the bandwidth of G's adjacency matrix, the greatest
+     *  distance in the order between the ends of an edge. */
+    public static <VLabel, ELabel> List<Graph<VLabel, ELabel>.Vertex>
+    reverseCuthillMcKee(Graph<VLabel, ELabel> G) {
+        List<Graph<VLabel, ELabel>.Vertex> result =
+            new Reordering.Adjacency<VLabel, ELabel>(G).order(true);
+        for (int i = 0, j = result.size() - 1; i < j; i += 1, j -= 1) {
+            Graph<VLabel, ELabel>.Vertex t = result.get(i);
+            result.set(i, result.get(j));
+            result.set(j, t);
+        }
+        return result;
+    }
+
+    /** Returns the bandwidth of G when its vertices are in ORDER: the
+     *  greatest difference in position in ORDER between the ends of one
+     *  of G's edges. */
+    public static <VLabel, ELabel> int
+    bandwidth(Graph<VLabel, ELabel> G,
+              List<Graph<VLabel, ELabel>.Vertex> order) {
+        HashMap<Graph<VLabel, ELabel>.Vertex, Integer> position =
+            new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+        for (Graph<VLabel, ELabel>.Vertex v : order) {
+            position.put(v, position.size());
+        }
+        int result = 0;
+        for (Graph<VLabel, ELabel>.Edge e : G.edges()) {
+            result = Math.max(result, Math.abs(position.get(e.getV0())
+                                               - position.get(e.getV1())));
+        }
+        return result;
+    }
+
+    /** The vertices and edges of a graph as arrays of vertex indices. */
+    private static final class Adjacency<VLabel, ELabel> {
+
+        /** The adjacency arrays of G. */
+        Adjacency(Graph<VLabel, ELabel> G) {
+            HashMap<Graph<VLabel, ELabel>.Vertex, Integer> index =
+                new HashMap<Graph<VLabel, ELabel>.Vertex, Integer>();
+            _vertices = new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+            for (Graph<VLabel, ELabel>.Vertex v : G.vertices()) {
+                index.put(v, _vertices.size());
+                _vertices.add(v);
+            }
+            int n = _vertices.size();
+            ArrayList<int[]> ends = new ArrayList<int[]>();
+            _start = new int[n + 1];
+            for (Graph<VLabel, ELabel>.Edge e : G.edges()) {
+                int u = index.get(e.getV0()), v = index.get(e.getV1());
+                if (u != v) {
+                    ends.add(new int[] { u, v });
+                    _start[u + 1] += 1;
+                    _start[v + 1] += 1;
+                }
+            }
+            for (int v = 0; v < n; v += 1) {
+                _start[v + 1] += _start[v];
+            }
+            _neighbors = new int[_start[n]];
+            int[] fill = Arrays.copyOf(_start, n);
+            for (int[] uv : ends) {
+                _neighbors[fill[uv[0]]] = uv[1];
+                fill[uv[0]] += 1;
+                _neighbors[fill[uv[1]]] = uv[0];
+                fill[uv[1]] += 1;
+            }
+        }
+
+        /** Returns my vertices in breadth-first order, each component
+         *  started from a vertex of least degree.  The neighbors of each
+         *  vertex are visited in order of increasing degree if BYDEGREE,
+         *  and otherwise in the order of its edges. */
+        List<Graph<VLabel, ELabel>.Vertex> order(boolean byDegree) {
+            int n = _vertices.size();
+            int[] queue = new int[n];
+            boolean[] seen = new boolean[n];
+            boolean[] found = new boolean[n];
+            int tail = 0;
+            for (int first = 0; first < n; first += 1) {
+                if (seen[first]) {
+                    continue;
+                }
+                int head = tail;
+                queue[tail] = leastDegree(first, found);
+                seen[queue[tail]] = true;
+                tail += 1;
+                while (head < tail) {
+                    int v = queue[head];
+                    head += 1;
+                    int added = tail;
+                    for (int k = _start[v]; k < _start[v + 1]; k += 1) {
+                        int w = _neighbors[k];
+                        if (!seen[w]) {
+                            seen[w] = true;
+                            queue[tail] = w;
+                            tail += 1;
+                        }
+                    }
+                    if (byDegree) {
+                        sortByDegree(queue, added, tail);
+                    }
+                }
+            }
+            ArrayList<Graph<VLabel, ELabel>.Vertex> result =
+                new ArrayList<Graph<VLabel, ELabel>.Vertex>(n);
+            for (int k = 0; k < n; k += 1) {
+                result.add(_vertices.get(queue[k]));
+            }
+            return result;
+        }
+
+        /** Returns a vertex of least degree in the component of vertex
+         *  FIRST, setting FOUND for each vertex of the component. */
+        private int leastDegree(int first, boolean[] found) {
+            int best = first;
+            ArrayList<Integer> stack = new ArrayList<Integer>();
+            stack.add(first);
+            found[first] = true;
+            while (!stack.isEmpty()) {
+                int v = stack.remove(stack.size() - 1);
+                if (degree(v) < degree(best)) {
+                    best = v;
+                }
+                for (int k = _start[v]; k < _start[v + 1]; k += 1) {
+                    int w = _neighbors[k];
+                    if (!found[w]) {
+                        found[w] = true;
+                        stack.add(w);
+                    }
+                }
+            }
+            return best;
+        }
+
+        /** Sorts QUEUE[FROM .. TO-1] by increasing degree, keeping vertices
+         *  of equal degree in their current order. */
+        private void sortByDegree(int[] queue, int from, int to) {
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i += 1) {
+                keys[i - from] = ((long) degree(queue[i]) << Integer.SIZE)
+                    | (i - from);
+            }
+            Arrays.sort(keys);
+            int[] sorted = new int[keys.length];
+            for (int i = 0; i < keys.length; i += 1) {
+                sorted[i] = queue[from + (int) keys[i]];
+            }
+            System.arraycopy(sorted, 0, queue, from, sorted.length);
+        }
+
+        /** Returns the number of edges incident on vertex V. */
+        private int degree(int v) {
+            return _start[v + 1] - _start[v];
+        }
+
+        /** The vertices, in the order of their indices. */
+        private final ArrayList<Graph<VLabel, ELabel>.Vertex> _vertices;
+        /** The neighbors of vertex v are _neighbors[_start[v] ..
+         *  _start[v+1]-1]. */
+        private final int[] _start;
+        /** The neighbors of all vertices, concatenated. */
+        private final int[] _neighbors;
+    }
+
+}
@@ -0,0 +1,133 @@
+package graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/** Measures the effect of Graph.reorder on traversal speed.  It builds a
+ *  road-like graph (a grid of streets) whose vertices are added in random
+ *  order, as a map file lists places without regard to geography, and
+ *  times full breadth-first searches of it before and after reordering
+ *  its vertices by reverse Cuthill-McKee: both Traversals and plain
+ *  searches that keep their state in arrays indexed by vertex id.  It
+ *  reports the bandwidth and the time per vertex of each.  Usage:
+ *      java graph.ReorderingBenchmark [ SIDE ]
+ *  @author Andrew Berger
+ */
+public class ReorderingBenchmark {
+
+    /** Runs the benchmark, with the side of the grid given by ARGS as
+     *  described above. */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : SIDE;
+        int n = side * side;
+        Random r = new Random(SEED);
+        List<Integer> labels = new ArrayList<Integer>(n);
+        for (int i = 0; i < n; i += 1) {
+            labels.add(i);
+        }
+        Collections.shuffle(labels, r);
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(false);
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>(n);
+        for (int i = 0; i < n; i += 1) {
+            vs.add(null);
+        }
+        for (int label : labels) {
+            vs.set(label, g.add(label));
+        }
+        for (int i = 0; i < n; i += 1) {
+            if (i % side + 1 < side) {
+                g.add(vs.get(i), vs.get(i + 1), i);
+            }
+            if (i + side < n) {
+                g.add(vs.get(i), vs.get(i + side), i);
+            }
+        }
+        System.out.printf("%d vertices, %d edges%n", n, g.edgeSize());
+        report("as loaded", g, vs.get(0));
+        List<Graph<Integer, Integer>.Vertex> order =
+            Reordering.reverseCuthillMcKee(g);
+        long start = System.nanoTime();
+        g.reorder(order);
+        System.out.printf("reordered in %.1f ms%n",
+                          (System.nanoTime() - start) / NANOS_PER_MS);
+        report("reordered", g, vs.get(0));
+    }
+
+    /** Prints the bandwidth of G in its current order and the times per
+     *  vertex of breadth-first searches of it from V, labeled NAME. */
+    private static void report(String name, Graph<Integer, Integer> g,
+                               Graph<Integer, Integer>.Vertex v) {
+        List<Graph<Integer, Integer>.Vertex> current =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (Graph<Integer, Integer>.Vertex w : g.vertices()) {
+            current.add(w);
+        }
+        Counter counter = new Counter();
+        long traversal = Long.MAX_VALUE, scan = Long.MAX_VALUE;
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            counter._count = 0;
+            long start = System.nanoTime();
+            counter.breadthFirstTraverse(g, v);
+            traversal = Math.min(traversal, System.nanoTime() - start);
+            start = System.nanoTime();
+            scan(g, v);
+            scan = Math.min(scan, System.nanoTime() - start);
+        }
+        double n = Math.max(1, counter._count);
+        System.out.printf("%-10s bandwidth %7d, %7.2f ns/vertex traversed,"
+                          + " %7.2f ns/vertex scanned%n", name,
+                          Reordering.bandwidth(g, current),
+                          traversal / n, scan / n);
+    }
+
+    /** Searches G breadth-first from V, keeping the distance of each
+     *  vertex in an array indexed by id, and returns the greatest. */
+    private static int scan(Graph<Integer, Integer> g,
+                            Graph<Integer, Integer>.Vertex v) {
+        int[] dist = new int[g.vertexSize()];
+        Arrays.fill(dist, -1);
+        ArrayDeque<Graph<Integer, Integer>.Vertex> queue =
+            new ArrayDeque<Graph<Integer, Integer>.Vertex>();
+        dist[v.getId()] = 0;
+        queue.add(v);
+        int most = 0;
+        while (!queue.isEmpty()) {
+            Graph<Integer, Integer>.Vertex u = queue.remove();
+            int d = dist[u.getId()] + 1;
+            for (Graph<Integer, Integer>.Vertex w : g.successors(u)) {
+                if (dist[w.getId()] < 0) {
+                    dist[w.getId()] = d;
+                    most = d;
+                    queue.add(w);
+                }
+            }
+        }
+        return most;
+    }
+
+    /** A traversal that counts the vertices it visits. */
+    private static class Counter extends Traversal<Integer, Integer> {
+        @Override
+        protected void visit(Graph<Integer, Integer>.Vertex v) {
+            _count += 1;
+        }
+
+        /** Number of vertices visited. */
+        private long _count;
+    }
+
+    /** Default side of the grid. */
+    private static final int SIDE = 500;
+    /** Number of timed traversals; the fastest is reported. */
+    private static final int TRIALS = 5;
+    /** Seed of the random graph. */
+    private static final long SEED = 47;
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MS = 1e6;
+}
@@ -0,0 +1,24 @@
+package graph;
+
+/** The queue of items awaiting expansion in a best-first search, each
+ *  with its distance from the start and its priority.
+ *  @author Andrew Berger
+ */
+interface SearchFringe<T> {
+
+    /** Adds ITEM, at distance DIST from the start, with priority KEY,
+     *  which must be nonnegative. */
+    void push(T item, double dist, double key);
+
+    /** Returns true iff I hold no items. */
+    boolean isEmpty();
+
+    /** Removes and returns an item of least priority.  Items of equal
+     *  priority leave in the order they came. */
+    T pop();
+
+    /** Returns the distance given with the item most recently
+     *  popped. */
+    double dist();
+
+}
@@ -0,0 +1,192 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Compares the fringes of Graphs.shortestPath: a binary heap and a
+ *  monotone radix heap.  It searches two graphs whose edge weights are
+ *  stored with Graph.weighEdges: a grid of streets with small integer
+ *  lengths, and a road-like network of random points joined to their
+ *  neighbors by roads of fractional lengths.  For each it times the
+ *  same searches, between random pairs of places, with each fringe, and
+ *  reports the time per search.  Usage:
+ *      java graph.ShortestPathBenchmark [ SIDE ]
+ *  @author Andrew Berger
+ */
+public class ShortestPathBenchmark {
+
+    /** Runs the benchmark, with the side of the grid given by ARGS as
+     *  described above.  The road network has as many places as the
+     *  grid. */
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : SIDE;
+        Random r = new Random(SEED);
+        new ShortestPathBenchmark(side * side).grid(side, r).report("grid", r);
+        new ShortestPathBenchmark(side * side).roads(r).report("roads", r);
+    }
+
+    /** A benchmark on a graph of N vertices. */
+    private ShortestPathBenchmark(int n) {
+        _n = n;
+        _dist = new double[n];
+        _x = new double[n];
+        _y = new double[n];
+        for (int i = 0; i < n; i += 1) {
+            _vs.add(_g.add(i));
+        }
+    }
+
+    /** Joins my vertices into a grid with SIDE vertices on a side, with
+     *  integer edge weights chosen by R, and returns this benchmark. */
+    private ShortestPathBenchmark grid(int side, Random r) {
+        for (int i = 0; i < _n; i += 1) {
+            _x[i] = i % side;
+            _y[i] = i / side;
+            if (i % side + 1 < side) {
+                join(i, i + 1, 1 + r.nextInt(MAX_STREET));
+            }
+            if (i + side < _n) {
+                join(i, i + side, 1 + r.nextInt(MAX_STREET));
+            }
+        }
+        return this;
+    }
+
+    /** Places my vertices at random points of the unit square chosen by
+     *  R, joins each to those nearby by a road somewhat longer than the
+     *  distance between them, and returns this benchmark. */
+    private ShortestPathBenchmark roads(Random r) {
+        double reach = Math.sqrt(NEIGHBORS / (Math.PI * _n));
+        int cells = (int) Math.ceil(1 / reach);
+        ArrayList<ArrayList<Integer>> grid =
+            new ArrayList<ArrayList<Integer>>();
+        for (int c = 0; c < cells * cells; c += 1) {
+            grid.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < _n; i += 1) {
+            _x[i] = r.nextDouble();
+            _y[i] = r.nextDouble();
+            grid.get(cell(_x[i], cells) * cells + cell(_y[i], cells)).add(i);
+        }
+        for (int i = 0; i < _n; i += 1) {
+            int cx = cell(_x[i], cells), cy = cell(_y[i], cells);
+            for (int a = Math.max(0, cx - 1); a <= cx + 1 && a < cells;
+                 a += 1) {
+                for (int b = Math.max(0, cy - 1); b <= cy + 1 && b < cells;
+                     b += 1) {
+                    for (int j : grid.get(a * cells + b)) {
+                        double d = Math.hypot(_x[i] - _x[j], _y[i] - _y[j]);
+                        if (j > i && d < reach) {
+                            join(i, j, d * (1 + r.nextDouble()));
+                        }
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    /** Returns the number of the cell of width 1/CELLS holding X. */
+    private static int cell(double x, int cells) {
+        return Math.min(cells - 1, (int) (x * cells));
+    }
+
+    /** Adds an edge between vertices I and J of weight W. */
+    private void join(int i, int j, double w) {
+        _g.add(_vs.get(i), _vs.get(j), _weights.size());
+        _weights.add(w);
+    }
+
+    /** Prints the times per search of my graph, labeled NAME, with each
+     *  fringe, searching between places chosen by R. */
+    private void report(String name, Random r) {
+        _g.weighEdges(_weighting);
+        int[] from = new int[SEARCHES], to = new int[SEARCHES];
+        for (int k = 0; k < SEARCHES; k += 1) {
+            from[k] = r.nextInt(_n);
+            to[k] = r.nextInt(_n);
+        }
+        long binary = Long.MAX_VALUE, radix = Long.MAX_VALUE;
+        for (int trial = 0; trial < TRIALS; trial += 1) {
+            binary = Math.min(binary, time(from, to, false));
+            radix = Math.min(radix, time(from, to, true));
+        }
+        System.out.printf("%-6s %7d vertices, %7d edges: binary heap %8.2f ms,"
+                          + " radix heap %8.2f ms per search%n", name, _n,
+                          _g.edgeSize(), binary / NANOS_PER_MS / SEARCHES,
+                          radix / NANOS_PER_MS / SEARCHES);
+    }
+
+    /** Returns the time in nanoseconds taken by searches from each
+     *  FROM[k] to TO[k], with a radix heap iff RADIX. */
+    private long time(int[] from, int[] to, boolean radix) {
+        long start = System.nanoTime();
+        for (int k = 0; k < from.length; k += 1) {
+            _dist[from[k]] = 0.0;
+            Graphs.shortestPath(_g, _vs.get(from[k]), _vs.get(to[k]),
+                                _straight, _vweighter, _weighting, 1.0,
+                                radix);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /** Default side of the grid. */
+    private static final int SIDE = 300;
+    /** Greatest length of a street in the grid. */
+    private static final int MAX_STREET = 10;
+    /** Mean number of neighbors of a place in the road network. */
+    private static final double NEIGHBORS = 6;
+    /** Number of searches timed together. */
+    private static final int SEARCHES = 20;
+    /** Number of timed runs; the fastest is reported. */
+    private static final int TRIALS = 3;
+    /** Seed of the random graphs. */
+    private static final long SEED = 44;
+    /** Nanoseconds per millisecond. */
+    private static final double NANOS_PER_MS = 1e6;
+
+    /** Number of vertices. */
+    private final int _n;
+    /** The graph searched. */
+    private final AdaptiveGraph<Integer, Integer> _g =
+        new AdaptiveGraph<Integer, Integer>(false);
+    /** Its vertices, indexed by label. */
+    private final ArrayList<Graph<Integer, Integer>.Vertex> _vs =
+        new ArrayList<Graph<Integer, Integer>.Vertex>();
+    /** Edge weights, indexed by label. */
+    private final ArrayList<Double> _weights = new ArrayList<Double>();
+    /** Coordinates of the vertices. */
+    private final double[] _x, _y;
+    /** Distances found by a search. */
+    private final double[] _dist;
+
+    /** Weights of edge labels. */
+    private final Weighting<Integer> _weighting = new Weighting<Integer>() {
+        @Override
+        public double weight(Integer label) {
+            return _weights.get(label);
+        }
+    };
+
+    /** Distances of vertices, by label. */
+    private final Weighter<Integer> _vweighter = new Weighter<Integer>() {
+        @Override
+        public void setWeight(Integer label, double w) {
+            _dist[label] = w;
+        }
+
+        @Override
+        public double weight(Integer label) {
+            return _dist[label];
+        }
+    };
+
+    /** The straight-line distance between vertices, which is a
+     *  consistent heuristic on both graphs. */
+    private final Distancer<Integer> _straight = new Distancer<Integer>() {
+        @Override
+        public double dist(Integer a, Integer b) {
+            return Math.hypot(_x[a] - _x[b], _y[a] - _y[b]);
+        }
+    };
+}
@@ -0,0 +1,156 @@
+package graph;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/** A spliterator over the items kept in a row of slots, such as the
+ *  adjacency lists of a graph's vertices, or the places in a vertex table
+ *  that may have holes.  Each slot has a number of positions, some of
+ *  which hold items to deliver.  Knowing from the start how many items
+ *  each slot delivers, it splits its items exactly in halves, however
+ *  they are spread among the slots, and knows the exact size of itself
+ *  and of every part it splits off, as a RangeSpliterator does.  Like
+ *  the iterations of its graph, it fails with
+ *  ConcurrentModificationException once the graph changes.
+ *  @author Andrew Berger
+ */
+final class SlotSpliterator<T> implements Spliterator<T> {
+
+    /** The contents of a row of slots. */
+    interface Slots<T> {
+        /** Returns the number of items slot S delivers. */
+        int count(int s);
+
+        /** Returns the number of positions in slot S. */
+        int size(int s);
+
+        /** Returns the item at position K of slot S, or null if that
+         *  position delivers nothing. */
+        T get(int s, int k);
+    }
+
+    /** A spliterator delivering the items of slots 0 .. SLOTS-1 of ITEMS,
+     *  part of the contents of GRAPH. */
+    SlotSpliterator(Graph<?, ?> graph, int slots, Slots<? extends T> items) {
+        _graph = graph;
+        _items = items;
+        _prefix = new long[slots + 1];
+        for (int s = 0; s < slots; s += 1) {
+            _prefix[s + 1] = _prefix[s] + items.count(s);
+        }
+        _end = _prefix[slots];
+        _expected = graph.version();
+    }
+
+    /** A copy of SPLIT that delivers only the items before its END'th. */
+    private SlotSpliterator(SlotSpliterator<T> split, long end) {
+        _graph = split._graph;
+        _items = split._items;
+        _prefix = split._prefix;
+        _slot = split._slot;
+        _pos = split._pos;
+        _next = split._next;
+        _end = end;
+        _expected = split._expected;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (_next >= _end) {
+            return false;
+        }
+        _graph.checkVersion(_expected);
+        action.accept(advance());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (_next < _end) {
+            action.accept(advance());
+        }
+        _graph.checkVersion(_expected);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        long mid = (_next + _end) >>> 1;
+        if (mid <= _next) {
+            return null;
+        }
+        SlotSpliterator<T> prefix = new SlotSpliterator<T>(this, mid);
+        seek(mid);
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return _end - _next;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | DISTINCT;
+    }
+
+    /** Returns my next item, which must exist, and moves past it. */
+    private T advance() {
+        while (true) {
+            if (_pos >= _items.size(_slot)) {
+                _slot += 1;
+                _pos = 0;
+                continue;
+            }
+            T x = _items.get(_slot, _pos);
+            _pos += 1;
+            if (x != null) {
+                _next += 1;
+                return x;
+            }
+        }
+    }
+
+    /** Moves me to my K'th item, which lies at or after my next one:
+     *  finds its slot by binary search of _prefix, then its position by
+     *  scanning that slot. */
+    private void seek(long k) {
+        int lo = _slot, hi = _prefix.length - 2;
+        while (lo < hi) {
+            int m = (lo + hi + 1) >>> 1;
+            if (_prefix[m] <= k) {
+                lo = m;
+            } else {
+                hi = m - 1;
+            }
+        }
+        long skip = k - _prefix[lo];
+        int pos = 0;
+        while (_items.get(lo, pos) == null || skip > 0) {
+            if (_items.get(lo, pos) != null) {
+                skip -= 1;
+            }
+            pos += 1;
+        }
+        _slot = lo;
+        _pos = pos;
+        _next = k;
+    }
+
+    /** The graph whose contents I deliver. */
+    private final Graph<?, ?> _graph;
+    /** The slots holding my items. */
+    private final Slots<? extends T> _items;
+    /** _prefix[s] is the number of items in the slots before slot s. */
+    private final long[] _prefix;
+    /** The slot holding my next item, or one before it. */
+    private int _slot;
+    /** The position in _slot at which to look for my next item. */
+    private int _pos;
+    /** The number of the next item to deliver, counting from the first
+     *  item of slot 0. */
+    private long _next;
+    /** The number of the item after my last. */
+    private final long _end;
+    /** My graph's version when I was created. */
+    private final int _expected;
+}
@@ -19,7 +19,18 @@ public class Testing {
         System.exit(textui.runClasses(graph.Testing.class,
                                       graph.UndirectedGraphTesting.class,
                                       graph.DirectedGraphTesting.class,
-                                      graph.GraphTest.class));
+                                      graph.GraphsTesting.class,
+                                      graph.GraphTest.class,
+                                      graph.OffHeapGraphTesting.class,
+                                      graph.DynamicShortestPathsTesting.class,
+                                      graph.AdaptiveGraphTesting.class,
+                                      graph.ConcurrentGraphTesting.class,
+                                      graph.ReachabilityTesting.class,
+                                      graph.CompressedGraphTesting.class,
+                                      graph.TraversalTesting.class,
+                                      graph.AnytimeSearchTesting.class,
+                                      graph.RadixHeapTesting.class,
+                                      graph.MutationLogTesting.class));
     }
 
 
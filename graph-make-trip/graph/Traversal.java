@@ -3,6 +3,7 @@ package graph;
 import java.util.Comparator;
 import java.util.BitSet;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.PriorityQueue;
 
 /** Implements a generalized traversal of a graph.  At any given time,
@@ -12,10 +13,11 @@ import java.util.PriorityQueue;
  *  successors to the fringe.  The client can dictate an ordering on
  *  the fringe, determining which item is next removed, by which kind
  *  of traversal is requested.
- *     + A depth-first traversal treats the fringe as a list, and adds
- *       and removes vertices at one end.  It also revisits the node
- *       itself after traversing all successors by calling the
- *       postVisit method on it.
+ *     + A depth-first traversal follows an edge from the most recently
+ *       visited vertex that has edges left to examine, so that its
+ *       fringe is the path back to the starting vertex.  It revisits
+ *       each node exactly once, after traversing all the vertices first
+ *       reached through it, by calling the postVisit method on it.
  *     + A breadth-first traversal treats the fringe as a list, and adds
  *       and removes vertices at different ends.  It also revisits the node
  *       itself after traversing all successors as for depth-first
@@ -52,6 +54,7 @@ public class Traversal<VLabel, ELabel> {
                     return order.compare(v1.getLabel(), v2.getLabel());
                 }
             });
+        _depthFirst = false;
         _graph = G;
         _marks.clear();
         _explored.clear();
@@ -59,14 +62,20 @@ public class Traversal<VLabel, ELabel> {
     }
 
     /** Performs a depth-first traversal of G over all vertices
-     *  reachable from V.  That is, the fringe is a sequence and
-     *  vertices are added to it or removed from it at one end in
-     *  an undefined order.  After the traversal of all successors of
-     *  a node is complete, the node itself is revisited by calling
-     *  the postVisit method on it. */
+     *  reachable from V.  That is, each vertex's edges are followed, in
+     *  the order G delivers them, before those of the vertex from which
+     *  it was reached, and preVisit is called on an edge just before it
+     *  is followed.  After the traversal of all successors of a node is
+     *  complete, the node itself is revisited, once, by calling the
+     *  postVisit method on it.  The stack of vertices in progress never
+     *  holds a vertex twice, and keeps only an open iteration over the
+     *  edges of each, so G's structure must not change during the
+     *  traversal, unless G traverses a snapshot of itself, as a
+     *  ConcurrentGraph does. */
     public void depthFirstTraverse(Graph<VLabel, ELabel> G,
                                    Graph<VLabel, ELabel>.Vertex v) {
         _fringe = new LIFO<Graph<VLabel, ELabel>.Vertex>();
+        _depthFirst = true;
         _graph = G;
         _marks.clear();
         _explored.clear();
@@ -82,6 +91,7 @@ public class Traversal<VLabel, ELabel> {
     public void breadthFirstTraverse(Graph<VLabel, ELabel> G,
                                      Graph<VLabel, ELabel>.Vertex v) {
         _fringe = new FIFO<Graph<VLabel, ELabel>.Vertex>();
+        _depthFirst = false;
         _graph = G;
         _marks.clear();
         _explored.clear();
@@ -95,6 +105,11 @@ public class Traversal<VLabel, ELabel> {
         _finalVertex = null;
         _finalEdge = null;
         _fringe.clear();
+        Graph<VLabel, ELabel> graph = _graph.stable();
+        if (_depthFirst) {
+            depthFirst(graph, v);
+            return;
+        }
         try {
             _fringe.push(v);
             Graph<VLabel, ELabel>.Vertex curr = null;
@@ -105,7 +120,7 @@ public class Traversal<VLabel, ELabel> {
                 } else {
                     if (visitation(curr)) {
                         mark(curr);
-                        for (Graph<VLabel, ELabel>.Edge e: _graph.edges(curr)) {
+                        for (Graph<VLabel, ELabel>.Edge e: graph.edges(curr)) {
                             Graph<VLabel, ELabel>.Vertex w = e.getV(curr);
                             if (!isMarked(w) && preVisitation(e, curr)) {
                                 _fringe.push(w);
@@ -120,6 +135,59 @@ public class Traversal<VLabel, ELabel> {
         }
     }
 
+    /** Traverses GRAPH depth-first from V, if V is not already marked.
+     *  Each vertex on the current path has a frame: the vertex, and the
+     *  iteration over its edges in GRAPH, opened when it was visited and
+     *  advanced one edge at a time, so that the stack takes space in
+     *  proportion to the length of the path, not to the degrees along
+     *  it.  Each vertex therefore appears in at most one frame, its
+     *  edges are examined once, and it is postvisited exactly once,
+     *  after all the vertices first reached through it. */
+    private void depthFirst(Graph<VLabel, ELabel> graph,
+                            Graph<VLabel, ELabel>.Vertex v) {
+        _frameVertices.clear();
+        _frameEdges.clear();
+        try {
+            if (isMarked(v) || !visitation(v)) {
+                return;
+            }
+            pushFrame(graph, v);
+            while (!_frameVertices.isEmpty()) {
+                int top = _frameVertices.size() - 1;
+                Graph<VLabel, ELabel>.Vertex curr = _frameVertices.get(top);
+                Iteration<Graph<VLabel, ELabel>.Edge> edges =
+                    _frameEdges.get(top);
+                if (edges.hasNext()) {
+                    Graph<VLabel, ELabel>.Edge e = edges.next();
+                    Graph<VLabel, ELabel>.Vertex w = e.getV(curr);
+                    if (!isMarked(w) && preVisitation(e, curr)
+                        && visitation(w)) {
+                        pushFrame(graph, w);
+                    }
+                } else {
+                    _frameVertices.remove(top);
+                    _frameEdges.remove(top);
+                    explore(curr);
+                    postVisitation(curr);
+                }
+            }
+        } catch (StopException e)  {
+            /* Ignore StopException. */
+        } finally {
+            _frameVertices.clear();
+            _frameEdges.clear();
+        }
+    }
+
+    /** Marks V, which has just been visited, and pushes a frame for it
+     *  with an iteration over the edges of V in GRAPH. */
+    private void pushFrame(Graph<VLabel, ELabel> graph,
+                           Graph<VLabel, ELabel>.Vertex v) {
+        mark(v);
+        _frameVertices.add(v);
+        _frameEdges.add(graph.edges(v));
+    }
+
     /** If the traversal ends prematurely, returns the Vertex argument to
      *  preVisit, visit, or postVisit that caused a Visit routine to
      *  throw StopException.  Otherwise, returns null. */
@@ -240,6 +308,15 @@ public class Traversal<VLabel, ELabel> {
     protected Graph<VLabel, ELabel>.Edge _finalEdge;
     /** The last graph traversed. */
     protected Graph<VLabel, ELabel> _graph;
+    /** True iff the current traversal is depth-first. */
+    private boolean _depthFirst;
+    /** The vertex of each depth-first frame. */
+    private ArrayList<Graph<VLabel, ELabel>.Vertex> _frameVertices =
+        new ArrayList<Graph<VLabel, ELabel>.Vertex>();
+    /** The iteration over the remaining edges of the vertex of each
+     *  depth-first frame. */
+    private ArrayList<Iteration<Graph<VLabel, ELabel>.Edge>> _frameEdges =
+        new ArrayList<Iteration<Graph<VLabel, ELabel>.Edge>>();
     /** Element at i true iff Vertex/edge i has been traversed. */
     private BitSet _marks = new BitSet();
     /** Element i true iff all of the edges of Vert i have been traveresed. */
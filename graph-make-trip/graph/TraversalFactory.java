@@ -0,0 +1,17 @@
+package graph;
+
+import java.util.List;
+
+/** A source of traversals, one for each part of a graph to be traversed
+ *  independently.  See Graphs.traverseComponents.
+ *  @author Andrew Berger
+ */
+public interface TraversalFactory<VLabel, ELabel,
+                                  T extends Traversal<VLabel, ELabel>> {
+
+    /** Returns a new traversal for the component of a graph whose
+     *  vertices are COMPONENT.  It will be used for that component
+     *  alone, and possibly in a thread of its own. */
+    T traversal(List<Graph<VLabel, ELabel>.Vertex> component);
+
+}
@@ -1,6 +1,8 @@
 package graph;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -94,6 +96,147 @@ public class TraversalTesting {
                      Integer.valueOf(15), Integer.valueOf(results.get(3)));
     }
 
+    @Test
+    public void depthFirstPostorder() {
+        DirectedGraph<Integer, Integer> d =
+            new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        int n = 30;
+        for (int i = 0; i < n; i += 1) {
+            vs.add(d.add(i));
+        }
+        for (int i = 0; i < n; i += 1) {
+            for (int j = i + 1; j < n; j += 1) {
+                d.add(vs.get(i), vs.get(j), i * n + j);
+            }
+        }
+        final ArrayList<Integer> pre = new ArrayList<Integer>(),
+            post = new ArrayList<Integer>();
+        Traversal<Integer, Integer> t = new Traversal<Integer, Integer>() {
+            @Override
+            protected void visit(Graph<Integer, Integer>.Vertex v) {
+                pre.add(v.getLabel());
+                for (Graph<Integer, Integer>.Edge e
+                         : theGraph().outEdges(v)) {
+                    assertEquals("wrong edge", v, e.getV0());
+                }
+            }
+
+            @Override
+            protected void postVisit(Graph<Integer, Integer>.Vertex v) {
+                post.add(v.getLabel());
+            }
+        };
+        t.depthFirstTraverse(d, vs.get(0));
+        assertEquals("vertex visited more than once", n, pre.size());
+        assertEquals("vertex postvisited more than once", n, post.size());
+        for (int i = 0; i < n; i += 1) {
+            assertEquals("successors not postvisited first",
+                         Integer.valueOf(n - 1 - i), post.get(i));
+        }
+        t.continueTraversing(vs.get(3));
+        assertEquals("marked vertex postvisited again", n, post.size());
+    }
+
+    @Test
+    public void componentTraversals() {
+        final int blocks = 20, size = 10;
+        AdaptiveGraph<Integer, Integer> g =
+            new AdaptiveGraph<Integer, Integer>(true);
+        DirectedGraph<Integer, Integer> m =
+            new DirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> gv =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        ArrayList<Graph<Integer, Integer>.Vertex> mv =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < blocks * size; i += 1) {
+            gv.add(g.add(i));
+            mv.add(m.add(i));
+        }
+        for (int i = 0; i < blocks * size; i += 1) {
+            if (i % size != 0) {
+                int j = i - i % size + (i * 7) % (i % size);
+                g.add(gv.get(i), gv.get(j), 0);
+                m.add(mv.get(i), mv.get(j), 0);
+            }
+        }
+        TraversalFactory<Integer, Integer, TestTraversal<Integer>> f =
+            new TraversalFactory<Integer, Integer, TestTraversal<Integer>>() {
+                @Override
+                public TestTraversal<Integer> traversal(
+                    List<Graph<Integer, Integer>.Vertex> component) {
+                    return new TestTraversal<Integer>();
+                }
+            };
+        List<TestTraversal<Integer>> parallel =
+            Graphs.traverseComponents(g, f, 4);
+        List<TestTraversal<Integer>> matrix =
+            Graphs.traverseComponents(m, f, 4);
+        assertEquals(blocks, Graphs.components(g).size());
+        assertEquals(blocks, parallel.size());
+        for (int b = 0; b < blocks; b += 1) {
+            ArrayList<Integer> seen = parallel.get(b).getResults();
+            assertEquals("component not covered", size, seen.size());
+            assertEquals(Integer.valueOf(b * size), seen.get(0));
+            for (int label : seen) {
+                assertEquals("strayed into another component",
+                             b, label / size);
+            }
+            assertEquals("results depend on representation",
+                         seen, matrix.get(b).getResults());
+        }
+    }
+
+    @Test
+    public void matrixComponentsInParallel() {
+        final int blocks = 12, size = 6;
+        UndirectedGraph<Integer, Integer> g =
+            new UndirectedGraph<Integer, Integer>();
+        ArrayList<Graph<Integer, Integer>.Vertex> vs =
+            new ArrayList<Graph<Integer, Integer>.Vertex>();
+        for (int i = 0; i < blocks * size; i += 1) {
+            vs.add(g.add(i));
+            if (i % size != 0) {
+                g.add(vs.get(i - 1), vs.get(i), i);
+            }
+        }
+        assertTrue("matrix graphs read serially", g.concurrentlyReadable());
+        final Thread caller = Thread.currentThread();
+        final HashSet<Thread> workers = new HashSet<Thread>();
+        TraversalFactory<Integer, Integer, TestTraversal<Integer>> f =
+            new TraversalFactory<Integer, Integer, TestTraversal<Integer>>() {
+                @Override
+                public TestTraversal<Integer> traversal(
+                    List<Graph<Integer, Integer>.Vertex> component) {
+                    return new TestTraversal<Integer>() {
+                        @Override
+                        protected void visit(
+                            Graph<Integer, Integer>.Vertex v) {
+                            super.visit(v);
+                            synchronized (workers) {
+                                workers.add(Thread.currentThread());
+                            }
+                        }
+                    };
+                }
+            };
+        List<TestTraversal<Integer>> parallel =
+            Graphs.traverseComponents(g, f, 4);
+        assertFalse("traversed on the calling thread",
+                    workers.contains(caller));
+        List<TestTraversal<Integer>> serial =
+            Graphs.traverseComponents(g, f, 1);
+        assertEquals(blocks, parallel.size());
+        for (int b = 0; b < blocks; b += 1) {
+            assertEquals("component not covered", size,
+                         parallel.get(b).getResults().size());
+            assertEquals("results depend on thread count",
+                         serial.get(b).getResults(),
+                         parallel.get(b).getResults());
+        }
+    }
+
     /** Test class for traversal.*/
     private class TestTraversal<Integer> extends Traversal<Integer, Integer> {
         @Override
@@ -1,5 +1,7 @@
 package graph;
 
+import java.util.Random;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -207,4 +209,15 @@ public class UndirectedGraphTesting {
         assertEquals("3 edges", 3, edgeCount);
     }
 
+    @Test
+    public void streamsSplitEvenly() {
+        Random r = new Random(34);
+        DirectedGraphTesting.checkRandomSplits(
+            new UndirectedGraph<Integer, Integer>(), r);
+        DirectedGraphTesting.checkRandomSplits(
+            new AdaptiveGraph<Integer, Integer>(false), r);
+        DirectedGraphTesting.checkRandomSplits(
+            new ConcurrentGraph<Integer, Integer>(false), r);
+    }
+
 }
@@ -4,40 +4,101 @@ import graph.Traversal;
 import graph.Graph;
 
 import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
 
 
-/** A new builder.
+/** A new builder.  A single depth-first traversal from a target both
+ *  checks for cycles and brings the target up to date: a vertex is gray
+ *  from its visit until its postvisit, and black after, so that an edge
+ *  to a gray vertex closes a cycle.  When a vertex is postvisited, all
+ *  its prerequisites are finished, so the change date of its youngest
+ *  ancestor (the latest change date of it and of anything it depends on,
+ *  directly or not) is the latest of its own and those of its
+ *  prerequisites.  Those dates are kept in an array indexed by vertex
+ *  id, so that the traversal takes time proportional to the number of
+ *  targets and dependencies it reaches.
  *  @author Andrew Berger*/
 public class Builder extends Traversal<Target, String> {
-    /** A new Builder at SYSTEMTIME with CYCLER.
+    /** A new Builder at SYSTEMTIME.
      *  Sends output to OUT.*/
-    Builder(int systemTime, CycleCheck cycler, PrintWriter out) {
+    Builder(int systemTime, PrintWriter out) {
         _sysTime = systemTime;
-        _cycler = cycler;
         _out = out;
     }
 
+    /** Builds the targets of ROOTS in G, in order, with their
+     *  prerequisites.  The dependencies of all of them are traversed
+     *  once: a target finished while building one root is up to date,
+     *  and so would not be rebuilt by a separate build of a later one,
+     *  which may therefore skip it.  The output is thus that of building
+     *  each root in turn. */
+    void build(Graph<Target, String> G,
+               List<Graph<Target, String>.Vertex> roots) {
+        Arrays.fill(_color, WHITE);
+        for (int k = 0; k < roots.size(); k += 1) {
+            if (k == 0) {
+                depthFirstTraverse(G, roots.get(k));
+            } else {
+                continueTraversing(roots.get(k));
+            }
+        }
+    }
+
+    @Override
+    protected void visit(Graph<Target, String>.Vertex v) {
+        int id = v.getId();
+        if (id >= _color.length) {
+            int size = Math.max(id + 1, 2 * _color.length);
+            _color = Arrays.copyOf(_color, size);
+            _youngest = Arrays.copyOf(_youngest, size);
+        }
+        _color[id] = GRAY;
+        for (Graph<Target, String>.Vertex w : theGraph().successors(v)) {
+            if (w.getId() < _color.length && _color[w.getId()] == GRAY) {
+                throw new MakeFormatException("Cyclic dependency detected");
+            }
+        }
+    }
+
     @Override
     protected void postVisit(Graph<Target, String>.Vertex v) {
-        _cycler.reset();
-        _cycler.depthFirstTraverse(theGraph(), v);
-        Target t = (Target) v.getLabel();
-        if (t.changed() < t.youngest()) {
+        Target t = v.getLabel();
+        int youngest = t.changed();
+        for (Graph<Target, String>.Vertex w : theGraph().successors(v)) {
+            youngest = Math.max(youngest, _youngest[w.getId()]);
+        }
+        if (t.changed() < youngest) {
             _sysTime += 1;
-            _out.print(t.execute(_sysTime));
+            rebuild(v, _sysTime);
         }
         if (!t.isExtant()) {
             _sysTime += 1;
-            _out.print(t.execute(_sysTime));
+            rebuild(v, _sysTime);
         }
+        _youngest[v.getId()] = Math.max(youngest, t.changed());
+        _color[v.getId()] = BLACK;
         _out.flush();
     }
 
+    /** Rebuilds the target of V at time TIME, printing its commands. */
+    void rebuild(Graph<Target, String>.Vertex v, int time) {
+        _out.print(v.getLabel().execute(time));
+    }
+
+    /** Colors of vertices not yet reached, in progress, and finished. */
+    private static final byte WHITE = 0, GRAY = 1, BLACK = 2;
+    /** Initial length of the per-vertex arrays. */
+    private static final int INITIAL_VERTICES = 16;
+
     /** The current time.
      *  All new objects must be older than this time. */
     private int _sysTime;
-    /** Checks for cycles and gets ancestor times. */
-    private CycleCheck _cycler;
     /** The standard output.*/
     private PrintWriter _out;
+    /** The color of each vertex, by id, in the current build. */
+    private byte[] _color = new byte[INITIAL_VERTICES];
+    /** The change date of the youngest ancestor of each finished vertex,
+     *  by id. */
+    private int[] _youngest = new int[INITIAL_VERTICES];
 }
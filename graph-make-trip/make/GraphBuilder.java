@@ -1,90 +1,97 @@
 package make;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Scanner;
 import java.util.HashMap;
 import java.util.Comparator;
-import java.util.regex.Pattern;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
 
-import graph.DirectedGraph;
+import graph.AdaptiveGraph;
 import graph.Graph;
+import graph.Keying;
 
 /** A class that helps parse and build.
  *  @author Andrew Berger*/
 public class GraphBuilder {
     /** A graphBuilder building from MAKEFILE and FILEINFO.
      *  Sends errors to ERR. */
-    GraphBuilder(Scanner makeFile, Scanner fileInfo, PrintWriter err) {
-        _make = makeFile;
+    GraphBuilder(Reader makeFile, Scanner fileInfo, PrintWriter err) {
+        _make = new MakefileLexer(makeFile);
         _info = fileInfo;
         _err = err;
+        _graph.indexLabels(TARGET_NAMES);
     }
 
 
     /** Returns the graph assembled from our scanners.*/
-    public DirectedGraph<Target, String> buildGraph() {
-        return assembleGraph(inputParser());
+    public Graph<Target, String> buildGraph() {
+        assembleGraph(inputParser());
+        processInfo();
+        return _graph;
+    }
+
+    /** Returns the graph assembled from our scanners, as for
+     *  buildGraph(), except that the graph is loaded from CACHE, without
+     *  reading our makefile, if CACHE holds the graph of our makefile,
+     *  and is otherwise saved there once assembled. */
+    public Graph<Target, String> buildGraph(MakefileCache cache) {
+        if (!cache.load(_graph)) {
+            assembleGraph(inputParser());
+            cache.save(_graph);
+        }
+        processInfo();
+        return _graph;
     }
 
-    /** Return list of targets with the their fields.*/
+    /** Return list of targets with the their fields, read in one pass
+     *  of our lexer.  The rule text of all targets is accumulated in
+     *  _recipes, each target keeping the range of its own. */
     private ArrayList<GraphBuilder.TargetBuilder> inputParser() {
         ArrayList<TargetBuilder> targets =
             new ArrayList<GraphBuilder.TargetBuilder>();
         TargetBuilder target = null;
-        int place = 0;
-        while (_make.hasNextLine()) {
-            String line = _make.nextLine();
-            if (matchesRuleFormat(line)) {
-                if (target != null) {
-                    targets.add(target);
+        try {
+            while (_make.nextLine()) {
+                if (_make.isRule()) {
+                    if (target != null) {
+                        target.endRule();
+                        targets.add(target);
+                    }
+                    target = new TargetBuilder();
+                    target.setName(_make.ruleName());
+                    for (int k = 1; k < _make.tokens(); k += 1) {
+                        target.dependencies().add(_make.token(k));
+                    }
+                } else if (!_make.isComment() && !_make.isBlank()) {
+                    if (target == null) {
+                        throw new MakeFormatException("Command outside rule");
+                    }
+                    _make.appendLine(_recipes);
                 }
-                String[] split = line.split("\\s+");
-                target = new TargetBuilder();
-                target.setName(split[0].substring(0, split[0].length() - 1));
-                target.setDependencies(split);
-            } else if (!line.startsWith("#")
-                       && !Pattern.matches("\\s*", line)) {
-                target.addLine(String.format("%s%n", line));
             }
+        } catch (IOException e) {
+            reportError(e);
+        } catch (MakeFormatException e) {
+            reportError(e);
         }
-        targets.add(target);
-        return targets;
-    }
-
-    /** Returns true iff LINE is a rule header. */
-    private boolean matchesRuleFormat(String line) {
-        Scanner r = new Scanner(line);
-        boolean first = true;
-        boolean matches = false;
-        while (r.hasNext()) {
-            String name = r.next();
-            if (name.contains("=")
-                || name.contains("#") || name.contains("\\")) {
-                return false;
-            }
-            if (first) {
-                if (!name.endsWith(":")) {
-                    return false;
-                }
-                matches = true;
-                first = false;
-            } else if (name.contains(":")) {
-                return false;
-            }
+        if (target != null) {
+            target.endRule();
+            targets.add(target);
         }
-        return matches;
+        return targets;
     }
 
     /** Adds TARGETS to our graph.
      *  Orders TARGETS by number of dependents
-     *  Returns the graph.*/
-    private DirectedGraph<Target, String>
+     *  Returns the graph, whose change dates are yet to be set from the
+     *  file info.*/
+    private Graph<Target, String>
     assembleGraph(ArrayList<GraphBuilder.TargetBuilder> targets) {
-        DirectedGraph<Target, String> d = new DirectedGraph<Target, String>();
+        Graph<Target, String> d = _graph;
         Collections.sort(targets, new Comparator<GraphBuilder.TargetBuilder>() {
                 public int compare(TargetBuilder t1, TargetBuilder t2) {
                     return t1.dependencies().size() - t2.dependencies().size();
@@ -95,9 +102,8 @@ public class GraphBuilder {
         try {
             for (TargetBuilder target : targets) {
                 tbuildMap.put(target.name(), target);
-                if (_verts.get(target.name()) == null) {
-                    Graph<Target, String>.Vertex curr = d.add(target.build());
-                    _verts.put(target.name(), curr);
+                if (d.lookup(target.name()) == null) {
+                    d.add(target.build());
                 } else {
                     TargetBuilder existing = tbuildMap.get(target.name());
                     if (existing.emptyRule()) {
@@ -110,22 +116,18 @@ public class GraphBuilder {
             }
             for (TargetBuilder target : targets) {
                 for (String dependent : target.dependencies()) {
-                    if (_verts.get(dependent) != null) {
-                        d.add(_verts.get(target.name()),
-                              _verts.get(dependent), null);
-                    } else {
+                    Graph<Target, String>.Vertex dep = d.lookup(dependent);
+                    if (dep == null) {
                         TargetBuilder ruleless = new TargetBuilder();
                         ruleless.setName(dependent);
-                        _verts.put(dependent, d.add(ruleless.build()));
-                        d.add(_verts.get(target.name()),
-                              _verts.get(dependent), null);
+                        dep = d.add(ruleless.build());
                     }
+                    d.add(d.lookup(target.name()), dep, null);
                 }
             }
         } catch (MakeFormatException e) {
             reportError(e);
         }
-        processInfo();
         return d;
     }
 
@@ -150,8 +152,8 @@ public class GraphBuilder {
                 } else {
                     String name = line.next();
                     Target target;
-                    if (_verts.get(name) != null) {
-                        target = _verts.get(name).getLabel();
+                    if (_graph.lookup(name) != null) {
+                        target = _graph.lookup(name).getLabel();
                     } else {
                         throw new MakeFormatException(
                             "Name is not existing target");
@@ -182,18 +184,11 @@ public class GraphBuilder {
 
     /** Framework for our target VLabels. */
     private class TargetBuilder {
-        /** An empty target builder.*/
+        /** An empty target builder, whose rule text starts at the end
+         *  of the rule text read so far, and is empty until ended. */
         TargetBuilder() {
-            _rule = "";
-        }
-
-        /** Set dependcies to DEP, trimming off first entry.*/
-        public void setDependencies(String[] dep) {
-            dep = Arrays.copyOfRange(dep, 1, dep.length);
+            _ruleStart = _ruleEnd = _recipes.length();
             _dependencies = new ArrayList<String>();
-            for (String d : dep) {
-                _dependencies.add(d);
-            }
         }
 
         /** Add DEP to our list of dependencies. */
@@ -204,9 +199,10 @@ public class GraphBuilder {
         }
 
 
-        /** Add LINE to rule.*/
-        public void addLine(String line) {
-            _rule = _rule + line;
+        /** Ends my rule text at the end of the rule text read so
+         *  far. */
+        public void endRule() {
+            _ruleEnd = _recipes.length();
         }
 
         /** Set NAME.*/
@@ -226,18 +222,19 @@ public class GraphBuilder {
 
         /** Returns me as a target object. */
         public Target build() {
-            return new Target(_name, _rule);
+            return new Target(_name, _recipes.substring(_ruleStart,
+                                                        _ruleEnd));
         }
 
         /** Returns true iff rule is empty. */
         public boolean emptyRule() {
-            return _rule.isEmpty();
+            return _ruleStart == _ruleEnd;
         }
 
         /** List of targetBuilder names i depend on.*/
         private ArrayList<String> _dependencies;
-        /** Rules I execute.*/
-        private String _rule;
+        /** My rule text is _recipes[_ruleStart .. _ruleEnd - 1]. */
+        private int _ruleStart, _ruleEnd;
         /** My name.*/
         private String _name;
 
@@ -261,20 +258,31 @@ public class GraphBuilder {
         return _sysTime;
     }
 
-    /** Returns map to vertices. */
-    public HashMap<String, Graph<Target, String>.Vertex> getVertMap() {
-        return _verts;
+    /** Returns the vertex of the target named NAME, or null if there is
+     *  none. */
+    public Graph<Target, String>.Vertex getVertex(String name) {
+        return _graph.lookup(name);
     }
 
     /** The file info. */
     private Scanner _info;
     /** The make file we're parsing. */
-    private Scanner _make;
+    private MakefileLexer _make;
+    /** The rule text of all targets, in order. */
+    private StringBuilder _recipes = new StringBuilder();
     /** The standard error output.*/
     private PrintWriter _err;
-    /** A map to the existing targets. */
-    private HashMap<String, Graph<Target, String>.Vertex> _verts =
-        new HashMap<String, Graph<Target, String>.Vertex>();
+    /** The graph we build, indexed by target name. */
+    private Graph<Target, String> _graph =
+        new AdaptiveGraph<Target, String>(true);
     /** The time of the youngest entry.*/
     private int _sysTime;
+
+    /** Keys targets by their names. */
+    private static final Keying<Target> TARGET_NAMES = new Keying<Target>() {
+        @Override
+        public Object key(Target t) {
+            return t.name();
+        }
+    };
 }
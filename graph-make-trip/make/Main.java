@@ -3,13 +3,16 @@ package make;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
-import java.util.HashMap;
 
 import graph.Graph;
-import graph.DirectedGraph;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.FileNotFoundException;
 
@@ -20,11 +23,17 @@ public final class Main {
 
     /** Entry point for the CS61B make program.  ARGS may contain options
      *  and targets:
-     *      [ -f MAKEFILE ] [ -D FILEINFO ] TARGET1 TARGET2 ...
+     *      [ -f MAKEFILE ] [ -D FILEINFO ] [ -j JOBS ] [ -c CACHE ]
+     *      TARGET1 TARGET2 ...
+     *  With -j, runs the rules of up to JOBS targets at once.  With -c,
+     *  keeps the graph parsed from MAKEFILE in the file CACHE, and reuses
+     *  it while MAKEFILE is unchanged.
      */
     public static void main(String... args) {
         String makefileName;
         String fileInfoName;
+        String cacheName = null;
+        int jobs = 1;
 
         if (args.length == 0) {
             usage();
@@ -49,6 +58,20 @@ public final class Main {
                 } else {
                     fileInfoName = args[a];
                 }
+            } else if (args[a].equals("-j")) {
+                a += 1;
+                if (a == args.length || !args[a].matches("[1-9][0-9]{0,3}")) {
+                    usage();
+                } else {
+                    jobs = Integer.parseInt(args[a]);
+                }
+            } else if (args[a].equals("-c")) {
+                a += 1;
+                if (a == args.length) {
+                    usage();
+                } else {
+                    cacheName = args[a];
+                }
             } else if (args[a].startsWith("-")) {
                 usage();
             } else {
@@ -62,56 +85,76 @@ public final class Main {
             targets.add(args[a]);
         }
 
-        make(makefileName, fileInfoName, targets);
+        make(makefileName, fileInfoName, cacheName, targets, jobs);
     }
 
     /** Carry out the make procedure using MAKEFILENAME as the makefile,
      *  taking information on the current file-system state from FILEINFONAME,
      *  and building TARGETS, or the first target in the makefile if TARGETS
-     *  is empty.
+     *  is empty, running the rules of up to JOBS targets at once.  Keeps
+     *  the parsed makefile in the file CACHENAME, unless it is null.
      */
     private static void make(String makeFileName, String fileInfoName,
-                             List<String> targets) {
+                             String cacheName, List<String> targets,
+                             int jobs) {
         try {
-            Scanner makeFile = new Scanner(
-                           new FileReader(new File(makeFileName)));
-            Scanner fileInfo = new Scanner(
+            GraphBuilder maker;
+            Graph<Target, String> makeMap;
+            if (cacheName == null) {
+                FileReader makeFile = new FileReader(new File(makeFileName));
+                Scanner fileInfo = new Scanner(
                            new FileReader(new File(fileInfoName)));
-
-            GraphBuilder maker = new GraphBuilder(makeFile, fileInfo, _err);
-            DirectedGraph<Target, String> makeMap = maker.buildGraph();
+                maker = new GraphBuilder(makeFile, fileInfo, _err);
+                makeMap = maker.buildGraph();
+            } else {
+                byte[] text = readBytes(new File(makeFileName));
+                Scanner fileInfo = new Scanner(
+                           new FileReader(new File(fileInfoName)));
+                maker = new GraphBuilder(
+                    new InputStreamReader(new ByteArrayInputStream(text)),
+                    fileInfo, _err);
+                makeMap = maker.buildGraph(
+                    new MakefileCache(new File(cacheName), text));
+            }
             int sysTime = maker.systemTime();
-            CycleCheck cycler = new CycleCheck();
-
-            Builder builder =
-                new Builder(sysTime, cycler, _out);
-            HashMap<String, Graph<Target, String>.Vertex> vertices =
-                maker.getVertMap();
+            Builder builder = jobs > 1
+                ? new ParallelBuilder(sysTime, _out, jobs)
+                : new Builder(sysTime, _out);
+            ArrayList<Graph<Target, String>.Vertex> roots =
+                new ArrayList<Graph<Target, String>.Vertex>();
             for (String target : targets) {
-                Graph<Target, String>.Vertex t = vertices.get(target);
-                if (t != null) {
-                    make(makeMap, builder, t);
-                } else {
+                Graph<Target, String>.Vertex t = maker.getVertex(target);
+                if (t == null) {
+                    builder.build(makeMap, roots);
                     reportError("Target doesn't have a rule");
                 }
+                roots.add(t);
             }
+            builder.build(makeMap, roots);
         } catch (FileNotFoundException e) {
             reportError(e.getMessage());
+        } catch (IOException e) {
+            reportError(e.getMessage());
         }
     }
 
-    /** Makes TARGET in G using BUILDER.*/
-    private static void make(Graph<Target, String> G,
-                             Builder builder,
-                             Graph<Target, String>.Vertex target) {
-        builder.depthFirstTraverse(G, target);
+    /** Returns the contents of FILE. */
+    private static byte[] readBytes(File file) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                result.write(buffer, 0, n);
+            }
+        }
+        return result.toByteArray();
     }
 
-
     /** Print a brief usage message and exit program abnormally. */
     private static void usage() {
         _out.println("Usage: java make.Main [ -f MAKEFILE ]"
-                     + " [ -D FILEINFO ] [ TARGET ... ]");
+                     + " [ -D FILEINFO ] [ -j JOBS ] [ -c CACHE ]"
+                     + " [ TARGET ... ]");
         _out.flush();
         _err.println("error");
         _err.flush();
@@ -127,6 +170,8 @@ public final class Main {
         System.exit(1);
     }
 
+    /** Size of the blocks in which a makefile is read. */
+    private static final int BUFFER_SIZE = 8192;
     /** The standard error output. */
     private static PrintWriter _err = new PrintWriter(System.err);
     /** The standard output.*/
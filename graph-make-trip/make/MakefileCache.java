@@ -0,0 +1,159 @@
+package make;
+
+import graph.Graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/** A file holding the dependency graph compiled from a makefile (its
+ *  targets' names and rules, and its dependencies, but not their change
+ *  dates), marked with a SHA-256 hash of the makefile's text.  When the
+ *  makefile has not changed since the cache was saved, the graph is
+ *  loaded from the cache, which is mapped into memory, rather than
+ *  parsed and assembled again.  The cache is written to a temporary file
+ *  that is renamed into place, so that a run never sees half of one.
+ *  @author Andrew Berger*/
+final class MakefileCache {
+    /** A cache kept in FILE for the makefile whose text is MAKEFILE. */
+    MakefileCache(File file, byte[] makefile) {
+        _file = file;
+        try {
+            _hash = MessageDigest.getInstance(HASH).digest(makefile);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Adds to G, which is empty, the targets and dependencies saved in
+     *  my file, returning true, if it holds the graph of my makefile.
+     *  Otherwise, leaves G empty and returns false. */
+    boolean load(Graph<Target, String> G) {
+        if (!_file.isFile()) {
+            return false;
+        }
+        ArrayList<Target> targets = new ArrayList<Target>();
+        int[] edges;
+        try (FileChannel channel =
+             FileChannel.open(_file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer in =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] hash = new byte[_hash.length];
+            if (in.getInt() != MAGIC) {
+                return false;
+            }
+            in.get(hash);
+            if (!Arrays.equals(hash, _hash)) {
+                return false;
+            }
+            int n = in.getInt();
+            for (int k = 0; k < n; k += 1) {
+                targets.add(new Target(string(in), string(in)));
+            }
+            int m = in.getInt();
+            if (m < 0 || m > in.remaining() / (2 * Integer.BYTES)) {
+                return false;
+            }
+            edges = new int[2 * m];
+            for (int k = 0; k < edges.length; k += 1) {
+                edges[k] = in.getInt();
+                if (edges[k] < 0 || edges[k] >= n) {
+                    return false;
+                }
+            }
+        } catch (IOException | BufferUnderflowException
+                 | IllegalArgumentException e) {
+            return false;
+        }
+        ArrayList<Graph<Target, String>.Vertex> vertices =
+            new ArrayList<Graph<Target, String>.Vertex>();
+        for (Target t : targets) {
+            vertices.add(G.add(t));
+        }
+        for (int k = 0; k < edges.length; k += 2) {
+            G.add(vertices.get(edges[k]), vertices.get(edges[k + 1]), null);
+        }
+        return true;
+    }
+
+    /** Saves G, the graph of my makefile, in my file, keeping the
+     *  order of each target's dependencies.  A cache that cannot be
+     *  written is simply not saved. */
+    void save(Graph<Target, String> G) {
+        File temp = new File(_file.getPath() + TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out =
+                 new DataOutputStream(new BufferedOutputStream(
+                                          new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.write(_hash);
+                HashMap<Graph<Target, String>.Vertex, Integer> index =
+                    new HashMap<Graph<Target, String>.Vertex, Integer>();
+                out.writeInt(G.vertexSize());
+                for (Graph<Target, String>.Vertex v : G.vertices()) {
+                    index.put(v, index.size());
+                    write(v.getLabel().name(), out);
+                    write(v.getLabel().commands(), out);
+                }
+                out.writeInt(G.edgeSize());
+                for (Graph<Target, String>.Vertex v : G.vertices()) {
+                    for (Graph<Target, String>.Edge e : G.outEdges(v)) {
+                        out.writeInt(index.get(e.getV0()));
+                        out.writeInt(index.get(e.getV1()));
+                    }
+                }
+            }
+            Files.move(temp.toPath(), _file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            temp.delete();
+        }
+    }
+
+    /** Writes S to OUT as its length in bytes followed by its UTF-8
+     *  encoding. */
+    private static void write(String s, DataOutputStream out)
+        throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Returns a string read from IN, as written by write. */
+    private static String string(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** First word of a cache file. */
+    private static final int MAGIC = 0x4d4b4331;
+    /** The algorithm hashing makefiles. */
+    private static final String HASH = "SHA-256";
+    /** Suffix of the name of a cache being written. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** The cache file. */
+    private final File _file;
+    /** The hash of the makefile. */
+    private final byte[] _hash;
+}
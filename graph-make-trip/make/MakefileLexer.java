@@ -0,0 +1,172 @@
+package make;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/** Splits the text of a makefile into lines, and each line into
+ *  whitespace-separated tokens, in a single pass over characters read
+ *  in blocks, without regular expressions or per-line objects.  A line
+ *  is a rule header if its first token ends with ':', no other token
+ *  contains ':', and no token contains '=', '#' or '\'.  Lines end at
+ *  "\n", "\r\n" or "\r".
+ *  @author Andrew Berger*/
+final class MakefileLexer {
+    /** A lexer reading the makefile IN. */
+    MakefileLexer(Reader in) {
+        _in = in;
+    }
+
+    /** Reads the next line, returning false if there is none. */
+    boolean nextLine() throws IOException {
+        _length = 0;
+        _tokens = 0;
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        while (c >= 0 && c != '\n' && c != '\r') {
+            if (_length == _line.length) {
+                _line = Arrays.copyOf(_line, 2 * _length);
+            }
+            _line[_length] = (char) c;
+            _length += 1;
+            c = read();
+        }
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        tokenize();
+        return true;
+    }
+
+    /** Returns true iff the current line is a rule header. */
+    boolean isRule() {
+        return _rule;
+    }
+
+    /** Returns true iff the current line is a comment: one whose first
+     *  character is '#'. */
+    boolean isComment() {
+        return _length > 0 && _line[0] == '#';
+    }
+
+    /** Returns true iff the current line holds nothing but spaces, tabs,
+     *  form feeds and vertical tabs. */
+    boolean isBlank() {
+        for (int k = 0; k < _length; k += 1) {
+            char c = _line[k];
+            if (c != ' ' && c != '\t' && c != '\f' && c != '\u000B') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the number of tokens on the current line. */
+    int tokens() {
+        return _tokens;
+    }
+
+    /** Returns token K of the current line, numbering from 0. */
+    String token(int k) {
+        return new String(_line, _start[k], _end[k] - _start[k]);
+    }
+
+    /** Returns the name a rule header defines: its first token, without
+     *  the final ':'. */
+    String ruleName() {
+        return new String(_line, _start[0], _end[0] - _start[0] - 1);
+    }
+
+    /** Appends the current line, with a line separator, to OUT. */
+    void appendLine(StringBuilder out) {
+        out.append(_line, 0, _length).append(LINE_SEPARATOR);
+    }
+
+    /** Finds the tokens of the current line and whether it is a rule
+     *  header. */
+    private void tokenize() {
+        _rule = true;
+        int k = 0;
+        while (true) {
+            while (k < _length && Character.isWhitespace(_line[k])) {
+                k += 1;
+            }
+            if (k == _length) {
+                break;
+            }
+            if (_tokens == _start.length) {
+                _start = Arrays.copyOf(_start, 2 * _tokens);
+                _end = Arrays.copyOf(_end, 2 * _tokens);
+            }
+            _start[_tokens] = k;
+            boolean colon = false;
+            while (k < _length && !Character.isWhitespace(_line[k])) {
+                char c = _line[k];
+                if (c == '=' || c == '#' || c == '\\') {
+                    _rule = false;
+                }
+                colon |= c == ':';
+                k += 1;
+            }
+            _end[_tokens] = k;
+            if (_tokens == 0 ? _line[k - 1] != ':' : colon) {
+                _rule = false;
+            }
+            _tokens += 1;
+        }
+        if (_tokens == 0) {
+            _rule = false;
+        }
+    }
+
+    /** Returns the next character of my input, or -1 at its end. */
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            _next += 1;
+        }
+        return c;
+    }
+
+    /** Returns the next character of my input without consuming it, or
+     *  -1 at its end. */
+    private int peek() throws IOException {
+        if (_next == _limit) {
+            _limit = _in.read(_buffer);
+            _next = 0;
+            if (_limit <= 0) {
+                _limit = 0;
+                return -1;
+            }
+        }
+        return _buffer[_next];
+    }
+
+    /** Ends each line of rule text. */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    /** Size of the input buffer. */
+    private static final int BUFFER_SIZE = 8192;
+    /** Initial capacity of the line buffer. */
+    private static final int LINE_SIZE = 128;
+    /** Initial capacity of the token arrays. */
+    private static final int TOKEN_COUNT = 16;
+
+    /** The makefile. */
+    private final Reader _in;
+    /** Characters read from _in. */
+    private final char[] _buffer = new char[BUFFER_SIZE];
+    /** _buffer[_next .. _limit - 1] are yet to be read. */
+    private int _next, _limit;
+    /** The current line is _line[0 .. _length - 1]. */
+    private char[] _line = new char[LINE_SIZE];
+    /** Length of the current line. */
+    private int _length;
+    /** Token k of the current line is _line[_start[k] .. _end[k] - 1]. */
+    private int[] _start = new int[TOKEN_COUNT], _end = new int[TOKEN_COUNT];
+    /** Number of tokens on the current line. */
+    private int _tokens;
+    /** True iff the current line is a rule header. */
+    private boolean _rule;
+}
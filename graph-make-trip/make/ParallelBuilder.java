@@ -0,0 +1,154 @@
+package make;
+
+import graph.Graph;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/** A builder that runs the rules of out-of-date targets on several
+ *  threads at once.  A build first decides, as a Builder does, which
+ *  targets to rebuild and the times to give them, so that those
+ *  decisions are exactly the serial ones.  It then runs the rules of
+ *  the chosen targets on a pool of worker threads, releasing each
+ *  target once all of its prerequisites have finished: each target
+ *  keeps a count of its unfinished prerequisites, and finishing a
+ *  target decrements the counts of those that depend on it.  Each
+ *  target's output is collected whole and printed, in the order of the
+ *  serial build, as soon as it and all the targets before it have
+ *  finished, so that the output is that of a serial build.
+ *  @author Andrew Berger*/
+class ParallelBuilder extends Builder {
+    /** A new ParallelBuilder at SYSTEMTIME, running up to JOBS rules at
+     *  once.  Sends output to OUT. */
+    ParallelBuilder(int systemTime, PrintWriter out, int jobs) {
+        super(systemTime, out);
+        _jobs = jobs;
+        _out = out;
+    }
+
+    @Override
+    void build(Graph<Target, String> G,
+               List<Graph<Target, String>.Vertex> roots) {
+        _reached.clear();
+        _planned.clear();
+        super.build(G, roots);
+        run(G);
+    }
+
+    @Override
+    protected void postVisit(Graph<Target, String>.Vertex v) {
+        super.postVisit(v);
+        _reached.add(v);
+    }
+
+    @Override
+    void rebuild(Graph<Target, String>.Vertex v, int time) {
+        Target t = v.getLabel();
+        t.setTime(time);
+        t.exists();
+        _planned.put(v, _planned.size());
+    }
+
+    /** Runs the rules of the targets planned for rebuilding in G, each
+     *  once its prerequisites have finished, printing their output in
+     *  planned order. */
+    private void run(Graph<Target, String> G) {
+        HashMap<Graph<Target, String>.Vertex, Integer> pending =
+            new HashMap<Graph<Target, String>.Vertex, Integer>();
+        ArrayDeque<Graph<Target, String>.Vertex> finished =
+            new ArrayDeque<Graph<Target, String>.Vertex>();
+        final String[] output = new String[_planned.size()];
+        ExecutorService pool = Executors.newFixedThreadPool(_jobs);
+        CompletionService<Graph<Target, String>.Vertex> done =
+            new ExecutorCompletionService<Graph<Target, String>.Vertex>(pool);
+        int running = 0, printed = 0;
+        try {
+            for (Graph<Target, String>.Vertex v : _reached) {
+                pending.put(v, G.outDegree(v));
+            }
+            for (Graph<Target, String>.Vertex v : _reached) {
+                if (G.outDegree(v) == 0) {
+                    running += release(v, output, done, finished);
+                }
+            }
+            while (true) {
+                while (!finished.isEmpty()) {
+                    Graph<Target, String>.Vertex w = finished.remove();
+                    for (Graph<Target, String>.Edge e : G.inEdges(w)) {
+                        Graph<Target, String>.Vertex u = e.getV0();
+                        Integer count = pending.get(u);
+                        if (count == null) {
+                            continue;
+                        }
+                        pending.put(u, count - 1);
+                        if (count == 1) {
+                            running += release(u, output, done, finished);
+                        }
+                    }
+                }
+                while (printed < output.length && output[printed] != null) {
+                    _out.print(output[printed]);
+                    printed += 1;
+                }
+                _out.flush();
+                if (running == 0) {
+                    break;
+                }
+                finished.add(done.take().get());
+                running -= 1;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Releases V, all of whose prerequisites have finished: submits the
+     *  running of its rule to DONE, to store its output in OUTPUT, if it
+     *  is planned for rebuilding, and otherwise adds it to FINISHED.
+     *  Returns the number of rules submitted. */
+    private int release(final Graph<Target, String>.Vertex v,
+                        final String[] output,
+                        CompletionService<Graph<Target, String>.Vertex> done,
+                        ArrayDeque<Graph<Target, String>.Vertex> finished) {
+        final Integer k = _planned.get(v);
+        if (k == null) {
+            finished.add(v);
+            return 0;
+        }
+        done.submit(new Callable<Graph<Target, String>.Vertex>() {
+            @Override
+            public Graph<Target, String>.Vertex call() {
+                output[k] = v.getLabel().commands();
+                return v;
+            }
+        });
+        return 1;
+    }
+
+    /** The maximum number of rules run at once. */
+    private final int _jobs;
+    /** The standard output. */
+    private final PrintWriter _out;
+    /** The targets reached by the current build, prerequisites
+     *  first. */
+    private final ArrayList<Graph<Target, String>.Vertex> _reached =
+        new ArrayList<Graph<Target, String>.Vertex>();
+    /** The position of each target planned for rebuilding in the
+     *  serial order of rebuilding. */
+    private final HashMap<Graph<Target, String>.Vertex, Integer> _planned =
+        new HashMap<Graph<Target, String>.Vertex, Integer>();
+}
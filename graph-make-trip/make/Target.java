@@ -15,20 +15,17 @@ public class Target {
     public String execute(int currTime) {
         setTime(currTime);
         exists();
+        return commands();
+    }
+
+    /** Returns the commands of my rule. */
+    public String commands() {
         return _rule;
     }
 
     /** Set change date to TIME.*/
     public void setTime(int time) {
         _lastChanged = time;
-        if (time > _youngestAncestor) {
-            _youngestAncestor = time;
-        }
-    }
-
-    /** Sets the change date of the youngest ancestor to TIME. */
-    public void setAncestor(int time) {
-        _youngestAncestor = time;
     }
 
     /** Returns my change date. */
@@ -36,11 +33,6 @@ public class Target {
         return _lastChanged;
     }
 
-    /** Returns the change date of my youngest ancestor. */
-    public int youngest() {
-        return _youngestAncestor;
-    }
-
     /** Returns my name. */
     public String name() {
         return _name;
@@ -65,7 +57,5 @@ public class Target {
     private String _rule;
     /** True if I have been built.*/
     private boolean _exists;
-    /** The system time of the youngest ancestor. */
-    private int _youngestAncestor;
 
 }
@@ -5,10 +5,23 @@ package make;
  * may not be part of your make package per se (that is, it must be
  * possible to remove them and still have your package work). */
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Scanner;
+
 import org.junit.Test;
 import ucb.junit.textui;
 import static org.junit.Assert.*;
 
+import graph.Graph;
+
 /** Unit tests for the make package. */
 public class Testing {
 
@@ -22,4 +35,183 @@ public class Testing {
         assertEquals("I have no tests", true, true);
     }
 
+    /** Number of targets in the generated makefile. */
+    private static final int TARGETS = 300;
+    /** Number of prerequisites of each target. */
+    private static final int FANOUT = 3;
+    /** Discards error output. */
+    private static final PrintWriter ERR =
+        new PrintWriter(new StringWriter());
+
+    /** Returns the output of building target "t0" as described by
+     *  MAKEFILE and FILEINFO, running up to JOBS rules at once. */
+    private static String build(String makefile, String fileinfo, int jobs) {
+        return build(makefile, fileinfo, jobs, false, "t0");
+    }
+
+    /** Returns the output of building the targets named ROOTS as
+     *  described by MAKEFILE and FILEINFO, running up to JOBS rules at
+     *  once, with a separate traversal for each root iff SEPARATELY. */
+    private static String build(String makefile, String fileinfo, int jobs,
+                                boolean separately, String... roots) {
+        GraphBuilder maker = new GraphBuilder(new StringReader(makefile),
+                                              new Scanner(fileinfo), ERR);
+        return build(maker, maker.buildGraph(), jobs, separately, roots);
+    }
+
+    /** Returns the output of building the targets named ROOTS of G, the
+     *  graph built by MAKER, as for build(makefile, fileinfo, jobs,
+     *  separately, roots). */
+    private static String build(GraphBuilder maker, Graph<Target, String> g,
+                                int jobs, boolean separately,
+                                String... roots) {
+        StringWriter out = new StringWriter();
+        PrintWriter printer = new PrintWriter(out);
+        Builder builder = jobs > 1
+            ? new ParallelBuilder(maker.systemTime(), printer, jobs)
+            : new Builder(maker.systemTime(), printer);
+        ArrayList<Graph<Target, String>.Vertex> vs =
+            new ArrayList<Graph<Target, String>.Vertex>();
+        for (String root : roots) {
+            vs.add(maker.getVertex(root));
+            if (separately) {
+                builder.build(g, vs);
+                vs.clear();
+            }
+        }
+        builder.build(g, vs);
+        printer.flush();
+        return out.toString();
+    }
+
+    /** Returns a makefile of TARGETS targets, chosen by R.  Target i
+     *  depends on targets FANOUT * i + 1 to FANOUT * i + FANOUT, if they
+     *  exist, and on one later target chosen at random. */
+    private static String makefile(Random r) {
+        StringBuilder makefile = new StringBuilder();
+        for (int i = 0; i < TARGETS; i += 1) {
+            makefile.append("t" + i + ":");
+            for (int k = FANOUT * i + 1;
+                 k <= FANOUT * i + FANOUT && k < TARGETS; k += 1) {
+                makefile.append(" t" + k);
+            }
+            if (i + 1 < TARGETS) {
+                makefile.append(" t" + (i + 1 + r.nextInt(TARGETS - i - 1)));
+            }
+            makefile.append("\n\tbuild t" + i + "\n\tlink t" + i + "\n");
+        }
+        return makefile.toString();
+    }
+
+    /** Returns file information giving about two thirds of the targets
+     *  of a makefile() change dates chosen by R. */
+    private static String fileinfo(Random r) {
+        StringBuilder fileinfo = new StringBuilder(TARGETS + "\n");
+        for (int i = 0; i < TARGETS; i += 1) {
+            if (r.nextInt(3) > 0) {
+                fileinfo.append("t" + i + " " + r.nextInt(TARGETS) + "\n");
+            }
+        }
+        return fileinfo.toString();
+    }
+
+    @Test
+    public void parallelMatchesSerial() {
+        Random r = new Random(46);
+        String makefile = makefile(r), fileinfo = fileinfo(r);
+        String serial = build(makefile, fileinfo, 1);
+        assertTrue("nothing rebuilt", serial.contains("build"));
+        for (int jobs = 2; jobs <= 8; jobs *= 2) {
+            assertEquals("parallel build differs", serial,
+                         build(makefile, fileinfo, jobs));
+        }
+    }
+
+    @Test
+    public void multipleRoots() {
+        Random r = new Random(48);
+        String makefile = makefile(r), fileinfo = fileinfo(r);
+        String[] roots = { "t7", "t2", "t150", "t0", "t2" };
+        String separate = build(makefile, fileinfo, 1, true, roots);
+        assertTrue("nothing rebuilt", separate.contains("build"));
+        assertEquals("single pass differs", separate,
+                     build(makefile, fileinfo, 1, false, roots));
+        assertEquals("parallel single pass differs", separate,
+                     build(makefile, fileinfo, 4, false, roots));
+    }
+
+    @Test(expected = MakeFormatException.class)
+    public void cycle() {
+        build("t0: t1\n\tone\nt1: t2\n\ttwo\nt2: t0\n\tthree\n", "5\n", 1);
+    }
+
+    @Test
+    public void lexing() {
+        String makefile = "# comment\r\n"
+            + "all: a b\r\n"
+            + "\tlink all\r\n"
+            + "\r\n"
+            + "  # indented, so a command\n"
+            + "a:\r"
+            + "\tmake a\r"
+            + " \t \n"
+            + "b: a\n"
+            + "x=y: z\n"
+            + "\tmake b";
+        String nl = System.lineSeparator();
+        assertEquals("wrong rules",
+                     "\tmake a" + nl + "x=y: z" + nl + "\tmake b" + nl
+                     + "\tlink all" + nl + "  # indented, so a command" + nl,
+                     build(makefile, "1\n", 1, false, "all"));
+    }
+
+    /** A makefile that fails the test if it is read. */
+    private static final Reader UNREAD = new Reader() {
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            fail("makefile parsed despite cache");
+            return -1;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /** Returns the output of building "t0" from the makefile MAKEFILE, read
+     *  through IN, and FILEINFO, using the cache in FILE. */
+    private static String cachedBuild(String makefile, Reader in,
+                                      String fileinfo, File file) {
+        GraphBuilder maker = new GraphBuilder(in, new Scanner(fileinfo), ERR);
+        byte[] text = makefile.getBytes(StandardCharsets.UTF_8);
+        Graph<Target, String> g =
+            maker.buildGraph(new MakefileCache(file, text));
+        return build(maker, g, 1, false, "t0");
+    }
+
+    @Test
+    public void cache() throws IOException {
+        Random r = new Random(50);
+        String makefile = makefile(r), fileinfo = fileinfo(r);
+        File file = File.createTempFile("makefile", ".cache");
+        file.delete();
+        try {
+            String plain = build(makefile, fileinfo, 1);
+            assertTrue("root not rebuilt", plain.contains("build t0"));
+            assertEquals("first cached build differs", plain,
+                         cachedBuild(makefile, new StringReader(makefile),
+                                     fileinfo, file));
+            assertTrue("cache not saved", file.isFile());
+            assertEquals("cached build differs", plain,
+                         cachedBuild(makefile, UNREAD, fileinfo, file));
+            String changed = makefile.replace("build t0", "compile t0");
+            assertEquals("changed makefile not reparsed",
+                         build(changed, fileinfo, 1),
+                         cachedBuild(changed, new StringReader(changed),
+                                     fileinfo, file));
+        } finally {
+            file.delete();
+        }
+    }
+
 }
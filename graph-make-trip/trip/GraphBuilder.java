@@ -1,7 +1,6 @@
 package trip;
 
 import java.util.Scanner;
-import java.util.HashMap;
 import java.util.regex.Pattern;
 import java.util.ArrayList;
 
@@ -10,8 +9,10 @@ import java.io.PrintWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 
+import graph.AdaptiveGraph;
 import graph.Graph;
-import graph.UndirectedGraph;
+import graph.Graphs;
+import graph.Keying;
 
 /** A class for assembling graphs from map data.
  *  @author Andrew Berger */
@@ -26,7 +27,9 @@ public class GraphBuilder {
         Pattern spaces = Pattern.compile("\\s+");
         _map.useDelimiter(spaces);
         _err = err;
-        _locations = new HashMap<String, Graph<Place, Route>.Vertex>();
+        _graph = new AdaptiveGraph<Place, Route>(false);
+        _graph.indexLabels(PLACE_NAMES);
+        _graph.weighEdges(Graphs.LABEL_WEIGHTING);
     }
 
     /** Returns a graph built from our input.*/
@@ -34,7 +37,6 @@ public class GraphBuilder {
         int place = 0;
         PlaceBuilder location = null;
         RouteBuilder distance = null;
-        UndirectedGraph<Place, Route> g = new UndirectedGraph<Place, Route>();
         try {
             while (_map.hasNext()) {
                 if (location != null) {
@@ -54,11 +56,11 @@ public class GraphBuilder {
                     String target = _map.next();
                     switch (target) {
                     case "L":
-                        location = new PlaceBuilder(g);
+                        location = new PlaceBuilder(_graph);
                         place += 1;
                         break;
                     case "R":
-                        distance = new RouteBuilder(g);
+                        distance = new RouteBuilder(_graph);
                         place += 1;
                         break;
                     default:
@@ -72,7 +74,7 @@ public class GraphBuilder {
         } catch (MapFormatException e) {
             reportError(e);
         }
-        return g;
+        return _graph;
     }
 
     /** Builds LOCATION at PLACE.*/
@@ -80,7 +82,7 @@ public class GraphBuilder {
         switch (place) {
         case 1:
             String name = _map.next();
-            if (_locations.get(name) == null) {
+            if (_graph.lookup(name) == null) {
                 location.setName(name);
             } else {
                 throw new MapFormatException(name + " has already been added.");
@@ -96,7 +98,7 @@ public class GraphBuilder {
         case 3:
             if (_map.hasNextFloat()) {
                 location.setY(_map.nextFloat());
-                _locations.put(location.name(), location.build());
+                location.build();
                 location = null;
             } else {
                 throw new MapFormatException("Float expected");
@@ -117,7 +119,7 @@ public class GraphBuilder {
         switch (place) {
         case 1:
             String from = _map.next();
-            if (_locations.get(from) != null) {
+            if (_graph.lookup(from) != null) {
                 distance.setStart(from);
             } else {
                 throw new MapFormatException(from
@@ -145,7 +147,7 @@ public class GraphBuilder {
             break;
         case 5:
             String to = _map.next();
-            if (_locations.get(to) != null) {
+            if (_graph.lookup(to) != null) {
                 distance.setEnd(to);
                 distance.build();
                 distance = null;
@@ -237,7 +239,7 @@ public class GraphBuilder {
         public void build() {
             Route path = new Route(_name, _direction,  _dist);
             Graph<Place, Route>.Edge r =
-                _g.add(_locations.get(_from), _locations.get(_to), path);
+                _g.add(_g.lookup(_from), _g.lookup(_to), path);
         }
 
         /** Our graph. */
@@ -257,7 +259,7 @@ public class GraphBuilder {
 
     /** Returns the vertice of that NAME or null if it doesn't exist.*/
     public Graph<Place, Route>.Vertex getVertex(String name) {
-        return _locations.get(name);
+        return _graph.lookup(name);
     }
 
     /** Send an error message E to the user formed from arguments FORMAT
@@ -274,10 +276,17 @@ public class GraphBuilder {
 
     /** A scanner over our map data.*/
     private Scanner _map;
-    /** The set of declared locations.*/
-    private HashMap<String, Graph<Place, Route>.Vertex> _locations;
+    /** The graph we build, indexed by place name.*/
+    private Graph<Place, Route> _graph;
     /** The error output. */
     private PrintWriter _err;
 
+    /** Keys places by their names. */
+    private static final Keying<Place> PLACE_NAMES = new Keying<Place>() {
+        @Override
+        public Object key(Place p) {
+            return p.name();
+        }
+    };
 
 }
@@ -11,7 +11,6 @@ import java.util.Scanner;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.regex.Pattern;
-import java.util.HashSet;
 
 import graph.Graph;
 import graph.Graphs;
@@ -111,6 +110,9 @@ public final class Main {
                                  List<Graph<Place, Route>.Vertex>
                                  destinations) {
         List<Graph<Place, Route>.Edge> directions = getPath(destinations, map);
+        if (directions.isEmpty()) {
+            throw new MapFormatException("Trip goes nowhere");
+        }
         int step = 1;
         Graph<Place, Route>.Edge first = directions.get(0);
         Graph<Place, Route>.Vertex last = destinations.get(0);
@@ -163,26 +165,25 @@ public final class Main {
         _out.flush();
     }
 
-    /** Returns the shortest path between DESTINATIONS on MAP. */
+    /** Returns the shortest path between DESTINATIONS on MAP.  A
+     *  destination repeated immediately adds nothing to the path. */
     private static List<Graph<Place, Route>.Edge> getPath(
                        List<Graph<Place, Route>.Vertex> destinations,
                        Graph<Place, Route> map) {
         List<Graph<Place, Route>.Edge> directions =
             new ArrayList<Graph<Place, Route>.Edge>();
         for (int ind = 1; ind < destinations.size(); ind++) {
-            directions.addAll(Graphs.shortestPath(map,
-                  destinations.get(ind - 1), destinations.get(ind),
-                                                  new Distancer<Place>() {
-                        @Override
-                        public double dist(Place p1, Place p2) {
-                            double d1 = p1.coords()[0] - p2.coords()[0];
-                            double d2 = p1.coords()[1] - p2.coords()[1];
-                            d1 = Math.pow(d1, 2);
-                            d2 = Math.pow(d2, 2);
-                            double dotted = d1 + d2;
-                            return Math.pow(dotted, .5);
-                        }
-                    }));
+            Graph<Place, Route>.Vertex v0 = destinations.get(ind - 1),
+                v1 = destinations.get(ind);
+            if (v0.equals(v1)) {
+                continue;
+            }
+            List<Graph<Place, Route>.Edge> leg =
+                Graphs.cachedShortestPath(map, v0, v1, EUCLIDEAN);
+            if (leg == null) {
+                throw new MapFormatException("No path between requests");
+            }
+            directions.addAll(leg);
         }
         return directions;
     }
@@ -195,7 +196,6 @@ public final class Main {
         ArrayList<Graph<Place, Route>.Vertex> destinations =
             new ArrayList<Graph<Place, Route>.Vertex>();
         List<String> requestList = new ArrayList<String>();
-        HashSet<String> reqSet = new HashSet<String>();
         while (requests.hasNextLine()) {
             Scanner line = new Scanner(requests.nextLine());
             Pattern commaSpace = Pattern.compile(",\\s+");
@@ -205,20 +205,11 @@ public final class Main {
             }
         }
         for (String req : requestList) {
-            reqSet.add(req);
-            destinations.add(null);
-        }
-        for (Graph<Place, Route>.Vertex v : map.vertices()) {
-            String nodeName = v.getLabel().name();
-            if (reqSet.contains(nodeName)) {
-                int ind = requestList.indexOf(nodeName);
-                destinations.set(ind, v);
-            }
-        }
-        for (int i = 0; i < requestList.size(); i++) {
-            if (destinations.get(i) == null) {
+            Graph<Place, Route>.Vertex v = map.lookup(req);
+            if (v == null) {
                 throw new MapFormatException("Requests for nodes not in graph");
             }
+            destinations.add(v);
         }
         return destinations;
     }
@@ -233,6 +224,20 @@ public final class Main {
         System.exit(1);
     }
 
+    /** Straight-line distance between places, the heuristic for
+     *  getPath.  Shared so that repeated legs hit Graphs' path cache. */
+    private static final Distancer<Place> EUCLIDEAN = new Distancer<Place>() {
+        @Override
+        public double dist(Place p1, Place p2) {
+            double d1 = p1.coords()[0] - p2.coords()[0];
+            double d2 = p1.coords()[1] - p2.coords()[1];
+            d1 = Math.pow(d1, 2);
+            d2 = Math.pow(d2, 2);
+            double dotted = d1 + d2;
+            return Math.pow(dotted, .5);
+        }
+    };
+
     /** The standard error output.*/
     private static PrintWriter _err = new PrintWriter(System.err);
     /** The standard output.*/